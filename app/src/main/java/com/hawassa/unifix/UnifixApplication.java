@@ -2,6 +2,9 @@ package com.hawassa.unifix;
 import android.app.Application;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.database.FirebaseDatabase;
+import com.hawassa.unifix.shared.utils.DeltaSync;
+import com.hawassa.unifix.shared.utils.IdGenerator;
+import com.hawassa.unifix.shared.utils.ReportOutbox;
 
 public class UnifixApplication extends Application {
     @Override
@@ -20,5 +23,14 @@ public class UnifixApplication extends Application {
 
     private void initializeAppComponents() {
         // Initialize shared preferences, analytics, etc.
+
+        // Local caches for delta sync
+        DeltaSync.init(this);
+
+        // Align generated ids with the server clock
+        IdGenerator.syncClock();
+
+        // Make sure reports queued before a restart are still scheduled
+        ReportOutbox.resumeAll(this);
     }
 }
\ No newline at end of file
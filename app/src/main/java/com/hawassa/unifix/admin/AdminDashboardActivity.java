@@ -22,6 +22,7 @@ import com.hawassa.unifix.R;
 import com.hawassa.unifix.admin.adapters.AdminReportAdapter;
 import com.hawassa.unifix.auth.LoginActivity;
 import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
 import com.hawassa.unifix.shared.SettingsActivity;
 import java.util.ArrayList;
 import java.util.List;
@@ -29,6 +30,16 @@ import android.widget.ImageView;
 import com.google.android.material.snackbar.Snackbar;
 import com.hawassa.unifix.shared.NotificationsActivity;
 import com.hawassa.unifix.shared.utils.NotificationBadgeManager;
+import com.hawassa.unifix.shared.utils.ReportArchiveWorker;
+import com.hawassa.unifix.shared.utils.ReportChangesPruneWorker;
+import com.hawassa.unifix.shared.utils.ReportHistory;
+import com.hawassa.unifix.shared.utils.ReportRepository;
+import com.hawassa.unifix.shared.utils.ReportSummaries;
+import com.hawassa.unifix.shared.utils.ReportTransitions;
+import com.hawassa.unifix.shared.utils.RoleIndex;
+import com.hawassa.unifix.shared.utils.SlaEscalationWorker;
+import com.hawassa.unifix.shared.utils.SlaTimers;
+import com.hawassa.unifix.shared.utils.StatsCounters;
 
 public class AdminDashboardActivity extends AppCompatActivity
         implements AdminReportAdapter.OnAssignClickListener,
@@ -61,6 +72,11 @@ public class AdminDashboardActivity extends AppCompatActivity
     private AdminReportAdapter adminReportAdapter;
     private List<MaintenanceReport> reportList = new ArrayList<>();
 
+    // Shared report cache
+    private ReportRepository reportRepository;
+    private ReportRepository.ReportsListener recentReportsListener;
+    private ValueEventListener statsListener;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -98,6 +114,26 @@ public class AdminDashboardActivity extends AppCompatActivity
         updateWelcomeMessage();
         setupNotificationSystem();
 
+        // Admin devices watch for reports stuck past their SLA
+        SlaEscalationWorker.schedule(this);
+        // Give reports that were open before the timers existed a timer (runs once)
+        SlaTimers.backfill();
+        // ...and move old completed reports to the archive
+        ReportArchiveWorker.schedule(this);
+        // ...and trim change feed entries too old for any cache to replay
+        ReportChangesPruneWorker.schedule(this);
+        // ...and send status change follow-ups whose own write never landed
+        ReportTransitions.resumeFollowUps();
+
+        // Move status history written before reportHistory existed (runs once)
+        ReportHistory.migrateLegacy();
+        // Same for list summaries of reports from before reportSummaries
+        ReportSummaries.backfill();
+
+        // Index accounts from before roles/ existed; notifications to a role
+        // and the technician pickers read it (runs once)
+        RoleIndex.backfill();
+
     }
 
     private void initializeViews() {
@@ -200,6 +236,7 @@ public class AdminDashboardActivity extends AppCompatActivity
     private void setupFirebase() {
         reportsRef = FirebaseDatabase.getInstance().getReference("reports");
         usersRef = FirebaseDatabase.getInstance().getReference("users");
+        reportRepository = ReportRepository.getInstance();
     }
 
     private void updateWelcomeMessage() {
@@ -217,6 +254,7 @@ public class AdminDashboardActivity extends AppCompatActivity
         cardTaskAssignment.setOnClickListener(v -> {
             Intent intent = new Intent(this, TaskAssignmentActivity.class);
             intent.putExtra("adminUid", firebaseUid);
+            intent.putExtra("adminName", userName);
             startActivity(intent);
         });
 
@@ -225,6 +263,8 @@ public class AdminDashboardActivity extends AppCompatActivity
             // Create new AllReportsActivity or use existing
             Toast.makeText(this, "All Reports View coming soon", Toast.LENGTH_SHORT).show();
             Intent intent = new Intent(this, AllReportsActivity.class);
+            intent.putExtra("adminUid", firebaseUid);
+            intent.putExtra("adminName", userName);
             startActivity(intent);
         });
 
@@ -258,62 +298,51 @@ public class AdminDashboardActivity extends AppCompatActivity
     }
 
     private void loadDashboardStats() {
-        reportsRef.addValueEventListener(new ValueEventListener() {
+        // Counts reports from before the counters existed (runs once)
+        StatsCounters.backfill();
+
+        // Sharded counters: a few integers instead of the whole reports node
+        statsListener = StatsCounters.listen(StatsCounters.globalRef(), new StatsCounters.CountsListener() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                int total = 0, pending = 0, inProgress = 0, completed = 0;
-
-                for (DataSnapshot ds : snapshot.getChildren()) {
-                    MaintenanceReport report = ds.getValue(MaintenanceReport.class);
-                    if (report == null) continue;
-
-                    total++;
-                    switch (report.getStatus()) {
-                        case "Submitted":
-                            pending++;
-                            break;
-                        case "Assigned":
-                        case "In Progress":
-                            inProgress++;
-                            break;
-                        case "Completed":
-                            completed++;
-                            break;
-                    }
+            public void onCounts(StatsCounters.Counts counts, boolean seeded) {
+                if (!seeded) {
+                    // backfill() is still counting the older reports
+                    Log.d("ADMIN_STATS", "Counters not seeded yet");
                 }
 
-                tvTotalReports.setText(String.valueOf(total));
+                long pending = counts.get(ReportStatus.SUBMITTED);
+                long inProgress = counts.getActive();
+                long completed = counts.get(ReportStatus.COMPLETED);
+
+                tvTotalReports.setText(String.valueOf(counts.getTotal()));
                 tvPendingReports.setText(String.valueOf(pending));
                 tvInProgressReports.setText(String.valueOf(inProgress));
                 tvCompletedReports.setText(String.valueOf(completed));
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("ADMIN_STATS", "Error loading stats: " + error.getMessage());
+            public void onError(String message) {
+                Log.e("ADMIN_STATS", "Error loading stats: " + message);
             }
         });
     }
 
     private void loadRecentReports() {
-        reportsRef.limitToLast(5).addValueEventListener(new ValueEventListener() {
+        recentReportsListener = new ReportRepository.ReportsListener() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
+            public void onReportsChanged(List<MaintenanceReport> reports) {
                 reportList.clear();
-                for (DataSnapshot ds : snapshot.getChildren()) {
-                    MaintenanceReport report = ds.getValue(MaintenanceReport.class);
-                    if (report != null) {
-                        reportList.add(0, report); // newest first
-                    }
-                }
+                // Newest first, only the latest 5
+                reportList.addAll(reports.subList(0, Math.min(5, reports.size())));
                 adminReportAdapter.notifyDataSetChanged();
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("ADMIN_REPORTS", "Error loading reports: " + error.getMessage());
+            public void onError(String message) {
+                Log.e("ADMIN_REPORTS", "Error loading reports: " + message);
             }
-        });
+        };
+        reportRepository.subscribe(null, true, recentReportsListener);
     }
 
     @Override
@@ -335,18 +364,21 @@ public class AdminDashboardActivity extends AppCompatActivity
                 "This action cannot be undone.");
 
         builder.setPositiveButton("Delete", (dialog, which) -> {
-            // Delete from Firebase
-            DatabaseReference reportsRef = FirebaseDatabase.getInstance().getReference("reports");
+            // Delete from Firebase, together with its counters
             if (report.getReportId() != null) {
-                reportsRef.child(report.getReportId()).removeValue()
-                        .addOnSuccessListener(aVoid -> {
-                            Toast.makeText(this, "Report deleted successfully",
-                                    Toast.LENGTH_SHORT).show();
-                        })
-                        .addOnFailureListener(e -> {
-                            Toast.makeText(this, "Failed to delete: " + e.getMessage(),
-                                    Toast.LENGTH_SHORT).show();
-                        });
+                ReportTransitions.delete(report, new ReportTransitions.CommitListener() {
+                    @Override
+                    public void onCommitted() {
+                        Toast.makeText(AdminDashboardActivity.this, "Report deleted successfully",
+                                Toast.LENGTH_SHORT).show();
+                    }
+
+                    @Override
+                    public void onFailure(String message) {
+                        Toast.makeText(AdminDashboardActivity.this, "Failed to delete: " + message,
+                                Toast.LENGTH_SHORT).show();
+                    }
+                });
             }
         });
 
@@ -356,6 +388,22 @@ public class AdminDashboardActivity extends AppCompatActivity
 
     @Override
     public void onViewDetailsClick(MaintenanceReport report) {
+        // List items are summaries; fetch the whole report for the dialog
+        ReportSummaries.loadFull(report.getReportId(), new ReportSummaries.ReportListener() {
+            @Override
+            public void onReport(MaintenanceReport fullReport) {
+                showReportDetails(fullReport);
+            }
+
+            @Override
+            public void onError(String message) {
+                Toast.makeText(AdminDashboardActivity.this,
+                        "Failed to load report: " + message, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void showReportDetails(MaintenanceReport report) {
         // Navigate to report details
         // For now, show a dialog with details
         androidx.appcompat.app.AlertDialog.Builder builder = new androidx.appcompat.app.AlertDialog.Builder(this);
@@ -405,5 +453,11 @@ public class AdminDashboardActivity extends AppCompatActivity
         if (notificationBadgeManager != null) {
             notificationBadgeManager.stopListening();
         }
+        if (reportRepository != null) {
+            reportRepository.unsubscribe(recentReportsListener);
+        }
+        if (statsListener != null) {
+            StatsCounters.globalRef().removeEventListener(statsListener);
+        }
     }
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import android.content.DialogInterface;
 import android.content.Intent;
 import android.os.Bundle;
 import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -18,6 +20,14 @@ import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.admin.adapters.AdminReportAdapter;
 import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
+import com.hawassa.unifix.shared.utils.BulkOperations;
+import com.hawassa.unifix.shared.utils.DuplicateDetector;
+import com.hawassa.unifix.shared.utils.ModelMappers;
+import com.hawassa.unifix.shared.utils.PagedWindow;
+import com.hawassa.unifix.shared.utils.ReportSummaries;
+import com.hawassa.unifix.shared.utils.ReportTransitions;
+import com.hawassa.unifix.shared.utils.RoleIndex;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -27,32 +37,57 @@ public class AllReportsActivity extends AppCompatActivity
         AdminReportAdapter.OnDeleteClickListener,
         AdminReportAdapter.OnViewDetailsClickListener {
 
+    // Reports per page, and how many pages stay attached at once
+    private static final int PAGE_SIZE = 25;
+    private static final int MAX_PAGES = 4;
+    // Rows from either end of the list at which the next page is fetched
+    private static final int PREFETCH_DISTANCE = 8;
+
     private RecyclerView rvAllReports;
     private MaterialToolbar toolbar;
     private MaterialButtonToggleGroup filterToggleGroup;
-    private DatabaseReference reportsRef;
     private AdminReportAdapter reportAdapter;
     private List<MaintenanceReport> reportList = new ArrayList<>();
     private List<MaintenanceReport> filteredList = new ArrayList<>();
     private String currentFilter = "ALL"; // ALL, ASSIGNED, IN_PROGRESS, COMPLETED
+    private PagedWindow<MaintenanceReport> reportWindow;
+
+    // Multi-select
+    private View bulkActionBar;
+    private TextView tvSelectedCount;
+    private ProgressBar bulkProgress;
+    private boolean bulkRunning = false;
+    private String adminId, adminName;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_all_reports);
 
+        adminId = getIntent().getStringExtra("adminUid");
+        adminName = getIntent().getStringExtra("adminName");
+        if (adminName == null) adminName = "Administrator";
+
         initializeViews();
         setupToolbar();
         setupRecyclerView();
-        setupFirebase();
-        loadAllReports();
+        // Full reports stand in until the summaries have been backfilled
+        ReportSummaries.whenReady(source -> {
+            if (isFinishing() || isDestroyed()) return;
+            setupPaging(source);
+            loadAllReports();
+        });
         setupFilterButtons();
+        setupBulkActions();
     }
 
     private void initializeViews() {
         toolbar = findViewById(R.id.toolbar);
         rvAllReports = findViewById(R.id.rvAllReports);
         filterToggleGroup = findViewById(R.id.filterToggleGroup);
+        bulkActionBar = findViewById(R.id.bulkActionBar);
+        tvSelectedCount = findViewById(R.id.tvSelectedCount);
+        bulkProgress = findViewById(R.id.bulkProgress);
     }
 
     private void setupToolbar() {
@@ -63,12 +98,19 @@ public class AllReportsActivity extends AppCompatActivity
 
     private void setupRecyclerView() {
         reportAdapter = new AdminReportAdapter(filteredList, this, this, this);
+        reportAdapter.setOnSelectionChangedListener(count -> {
+            bulkActionBar.setVisibility(count > 0 || bulkRunning ? View.VISIBLE : View.GONE);
+            tvSelectedCount.setText(count + " selected");
+        });
         rvAllReports.setLayoutManager(new LinearLayoutManager(this));
         rvAllReports.setAdapter(reportAdapter);
     }
 
-    private void setupFirebase() {
-        reportsRef = FirebaseDatabase.getInstance().getReference("reports");
+    private void setupPaging(ReportSummaries.Source source) {
+        // Newest first by (timestamp, key); only a few pages are live at a time
+        reportWindow = new PagedWindow<>(source.ref().orderByChild("timestamp"), "timestamp",
+                ModelMappers::toReport, PAGE_SIZE, MAX_PAGES);
+        rvAllReports.addOnScrollListener(new PagedWindow.Prefetcher(reportWindow, PREFETCH_DISTANCE));
     }
 
     private void setupFilterButtons() {
@@ -92,56 +134,66 @@ public class AllReportsActivity extends AppCompatActivity
     }
 
     private void loadAllReports() {
-        reportsRef.addValueEventListener(new ValueEventListener() {
+        reportWindow.start(new PagedWindow.Listener<MaintenanceReport>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
+            public void onWindowChanged(List<MaintenanceReport> reports) {
                 reportList.clear();
-                for (DataSnapshot ds : snapshot.getChildren()) {
-                    MaintenanceReport report = ds.getValue(MaintenanceReport.class);
-                    if (report != null) {
-                        reportList.add(0, report); // newest first
-                    }
-                }
+                reportList.addAll(reports); // already newest first
                 applyFilter(); // Apply filter after loading
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
+            public void onLoadingChanged(boolean loading) {
+                if (!loading) fillScreen();
+            }
+
+            @Override
+            public void onError(String message) {
                 Toast.makeText(AllReportsActivity.this,
-                        "Failed to load reports: " + error.getMessage(), Toast.LENGTH_SHORT).show();
+                        "Failed to load reports: " + message, Toast.LENGTH_SHORT).show();
             }
         });
     }
 
+    // A narrow filter can leave too few rows to scroll, so keep paging until
+    // the screen is filled, there is nothing older or the window starts sliding
+    private void fillScreen() {
+        if (filteredList.size() < PAGE_SIZE && reportWindow.hasOlder() && !reportWindow.hasNewer()) {
+            reportWindow.loadOlder();
+        }
+    }
+
     private void applyFilter() {
-        filteredList.clear();
+        List<MaintenanceReport> matches = new ArrayList<>();
 
         if (currentFilter.equals("ALL")) {
-            filteredList.addAll(reportList);
+            matches.addAll(reportList);
         } else {
             for (MaintenanceReport report : reportList) {
-                String status = report.getStatus() != null ? report.getStatus() : "";
+                ReportStatus status = ReportStatus.fromString(report.getStatus());
+                if (status == null) continue;
 
                 if (currentFilter.equals("ASSIGNED") &&
-                        (status.equals("Assigned") || status.equals("Submitted"))) {
-                    filteredList.add(report);
+                        (status == ReportStatus.ASSIGNED || status == ReportStatus.SUBMITTED)) {
+                    matches.add(report);
                 } else if (currentFilter.equals("IN_PROGRESS") &&
-                        (status.equals("In Progress") || status.equals("On Hold") ||
-                                status.equals("Acknowledged"))) {
-                    filteredList.add(report);
+                        (status == ReportStatus.IN_PROGRESS || status == ReportStatus.ON_HOLD ||
+                                status == ReportStatus.ACKNOWLEDGED)) {
+                    matches.add(report);
                 } else if (currentFilter.equals("COMPLETED") &&
-                        status.equals("Completed")) {
-                    filteredList.add(report);
+                        status == ReportStatus.COMPLETED) {
+                    matches.add(report);
                 }
             }
         }
-        reportAdapter.notifyDataSetChanged();
+        reportAdapter.submitList(matches);
+        fillScreen();
     }
 
     @Override
     public void onAssignClick(MaintenanceReport report) {
         // Only allow assignment for submitted reports
-        if (!"Submitted".equals(report.getStatus())) {
+        if (ReportStatus.fromString(report.getStatus()) != ReportStatus.SUBMITTED) {
             Toast.makeText(this, "Cannot assign this report. Status: " + report.getStatus(),
                     Toast.LENGTH_SHORT).show();
             return;
@@ -177,19 +229,211 @@ public class AllReportsActivity extends AppCompatActivity
 
     private void deleteReport(MaintenanceReport report) {
         if (report.getReportId() != null) {
-            reportsRef.child(report.getReportId()).removeValue()
-                    .addOnSuccessListener(aVoid -> {
-                        Toast.makeText(this, "Report deleted successfully", Toast.LENGTH_SHORT).show();
-                    })
-                    .addOnFailureListener(e -> {
-                        Toast.makeText(this, "Failed to delete report: " + e.getMessage(),
+            ReportTransitions.delete(report, new ReportTransitions.CommitListener() {
+                @Override
+                public void onCommitted() {
+                    Toast.makeText(AllReportsActivity.this, "Report deleted successfully",
+                            Toast.LENGTH_SHORT).show();
+                }
+
+                @Override
+                public void onFailure(String message) {
+                    Toast.makeText(AllReportsActivity.this, "Failed to delete report: " + message,
+                            Toast.LENGTH_SHORT).show();
+                }
+            });
+        }
+    }
+
+    private void setupBulkActions() {
+        findViewById(R.id.btnSelectAll).setOnClickListener(v -> reportAdapter.selectAll());
+        findViewById(R.id.btnClearSelection).setOnClickListener(v -> reportAdapter.clearSelection());
+        findViewById(R.id.btnBulkAssign).setOnClickListener(v -> chooseTechnicianForBulk());
+        findViewById(R.id.btnBulkClose).setOnClickListener(v -> chooseCloseStatusForBulk());
+        findViewById(R.id.btnBulkMerge).setOnClickListener(v -> choosePrimaryForMerge());
+        findViewById(R.id.btnBulkDelete).setOnClickListener(v -> confirmBulkDelete());
+    }
+
+    private void chooseTechnicianForBulk() {
+        List<MaintenanceReport> selected = reportAdapter.getSelectedReports();
+        if (selected.isEmpty() || bulkRunning) return;
+
+        RoleIndex.getMembers("staff", new RoleIndex.MembersListener() {
+            @Override
+            public void onMembers(List<RoleIndex.Member> members) {
+                List<RoleIndex.Member> technicians = new ArrayList<>();
+                for (RoleIndex.Member member : members) {
+                    if (member.isActive()) technicians.add(member);
+                }
+                if (technicians.isEmpty()) {
+                    Toast.makeText(AllReportsActivity.this, "No active technicians",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+
+                String[] names = new String[technicians.size()];
+                for (int i = 0; i < technicians.size(); i++) {
+                    names[i] = technicians.get(i).name + " (" + technicians.get(i).userId + ")";
+                }
+
+                new AlertDialog.Builder(AllReportsActivity.this)
+                        .setTitle("Assign " + selected.size() + " reports to")
+                        .setItems(names, (dialog, which) -> {
+                            RoleIndex.Member technician = technicians.get(which);
+                            runBulk(BulkOperations.assign(selected, technician.uid, technician.name,
+                                    adminId, adminName), "Assigned");
+                        })
+                        .setNegativeButton("Cancel", null)
+                        .show();
+            }
+
+            @Override
+            public void onError(String message) {
+                Toast.makeText(AllReportsActivity.this,
+                        "Failed to load technicians: " + message, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void chooseCloseStatusForBulk() {
+        List<MaintenanceReport> selected = reportAdapter.getSelectedReports();
+        if (selected.isEmpty() || bulkRunning) return;
+
+        ReportStatus[] choices = {ReportStatus.COMPLETED, ReportStatus.CANCELLED};
+        String[] labels = {choices[0].getLabel(), choices[1].getLabel()};
+
+        new AlertDialog.Builder(this)
+                .setTitle("Close " + selected.size() + " reports as")
+                .setItems(labels, (dialog, which) ->
+                        runBulk(BulkOperations.close(selected, choices[which], adminId, adminName),
+                                choices[which].getLabel()))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Duplicates are folded into the report the admin picks to keep
+    private void choosePrimaryForMerge() {
+        List<MaintenanceReport> selected = reportAdapter.getSelectedReports();
+        if (bulkRunning) return;
+        if (selected.size() < 2) {
+            Toast.makeText(this, "Select at least two reports to merge", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        String[] labels = new String[selected.size()];
+        for (int i = 0; i < selected.size(); i++) {
+            MaintenanceReport report = selected.get(i);
+            labels[i] = report.getCategory() + " · " + report.getBuildingBlock() + ", Room " +
+                    report.getRoomNumber() + " (" + report.getStatus() + ")";
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle("Keep which report?")
+                .setItems(labels, (dialog, which) -> {
+                    MaintenanceReport primary = selected.get(which);
+                    List<MaintenanceReport> duplicates = new ArrayList<>(selected);
+                    duplicates.remove(which);
+                    mergeReports(primary, duplicates);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void mergeReports(MaintenanceReport primary, List<MaintenanceReport> duplicates) {
+        DuplicateDetector.merge(primary, duplicates, adminId, adminName,
+                new ReportTransitions.CommitListener() {
+                    @Override
+                    public void onCommitted() {
+                        Toast.makeText(AllReportsActivity.this, "Merged " + duplicates.size() +
+                                " reports", Toast.LENGTH_SHORT).show();
+                        reportAdapter.clearSelection();
+                    }
+
+                    @Override
+                    public void onFailure(String message) {
+                        Toast.makeText(AllReportsActivity.this, "Merge failed: " + message,
                                 Toast.LENGTH_SHORT).show();
-                    });
+                    }
+                });
+    }
+
+    private void confirmBulkDelete() {
+        List<MaintenanceReport> selected = reportAdapter.getSelectedReports();
+        if (selected.isEmpty() || bulkRunning) return;
+
+        new AlertDialog.Builder(this)
+                .setTitle("Delete Reports")
+                .setMessage("Delete " + selected.size() + " reports?\n\nThis action cannot be undone.")
+                .setPositiveButton("Delete", (dialog, which) ->
+                        runBulk(BulkOperations.delete(selected), "Deleted"))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void runBulk(BulkOperations operation, String doneVerb) {
+        bulkRunning = true;
+        bulkProgress.setProgress(0);
+        bulkProgress.setVisibility(View.VISIBLE);
+
+        operation.run(new BulkOperations.ProgressListener() {
+            @Override
+            public void onProgress(int done, int total) {
+                bulkProgress.setMax(Math.max(total, 1));
+                bulkProgress.setProgress(done);
+                tvSelectedCount.setText(done + " / " + total);
+            }
+
+            @Override
+            public void onFinished(BulkOperations.Result result) {
+                bulkRunning = false;
+                bulkProgress.setVisibility(View.GONE);
+
+                String message = doneVerb + " " + result.succeeded + " reports";
+                if (!result.followUpPending.isEmpty()) {
+                    message += " (" + result.followUpPending.size() + " still updating)";
+                }
+                if (!result.skipped.isEmpty()) {
+                    message += ", " + result.skipped.size() + " skipped";
+                }
+                if (!result.failed.isEmpty()) {
+                    message += ", " + result.failed.size() + " failed: " + result.lastError;
+                }
+                Toast.makeText(AllReportsActivity.this, message, Toast.LENGTH_LONG).show();
+
+                reportAdapter.clearSelection();
+                bulkActionBar.setVisibility(View.GONE);
+            }
+        });
+    }
+
+    @Override
+    public void onBackPressed() {
+        // Back leaves multi-select first
+        if (reportAdapter.isSelecting() && !bulkRunning) {
+            reportAdapter.clearSelection();
+            return;
         }
+        super.onBackPressed();
     }
 
     @Override
     public void onViewDetailsClick(MaintenanceReport report) {
+        // List items are summaries; fetch the whole report for the dialog
+        ReportSummaries.loadFull(report.getReportId(), new ReportSummaries.ReportListener() {
+            @Override
+            public void onReport(MaintenanceReport fullReport) {
+                showReportDetails(fullReport);
+            }
+
+            @Override
+            public void onError(String message) {
+                Toast.makeText(AllReportsActivity.this,
+                        "Failed to load report: " + message, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void showReportDetails(MaintenanceReport report) {
         // Navigate to report details activity
         // For now, show a dialog with details
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
@@ -210,4 +454,10 @@ public class AllReportsActivity extends AppCompatActivity
                 .setPositiveButton("OK", null)
                 .show();
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (reportWindow != null) reportWindow.stop();
+    }
+}
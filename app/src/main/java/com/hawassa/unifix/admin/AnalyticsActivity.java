@@ -15,9 +15,9 @@ import com.github.mikephil.charting.data.*;
 import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
 import com.github.mikephil.charting.utils.ColorTemplate;
 import com.google.android.material.appbar.MaterialToolbar;
-import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.shared.utils.ReportRepository;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
@@ -25,8 +25,8 @@ public class AnalyticsActivity extends AppCompatActivity {
     private BarChart barChart;
     private PieChart pieChart;
     private TextView tvTotalReports, tvBusiestDay, tvCompletionRate, tvAvgResolutionTime;
-    private DatabaseReference reportsRef;
     private List<MaintenanceReport> allReports = new ArrayList<>();
+    private ReportRepository.ReportsListener reportsListener;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -38,7 +38,6 @@ public class AnalyticsActivity extends AppCompatActivity {
 
         try {
             initializeViews();
-            reportsRef = FirebaseDatabase.getInstance().getReference("reports");
             loadReportsForAnalytics();
         } catch (Exception e) {
             Log.e("AnalyticsActivity", "Error in onCreate: " + e.getMessage(), e);
@@ -119,17 +118,12 @@ public class AnalyticsActivity extends AppCompatActivity {
     }
 
     private void loadReportsForAnalytics() {
-        reportsRef.addValueEventListener(new ValueEventListener() {
+        reportsListener = new ReportRepository.ReportsListener() {
             @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
+            public void onReportsChanged(List<MaintenanceReport> reports) {
                 try {
                     allReports.clear();
-                    for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                        MaintenanceReport report = snapshot.getValue(MaintenanceReport.class);
-                        if (report != null) {
-                            allReports.add(report);
-                        }
-                    }
+                    allReports.addAll(reports);
                     updateAnalyticsUI();
                     createCharts();
                 } catch (Exception e) {
@@ -138,11 +132,18 @@ public class AnalyticsActivity extends AppCompatActivity {
             }
 
             @Override
-            public void onCancelled(DatabaseError databaseError) {
-                Log.e("AnalyticsActivity", "Database error: " + databaseError.getMessage());
+            public void onError(String message) {
+                Log.e("AnalyticsActivity", "Database error: " + message);
                 Toast.makeText(AnalyticsActivity.this, "Failed to load data", Toast.LENGTH_SHORT).show();
             }
-        });
+        };
+        ReportRepository.getInstance().subscribe(reportsListener);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        ReportRepository.getInstance().unsubscribe(reportsListener);
     }
 
     private void updateAnalyticsUI() {
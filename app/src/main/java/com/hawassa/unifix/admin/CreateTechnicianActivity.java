@@ -12,6 +12,7 @@ import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.User;
+import com.hawassa.unifix.shared.utils.RoleIndex;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -120,8 +121,11 @@ public class CreateTechnicianActivity extends AppCompatActivity {
         Log.d("CREATE_TECH", "Email: " + authEmail);
         Log.d("CREATE_TECH", "Role: " + "staff");
 
-        // Save User object to Firebase Database
-        usersRef.child(firebaseUid).setValue(technicianUser)
+        // Save User object and its "staff" role index entry in one write
+        Map<String, Object> userUpdates = new HashMap<>();
+        RoleIndex.putUser(userUpdates, firebaseUid, technicianUser);
+
+        FirebaseDatabase.getInstance().getReference().updateChildren(userUpdates)
                 .addOnSuccessListener(aVoid -> {
                     Log.d("CREATE_TECH", "✅ User object saved to users/" + firebaseUid);
 
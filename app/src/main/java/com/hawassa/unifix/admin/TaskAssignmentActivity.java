@@ -11,18 +11,33 @@ import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.admin.adapters.AdminReportAdapter;
 import com.hawassa.unifix.models.MaintenanceReport;
-import com.hawassa.unifix.models.User;
+import com.hawassa.unifix.models.ReportStatus;
+import com.hawassa.unifix.shared.utils.BulkOperations;
+import com.hawassa.unifix.shared.utils.ChildSyncEngine;
+import com.hawassa.unifix.shared.utils.IndexedPriorityQueue;
 import com.hawassa.unifix.shared.utils.NotificationUtils;
+import com.hawassa.unifix.shared.utils.PriorityScorer;
+import com.hawassa.unifix.shared.utils.ReportRepository;
+import com.hawassa.unifix.shared.utils.ReportTransitions;
+import com.hawassa.unifix.shared.utils.RoleIndex;
 import java.util.*;
 
 public class TaskAssignmentActivity extends AppCompatActivity {
+    private static final ReportRepository.ReportFilter PENDING =
+            report -> ReportStatus.fromString(report.getStatus()) == ReportStatus.SUBMITTED;
+
     private RecyclerView rvReports;
     private Spinner spTechnicians;
-    private Map<String, User> techniciansMap = new HashMap<>(); // Firebase UID -> User
+    private Button btnAssign;
+    private List<RoleIndex.Member> technicianList = new ArrayList<>(); // Same order as the spinner, minus the hint
     private List<MaintenanceReport> reportList = new ArrayList<>();
     private AdminReportAdapter adapter;
-    private DatabaseReference reportsRef, usersRef;
+    private DatabaseReference reportsRef;
     private String adminId, adminName;
+    private ReportRepository.ChangesListener pendingReportsListener;
+    private ValueEventListener techniciansListener;
+    private final PriorityScorer priorityScorer = new PriorityScorer();
+    private IndexedPriorityQueue<MaintenanceReport> pendingQueue;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -43,6 +58,7 @@ public class TaskAssignmentActivity extends AppCompatActivity {
     private void initializeViews() {
         rvReports = findViewById(R.id.rvReports);
         spTechnicians = findViewById(R.id.spinnerTechnicians);
+        btnAssign = findViewById(R.id.btnAssign);
 
         // Set up adapter with lambda for assignment
         adapter = new AdminReportAdapter(reportList, report -> assignTaskToTechnician(report),
@@ -50,70 +66,155 @@ public class TaskAssignmentActivity extends AppCompatActivity {
                 null);
         rvReports.setLayoutManager(new LinearLayoutManager(this));
         rvReports.setAdapter(adapter);
+
+        // Long-press reports to select several, then assign them together
+        adapter.setOnSelectionChangedListener(count ->
+                btnAssign.setText(count > 0 ? "Assign " + count + " Selected" : "Assign Task"));
+        btnAssign.setOnClickListener(v -> assignSelectedReports());
     }
 
     private void setupFirebase() {
         reportsRef = FirebaseDatabase.getInstance().getReference("reports");
-        usersRef = FirebaseDatabase.getInstance().getReference("users");
     }
 
     private void loadPendingReports() {
-        reportsRef.orderByChild("status").equalTo("Submitted")
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                        reportList.clear();
-                        for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                            MaintenanceReport report = snapshot.getValue(MaintenanceReport.class);
-                            if (report != null) {
-                                reportList.add(report);
-                            }
-                        }
-                        adapter.notifyDataSetChanged();
-                        Log.d("TASK_ASSIGN", "Loaded " + reportList.size() + " pending reports");
-                    }
+        // Most urgent first; the queue moves only the reports that changed
+        pendingQueue = new IndexedPriorityQueue<>(new ChildSyncEngine.Callback<MaintenanceReport>() {
+            @Override
+            public void onInserted(int position, MaintenanceReport report) {
+                reportList.add(position, report);
+                adapter.notifyItemInserted(position);
+            }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError databaseError) {
-                        Log.e("TASK_ASSIGN", "Failed to load reports: " + databaseError.getMessage());
-                    }
-                });
+            @Override
+            public void onUpdated(int position, MaintenanceReport report) {
+                reportList.set(position, report);
+                adapter.notifyItemChanged(position);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition, MaintenanceReport report) {
+                reportList.add(toPosition, reportList.remove(fromPosition));
+                adapter.notifyItemMoved(fromPosition, toPosition);
+            }
+
+            @Override
+            public void onRemoved(int position, MaintenanceReport report) {
+                reportList.remove(position);
+                adapter.notifyItemRemoved(position);
+            }
+        });
+
+        pendingReportsListener = new ReportRepository.ChangesListener() {
+            @Override
+            public void onReportsLoaded(List<MaintenanceReport> reports) {
+                rebuildPendingQueue(reports);
+                Log.d("TASK_ASSIGN", "Loaded " + reportList.size() + " pending reports");
+            }
+
+            @Override
+            public void onReportChanged(MaintenanceReport report) {
+                Set<String> affected = priorityScorer.updateRoomHistory(report);
+                if (PENDING.matches(report)) {
+                    rerank(report);
+                } else {
+                    pendingQueue.remove(report.getReportId());
+                }
+                rerank(affected);
+            }
+
+            @Override
+            public void onReportRemoved(MaintenanceReport report) {
+                Set<String> affected = priorityScorer.removeFromRoomHistory(report);
+                pendingQueue.remove(report.getReportId());
+                rerank(affected);
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e("TASK_ASSIGN", "Failed to load reports: " + message);
+            }
+        };
+        ReportRepository.getInstance().subscribeChanges(pendingReportsListener);
+
+        PriorityScorer.loadFlaggedReporters(reporterIds -> {
+            priorityScorer.setFlaggedReporters(reporterIds);
+            for (String key : pendingQueue.keys()) {
+                rerank(pendingQueue.getByKey(key));
+            }
+        });
     }
 
-    private void loadTechnicians() {
-        usersRef.orderByChild("role").equalTo("staff") // Your technicians have "staff" role
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                        techniciansMap.clear();
-                        List<String> technicianNames = new ArrayList<>();
-                        technicianNames.add("Select Technician"); // Default option
-
-                        for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                            User technician = snapshot.getValue(User.class);
-                            if (technician != null && "active".equals(technician.getStatus())) {
-                                String firebaseUid = snapshot.getKey(); // This is the Firebase UID
-                                techniciansMap.put(firebaseUid, technician);
-                                technicianNames.add(technician.getName() + " (" + technician.getUserId() + ")");
-                            }
-                        }
+    // Full pass, only when the cache (re)loads
+    private void rebuildPendingQueue(List<MaintenanceReport> reports) {
+        // Room history comes from every cached report, not just pending ones
+        priorityScorer.setRoomHistory(reports);
+
+        Set<String> pendingIds = new HashSet<>();
+        for (MaintenanceReport report : reports) {
+            if (PENDING.matches(report)) {
+                pendingIds.add(report.getReportId());
+                rerank(report);
+            }
+        }
+        for (String key : pendingQueue.keys()) {
+            if (!pendingIds.contains(key)) {
+                pendingQueue.remove(key);
+            }
+        }
+    }
 
-                        ArrayAdapter<String> spinnerAdapter = new ArrayAdapter<>(
-                                TaskAssignmentActivity.this,
-                                android.R.layout.simple_spinner_item,
-                                technicianNames
-                        );
-                        spinnerAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
-                        spTechnicians.setAdapter(spinnerAdapter);
+    // Reports that share a room with a changed one; only pending ones are queued
+    private void rerank(Set<String> reportIds) {
+        for (String reportId : reportIds) {
+            MaintenanceReport queued = pendingQueue.getByKey(reportId);
+            if (queued != null) {
+                rerank(queued);
+            }
+        }
+    }
 
-                        Log.d("TASK_ASSIGN", "Loaded " + techniciansMap.size() + " active technicians");
-                    }
+    private void rerank(MaintenanceReport report) {
+        double rank = priorityScorer.rank(report);
+        Double current = pendingQueue.getPriority(report.getReportId());
+        // Unchanged reports keep the same instance and rank
+        if (current == null || current != rank || pendingQueue.getByKey(report.getReportId()) != report) {
+            pendingQueue.upsert(report.getReportId(), report, rank);
+        }
+    }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError databaseError) {
-                        Log.e("TASK_ASSIGN", "Failed to load technicians: " + databaseError.getMessage());
+    private void loadTechnicians() {
+        // Your technicians have "staff" role; read them from the compact role index
+        techniciansListener = RoleIndex.listen("staff", new RoleIndex.MembersListener() {
+            @Override
+            public void onMembers(List<RoleIndex.Member> members) {
+                technicianList.clear();
+                List<String> technicianNames = new ArrayList<>();
+                technicianNames.add("Select Technician"); // Default option
+
+                for (RoleIndex.Member technician : members) {
+                    if (technician.isActive()) {
+                        technicianList.add(technician);
+                        technicianNames.add(technician.name + " (" + technician.userId + ")");
                     }
-                });
+                }
+
+                ArrayAdapter<String> spinnerAdapter = new ArrayAdapter<>(
+                        TaskAssignmentActivity.this,
+                        android.R.layout.simple_spinner_item,
+                        technicianNames
+                );
+                spinnerAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+                spTechnicians.setAdapter(spinnerAdapter);
+
+                Log.d("TASK_ASSIGN", "Loaded " + technicianList.size() + " active technicians");
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e("TASK_ASSIGN", "Failed to load technicians: " + message);
+            }
+        });
     }
 
     private void assignTaskToTechnician(MaintenanceReport report) {
@@ -123,116 +224,124 @@ public class TaskAssignmentActivity extends AppCompatActivity {
             return;
         }
 
-        String selectedText = spTechnicians.getSelectedItem().toString();
-        String technicianId = getTechnicianIdFromSelection(selectedText);
-
-        if (technicianId != null && techniciansMap.containsKey(technicianId)) {
-            User technician = techniciansMap.get(technicianId);
-
-            // Create update map
-            Map<String, Object> updates = new HashMap<>();
-            updates.put("status", "Assigned");
-            updates.put("assignedTechnicianId", technicianId);
-            updates.put("assignedTechnicianName", technician.getName());
-
-            // Update the report
-            reportsRef.child(report.getReportId()).updateChildren(updates)
-                    .addOnSuccessListener(aVoid -> {
-                        Log.d("TASK_ASSIGN", "✅ Report assigned: " + report.getReportId() +
-                                " to " + technician.getName());
-
-                        // Send notifications using NotificationUtils
-                        sendNotifications(report, technician, technicianId);
-
-                        Toast.makeText(this, "✅ Task assigned to " + technician.getName(),
-                                Toast.LENGTH_SHORT).show();
-                    })
-                    .addOnFailureListener(e -> {
-                        Toast.makeText(this, "❌ Assignment failed: " + e.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                        Log.e("TASK_ASSIGN", "Assignment failed: " + e.getMessage());
-                    });
+        // Spinner position 1..n maps straight onto technicianList
+        if (selectedPosition - 1 < technicianList.size()) {
+            RoleIndex.Member technician = technicianList.get(selectedPosition - 1);
+            String technicianId = technician.uid;
+
+            ReportTransitions.Transition transition =
+                    ReportTransitions.change(report, ReportStatus.ASSIGNED, adminId, adminName)
+                            .set("assignedTechnicianId", technicianId)
+                            .set("assignedTechnicianName", technician.name);
+            addAssignmentNotifications(transition, report, technician);
+
+            // Only takes the report if nobody else assigned or changed it meanwhile
+            ReportTransitions.claim(transition, this, new ReportTransitions.CommitListener() {
+                @Override
+                public void onCommitted() {
+                    Log.d("TASK_ASSIGN", "✅ Report assigned: " + report.getReportId() +
+                            " to " + technician.name);
+                    Toast.makeText(TaskAssignmentActivity.this,
+                            "✅ Task assigned to " + technician.name, Toast.LENGTH_SHORT).show();
+                }
+
+                @Override
+                public void onFailure(String message) {
+                    Toast.makeText(TaskAssignmentActivity.this,
+                            "❌ Assignment failed: " + message, Toast.LENGTH_SHORT).show();
+                    Log.e("TASK_ASSIGN", "Assignment failed: " + message);
+                }
+
+                @Override
+                public void onConflict(MaintenanceReport current) {
+                    String assignee = current != null ? current.getAssignedTechnicianName() : null;
+                    String message = assignee != null
+                            ? "⚠️ Already assigned to " + assignee
+                            : "⚠️ This report was changed by another admin";
+                    Toast.makeText(TaskAssignmentActivity.this, message, Toast.LENGTH_LONG).show();
+                    Log.w("TASK_ASSIGN", "Assignment conflict on " + report.getReportId());
+                }
+            });
         } else {
             Toast.makeText(this, "Technician not found", Toast.LENGTH_SHORT).show();
         }
     }
 
-    private void sendNotifications(MaintenanceReport report, User technician, String technicianId) {
+    private void assignSelectedReports() {
+        List<MaintenanceReport> selected = adapter.getSelectedReports();
+        if (selected.isEmpty()) {
+            Toast.makeText(this, "Long-press reports to select them", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        int selectedPosition = spTechnicians.getSelectedItemPosition();
+        if (selectedPosition <= 0 || selectedPosition - 1 >= technicianList.size()) {
+            Toast.makeText(this, "Please select a technician", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        RoleIndex.Member technician = technicianList.get(selectedPosition - 1);
+
+        btnAssign.setEnabled(false);
+        BulkOperations.assign(selected, technician.uid, technician.name, adminId, adminName)
+                .run(new BulkOperations.ProgressListener() {
+                    @Override
+                    public void onProgress(int done, int total) {
+                        btnAssign.setText("Assigning " + done + " / " + total);
+                    }
+
+                    @Override
+                    public void onFinished(BulkOperations.Result result) {
+                        btnAssign.setEnabled(true);
+                        adapter.clearSelection();
+                        btnAssign.setText("Assign Task");
+
+                        String message = "✅ " + result.succeeded + " tasks assigned to " + technician.name;
+                        if (!result.isComplete()) {
+                            message += " (" + result.failed.size() + " failed, " +
+                                    result.skipped.size() + " skipped)";
+                            Log.e("TASK_ASSIGN", "Bulk assignment incomplete: " + result.lastError);
+                        }
+                        Toast.makeText(TaskAssignmentActivity.this, message, Toast.LENGTH_LONG).show();
+                    }
+                });
+    }
+
+    private void addAssignmentNotifications(ReportTransitions.Transition transition,
+                                            MaintenanceReport report, RoleIndex.Member technician) {
         // 1. Notify Technician
         String techMessage = "You've been assigned to fix a " + report.getCategory() +
                 " issue in " + report.getBuildingBlock() + ", Room " + report.getRoomNumber();
 
-        NotificationUtils.sendNotification(
-                technicianId,
+        transition.notifyUser(
+                technician.uid,
                 "🛠️ New Task Assigned",
                 techMessage,
-                NotificationUtils.Types.TASK_ASSIGNED,
-                report.getReportId(),
-                adminId,
-                adminName,
-                TaskAssignmentActivity.this // Add this
-
-        );
-
-        Log.d("TASK_ASSIGN", "📤 Notification sent to technician: " + technician.getName());
+                NotificationUtils.Types.TASK_ASSIGNED);
 
         // 2. Notify Student (Reporter)
         String studentMessage = "Your " + report.getCategory() + " report has been assigned to " +
-                technician.getName();
+                technician.name;
 
-        NotificationUtils.sendNotification(
+        transition.notifyUser(
                 report.getReporterId(),
                 "👨‍🔧 Technician Assigned",
                 studentMessage,
-                NotificationUtils.Types.STATUS_UPDATE,
-                report.getReportId(),
-                adminId,
-                adminName,
-                TaskAssignmentActivity.this // Add this
-
-        );
-
-        Log.d("TASK_ASSIGN", "📤 Notification sent to student: " + report.getReporterName());
+                NotificationUtils.Types.STATUS_UPDATE);
 
         // 3. Optional: Notify other admins
-        NotificationUtils.sendNotificationToRole(
+        transition.notifyRole(
                 "admin",
                 "✅ Task Assigned",
-                adminName + " assigned " + report.getCategory() + " to " + technician.getName(),
-                NotificationUtils.Types.ADMIN_ALERT,
-                report.getReportId(),
-                adminId,
-                adminName,
-                TaskAssignmentActivity.this // Add this
-
-        );
-    }
-
-    private String getTechnicianIdFromSelection(String selection) {
-        // Selection format: "John Doe (TECH001)"
-        // We need to extract the user ID from parentheses
-        if (selection.contains("(") && selection.contains(")")) {
-            int start = selection.indexOf("(") + 1;
-            int end = selection.indexOf(")");
-            String userId = selection.substring(start, end);
-
-            // Find Firebase UID by userId
-            for (Map.Entry<String, User> entry : techniciansMap.entrySet()) {
-                if (entry.getValue().getUserId().equals(userId)) {
-                    return entry.getKey(); // Return Firebase UID
-                }
-            }
-        }
-        return null;
+                adminName + " assigned " + report.getCategory() + " to " + technician.name,
+                NotificationUtils.Types.ADMIN_ALERT);
     }
 
-    // Alternative: Get technician directly by Firebase UID (simpler)
-    private String getTechnicianIdByName(String name) {
-        for (Map.Entry<String, User> entry : techniciansMap.entrySet()) {
-            if (entry.getValue().getName().equals(name)) {
-                return entry.getKey(); // Return Firebase UID
-            }
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        ReportRepository.getInstance().unsubscribeChanges(pendingReportsListener);
+        if (techniciansListener != null) {
+            RoleIndex.getRoleRef("staff").removeEventListener(techniciansListener);
         }
-        return null;
     }
-}
\ No newline at end of file
+}
@@ -19,8 +19,12 @@ import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.admin.adapters.UserListAdapter;
 import com.hawassa.unifix.models.User;
+import com.hawassa.unifix.shared.utils.ModelMappers;
+import com.hawassa.unifix.shared.utils.RoleIndex;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class UserManagementActivity extends AppCompatActivity {
 
@@ -141,7 +145,7 @@ public class UserManagementActivity extends AppCompatActivity {
                 int total = 0, students = 0, technicians = 0;
 
                 for (DataSnapshot ds : snapshot.getChildren()) {
-                    User user = ds.getValue(User.class);
+                    User user = ModelMappers.toUser(ds);
                     if (user != null && "active".equals(user.getStatus())) {
                         originalUserList.add(user);
                         total++;
@@ -267,8 +271,12 @@ public class UserManagementActivity extends AppCompatActivity {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 if (snapshot.exists()) {
-                    // Update status to inactive
-                    snapshot.getRef().child("status").setValue("inactive")
+                    // Update status to inactive, in the user and the role index
+                    String role = snapshot.child("role").getValue(String.class);
+                    Map<String, Object> updates = new HashMap<>();
+                    RoleIndex.putStatus(updates, firebaseUid, role, "inactive");
+
+                    FirebaseDatabase.getInstance().getReference().updateChildren(updates)
                             .addOnSuccessListener(aVoid -> {
                                 Toast.makeText(UserManagementActivity.this,
                                         userName + " has been deactivated", Toast.LENGTH_SHORT).show();
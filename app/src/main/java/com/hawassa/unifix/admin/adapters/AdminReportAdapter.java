@@ -7,19 +7,27 @@ import android.widget.Button;
 import android.widget.ImageButton;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
+import com.google.android.material.card.MaterialCardView;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.shared.utils.IdGenerator;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 public class AdminReportAdapter extends RecyclerView.Adapter<AdminReportAdapter.ViewHolder> {
     private List<MaintenanceReport> reportList;
     private OnAssignClickListener assignClickListener;
     private OnDeleteClickListener deleteClickListener;
     private OnViewDetailsClickListener viewDetailsClickListener;
+    private OnSelectionChangedListener selectionChangedListener;
+    private final Set<String> selectedIds = new LinkedHashSet<>();
     private SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM yyyy, HH:mm", Locale.getDefault());
 
     public interface OnAssignClickListener {
@@ -34,6 +42,10 @@ public class AdminReportAdapter extends RecyclerView.Adapter<AdminReportAdapter.
         void onViewDetailsClick(MaintenanceReport report);
     }
 
+    public interface OnSelectionChangedListener {
+        void onSelectionChanged(int selectedCount);
+    }
+
     public AdminReportAdapter(List<MaintenanceReport> reportList,
                               OnAssignClickListener assignListener,
                               OnDeleteClickListener deleteListener,
@@ -56,8 +68,9 @@ public class AdminReportAdapter extends RecyclerView.Adapter<AdminReportAdapter.
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         MaintenanceReport report = reportList.get(position);
 
-        holder.tvReportId.setText("REP-" + report.getReportId().substring(0, 8).toUpperCase());
-        holder.tvReporterName.setText("By: " + report.getReporterName());
+        holder.tvReportId.setText("REP-" + IdGenerator.shortForm(report.getReportId()).toUpperCase());
+        holder.tvReporterName.setText("By: " + report.getReporterName() +
+                (report.getDuplicateCount() > 0 ? "  (+" + report.getDuplicateCount() + " others)" : ""));
         holder.tvCategory.setText(report.getCategory());
         holder.tvLocation.setText(report.getBuildingBlock() + ", Room " + report.getRoomNumber());
         holder.tvDescription.setText(report.getDescription());
@@ -98,12 +111,77 @@ public class AdminReportAdapter extends RecyclerView.Adapter<AdminReportAdapter.
             holder.tvAssignedTo.setVisibility(View.GONE);
         }
 
+        ((MaterialCardView) holder.itemView).setChecked(selectedIds.contains(report.getReportId()));
+
         // Set click listener for the entire card to view details
         holder.itemView.setOnClickListener(v -> {
-            if (viewDetailsClickListener != null) {
+            if (isSelecting()) {
+                toggleSelection(report, holder);
+            } else if (viewDetailsClickListener != null) {
                 viewDetailsClickListener.onViewDetailsClick(report);
             }
         });
+
+        // Long press starts multi-select
+        holder.itemView.setOnLongClickListener(v -> {
+            if (selectionChangedListener == null) return false;
+            toggleSelection(report, holder);
+            return true;
+        });
+    }
+
+    /**
+     * Enables long-press multi-select; the listener hears every change
+     */
+    public void setOnSelectionChangedListener(OnSelectionChangedListener listener) {
+        this.selectionChangedListener = listener;
+    }
+
+    public boolean isSelecting() {
+        return !selectedIds.isEmpty();
+    }
+
+    /**
+     * Selected reports that are still in the list, in list order
+     */
+    public List<MaintenanceReport> getSelectedReports() {
+        List<MaintenanceReport> selected = new ArrayList<>();
+        for (MaintenanceReport report : reportList) {
+            if (selectedIds.contains(report.getReportId())) {
+                selected.add(report);
+            }
+        }
+        return selected;
+    }
+
+    public void selectAll() {
+        for (MaintenanceReport report : reportList) {
+            selectedIds.add(report.getReportId());
+        }
+        notifyDataSetChanged();
+        dispatchSelectionChanged();
+    }
+
+    public void clearSelection() {
+        if (selectedIds.isEmpty()) return;
+        selectedIds.clear();
+        notifyDataSetChanged();
+        dispatchSelectionChanged();
+    }
+
+    private void toggleSelection(MaintenanceReport report, ViewHolder holder) {
+        String reportId = report.getReportId();
+        if (!selectedIds.remove(reportId)) {
+            selectedIds.add(reportId);
+        }
+        ((MaterialCardView) holder.itemView).setChecked(selectedIds.contains(reportId));
+        dispatchSelectionChanged();
+    }
+
+    private void dispatchSelectionChanged() {
+        if (selectionChangedListener != null) {
+            selectionChangedListener.onSelectionChanged(getSelectedReports().size());
+        }
     }
 
     private int getStatusColor(String status, View view) {
@@ -134,6 +212,40 @@ public class AdminReportAdapter extends RecyclerView.Adapter<AdminReportAdapter.
         notifyDataSetChanged();
     }
 
+    /**
+     * Swap in a new list and dispatch only the rows that changed. Reports are
+     * re-decoded on every change, so an unchanged row is the same instance.
+     */
+    public void submitList(List<MaintenanceReport> newList) {
+        final List<MaintenanceReport> oldList = new ArrayList<>(reportList);
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldList.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newList.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                String oldId = oldList.get(oldPosition).getReportId();
+                return oldId != null && oldId.equals(newList.get(newPosition).getReportId());
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return oldList.get(oldPosition) == newList.get(newPosition);
+            }
+        });
+
+        reportList.clear();
+        reportList.addAll(newList);
+        diff.dispatchUpdatesTo(this);
+    }
+
     public static class ViewHolder extends RecyclerView.ViewHolder {
         TextView tvReportId, tvReporterName, tvCategory, tvLocation, tvDescription;
         TextView tvStatus, tvTimestamp, tvAssignedTo;
@@ -11,6 +11,7 @@ import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.User;
+import com.hawassa.unifix.shared.utils.ModelMappers;
 import com.hawassa.unifix.student.StudentDashboardActivity;
 import com.hawassa.unifix.admin.AdminDashboardActivity;
 import com.hawassa.unifix.technician.TechnicianDashboardActivity;
@@ -88,7 +89,7 @@ public class LoginActivity extends AppCompatActivity {
                         @Override
                         public void onDataChange(DataSnapshot dataSnapshot) {
                             if (dataSnapshot.exists()) {
-                                User user = dataSnapshot.getValue(User.class);
+                                User user = ModelMappers.toUser(dataSnapshot);
                                 redirectToDashboard(user);
                             }
                         }
@@ -168,7 +169,7 @@ public class LoginActivity extends AppCompatActivity {
             public void onDataChange(DataSnapshot dataSnapshot) {
                 if (dataSnapshot.exists()) {
                     for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                        User user = snapshot.getValue(User.class);
+                        User user = ModelMappers.toUser(snapshot);
                         if (user != null && user.getEmail() != null) {
                             // Found user, now authenticate with their email
                             authenticateWithFirebase(user.getEmail(), password);
@@ -240,7 +241,7 @@ public class LoginActivity extends AppCompatActivity {
                         showLoading(false);
 
                         if (dataSnapshot.exists()) {
-                            User user = dataSnapshot.getValue(User.class);
+                            User user = ModelMappers.toUser(dataSnapshot);
                             if (user != null) {
                                 // Check if user is active
                                 if ("active".equals(user.getStatus())) {
@@ -11,8 +11,11 @@ import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.User;
+import com.hawassa.unifix.shared.utils.RoleIndex;
 import com.hawassa.unifix.student.StudentDashboardActivity;
 import com.hawassa.unifix.technician.TechnicianDashboardActivity;
+import java.util.HashMap;
+import java.util.Map;
 
 public class RegisterActivity extends AppCompatActivity {
 
@@ -125,8 +128,11 @@ public class RegisterActivity extends AppCompatActivity {
 
         Log.d("REGISTER_DEBUG", "User object created: " + user.toString());
 
-        // Save to database
-        usersRef.child(firebaseUid).setValue(user)
+        // Save user and role index entry together
+        Map<String, Object> updates = new HashMap<>();
+        RoleIndex.putUser(updates, firebaseUid, user);
+
+        FirebaseDatabase.getInstance().getReference().updateChildren(updates)
                 .addOnCompleteListener(task -> {
                     showLoading(false);
 
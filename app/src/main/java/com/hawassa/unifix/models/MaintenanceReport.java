@@ -20,6 +20,12 @@ public class MaintenanceReport implements Serializable {
     // --- ADD THESE TWO NEW FIELDS ---
     private Double reportLatitude;  // Latitude coordinate
     private Double reportLongitude; // Longitude coordinate
+    private long version;           // Bumped on every status change, used for compare-and-set claims
+    private String locationKey;     // "block|room|category", used to find duplicates
+    private long duplicateCount;    // Other students who reported the same issue
+    private String mergedInto;      // Report this one was merged into
+    private long lastModified;      // Server time of the last write
+    private String archivedIn;      // "yyyy/MM" once moved to reportsArchive, see ReportArchive
 
     // Required empty constructor for Firebase
     public MaintenanceReport() {}
@@ -105,4 +111,22 @@ public class MaintenanceReport implements Serializable {
     public void setReportLongitude(Double reportLongitude) {
         this.reportLongitude = reportLongitude;
     }
-}
\ No newline at end of file
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public String getLocationKey() { return locationKey; }
+    public void setLocationKey(String locationKey) { this.locationKey = locationKey; }
+
+    public long getDuplicateCount() { return duplicateCount; }
+    public void setDuplicateCount(long duplicateCount) { this.duplicateCount = duplicateCount; }
+
+    public String getMergedInto() { return mergedInto; }
+    public void setMergedInto(String mergedInto) { this.mergedInto = mergedInto; }
+
+    public long getLastModified() { return lastModified; }
+    public void setLastModified(long lastModified) { this.lastModified = lastModified; }
+
+    public String getArchivedIn() { return archivedIn; }
+    public void setArchivedIn(String archivedIn) { this.archivedIn = archivedIn; }
+}
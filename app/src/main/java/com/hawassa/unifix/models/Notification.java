@@ -15,6 +15,8 @@ public class Notification {
     private String senderName;
     private boolean read;
     private long timestamp;
+    // Set on role broadcasts: title/message live once in notificationBodies/{bodyId}
+    private String bodyId;
 
     // Required empty constructor for Firebase
     public Notification() {
@@ -98,6 +100,10 @@ public class Notification {
         return timestamp;
     }
 
+    public String getBodyId() {
+        return bodyId;
+    }
+
     // --- Setters ---
     public void setNotificationId(String notificationId) {
         this.notificationId = notificationId;
@@ -139,6 +145,10 @@ public class Notification {
         this.timestamp = timestamp;
     }
 
+    public void setBodyId(String bodyId) {
+        this.bodyId = bodyId;
+    }
+
     // Helper methods
     @Exclude
     public String getFormattedTime() {
@@ -156,6 +166,12 @@ public class Notification {
         }
     }
 
+    // Inbox pointer whose shared body hasn't been loaded yet
+    @Exclude
+    public boolean needsBody() {
+        return bodyId != null && title == null;
+    }
+
     @Exclude
     public boolean isAdminNotification() {
         return "new_report".equals(type) || "admin_alert".equals(type);
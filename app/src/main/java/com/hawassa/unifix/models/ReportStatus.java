@@ -0,0 +1,93 @@
+package com.hawassa.unifix.models;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Lifecycle of a maintenance report.
+ *
+ * The label is what is stored in reports/{id}/status and shown in the UI,
+ * the key is the machine form used for counters and indexes ("in_progress").
+ */
+public enum ReportStatus {
+    SUBMITTED("Submitted"),
+    ASSIGNED("Assigned"),
+    ACKNOWLEDGED("Acknowledged"),
+    IN_PROGRESS("In Progress"),
+    ON_HOLD("On Hold"),
+    COMPLETED("Completed"),
+    CANCELLED("Cancelled"),
+    MERGED("Merged"); // folded into another report, see mergedInto
+
+    private final String label;
+
+    ReportStatus(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getKey() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse a stored status. Accepts the label or the key in any case
+     * ("In Progress", "in_progress", "IN PROGRESS"); null if unknown.
+     */
+    public static ReportStatus fromString(String value) {
+        if (value == null) return null;
+        String normalized = value.trim().replace(' ', '_').toUpperCase(Locale.ROOT);
+        for (ReportStatus status : values()) {
+            if (status.name().equals(normalized)) return status;
+        }
+        return null;
+    }
+
+    /**
+     * Statuses this one may move to. A working status may also "move" to
+     * itself, which is how a technician updates notes without changing it.
+     */
+    public Set<ReportStatus> nextStatuses() {
+        switch (this) {
+            case SUBMITTED:
+                return EnumSet.of(ASSIGNED, CANCELLED, MERGED);
+            case ASSIGNED:
+                return EnumSet.of(ASSIGNED, ACKNOWLEDGED, IN_PROGRESS, ON_HOLD, COMPLETED, CANCELLED, MERGED);
+            case ACKNOWLEDGED:
+                return EnumSet.of(ACKNOWLEDGED, IN_PROGRESS, ON_HOLD, COMPLETED, CANCELLED, MERGED);
+            case IN_PROGRESS:
+                return EnumSet.of(IN_PROGRESS, ON_HOLD, COMPLETED, CANCELLED, MERGED);
+            case ON_HOLD:
+                return EnumSet.of(ON_HOLD, IN_PROGRESS, COMPLETED, CANCELLED, MERGED);
+            default:
+                return EnumSet.noneOf(ReportStatus.class); // COMPLETED, CANCELLED, MERGED are final
+        }
+    }
+
+    public boolean canTransitionTo(ReportStatus next) {
+        return next != null && nextStatuses().contains(next);
+    }
+
+    // Waiting for an admin to assign it
+    public boolean isPending() {
+        return this == SUBMITTED;
+    }
+
+    // Assigned and being worked on
+    public boolean isActive() {
+        return this == ASSIGNED || this == ACKNOWLEDGED || this == IN_PROGRESS || this == ON_HOLD;
+    }
+
+    public boolean isFinal() {
+        return this == COMPLETED || this == CANCELLED || this == MERGED;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,48 @@
+package com.hawassa.unifix.models;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * One entry of a report's status history, stored under
+ * reportHistory/{reportId}/{eventId}
+ */
+public class StatusChange {
+    private String eventId;
+    private String status;
+    private String previousStatus;
+    private long timestamp;
+    private String changedBy;
+    private String changedById;
+    private String notes;
+
+    // Required empty constructor for Firebase
+    public StatusChange() {}
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getPreviousStatus() { return previousStatus; }
+    public void setPreviousStatus(String previousStatus) { this.previousStatus = previousStatus; }
+
+    public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+
+    public String getChangedBy() { return changedBy; }
+    public void setChangedBy(String changedBy) { this.changedBy = changedBy; }
+
+    public String getChangedById() { return changedById; }
+    public void setChangedById(String changedById) { this.changedById = changedById; }
+
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+
+    public String getFormattedTime() {
+        SimpleDateFormat sdf = new SimpleDateFormat("dd MMM yyyy, HH:mm", Locale.getDefault());
+        return sdf.format(new Date(timestamp));
+    }
+}
@@ -7,7 +7,6 @@ import android.view.View;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
-import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -19,15 +18,21 @@ import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.Notification;
 import com.hawassa.unifix.shared.adapters.NotificationAdapter;
+import com.hawassa.unifix.shared.utils.ModelMappers;
 import com.hawassa.unifix.shared.utils.NotificationUtils;
+import com.hawassa.unifix.shared.utils.PagedWindow;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class NotificationsActivity extends AppCompatActivity {
     private static final String TAG = "NotificationsActivity";
 
+    // Notifications per page, and how many pages stay attached at once
+    private static final int PAGE_SIZE = 30;
+    private static final int MAX_PAGES = 4;
+    private static final int PREFETCH_DISTANCE = 10;
+
     private RecyclerView rvNotifications;
     private ProgressBar progressBar;
     private TextView tvNoNotifications;
@@ -38,7 +43,8 @@ public class NotificationsActivity extends AppCompatActivity {
     private List<Notification> notificationList = new ArrayList<>();
     private NotificationAdapter adapter;
     private String userId;
-    private ValueEventListener notificationsListener;
+    private PagedWindow<Notification> notificationWindow;
+    private PagedWindow.Prefetcher prefetcher;
     private boolean isActivityActive = false;
 
     @Override
@@ -138,7 +144,8 @@ public class NotificationsActivity extends AppCompatActivity {
     }
 
     private void setupFirebase() {
-        notificationsRef = FirebaseDatabase.getInstance().getReference("notifications");
+        notificationsRef = NotificationUtils.getInboxRef(userId);
+        NotificationUtils.migrateLegacyNotifications(userId);
         Log.d(TAG, "Firebase setup complete");
     }
 
@@ -152,7 +159,7 @@ public class NotificationsActivity extends AppCompatActivity {
 
         showLoading(true);
 
-        // Remove old listener if exists
+        // Stop the old window if exists
         removeNotificationListener();
 
         if (notificationsRef == null) {
@@ -162,92 +169,74 @@ public class NotificationsActivity extends AppCompatActivity {
         }
 
         try {
-            notificationsListener = notificationsRef.orderByChild("userId").equalTo(userId)
-                    .addValueEventListener(new ValueEventListener() {
-                        @Override
-                        public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                            Log.d(TAG, "onDataChange called, snapshot exists: " + dataSnapshot.exists());
-
-                            if (!isActivityActive) {
-                                Log.d(TAG, "Activity not active, ignoring data change");
-                                return;
-                            }
-
-                            final List<Notification> tempList = new ArrayList<>();
-
-                            try {
-                                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                                    Notification notification = snapshot.getValue(Notification.class);
-                                    if (notification != null) {
-                                        tempList.add(notification);
-                                    }
-                                }
-
-                                // Calculate hasUnread after building the list
-                                boolean hasUnreadValue = false;
-                                for (Notification notification : tempList) {
-                                    if (notification != null && !notification.isRead()) {
-                                        hasUnreadValue = true;
-                                        break;
-                                    }
-                                }
-
-                                // Sort by timestamp (newest first)
-                                if (!tempList.isEmpty()) {
-                                    Collections.sort(tempList, (n1, n2) ->
-                                            Long.compare(n2.getTimestamp(), n1.getTimestamp()));
-                                }
-
-                                // Create final variables for lambda
-                                final boolean finalHasUnread = hasUnreadValue;
-                                final List<Notification> finalTempList = new ArrayList<>(tempList);
-
-                                // Update the main list and UI on main thread
-                                runOnUiThread(() -> {
-                                    notificationList.clear();
-                                    notificationList.addAll(finalTempList);
-                                    updateUI(finalHasUnread);
-                                    if (swipeRefreshLayout != null) {
-                                        swipeRefreshLayout.setRefreshing(false);
-                                    }
-                                    showLoading(false);
-
-                                    Log.d(TAG, "Notifications loaded: " + notificationList.size() +
-                                            " items, hasUnread: " + finalHasUnread);
-                                });
-
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error processing notifications: " + e.getMessage(), e);
-                                runOnUiThread(() -> {
-                                    showLoading(false);
-                                    if (swipeRefreshLayout != null) {
-                                        swipeRefreshLayout.setRefreshing(false);
-                                    }
-                                });
-                            }
+            // Newest first by key: inbox keys come from IdGenerator (older ones from
+            // push()), so they sort by time without an index on timestamp. Older
+            // pages are fetched on scroll and only MAX_PAGES pages are held at once
+            notificationWindow = new PagedWindow<>(notificationsRef.orderByKey(), null,
+                    ModelMappers::toNotification, PAGE_SIZE, MAX_PAGES);
+            if (rvNotifications != null) {
+                if (prefetcher != null) rvNotifications.removeOnScrollListener(prefetcher);
+                prefetcher = new PagedWindow.Prefetcher(notificationWindow, PREFETCH_DISTANCE);
+                rvNotifications.addOnScrollListener(prefetcher);
+            }
+
+            final PagedWindow<Notification> window = notificationWindow;
+            window.start(new PagedWindow.Listener<Notification>() {
+                @Override
+                public void onWindowChanged(List<Notification> items) {
+                    if (!isActivityActive || window != notificationWindow) return;
+
+                    boolean hasUnreadValue = false;
+                    for (Notification notification : items) {
+                        if (notification != null && !notification.isRead()) {
+                            hasUnreadValue = true;
+                            break;
+                        }
+                    }
+
+                    final boolean finalHasUnread = hasUnreadValue;
+
+                    // Role broadcasts only hold a pointer; load their shared bodies first,
+                    // then update the list and UI on main thread
+                    NotificationUtils.resolveBodies(items, () -> runOnUiThread(() -> {
+                        if (!isActivityActive || window != notificationWindow) return;
+
+                        if (adapter != null) {
+                            adapter.submitList(items);
                         }
+                        updateUI(finalHasUnread);
+                        if (swipeRefreshLayout != null) {
+                            swipeRefreshLayout.setRefreshing(false);
+                        }
+                        showLoading(false);
+
+                        Log.d(TAG, "Notifications loaded: " + notificationList.size() +
+                                " items, hasUnread: " + finalHasUnread);
+                    }));
+                }
 
-                        @Override
-                        public void onCancelled(@NonNull DatabaseError databaseError) {
-                            Log.e(TAG, "Firebase onCancelled: " + databaseError.getMessage() +
-                                    ", code: " + databaseError.getCode());
+                @Override
+                public void onError(String message) {
+                    Log.e(TAG, "Failed to load notifications: " + message);
 
-                            if (!isActivityActive) return;
+                    if (!isActivityActive) return;
 
-                            runOnUiThread(() -> {
-                                showLoading(false);
-                                swipeRefreshLayout.setRefreshing(false);
+                    runOnUiThread(() -> {
+                        showLoading(false);
+                        if (swipeRefreshLayout != null) {
+                            swipeRefreshLayout.setRefreshing(false);
+                        }
 
-                                // Show error message
-                                if (tvNoNotifications != null) {
-                                    tvNoNotifications.setText("Error loading notifications");
-                                    tvNoNotifications.setVisibility(View.VISIBLE);
-                                }
-                            });
+                        // Show error message
+                        if (tvNoNotifications != null) {
+                            tvNoNotifications.setText("Error loading notifications");
+                            tvNoNotifications.setVisibility(View.VISIBLE);
                         }
                     });
+                }
+            });
         } catch (Exception e) {
-            Log.e(TAG, "Error setting up Firebase listener: " + e.getMessage(), e);
+            Log.e(TAG, "Error setting up notification paging: " + e.getMessage(), e);
             showLoading(false);
         }
     }
@@ -284,22 +273,18 @@ public class NotificationsActivity extends AppCompatActivity {
             if (btnMarkAllRead != null) {
                 btnMarkAllRead.setEnabled(hasUnread);
             }
-
-            if (adapter != null) {
-                adapter.notifyDataSetChanged();
-            }
         }
     }
 
     private void removeNotificationListener() {
-        if (notificationsListener != null && notificationsRef != null) {
+        if (notificationWindow != null) {
             try {
-                notificationsRef.removeEventListener(notificationsListener);
-                Log.d(TAG, "Notification listener removed");
+                notificationWindow.stop();
+                Log.d(TAG, "Notification window stopped");
             } catch (Exception e) {
-                Log.e(TAG, "Error removing listener: " + e.getMessage(), e);
+                Log.e(TAG, "Error stopping window: " + e.getMessage(), e);
             }
-            notificationsListener = null;
+            notificationWindow = null;
         }
     }
 
@@ -322,7 +307,9 @@ public class NotificationsActivity extends AppCompatActivity {
                 Log.d(TAG, "Clear all clicked");
                 if (userId != null && !userId.isEmpty()) {
                     NotificationUtils.clearAllNotifications(userId);
-                    notificationList.clear();
+                    if (adapter != null) {
+                        adapter.submitList(new ArrayList<>());
+                    }
                     updateUI(false);
                     // Show toast or snackbar
                 }
@@ -354,7 +341,7 @@ public class NotificationsActivity extends AppCompatActivity {
             String notificationId = notification.getNotificationId();
             if (notificationId != null && !notificationId.isEmpty()) {
                 Log.d(TAG, "Marking notification as read: " + notificationId);
-                NotificationUtils.markAsRead(notificationId);
+                NotificationUtils.markAsRead(userId, notificationId);
             }
         }
 
@@ -16,6 +16,8 @@ import com.google.firebase.storage.StorageReference;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.User;
 import com.hawassa.unifix.shared.utils.ImageUploader;
+import com.hawassa.unifix.shared.utils.ModelMappers;
+import com.hawassa.unifix.shared.utils.RoleIndex;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,6 +27,7 @@ public class ProfileActivity extends AppCompatActivity {
     private EditText etName, etEmail, etPhone;
     private Button btnEdit, btnSave, btnCancel, btnChangePhoto;
     private DatabaseReference usersRef;
+    private String userRole;
     private String userId;
     private Uri imageUri;
     private ImageUploader imageUploader;
@@ -68,6 +71,7 @@ public class ProfileActivity extends AppCompatActivity {
         imageUploader = new ImageUploader(this);
 
         setupImageUploaderListener();
+        imageUploader.resumeProfileUpload(userId);
         loadUserProfile();
         setupClickListeners();
     }
@@ -120,8 +124,9 @@ public class ProfileActivity extends AppCompatActivity {
             @Override
             public void onDataChange(DataSnapshot dataSnapshot) {
                 if (dataSnapshot.exists()) {
-                    User user = dataSnapshot.getValue(User.class);
+                    User user = ModelMappers.toUser(dataSnapshot);
                     if (user != null) {
+                        userRole = user.getRole();
                         displayUserProfile(user);
                     }
                 }
@@ -228,12 +233,13 @@ public class ProfileActivity extends AppCompatActivity {
             return;
         }
 
+        // Name is also copied into the role index, so write both in one update
         Map<String, Object> updates = new HashMap<>();
-        updates.put("name", name);
-        updates.put("email", email);
-        updates.put("phone", phone);
+        RoleIndex.putName(updates, userId, userRole, name);
+        updates.put("users/" + userId + "/email", email);
+        updates.put("users/" + userId + "/phone", phone);
 
-        usersRef.child(userId).updateChildren(updates)
+        FirebaseDatabase.getInstance().getReference().updateChildren(updates)
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(this, "Profile updated successfully!", Toast.LENGTH_SHORT).show();
                     enableEditing(false);
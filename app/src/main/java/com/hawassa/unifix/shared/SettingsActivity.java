@@ -14,6 +14,7 @@ import com.hawassa.unifix.R;
 import com.hawassa.unifix.auth.ChangePasswordActivity;
 import com.hawassa.unifix.auth.LoginActivity;
 import com.hawassa.unifix.models.User;
+import com.hawassa.unifix.shared.utils.ModelMappers;
 
 public class SettingsActivity extends AppCompatActivity {
     private SwitchMaterial switchDarkMode, switchNotifications, switchSound;
@@ -104,7 +105,7 @@ public class SettingsActivity extends AppCompatActivity {
             @Override
             public void onDataChange(DataSnapshot dataSnapshot) {
                 if (dataSnapshot.exists()) {
-                    User user = dataSnapshot.getValue(User.class);
+                    User user = ModelMappers.toUser(dataSnapshot);
                     if (user != null) {
                         userRole = user.getRole();
                     }
@@ -6,6 +6,7 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.Notification;
@@ -144,6 +145,40 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
         notifyDataSetChanged();
     }
 
+    /**
+     * Swap in a new list and dispatch only the rows that changed. Inbox entries
+     * are re-decoded on every change, so an unchanged row is the same instance.
+     */
+    public void submitList(List<Notification> newList) {
+        final List<Notification> oldList = new ArrayList<>(notificationList);
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldList.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newList.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                String oldId = oldList.get(oldPosition).getNotificationId();
+                return oldId != null && oldId.equals(newList.get(newPosition).getNotificationId());
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return oldList.get(oldPosition) == newList.get(newPosition);
+            }
+        });
+
+        notificationList.clear();
+        notificationList.addAll(newList);
+        diff.dispatchUpdatesTo(this);
+    }
+
     public static class ViewHolder extends RecyclerView.ViewHolder {
         ImageView ivIcon;
         TextView tvTitle, tvMessage, tvTime, tvSender;
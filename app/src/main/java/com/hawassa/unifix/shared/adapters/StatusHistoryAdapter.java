@@ -0,0 +1,70 @@
+package com.hawassa.unifix.shared.adapters;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import com.hawassa.unifix.R;
+import com.hawassa.unifix.models.StatusChange;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StatusHistoryAdapter extends RecyclerView.Adapter<StatusHistoryAdapter.ViewHolder> {
+    private final List<StatusChange> history = new ArrayList<>();
+
+    // Newest first
+    public void setHistory(List<StatusChange> changes) {
+        history.clear();
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            history.add(changes.get(i));
+        }
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_status_history, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        StatusChange change = history.get(position);
+
+        String status = change.getStatus() != null ? change.getStatus() : "";
+        if (change.getPreviousStatus() != null) {
+            status = change.getPreviousStatus() + " → " + status;
+        }
+        holder.tvStatus.setText(status);
+        holder.tvTime.setText(change.getFormattedTime());
+        holder.tvChangedBy.setText("By: " + (change.getChangedBy() != null ? change.getChangedBy() : "Unknown"));
+
+        if (change.getNotes() != null && !change.getNotes().isEmpty()) {
+            holder.tvNotes.setText(change.getNotes());
+            holder.tvNotes.setVisibility(View.VISIBLE);
+        } else {
+            holder.tvNotes.setVisibility(View.GONE);
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return history.size();
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        TextView tvStatus, tvTime, tvChangedBy, tvNotes;
+
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvStatus = itemView.findViewById(R.id.tvHistoryStatus);
+            tvTime = itemView.findViewById(R.id.tvHistoryTime);
+            tvChangedBy = itemView.findViewById(R.id.tvHistoryChangedBy);
+            tvNotes = itemView.findViewById(R.id.tvHistoryNotes);
+        }
+    }
+}
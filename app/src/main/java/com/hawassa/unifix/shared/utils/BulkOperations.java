@@ -0,0 +1,446 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Assign, reassign, close or delete many reports at once.
+ *
+ * Reports are handled CHUNK_SIZE at a time. Each report's status change is
+ * a compare-and-set like ReportTransitions.claim(), so one that another
+ * admin changed since the list was loaded is skipped rather than
+ * overwritten. The reports that were changed then get one multi-path update
+ * per chunk with their history entries, summaries and summed counters.
+ * Notifications are grouped per recipient within a chunk, so a technician
+ * given twenty tasks gets one notification instead of twenty.
+ *
+ * Chunks run one after another. A failed chunk is reported and the rest
+ * still run; reports the action doesn't apply to (e.g. closing one that is
+ * already completed) are skipped up front. Deletes are written blind.
+ *
+ * Once a report's compare-and-set has won, its status has changed whatever
+ * happens to the chunk's follow-up write. A failed follow-up is retried,
+ * and if it still fails those reports count as changed with their side
+ * effects pending; ReportTransitions.resumeFollowUps() sends them later.
+ */
+public class BulkOperations {
+    private static final String TAG = "BulkOperations";
+
+    // Reports per multi-path update
+    static final int CHUNK_SIZE = 50;
+    private static final int FOLLOW_UP_ATTEMPTS = 2;
+
+    private static final DatabaseReference rootRef =
+            FirebaseDatabase.getInstance().getReference();
+
+    public interface ProgressListener {
+        /**
+         * done counts reports written, failed or skipped so far
+         */
+        void onProgress(int done, int total);
+
+        void onFinished(Result result);
+    }
+
+    public static class Result {
+        public final int succeeded;
+        public final List<String> skipped; // report ids the action didn't apply to, or changed meanwhile
+        public final List<String> failed;  // report ids that failed to write
+        // Changed (and counted in succeeded), but history, counters and
+        // notifications are still to be written
+        public final List<String> followUpPending;
+        public final String lastError;
+
+        Result(int succeeded, List<String> skipped, List<String> failed,
+               List<String> followUpPending, String lastError) {
+            this.succeeded = succeeded;
+            this.skipped = skipped;
+            this.failed = failed;
+            this.followUpPending = followUpPending;
+            this.lastError = lastError;
+        }
+
+        public boolean isComplete() {
+            return skipped.isEmpty() && failed.isEmpty();
+        }
+    }
+
+    private enum Kind { ASSIGN, CLOSE, DELETE }
+
+    private final Kind kind;
+    private final List<MaintenanceReport> reports;
+    private final ReportStatus closeStatus;
+    private final String technicianId;
+    private final String technicianName;
+    private final String actorId;
+    private final String actorName;
+
+    private BulkOperations(Kind kind, List<MaintenanceReport> reports, ReportStatus closeStatus,
+                           String technicianId, String technicianName,
+                           String actorId, String actorName) {
+        this.kind = kind;
+        this.reports = new ArrayList<>(reports);
+        this.closeStatus = closeStatus;
+        this.technicianId = technicianId;
+        this.technicianName = technicianName;
+        this.actorId = actorId;
+        this.actorName = actorName;
+    }
+
+    /**
+     * Submitted reports become Assigned; reports already being worked on
+     * keep their status and move to the new technician.
+     */
+    public static BulkOperations assign(List<MaintenanceReport> reports,
+                                        String technicianId, String technicianName,
+                                        String actorId, String actorName) {
+        return new BulkOperations(Kind.ASSIGN, reports, null,
+                technicianId, technicianName, actorId, actorName);
+    }
+
+    /**
+     * Move reports to Completed or Cancelled
+     */
+    public static BulkOperations close(List<MaintenanceReport> reports, ReportStatus status,
+                                       String actorId, String actorName) {
+        return new BulkOperations(Kind.CLOSE, reports, status, null, null, actorId, actorName);
+    }
+
+    public static BulkOperations delete(List<MaintenanceReport> reports) {
+        return new BulkOperations(Kind.DELETE, reports, null, null, null, null, null);
+    }
+
+    public void run(ProgressListener listener) {
+        List<ReportTransitions.Transition> transitions = new ArrayList<>();
+        List<MaintenanceReport> deletions = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+
+        for (MaintenanceReport report : reports) {
+            if (report == null || report.getReportId() == null) continue;
+
+            if (kind == Kind.DELETE) {
+                deletions.add(report);
+                continue;
+            }
+
+            ReportTransitions.Transition transition = transitionFor(report);
+            if (transition != null && transition.isLegal()) {
+                transitions.add(transition);
+            } else {
+                skipped.add(report.getReportId());
+            }
+        }
+
+        int total = transitions.size() + deletions.size() + skipped.size();
+        Progress progress = new Progress(total, skipped, listener);
+        listener.onProgress(skipped.size(), total);
+
+        if (kind == Kind.DELETE) {
+            runDeleteChunk(deletions, 0, progress);
+        } else {
+            runTransitionChunk(transitions, 0, progress);
+        }
+    }
+
+    private ReportTransitions.Transition transitionFor(MaintenanceReport report) {
+        ReportStatus current = ReportStatus.fromString(report.getStatus());
+        if (current == null) return null;
+
+        if (kind == Kind.CLOSE) {
+            return ReportTransitions.change(report, closeStatus, actorId, actorName)
+                    .notes("Closed in bulk by " + actorName);
+        }
+
+        // Assign: nothing to do if it's final or already with this technician
+        if (current.isFinal() || technicianId.equals(report.getAssignedTechnicianId())) {
+            return null;
+        }
+        ReportStatus to = current.isPending() ? ReportStatus.ASSIGNED : current;
+        return ReportTransitions.change(report, to, actorId, actorName)
+                .set("assignedTechnicianId", technicianId)
+                .set("assignedTechnicianName", technicianName)
+                .notes(current.isPending() ? "Assigned to " + technicianName
+                        : "Reassigned to " + technicianName);
+    }
+
+    private void runTransitionChunk(List<ReportTransitions.Transition> transitions, int start,
+                                    Progress progress) {
+        if (start >= transitions.size()) {
+            progress.finish();
+            return;
+        }
+
+        int end = Math.min(start + CHUNK_SIZE, transitions.size());
+        List<ReportTransitions.Transition> chunk = transitions.subList(start, end);
+
+        // Each report is taken with a compare-and-set first, so a report someone
+        // else changed meanwhile is left alone; only the winners get counters,
+        // history and notifications
+        ReportTransitions.compareAndSetAll(chunk, results -> {
+            progress.conflicted(idsOf(results.conflicts));
+            if (!results.errors.isEmpty()) {
+                progress.failed(idsOf(results.errors), results.lastError);
+            }
+            if (results.applied.isEmpty()) {
+                runTransitionChunk(transitions, end, progress);
+                return;
+            }
+
+            Map<String, Object> updates = new HashMap<>();
+            StatsCounters.Tally tally = new StatsCounters.Tally();
+            Map<String, Digest> digests = new LinkedHashMap<>();
+            long now = System.currentTimeMillis();
+
+            List<String> reportIds = new ArrayList<>();
+            for (Map.Entry<ReportTransitions.Transition, DataSnapshot> won : results.applied.entrySet()) {
+                ReportTransitions.Transition transition = won.getKey();
+                ReportTransitions.putClaimFollowUp(transition, won.getValue(), updates, now);
+                ReportTransitions.addCounters(transition, tally);
+                addNotifications(transition, digests);
+                reportIds.add(transition.getReport().getReportId());
+            }
+            tally.putInto(updates);
+
+            NotificationUtils.Batch batch = new NotificationUtils.Batch(updates);
+            for (Digest digest : digests.values()) {
+                if (digest.count == 0) continue;
+                batch.add(digest.recipient, digest.title, digest.text(), digest.type,
+                        digest.reportId(), actorId, actorName);
+            }
+            batch.finish();
+
+            writeFollowUp(updates, reportIds, progress, FOLLOW_UP_ATTEMPTS,
+                    () -> runTransitionChunk(transitions, end, progress));
+        });
+    }
+
+    private static List<String> idsOf(List<ReportTransitions.Transition> transitions) {
+        List<String> reportIds = new ArrayList<>();
+        for (ReportTransitions.Transition transition : transitions) {
+            reportIds.add(transition.getReport().getReportId());
+        }
+        return reportIds;
+    }
+
+    private void runDeleteChunk(List<MaintenanceReport> deletions, int start, Progress progress) {
+        if (start >= deletions.size()) {
+            progress.finish();
+            return;
+        }
+
+        int end = Math.min(start + CHUNK_SIZE, deletions.size());
+        Map<String, Object> updates = new HashMap<>();
+        StatsCounters.Tally tally = new StatsCounters.Tally();
+
+        List<String> reportIds = new ArrayList<>();
+        for (MaintenanceReport report : deletions.subList(start, end)) {
+            updates.put("reports/" + report.getReportId(), null);
+            SlaTimers.clearTimer(updates, report.getReportId());
+            ReportHistory.putRemoval(updates, report.getReportId());
+            ReportArchive.putRemoval(updates, report);
+            DeltaSync.putChange(updates, report, null);
+            tally.add(report.getReporterId(), report.getAssignedTechnicianId(), null,
+                    report.getStatus(), null);
+            reportIds.add(report.getReportId());
+        }
+        tally.putInto(updates);
+
+        write(updates, reportIds, progress, () -> runDeleteChunk(deletions, end, progress));
+    }
+
+    // The reports already changed; only their side effects can fail now
+    private void writeFollowUp(Map<String, Object> updates, List<String> reportIds,
+                               Progress progress, int attemptsLeft, Runnable next) {
+        if (attemptsLeft == FOLLOW_UP_ATTEMPTS) ReportSummaries.putMirror(updates);
+        rootRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    progress.succeeded(reportIds.size());
+                    next.run();
+                })
+                .addOnFailureListener(e -> {
+                    if (attemptsLeft > 1) {
+                        writeFollowUp(updates, reportIds, progress, attemptsLeft - 1, next);
+                        return;
+                    }
+                    Log.e(TAG, "❌ Bulk " + kind + " follow-up for " + reportIds.size() +
+                            " reports failed, left for resumeFollowUps(): " + e.getMessage());
+                    progress.followUpPending(reportIds, e.getMessage());
+                    next.run();
+                });
+    }
+
+    private void write(Map<String, Object> updates, List<String> reportIds,
+                       Progress progress, Runnable next) {
+        ReportSummaries.putMirror(updates);
+        rootRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    progress.succeeded(reportIds.size());
+                    next.run();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "❌ Bulk " + kind + " chunk of " + reportIds.size() +
+                            " failed: " + e.getMessage());
+                    progress.failed(reportIds, e.getMessage());
+                    next.run();
+                });
+    }
+
+    // ---------------------------------------------------------------------
+    // Notifications
+    // ---------------------------------------------------------------------
+
+    private void addNotifications(ReportTransitions.Transition transition, Map<String, Digest> digests) {
+        MaintenanceReport report = transition.getReport();
+        String location = report.getBuildingBlock() + ", Room " + report.getRoomNumber();
+
+        if (kind == Kind.ASSIGN) {
+            digest(digests, technicianId, NotificationUtils.Types.TASK_ASSIGNED,
+                    "🛠️ New Task Assigned", "You've been assigned %d new tasks")
+                    .add("You've been assigned to fix a " + report.getCategory() +
+                            " issue in " + location, report.getReportId());
+
+            digest(digests, report.getReporterId(), NotificationUtils.Types.STATUS_UPDATE,
+                    "👨‍🔧 Technician Assigned", "%d of your reports have been assigned to " + technicianName)
+                    .add("Your " + report.getCategory() + " report has been assigned to " +
+                            technicianName, report.getReportId());
+
+            // The technician it was taken from
+            String previousId = report.getAssignedTechnicianId();
+            if (previousId != null && !previousId.isEmpty()) {
+                digest(digests, previousId, NotificationUtils.Types.STATUS_UPDATE,
+                        "🔁 Task Reassigned", "%d of your tasks were reassigned")
+                        .add("Your " + report.getCategory() + " task in " + location +
+                                " was reassigned to " + technicianName, report.getReportId());
+            }
+        } else {
+            String label = closeStatus.getLabel();
+            String title = closeStatus == ReportStatus.COMPLETED ? "✅ Report Completed" : "📋 Report Cancelled";
+
+            digest(digests, report.getReporterId(), NotificationUtils.Types.STATUS_UPDATE,
+                    title, "%d of your reports are now " + label)
+                    .add("Your " + report.getCategory() + " report is now " + label, report.getReportId());
+
+            String technician = report.getAssignedTechnicianId();
+            if (technician != null && !technician.isEmpty() && !technician.equals(actorId)) {
+                digest(digests, technician, NotificationUtils.Types.STATUS_UPDATE,
+                        title, "%d of your tasks are now " + label)
+                        .add("Your " + report.getCategory() + " task in " + location +
+                                " is now " + label, report.getReportId());
+            }
+        }
+    }
+
+    private static Digest digest(Map<String, Digest> digests, String recipient, String type,
+                                 String title, String pluralFormat) {
+        String key = recipient + "|" + type + "|" + title;
+        Digest digest = digests.get(key);
+        if (digest == null) {
+            digest = new Digest(recipient, type, title, pluralFormat);
+            digests.put(key, digest);
+        }
+        return digest;
+    }
+
+    // One notification per recipient: the full message for a single report,
+    // a count for several
+    private static class Digest {
+        final String recipient;
+        final String type;
+        final String title;
+        final String pluralFormat;
+        String message;
+        String reportId;
+        int count;
+
+        Digest(String recipient, String type, String title, String pluralFormat) {
+            this.recipient = recipient;
+            this.type = type;
+            this.title = title;
+            this.pluralFormat = pluralFormat;
+        }
+
+        void add(String message, String reportId) {
+            if (recipient == null || recipient.isEmpty()) return;
+            if (count == 0) {
+                this.message = message;
+                this.reportId = reportId;
+            }
+            count++;
+        }
+
+        String text() {
+            return count == 1 ? message : String.format(Locale.getDefault(), pluralFormat, count);
+        }
+
+        String reportId() {
+            return count == 1 ? reportId : null;
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Progress
+    // ---------------------------------------------------------------------
+
+    private static class Progress {
+        final int total;
+        final List<String> skipped;
+        final List<String> failed = new ArrayList<>();
+        final List<String> followUpPending = new ArrayList<>();
+        final ProgressListener listener;
+        int succeeded;
+        String lastError;
+
+        Progress(int total, List<String> skipped, ProgressListener listener) {
+            this.total = total;
+            this.skipped = skipped;
+            this.listener = listener;
+        }
+
+        void succeeded(int count) {
+            succeeded += count;
+            listener.onProgress(done(), total);
+        }
+
+        // Changed by someone else since it was read, so left as it is
+        void conflicted(List<String> reportIds) {
+            if (reportIds.isEmpty()) return;
+            skipped.addAll(reportIds);
+            listener.onProgress(done(), total);
+        }
+
+        // Changed, so they count as succeeded; their follow-up comes later
+        void followUpPending(List<String> reportIds, String error) {
+            followUpPending.addAll(reportIds);
+            lastError = error;
+            succeeded(reportIds.size());
+        }
+
+        void failed(List<String> reportIds, String error) {
+            failed.addAll(reportIds);
+            lastError = error;
+            listener.onProgress(done(), total);
+        }
+
+        int done() {
+            return succeeded + failed.size() + skipped.size();
+        }
+
+        void finish() {
+            Log.d(TAG, "Bulk done: " + succeeded + " ok (" + followUpPending.size() + " pending), " +
+                    failed.size() + " failed, " + skipped.size() + " skipped");
+            listener.onFinished(new Result(succeeded, skipped, failed, followUpPending, lastError));
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+import com.hawassa.unifix.models.MaintenanceReport;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps an ordered, keyed in-memory copy of a query using child events.
+ * Only the child that changed is decoded, and callers get fine-grained
+ * insert / update / move / remove events instead of a full reload.
+ *
+ * Items follow the query order unless an order is given, in which case they
+ * are kept sorted by it (then by key) on the client. Report keys don't sort
+ * by time across id formats, and a query filtered with equalTo() orders by
+ * key, so report lists sort by timestamp here.
+ */
+public class ChildSyncEngine<T> implements ChildEventListener {
+    private static final String TAG = "ChildSyncEngine";
+
+    public interface Decoder<T> {
+        T decode(DataSnapshot snapshot);
+    }
+
+    public interface Callback<T> {
+        default void onInserted(int position, T item) {}
+
+        default void onUpdated(int position, T item) {}
+
+        default void onMoved(int fromPosition, int toPosition, T item) {}
+
+        default void onRemoved(int position, T item) {}
+
+        // Called once the initial children have been delivered
+        default void onSynced() {}
+
+        default void onError(String message) {}
+    }
+
+    private final Query query;
+    private final Decoder<T> decoder;
+    private final boolean newestFirst;
+    private final Comparator<T> order; // null: query order
+
+    // Keys in display order before newestFirst, plus key -> item and key -> index lookups
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, T> items = new HashMap<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+    private boolean positionsDirty = false;
+
+    private Callback<T> callback;
+    private ValueEventListener syncedListener;
+    private boolean started = false;
+
+    public ChildSyncEngine(Query query, Decoder<T> decoder, boolean newestFirst) {
+        this(query, decoder, newestFirst, null);
+    }
+
+    public ChildSyncEngine(Query query, Decoder<T> decoder, boolean newestFirst, Comparator<T> order) {
+        this.query = query;
+        this.decoder = decoder;
+        this.newestFirst = newestFirst;
+        this.order = order;
+    }
+
+    /**
+     * Engine for report lists, newest first by timestamp
+     */
+    public static ChildSyncEngine<MaintenanceReport> forReports(Query query) {
+        return new ChildSyncEngine<>(query, ModelMappers::toReport, true, BY_TIMESTAMP);
+    }
+
+    static final Comparator<MaintenanceReport> BY_TIMESTAMP =
+            (a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp());
+
+    public void start(Callback<T> callback) {
+        stop();
+        this.callback = callback;
+        clear();
+        started = true;
+
+        query.addChildEventListener(this);
+
+        // A value event on the same query fires after the initial child events,
+        // and is served from the data the child listener already synced
+        syncedListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (started && ChildSyncEngine.this.callback != null) {
+                    ChildSyncEngine.this.callback.onSynced();
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                // Reported by the child listener
+            }
+        };
+        query.addListenerForSingleValueEvent(syncedListener);
+    }
+
+    public void stop() {
+        if (!started) return;
+        query.removeEventListener((ChildEventListener) this);
+        if (syncedListener != null) {
+            query.removeEventListener(syncedListener);
+            syncedListener = null;
+        }
+        started = false;
+        callback = null;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public T get(int position) {
+        return items.get(keys.get(toIndex(position)));
+    }
+
+    public String getKey(int position) {
+        return keys.get(toIndex(position));
+    }
+
+    public T getByKey(String key) {
+        return items.get(key);
+    }
+
+    /**
+     * Display position of the key, or -1
+     */
+    public int indexOf(String key) {
+        Integer index = lookup(key);
+        return index != null ? toPosition(index, keys.size()) : -1;
+    }
+
+    /**
+     * Copy of the items in display order
+     */
+    public List<T> getItems() {
+        List<T> result = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            result.add(get(i));
+        }
+        return result;
+    }
+
+    @Override
+    public void onChildAdded(@NonNull DataSnapshot snapshot, String previousChildName) {
+        String key = snapshot.getKey();
+        T item = decoder.decode(snapshot);
+        if (key == null || item == null) return;
+
+        if (items.containsKey(key)) {
+            // Already indexed (e.g. re-delivered after reconnect)
+            onChildChanged(snapshot, previousChildName);
+            return;
+        }
+
+        int index = order != null ? sortedIndex(key, item) : insertIndex(previousChildName);
+        insertAt(index, key, item);
+
+        if (callback != null) {
+            callback.onInserted(toPosition(index, keys.size()), item);
+        }
+    }
+
+    @Override
+    public void onChildChanged(@NonNull DataSnapshot snapshot, String previousChildName) {
+        String key = snapshot.getKey();
+        T item = decoder.decode(snapshot);
+        Integer index = lookup(key);
+        if (key == null || item == null || index == null) return;
+
+        if (order != null && order.compare(items.get(key), item) != 0) {
+            reorder(index, key, item);
+            return;
+        }
+
+        items.put(key, item);
+        if (callback != null) {
+            callback.onUpdated(toPosition(index, keys.size()), item);
+        }
+    }
+
+    @Override
+    public void onChildMoved(@NonNull DataSnapshot snapshot, String previousChildName) {
+        String key = snapshot.getKey();
+        Integer fromIndex = lookup(key);
+        if (key == null || fromIndex == null) return;
+
+        T item = decoder.decode(snapshot);
+        if (item == null) item = items.get(key);
+
+        if (order != null) {
+            // Query order doesn't matter here, only the item's own
+            reorder(fromIndex, key, item);
+            return;
+        }
+
+        int size = keys.size();
+        int fromPosition = toPosition(fromIndex, size);
+        removeAt(fromIndex, key);
+
+        int toIndex = insertIndex(previousChildName);
+        insertAt(toIndex, key, item);
+
+        if (callback != null) {
+            callback.onMoved(fromPosition, toPosition(toIndex, size), item);
+        }
+    }
+
+    @Override
+    public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+        String key = snapshot.getKey();
+        Integer index = lookup(key);
+        if (key == null || index == null) return;
+
+        int position = toPosition(index, keys.size());
+        T item = items.get(key);
+        removeAt(index, key);
+
+        if (callback != null) {
+            callback.onRemoved(position, item);
+        }
+    }
+
+    @Override
+    public void onCancelled(@NonNull DatabaseError error) {
+        Log.e(TAG, "Sync cancelled: " + error.getMessage());
+        if (callback != null) {
+            callback.onError(error.getMessage());
+        }
+    }
+
+    private void clear() {
+        keys.clear();
+        items.clear();
+        positions.clear();
+        positionsDirty = false;
+    }
+
+    // Moves an item whose sort value changed, then reports its new content
+    private void reorder(int fromIndex, String key, T item) {
+        int size = keys.size();
+        removeAt(fromIndex, key);
+        int toIndex = sortedIndex(key, item);
+        insertAt(toIndex, key, item);
+
+        if (callback == null) return;
+        int toPosition = toPosition(toIndex, size);
+        if (toIndex != fromIndex) {
+            callback.onMoved(toPosition(fromIndex, size), toPosition, item);
+        }
+        callback.onUpdated(toPosition, item);
+    }
+
+    // Where an item not in keys goes by (order, key)
+    private int sortedIndex(String key, T item) {
+        int low = 0;
+        int high = keys.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            String midKey = keys.get(mid);
+            int c = order.compare(items.get(midKey), item);
+            if (c == 0) c = midKey.compareTo(key);
+            if (c < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int insertIndex(String previousChildName) {
+        if (previousChildName == null) return 0;
+        Integer previous = lookup(previousChildName);
+        return previous != null ? previous + 1 : keys.size();
+    }
+
+    private void insertAt(int index, String key, T item) {
+        keys.add(index, key);
+        items.put(key, item);
+        if (index == keys.size() - 1 && !positionsDirty) {
+            // Appending (the common case while syncing) doesn't shift anything
+            positions.put(key, index);
+        } else {
+            positionsDirty = true;
+        }
+    }
+
+    private void removeAt(int index, String key) {
+        keys.remove(index);
+        items.remove(key);
+        positions.remove(key);
+        if (index != keys.size()) {
+            positionsDirty = true;
+        }
+    }
+
+    private Integer lookup(String key) {
+        if (key == null) return null;
+        if (positionsDirty) {
+            positions.clear();
+            for (int i = 0; i < keys.size(); i++) {
+                positions.put(keys.get(i), i);
+            }
+            positionsDirty = false;
+        }
+        return positions.get(key);
+    }
+
+    private int toIndex(int position) {
+        return newestFirst ? keys.size() - 1 - position : position;
+    }
+
+    private int toPosition(int index, int size) {
+        return newestFirst ? size - 1 - index : index;
+    }
+}
@@ -0,0 +1,542 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.ValueEventListener;
+import com.hawassa.unifix.models.MaintenanceReport;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A set of report summaries (see ReportSummaries) kept on disk and brought
+ * up to date with only what changed since the last run.
+ *
+ * Every report write also stamps a change feed entry with the server time:
+ *   reportChanges/all/{reportId}
+ *   reportChanges/{uid}/{reportId}   for the reporter and the technicians involved
+ * Deletes are stamped the same way, so the feed doubles as the tombstone list.
+ * ReportChangesPruneWorker removes entries older than MAX_CACHE_AGE_MS, which
+ * no cache can still need.
+ *
+ * On start the cached reports are shown straight away, then the feed is
+ * listened to from the saved watermark (the newest stamp seen). Only those
+ * reports are fetched; one that no longer exists or no longer matches the
+ * filter leaves the set. The listener stays open, so later changes arrive
+ * the same way. Without a usable cache the scope is loaded with its normal
+ * query once. Until the summaries are backfilled, both the load and the
+ * fetches read "reports" instead (see ReportSummaries.whenReady()).
+ *
+ * Positions and callbacks follow ChildSyncEngine.forReports() (timestamp
+ * order, then key, optionally newest first), so screens can switch between
+ * the two. Keys alone don't give time order: ids from IdGenerator sort
+ * before the older timestamp-based ones.
+ */
+public class DeltaSync {
+    private static final String TAG = "DeltaSync";
+
+    public static final String FEED_ALL = "all";
+
+    // Older caches are reloaded in full rather than replayed
+    static final long MAX_CACHE_AGE_MS = 30L * 24 * 60 * 60 * 1000;
+    // Covers clock differences when the watermark comes from a full load
+    private static final long CLOCK_MARGIN_MS = 60 * 1000;
+    private static final long SAVE_DELAY_MS = 2000;
+
+    private static final DatabaseReference rootRef = FirebaseDatabase.getInstance().getReference();
+    private static final DatabaseReference changesRef = rootRef.child("reportChanges");
+
+    private static final ExecutorService io = Executors.newSingleThreadExecutor();
+    private static File cacheDir;
+
+    public interface Filter {
+        boolean matches(MaintenanceReport report);
+    }
+
+    /**
+     * The scope's query on reportSummaries, or on reports before the backfill
+     */
+    public interface QueryBuilder {
+        Query build(DatabaseReference source);
+    }
+
+    private final String cacheName;
+    private final String feed;
+    private final QueryBuilder fullQuery;
+    private final Filter filter;
+    private final boolean newestFirst;
+
+    // Keys by (timestamp, key) ascending, plus key -> report
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, MaintenanceReport> items = new HashMap<>();
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable saveRunnable = this::save;
+
+    private ChildSyncEngine.Callback<MaintenanceReport> callback;
+    private ReportSummaries.Source source;
+    private Query changesQuery;
+    private ChildEventListener changesListener;
+    private boolean started = false;
+    private boolean synced = false;
+    private int generation = 0;
+
+    private long watermark = 0;
+    // Lowest stamp whose fetch failed; the saved watermark never passes it
+    private long heldWatermark = Long.MAX_VALUE;
+    // Stamps of fetches still running -> how many; nor does it pass these,
+    // so a newer fetch finishing first can't skip an older one
+    private final TreeMap<Long, Integer> inFlight = new TreeMap<>();
+
+    public DeltaSync(String cacheName, String feed, QueryBuilder fullQuery, Filter filter, boolean newestFirst) {
+        this.cacheName = cacheName;
+        this.feed = feed;
+        this.fullQuery = fullQuery;
+        this.filter = filter;
+        this.newestFirst = newestFirst;
+    }
+
+    /**
+     * Where caches are kept. Call once at startup; without it nothing is
+     * cached and every start is a full load.
+     */
+    public static void init(Context context) {
+        File dir = new File(context.getFilesDir(), "sync");
+        if (!dir.exists()) dir.mkdirs();
+        cacheDir = dir;
+
+        // Caches from before summaries held whole reports
+        File[] legacy = dir.listFiles((d, name) ->
+                name.startsWith("reports_") || name.startsWith("tasks_of_"));
+        if (legacy != null) {
+            for (File file : legacy) file.delete();
+        }
+    }
+
+    public static DeltaSync forAllReports(boolean newestFirst) {
+        return new DeltaSync("summaries_all", FEED_ALL, source -> source, null, newestFirst);
+    }
+
+    public static DeltaSync forReporter(String uid) {
+        return new DeltaSync("summaries_by_" + uid, uid,
+                source -> source.orderByChild("reporterId").equalTo(uid),
+                report -> uid.equals(report.getReporterId()), true);
+    }
+
+    public static DeltaSync forTechnician(String uid) {
+        return new DeltaSync("summaries_tasks_of_" + uid, uid,
+                source -> source.orderByChild("assignedTechnicianId").equalTo(uid),
+                report -> uid.equals(report.getAssignedTechnicianId()), true);
+    }
+
+    /**
+     * Feed entries too old for any usable cache to replay, oldest first,
+     * for ReportChangesPruneWorker
+     */
+    static Query prunable(String feed, long now, int limit) {
+        return changesRef.child(feed).orderByValue()
+                .endAt(now - MAX_CACHE_AGE_MS - CLOCK_MARGIN_MS).limitToFirst(limit);
+    }
+
+    /**
+     * Stamp the change feeds for a write to report. Pass the technician the
+     * write assigns, if it changes, so their feed sees the task arrive.
+     */
+    public static void putChange(Map<String, Object> updates, MaintenanceReport report,
+                                 String newTechnicianId) {
+        Set<String> feeds = new LinkedHashSet<>();
+        feeds.add(FEED_ALL);
+        if (report.getReporterId() != null) feeds.add(report.getReporterId());
+        if (report.getAssignedTechnicianId() != null) feeds.add(report.getAssignedTechnicianId());
+        if (newTechnicianId != null) feeds.add(newTechnicianId);
+
+        for (String feed : feeds) {
+            updates.put("reportChanges/" + feed + "/" + report.getReportId(), ServerValue.TIMESTAMP);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Lifecycle
+    // ---------------------------------------------------------------------
+
+    public void start(ChildSyncEngine.Callback<MaintenanceReport> callback) {
+        stop();
+        this.callback = callback;
+        keys.clear();
+        items.clear();
+        watermark = 0;
+        heldWatermark = Long.MAX_VALUE;
+        inFlight.clear();
+        source = null;
+        synced = false;
+        started = true;
+        final int startGeneration = ++generation;
+
+        io.execute(() -> {
+            Cache cache = readCache();
+            handler.post(() -> {
+                if (startGeneration != generation) return;
+                onCacheLoaded(cache);
+            });
+        });
+    }
+
+    public void stop() {
+        if (!started) return;
+        generation++;
+        if (changesQuery != null && changesListener != null) {
+            changesQuery.removeEventListener(changesListener);
+        }
+        changesQuery = null;
+        changesListener = null;
+        handler.removeCallbacks(saveRunnable);
+        if (synced) save();
+        started = false;
+        callback = null;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public MaintenanceReport get(int position) {
+        return items.get(keys.get(toIndex(position)));
+    }
+
+    public MaintenanceReport getByKey(String key) {
+        return items.get(key);
+    }
+
+    /**
+     * Copy of the reports in display order
+     */
+    public List<MaintenanceReport> getItems() {
+        List<MaintenanceReport> result = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            result.add(get(i));
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------------------
+    // Sync
+    // ---------------------------------------------------------------------
+
+    private void onCacheLoaded(Cache cache) {
+        boolean usable = cache != null && cache.watermark > 0
+                && IdGenerator.serverNow() - cache.watermark < MAX_CACHE_AGE_MS;
+        if (!usable) {
+            withSource(this::fullLoad);
+            return;
+        }
+
+        for (MaintenanceReport report : cache.reports) {
+            apply(report.getReportId(), report);
+        }
+        watermark = cache.watermark;
+        Log.d(TAG, cacheName + ": " + keys.size() + " cached reports, catching up from " + watermark);
+
+        markSynced();
+        long from = watermark;
+        withSource(() -> listenForChanges(from));
+    }
+
+    // Network reads wait for the source; the cache is shown before it is known
+    private void withSource(Runnable next) {
+        final int sourceGeneration = generation;
+        ReportSummaries.whenReady(ready -> {
+            if (sourceGeneration != generation) return;
+            source = ready;
+            next.run();
+        });
+    }
+
+    private void fullLoad() {
+        final int loadGeneration = generation;
+        final long since = IdGenerator.serverNow() - CLOCK_MARGIN_MS;
+
+        fullQuery.build(source.ref()).get()
+                .addOnSuccessListener(snapshot -> {
+                    if (loadGeneration != generation) return;
+
+                    Set<String> present = new LinkedHashSet<>();
+                    for (DataSnapshot child : snapshot.getChildren()) {
+                        MaintenanceReport report = ModelMappers.toReport(child);
+                        if (report == null || child.getKey() == null) continue;
+                        present.add(child.getKey());
+                        apply(child.getKey(), report);
+                    }
+                    for (String key : new ArrayList<>(keys)) {
+                        if (!present.contains(key)) apply(key, null);
+                    }
+
+                    watermark = since;
+                    Log.d(TAG, cacheName + ": full load of " + keys.size() + " reports");
+                    markSynced();
+                    scheduleSave();
+                    listenForChanges(since);
+                })
+                .addOnFailureListener(e -> {
+                    if (loadGeneration != generation) return;
+                    Log.e(TAG, cacheName + ": full load failed: " + e.getMessage());
+                    if (callback != null) callback.onError(e.getMessage());
+                });
+    }
+
+    private void listenForChanges(long from) {
+        changesQuery = changesRef.child(feed).orderByValue().startAt(from);
+        changesListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, String previousChildName) {
+                fetch(snapshot);
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, String previousChildName) {
+                fetch(snapshot);
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, String previousChildName) {
+                // Order within the feed doesn't matter
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                // Only pruning removes entries, and only ones older than any watermark
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, cacheName + ": change feed cancelled: " + error.getMessage());
+                if (callback != null) callback.onError(error.getMessage());
+            }
+        };
+        changesQuery.addChildEventListener(changesListener);
+    }
+
+    // Bring one changed report up to date
+    private void fetch(DataSnapshot change) {
+        String reportId = change.getKey();
+        Long changedAt = change.getValue(Long.class);
+        if (reportId == null || changedAt == null) return;
+
+        final int fetchGeneration = generation;
+        inFlight.merge(changedAt, 1, Integer::sum);
+        source.ref().child(reportId).get()
+                .addOnSuccessListener(snapshot -> {
+                    if (fetchGeneration != generation) return;
+                    landed(changedAt);
+                    apply(reportId, snapshot.exists() ? ModelMappers.toReport(snapshot) : null);
+                    watermark = Math.max(watermark, changedAt);
+                    scheduleSave();
+                })
+                .addOnFailureListener(e -> {
+                    if (fetchGeneration != generation) return;
+                    landed(changedAt);
+                    Log.w(TAG, cacheName + ": failed to fetch " + reportId + ": " + e.getMessage());
+                    heldWatermark = Math.min(heldWatermark, changedAt);
+                });
+    }
+
+    private void landed(long changedAt) {
+        Integer count = inFlight.get(changedAt);
+        if (count == null) return;
+        if (count > 1) {
+            inFlight.put(changedAt, count - 1);
+        } else {
+            inFlight.remove(changedAt);
+        }
+    }
+
+    private void markSynced() {
+        if (synced) return;
+        synced = true;
+        if (callback != null) callback.onSynced();
+    }
+
+    // ---------------------------------------------------------------------
+    // Ordered set
+    // ---------------------------------------------------------------------
+
+    // Insert, update, move or remove (report == null, or filtered out) one key
+    private void apply(String key, MaintenanceReport report) {
+        boolean keep = report != null && (filter == null || filter.matches(report));
+        MaintenanceReport current = items.get(key);
+
+        if (current == null) {
+            if (!keep) return;
+            int index = -search(key, report.getTimestamp()) - 1;
+            keys.add(index, key);
+            items.put(key, report);
+            if (callback != null) callback.onInserted(toPosition(index, keys.size()), report);
+            return;
+        }
+
+        int index = search(key, current.getTimestamp());
+        int size = keys.size();
+        if (keep && report.getTimestamp() == current.getTimestamp()) {
+            items.put(key, report);
+            if (callback != null) callback.onUpdated(toPosition(index, size), report);
+            return;
+        }
+
+        keys.remove(index);
+        items.remove(key);
+        if (!keep) {
+            if (callback != null) callback.onRemoved(toPosition(index, size), current);
+            return;
+        }
+
+        int toIndex = -search(key, report.getTimestamp()) - 1;
+        keys.add(toIndex, key);
+        items.put(key, report);
+        if (callback != null) {
+            callback.onMoved(toPosition(index, size), toPosition(toIndex, size), report);
+            callback.onUpdated(toPosition(toIndex, size), report);
+        }
+    }
+
+    // Index of (timestamp, key) in keys, or -(insertion point) - 1
+    private int search(String key, long timestamp) {
+        int low = 0;
+        int high = keys.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            String midKey = keys.get(mid);
+            int c = Long.compare(items.get(midKey).getTimestamp(), timestamp);
+            if (c == 0) c = midKey.compareTo(key);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int toPosition(int index, int size) {
+        return newestFirst ? size - 1 - index : index;
+    }
+
+    private int toIndex(int position) {
+        return newestFirst ? keys.size() - 1 - position : position;
+    }
+
+    // ---------------------------------------------------------------------
+    // Disk cache: {"watermark": n, "reports": {id: report}}
+    // ---------------------------------------------------------------------
+
+    private static class Cache {
+        final long watermark;
+        final List<MaintenanceReport> reports;
+
+        Cache(long watermark, List<MaintenanceReport> reports) {
+            this.watermark = watermark;
+            this.reports = reports;
+        }
+    }
+
+    private void scheduleSave() {
+        handler.removeCallbacks(saveRunnable);
+        handler.postDelayed(saveRunnable, SAVE_DELAY_MS);
+    }
+
+    private void save() {
+        if (cacheDir == null) return;
+
+        long oldestInFlight = inFlight.isEmpty() ? Long.MAX_VALUE : inFlight.firstKey();
+        long savedWatermark = Math.min(watermark, Math.min(heldWatermark, oldestInFlight));
+        Map<String, Object> reports = new HashMap<>();
+        for (Map.Entry<String, MaintenanceReport> entry : items.entrySet()) {
+            reports.put(entry.getKey(), ModelMappers.toMap(entry.getValue()));
+        }
+        File file = new File(cacheDir, cacheName + ".json");
+
+        io.execute(() -> {
+            try {
+                JSONObject json = new JSONObject();
+                json.put("watermark", savedWatermark);
+                json.put("reports", new JSONObject(reports));
+
+                // Temp file and rename, so a crash leaves the old cache intact
+                File temp = new File(cacheDir, cacheName + ".json.tmp");
+                try (OutputStream out = new FileOutputStream(temp)) {
+                    out.write(json.toString().getBytes(StandardCharsets.UTF_8));
+                }
+                if (!temp.renameTo(file)) temp.delete();
+            } catch (IOException | JSONException e) {
+                Log.w(TAG, cacheName + ": failed to save cache: " + e.getMessage());
+            }
+        });
+    }
+
+    // Runs on the io thread
+    private Cache readCache() {
+        if (cacheDir == null) return null;
+        File file = new File(cacheDir, cacheName + ".json");
+        if (!file.exists()) return null;
+
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            try (InputStream in = new FileInputStream(file)) {
+                int offset = 0;
+                while (offset < bytes.length) {
+                    int read = in.read(bytes, offset, bytes.length - offset);
+                    if (read == -1) break;
+                    offset += read;
+                }
+            }
+
+            JSONObject json = new JSONObject(new String(bytes, StandardCharsets.UTF_8));
+            JSONObject reportsJson = json.getJSONObject("reports");
+            List<MaintenanceReport> reports = new ArrayList<>();
+            Iterator<String> ids = reportsJson.keys();
+            while (ids.hasNext()) {
+                MaintenanceReport report = ModelMappers.reportFromMap(
+                        ModelMappers.fromJson(reportsJson.getJSONObject(ids.next())));
+                if (report != null && report.getReportId() != null) reports.add(report);
+            }
+            return new Cache(json.optLong("watermark", 0), reports);
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, cacheName + ": ignoring unreadable cache: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Finds open reports that describe the same problem as a new one.
+ *
+ * Candidates share the new report's locationKey (building, room and
+ * category) and were filed within WINDOW_MS. Each is scored by how similar
+ * its description is, estimated with MinHash over character shingles, and
+ * anything above SIMILARITY_THRESHOLD is offered to the student, who can
+ * "+1" it instead of filing a new report.
+ *
+ * Admins can merge duplicates that got through anyway: the duplicates move
+ * to Merged and point at the report that is kept.
+ */
+public class DuplicateDetector {
+    private static final String TAG = "DuplicateDetector";
+
+    // Only reports filed this recently count as the same problem
+    static final long WINDOW_MS = 14L * 24 * 60 * 60 * 1000;
+    static final double SIMILARITY_THRESHOLD = 0.3;
+
+    private static final int SHINGLE_SIZE = 3;
+    private static final int NUM_HASHES = 64;
+    private static final long PRIME = 2147483647L; // 2^31 - 1
+
+    // Fixed hash coefficients so signatures are comparable across calls
+    private static final long[] HASH_A = new long[NUM_HASHES];
+    private static final long[] HASH_B = new long[NUM_HASHES];
+
+    static {
+        Random random = new Random(0x5eed);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            HASH_A[i] = 1 + random.nextInt(Integer.MAX_VALUE - 1);
+            HASH_B[i] = random.nextInt(Integer.MAX_VALUE);
+        }
+    }
+
+    // Looked up per call rather than held in a static field, so the matching
+    // code above loads in plain JVM tests
+    private static DatabaseReference rootRef() {
+        return FirebaseDatabase.getInstance().getReference();
+    }
+
+    public static class Match {
+        public final MaintenanceReport report;
+        public final double similarity; // 0..1
+
+        Match(MaintenanceReport report, double similarity) {
+            this.report = report;
+            this.similarity = similarity;
+        }
+    }
+
+    public interface MatchListener {
+        // Best match first; empty if nothing similar is open
+        void onMatches(List<Match> matches);
+
+        default void onError(String message) {}
+    }
+
+    /**
+     * "block|room|category", lower case with whitespace collapsed, so
+     * "Block 3 " and "block  3" are the same place
+     */
+    public static String locationKey(String buildingBlock, String roomNumber, String category) {
+        return normalize(buildingBlock) + "|" + normalize(roomNumber) + "|" + normalize(category);
+    }
+
+    private static String normalize(String value) {
+        if (value == null) return "";
+        return value.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Look for open reports similar to the one about to be submitted
+     */
+    public static void findMatches(String buildingBlock, String roomNumber, String category,
+                                   String description, MatchListener listener) {
+        String key = locationKey(buildingBlock, roomNumber, category);
+        long since = System.currentTimeMillis() - WINDOW_MS;
+        int[] signature = signature(description);
+
+        rootRef().child("reports").orderByChild("locationKey").equalTo(key)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        List<Match> matches = new ArrayList<>();
+                        for (DataSnapshot child : snapshot.getChildren()) {
+                            MaintenanceReport report = ModelMappers.toReport(child);
+                            if (report == null || report.getTimestamp() < since) continue;
+
+                            ReportStatus status = ReportStatus.fromString(report.getStatus());
+                            if (status == null || status.isFinal()) continue;
+
+                            double similarity = similarity(signature, signature(report.getDescription()));
+                            if (similarity >= SIMILARITY_THRESHOLD) {
+                                matches.add(new Match(report, similarity));
+                            }
+                        }
+                        Collections.sort(matches, (a, b) -> Double.compare(b.similarity, a.similarity));
+                        listener.onMatches(matches);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Duplicate check failed: " + error.getMessage());
+                        listener.onError(error.getMessage());
+                    }
+                });
+    }
+
+    // ---------------------------------------------------------------------
+    // MinHash
+    // ---------------------------------------------------------------------
+
+    /**
+     * MinHash signature of the description's character shingles
+     */
+    static int[] signature(String text) {
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        for (int shingle : shingles(text)) {
+            long value = shingle & 0xffffffffL;
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int hash = (int) ((HASH_A[i] * value + HASH_B[i]) % PRIME);
+                if (hash < signature[i]) signature[i] = hash;
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Estimated Jaccard similarity: the share of positions where the
+     * signatures agree
+     */
+    static double similarity(int[] a, int[] b) {
+        int same = 0;
+        int used = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == Integer.MAX_VALUE && b[i] == Integer.MAX_VALUE) continue; // both empty
+            used++;
+            if (a[i] == b[i]) same++;
+        }
+        return used == 0 ? 0 : (double) same / used;
+    }
+
+    private static Set<Integer> shingles(String text) {
+        Set<Integer> shingles = new HashSet<>();
+        if (text == null) return shingles;
+
+        // Letters and digits only, so punctuation and spacing don't matter
+        String cleaned = text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+        if (cleaned.length() < SHINGLE_SIZE) {
+            if (!cleaned.isEmpty()) shingles.add(cleaned.hashCode());
+            return shingles;
+        }
+        for (int i = 0; i + SHINGLE_SIZE <= cleaned.length(); i++) {
+            shingles.add(cleaned.substring(i, i + SHINGLE_SIZE).hashCode());
+        }
+        return shingles;
+    }
+
+    // ---------------------------------------------------------------------
+    // +1 and merge
+    // ---------------------------------------------------------------------
+
+    /**
+     * Add a student to an existing report instead of filing a new one.
+     * Each student counts once; a repeat +1 is reported as committed.
+     */
+    public static void plusOne(MaintenanceReport report, String userId,
+                               ReportTransitions.CommitListener listener) {
+        String reportId = report.getReportId();
+        DatabaseReference supporterRef = rootRef().child("reports").child(reportId)
+                .child("supporters").child(userId);
+
+        // Claim the supporter slot first so a double tap can't count twice
+        supporterRef.runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                if (data.getValue() != null) return Transaction.abort();
+                data.setValue(System.currentTimeMillis());
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) {
+                    listener.onFailure(error.getMessage());
+                    return;
+                }
+                if (!committed) {
+                    listener.onCommitted(); // already counted
+                    return;
+                }
+
+                Map<String, Object> updates = new HashMap<>();
+                updates.put("reports/" + reportId + "/duplicateCount", ServerValue.increment(1));
+                updates.put("reports/" + reportId + "/lastModified", ServerValue.TIMESTAMP);
+                DeltaSync.putChange(updates, report, null);
+                ReportSummaries.putMirror(updates);
+
+                rootRef().updateChildren(updates)
+                        .addOnSuccessListener(aVoid -> listener.onCommitted())
+                        .addOnFailureListener(e -> {
+                            Log.e(TAG, "❌ +1 failed for " + reportId + ": " + e.getMessage());
+                            listener.onFailure(e.getMessage());
+                        });
+            }
+        });
+    }
+
+    /**
+     * Fold duplicates into primary: each duplicate moves to Merged with
+     * mergedInto set, through a compare-and-set like ReportTransitions.claim(),
+     * so one someone else changed meanwhile is left alone. Then one write
+     * grows primary's duplicateCount by the merged duplicates and their own
+     * +1s, and tells each merged duplicate's reporter.
+     */
+    public static void merge(MaintenanceReport primary, List<MaintenanceReport> duplicates,
+                             String actorId, String actorName,
+                             ReportTransitions.CommitListener listener) {
+        List<ReportTransitions.Transition> transitions = new ArrayList<>();
+        for (MaintenanceReport duplicate : duplicates) {
+            if (duplicate.getReportId() == null || duplicate.getReportId().equals(primary.getReportId())) {
+                continue;
+            }
+
+            ReportTransitions.Transition transition =
+                    ReportTransitions.change(duplicate, ReportStatus.MERGED, actorId, actorName)
+                            .set("mergedInto", primary.getReportId())
+                            .notes("Merged into " + primary.getReportId());
+            if (!transition.isLegal()) {
+                listener.onFailure("Cannot merge a " + duplicate.getStatus() + " report");
+                return;
+            }
+            transitions.add(transition);
+        }
+
+        if (transitions.isEmpty()) {
+            listener.onFailure("Nothing to merge");
+            return;
+        }
+
+        ReportTransitions.compareAndSetAll(transitions, results -> {
+            if (results.applied.isEmpty()) {
+                listener.onFailure(results.lastError != null ? results.lastError
+                        : "These reports were changed by someone else");
+                return;
+            }
+            if (!results.conflicts.isEmpty() || !results.errors.isEmpty()) {
+                Log.w(TAG, (results.conflicts.size() + results.errors.size()) +
+                        " duplicates changed meanwhile and were not merged");
+            }
+            writeMerge(primary, results, actorId, actorName, listener);
+        });
+    }
+
+    private static void writeMerge(MaintenanceReport primary, ReportTransitions.CasResults results,
+                                   String actorId, String actorName,
+                                   ReportTransitions.CommitListener listener) {
+        Map<String, Object> updates = new HashMap<>();
+        StatsCounters.Tally tally = new StatsCounters.Tally();
+        NotificationUtils.Batch batch = new NotificationUtils.Batch(updates);
+        long now = System.currentTimeMillis();
+        long added = 0;
+
+        for (Map.Entry<ReportTransitions.Transition, DataSnapshot> won : results.applied.entrySet()) {
+            ReportTransitions.Transition transition = won.getKey();
+            MaintenanceReport duplicate = transition.getReport();
+            MaintenanceReport merged = ModelMappers.toReport(won.getValue());
+
+            ReportTransitions.putClaimFollowUp(transition, won.getValue(), updates, now);
+            ReportTransitions.addCounters(transition, tally);
+            added += 1 + (merged != null ? merged.getDuplicateCount() : duplicate.getDuplicateCount());
+
+            batch.add(duplicate.getReporterId(), "🔗 Report Merged",
+                    "Your " + duplicate.getCategory() + " report was merged with an existing report " +
+                            "for the same issue. You'll get updates on that one.",
+                    NotificationUtils.Types.STATUS_UPDATE, primary.getReportId(), actorId, actorName);
+        }
+
+        tally.putInto(updates);
+        batch.finish();
+        updates.put("reports/" + primary.getReportId() + "/duplicateCount", ServerValue.increment(added));
+        updates.put("reports/" + primary.getReportId() + "/lastModified", ServerValue.TIMESTAMP);
+        DeltaSync.putChange(updates, primary, null);
+        ReportSummaries.putMirror(updates);
+
+        int count = results.applied.size();
+        rootRef().updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "✅ Merged " + count + " reports into " + primary.getReportId());
+                    listener.onCommitted();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "❌ Merge failed: " + e.getMessage());
+                    listener.onFailure(e.getMessage());
+                });
+    }
+}
@@ -32,6 +32,10 @@ public class FirebaseManager {
         return databaseReference.child("notifications");
     }
 
+    public DatabaseReference getUserNotificationsRef(String userId) {
+        return databaseReference.child("userNotifications").child(userId);
+    }
+
     public DatabaseReference getTechniciansRef() {
         return databaseReference.child("technicians");
     }
@@ -50,7 +54,6 @@ public class FirebaseManager {
 
     // Helper method to generate unique ID
     public String generateUniqueId(String prefix) {
-        return prefix + "_" + System.currentTimeMillis() + "_" +
-                (int)(Math.random() * 1000);
+        return IdGenerator.next(prefix + "_");
     }
 }
\ No newline at end of file
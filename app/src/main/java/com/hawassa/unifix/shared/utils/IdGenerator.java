@@ -0,0 +1,173 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-sortable unique ids for reports, feedback and notifications.
+ *
+ * An id is prefix + 21 characters of Crockford base32, ULID style:
+ *
+ *   TTTTTTTTTT SSS NNNNNNNN
+ *   time (ms)  seq node
+ *
+ * time is server time (local clock + .info/serverTimeOffset), seq counts
+ * ids made in the same millisecond and node is random per process, so two
+ * phones never produce the same id. The alphabet is in ASCII order, so
+ * with a fixed prefix the keys sort by creation time and a key range can
+ * stand in for a range on a timestamp child.
+ *
+ * Ids from one process always increase, even if the clock or offset jumps
+ * back: the (time, seq) state only moves forward, via compare-and-set.
+ */
+public class IdGenerator {
+    private static final String TAG = "IdGenerator";
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final int TIME_CHARS = 10; // 50 bits, holds 48-bit millis
+    private static final int SEQ_CHARS = 3;   // 15 bits
+    private static final int NODE_CHARS = 8;  // 40 bits
+    static final int ID_LENGTH = TIME_CHARS + SEQ_CHARS + NODE_CHARS;
+
+    private static final int SEQ_BITS = 5 * SEQ_CHARS;
+    private static final long SEQ_MASK = (1L << SEQ_BITS) - 1;
+
+    private static final long NODE = new SecureRandom().nextLong() & ((1L << 5 * NODE_CHARS) - 1);
+    private static final String NODE_SUFFIX = encode(NODE, NODE_CHARS);
+
+    // (millis << SEQ_BITS) | seq of the last id handed out
+    private static final AtomicLong last = new AtomicLong();
+
+    private static volatile long serverTimeOffset = 0;
+    private static boolean syncing = false;
+
+    /**
+     * Track the server clock offset. Call once at startup; until the first
+     * value arrives the local clock is used.
+     */
+    public static synchronized void syncClock() {
+        if (syncing) return;
+        syncing = true;
+
+        FirebaseDatabase.getInstance().getReference(".info/serverTimeOffset")
+                .addValueEventListener(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        Long offset = snapshot.getValue(Long.class);
+                        if (offset != null) serverTimeOffset = offset;
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.w(TAG, "Server time offset unavailable: " + error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Best estimate of the server's clock
+     */
+    public static long serverNow() {
+        return System.currentTimeMillis() + serverTimeOffset;
+    }
+
+    /**
+     * A new id, e.g. next("REP-") -> "REP-01K7Z3M8QJ000X4B9T2CW"
+     */
+    public static String next(String prefix) {
+        return next(prefix, serverNow());
+    }
+
+    // next() as of a given time
+    static String next(String prefix, long now) {
+        long previous;
+        long state;
+        do {
+            previous = last.get();
+            long previousMillis = previous >>> SEQ_BITS;
+            // A full sequence carries into the next millisecond, which keeps order
+            state = now > previousMillis ? now << SEQ_BITS : previous + 1;
+        } while (!last.compareAndSet(previous, state));
+
+        return prefix + encode(state >>> SEQ_BITS, TIME_CHARS)
+                + encode(state & SEQ_MASK, SEQ_CHARS) + NODE_SUFFIX;
+    }
+
+    /**
+     * Smallest id with this prefix created at or after time. Keys from
+     * next(prefix) can be range-scanned with orderByKey().startAt(keyAt(...)).
+     */
+    public static String keyAt(String prefix, long time) {
+        return prefix + encode(time, TIME_CHARS);
+    }
+
+    /**
+     * A full-length id for time with sequence and node 0, for keying data
+     * that is migrated from before this scheme so it sorts in with new ids
+     */
+    public static String idAt(String prefix, long time) {
+        return keyAt(prefix, time) + encode(0, SEQ_CHARS) + encode(0, NODE_CHARS);
+    }
+
+    /**
+     * When a generated id was made, or -1 for ids from before this scheme
+     */
+    public static long timestampOf(String id) {
+        String body = body(id);
+        if (body == null) return -1;
+
+        long time = 0;
+        for (int i = 0; i < TIME_CHARS; i++) {
+            time = (time << 5) | decode(body.charAt(i));
+        }
+        return time;
+    }
+
+    /**
+     * Short id for display. For generated ids this is the end of the time
+     * and the sequence, which differ between reports; older ids keep their
+     * first 8 characters.
+     */
+    public static String shortForm(String id) {
+        if (id == null) return "";
+        String body = body(id);
+        if (body == null) return id.length() > 8 ? id.substring(0, 8) : id;
+        return body.substring(TIME_CHARS - 5, TIME_CHARS + SEQ_CHARS);
+    }
+
+    // The 21-character part of a generated id, or null
+    private static String body(String id) {
+        if (id == null || id.length() < ID_LENGTH) return null;
+        String body = id.substring(id.length() - ID_LENGTH);
+        for (int i = 0; i < body.length(); i++) {
+            if (decode(body.charAt(i)) < 0) return null;
+        }
+        return body;
+    }
+
+    private static String encode(long value, int chars) {
+        char[] out = new char[chars];
+        for (int i = chars - 1; i >= 0; i--) {
+            out[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(out);
+    }
+
+    private static int decode(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) return i;
+        }
+        return -1;
+    }
+}
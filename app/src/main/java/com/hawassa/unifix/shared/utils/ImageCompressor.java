@@ -0,0 +1,188 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.exifinterface.media.ExifInterface;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shrinks photos before they are uploaded.
+ *
+ * Camera output is often 4-12 MB. Each image is decoded with inSampleSize
+ * (so the full-size bitmap never has to fit in memory), turned upright from
+ * its EXIF orientation, scaled down to maxEdge and re-encoded. Quality
+ * steps down until the file fits maxBytes or MIN_QUALITY is reached.
+ * Re-encoding also drops all EXIF data, GPS position included.
+ *
+ * compress() blocks, for workers; compressAsync() runs on a background
+ * thread and reports back on the main thread.
+ */
+public class ImageCompressor {
+    private static final String TAG = "ImageCompressor";
+
+    private static final int MIN_QUALITY = 50;
+    private static final int QUALITY_STEP = 8;
+
+    /**
+     * Enough for the report detail view at full screen width
+     */
+    public static final Options REPORT = new Options(1600, Bitmap.CompressFormat.JPEG, 82, 400 * 1024);
+    public static final Options PROFILE = new Options(512, Bitmap.CompressFormat.JPEG, 85, 100 * 1024);
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static class Options {
+        public final int maxEdge;                   // longest side in pixels
+        public final Bitmap.CompressFormat format;  // JPEG or WEBP
+        public final int quality;                   // starting quality, 0-100
+        public final int maxBytes;                  // byte budget; quality drops to meet it
+
+        public Options(int maxEdge, Bitmap.CompressFormat format, int quality, int maxBytes) {
+            this.maxEdge = maxEdge;
+            this.format = format;
+            this.quality = quality;
+            this.maxBytes = maxBytes;
+        }
+
+        public String extension() {
+            return format == Bitmap.CompressFormat.JPEG ? ".jpg" : ".webp";
+        }
+
+        public String mimeType() {
+            return format == Bitmap.CompressFormat.JPEG ? "image/jpeg" : "image/webp";
+        }
+    }
+
+    public interface Callback {
+        void onCompressed(File file);
+
+        void onError(String message);
+    }
+
+    public static void compressAsync(Context context, Uri source, Options options, File target,
+                                     Callback callback) {
+        Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            try {
+                compress(appContext, source, options, target);
+                mainHandler.post(() -> callback.onCompressed(target));
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Compression failed: " + e.getMessage());
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Write a compressed copy of source to target. Returns its size in bytes.
+     */
+    public static long compress(Context context, Uri source, Options options, File target)
+            throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(context, source)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not an image: " + source);
+        }
+
+        int orientation;
+        try (InputStream in = open(context, source)) {
+            orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        }
+
+        BitmapFactory.Options decode = new BitmapFactory.Options();
+        decode.inSampleSize = sampleSize(Math.max(bounds.outWidth, bounds.outHeight), options.maxEdge);
+        Bitmap decoded;
+        try (InputStream in = open(context, source)) {
+            decoded = BitmapFactory.decodeStream(in, null, decode);
+        }
+        if (decoded == null) throw new IOException("Cannot decode " + source);
+
+        Bitmap upright = scaleAndRotate(decoded, options.maxEdge, orientation);
+        byte[] bytes = encode(upright, options);
+        upright.recycle();
+
+        try (OutputStream out = new FileOutputStream(target)) {
+            out.write(bytes);
+        }
+        Log.d(TAG, bounds.outWidth + "x" + bounds.outHeight + " -> " + bytes.length / 1024 + " KB");
+        return bytes.length;
+    }
+
+    private static InputStream open(Context context, Uri source) throws IOException {
+        InputStream in = context.getContentResolver().openInputStream(source);
+        if (in == null) throw new IOException("Cannot read " + source);
+        return in;
+    }
+
+    // Largest power of two that keeps the decoded image at least maxEdge long
+    static int sampleSize(int longestEdge, int maxEdge) {
+        int sample = 1;
+        while (longestEdge / (sample * 2) >= maxEdge) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    private static Bitmap scaleAndRotate(Bitmap bitmap, int maxEdge, int orientation) {
+        Matrix matrix = new Matrix();
+        int longestEdge = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longestEdge > maxEdge) {
+            float scale = (float) maxEdge / longestEdge;
+            matrix.postScale(scale, scale);
+        }
+
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL: matrix.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_ROTATE_180: matrix.postRotate(180); break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL: matrix.postScale(1, -1); break;
+            case ExifInterface.ORIENTATION_TRANSPOSE: matrix.postRotate(90); matrix.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_ROTATE_90: matrix.postRotate(90); break;
+            case ExifInterface.ORIENTATION_TRANSVERSE: matrix.postRotate(-90); matrix.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_ROTATE_270: matrix.postRotate(270); break;
+            default: break;
+        }
+        if (matrix.isIdentity()) return bitmap;
+
+        Bitmap result = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (result != bitmap) bitmap.recycle();
+        return result;
+    }
+
+    private static byte[] encode(Bitmap bitmap, Options options) {
+        Bitmap.CompressFormat format = options.format;
+        if (format != Bitmap.CompressFormat.JPEG && Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            format = Bitmap.CompressFormat.WEBP_LOSSY;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int quality = options.quality;
+        while (true) {
+            out.reset();
+            bitmap.compress(format, quality, out);
+            if (out.size() <= options.maxBytes || quality <= MIN_QUALITY) break;
+            quality = Math.max(MIN_QUALITY, quality - QUALITY_STEP);
+        }
+        return out.toByteArray();
+    }
+}
@@ -5,6 +5,7 @@ import android.widget.Toast;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
 import com.google.firebase.storage.StorageReference;
 import com.google.firebase.storage.UploadTask;
 import java.io.File;
@@ -42,75 +43,76 @@ public class ImageUploader {
 
         // Create unique filename
         String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
-        String fileName = "report_" + reportId + "_" + timeStamp + ".jpg";
+        String fileName = "report_" + reportId + "_" + timeStamp + ImageCompressor.REPORT.extension();
 
-        // Reference to location in Firebase Storage
-        StorageReference imageRef = storageRef.child("report_images/" + fileName);
-
-        // Upload file
-        UploadTask uploadTask = imageRef.putFile(imageUri);
+        upload(imageUri, "report_images/" + fileName, ImageCompressor.REPORT, "Image upload failed: ");
+    }
 
-        // Monitor upload progress
-        uploadTask.addOnProgressListener(taskSnapshot -> {
-            double progress = (100.0 * taskSnapshot.getBytesTransferred()) / taskSnapshot.getTotalByteCount();
+    public void uploadProfileImage(Uri imageUri, String userId) {
+        if (imageUri == null) {
             if (uploadListener != null) {
-                uploadListener.onUploadProgress(progress);
+                uploadListener.onUploadSuccess(null);
             }
-        });
+            return;
+        }
 
-        // Handle successful upload
-        uploadTask.addOnSuccessListener(new OnSuccessListener<UploadTask.TaskSnapshot>() {
+        // A new photo replaces any earlier one that never finished uploading
+        for (String path : UploadSessions.pending(context, profilePrefix(userId))) {
+            UploadSessions.finish(context, path);
+        }
+
+        // Create unique filename
+        String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
+        String fileName = "profile_" + userId + "_" + timeStamp + ImageCompressor.PROFILE.extension();
+
+        upload(imageUri, "profile_images/" + fileName, ImageCompressor.PROFILE, "Profile image upload failed: ");
+    }
+
+    /**
+     * Pick up a profile photo upload the app was killed in the middle of.
+     * It carries on from the last byte Storage confirmed and reports to the
+     * current listener, so call this once the listener is set.
+     */
+    public void resumeProfileUpload(String userId) {
+        for (String path : UploadSessions.pending(context, profilePrefix(userId))) {
+            putFile(path, ImageCompressor.PROFILE, "Profile image upload failed: ");
+        }
+    }
+
+    private static String profilePrefix(String userId) {
+        return "profile_images/profile_" + userId + "_";
+    }
+
+    // Compress off the main thread into the file UploadSessions keeps for
+    // the path, then upload the small copy
+    private void upload(Uri imageUri, String path, ImageCompressor.Options options, String failureToast) {
+        File compressed = UploadSessions.file(context, path);
+
+        ImageCompressor.compressAsync(context, imageUri, options, compressed, new ImageCompressor.Callback() {
             @Override
-            public void onSuccess(UploadTask.TaskSnapshot taskSnapshot) {
-                // Get download URL
-                imageRef.getDownloadUrl().addOnSuccessListener(new OnSuccessListener<Uri>() {
-                    @Override
-                    public void onSuccess(Uri downloadUri) {
-                        if (uploadListener != null) {
-                            uploadListener.onUploadSuccess(downloadUri.toString());
-                        }
-                    }
-                }).addOnFailureListener(new OnFailureListener() {
-                    @Override
-                    public void onFailure(Exception e) {
-                        if (uploadListener != null) {
-                            uploadListener.onUploadFailure("Failed to get download URL: " + e.getMessage());
-                        }
-                    }
-                });
+            public void onCompressed(File file) {
+                putFile(path, options, failureToast);
             }
-        });
 
-        // Handle failed upload
-        uploadTask.addOnFailureListener(new OnFailureListener() {
             @Override
-            public void onFailure(Exception e) {
+            public void onError(String message) {
+                UploadSessions.finish(context, path);
                 if (uploadListener != null) {
-                    uploadListener.onUploadFailure("Upload failed: " + e.getMessage());
+                    uploadListener.onUploadFailure("Could not read image: " + message);
                 }
-                Toast.makeText(context, "Image upload failed: " + e.getMessage(),
-                        Toast.LENGTH_SHORT).show();
+                Toast.makeText(context, failureToast + message, Toast.LENGTH_SHORT).show();
             }
         });
     }
 
-    public void uploadProfileImage(Uri imageUri, String userId) {
-        if (imageUri == null) {
-            if (uploadListener != null) {
-                uploadListener.onUploadSuccess(null);
-            }
-            return;
-        }
-
-        // Create unique filename
-        String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
-        String fileName = "profile_" + userId + "_" + timeStamp + ".jpg";
+    private void putFile(String path, ImageCompressor.Options options, String failureToast) {
+        StorageReference imageRef = storageRef.child(path);
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(options.mimeType())
+                .build();
 
-        // Reference to location in Firebase Storage
-        StorageReference imageRef = storageRef.child("profile_images/" + fileName);
-
-        // Upload file
-        UploadTask uploadTask = imageRef.putFile(imageUri);
+        // Upload file, resuming an interrupted session for the same path
+        UploadTask uploadTask = UploadSessions.start(context, path, UploadSessions.file(context, path), metadata);
 
         // Monitor upload progress
         uploadTask.addOnProgressListener(taskSnapshot -> {
@@ -124,6 +126,8 @@ public class ImageUploader {
         uploadTask.addOnSuccessListener(new OnSuccessListener<UploadTask.TaskSnapshot>() {
             @Override
             public void onSuccess(UploadTask.TaskSnapshot taskSnapshot) {
+                UploadSessions.finish(context, path);
+
                 // Get download URL
                 imageRef.getDownloadUrl().addOnSuccessListener(new OnSuccessListener<Uri>() {
                     @Override
@@ -132,18 +136,29 @@ public class ImageUploader {
                             uploadListener.onUploadSuccess(downloadUri.toString());
                         }
                     }
+                }).addOnFailureListener(new OnFailureListener() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        if (uploadListener != null) {
+                            uploadListener.onUploadFailure("Failed to get download URL: " + e.getMessage());
+                        }
+                    }
                 });
             }
         });
 
-        // Handle failed upload
+        // Handle failed upload. Network failures keep the file and session
+        // for resumeProfileUpload(); rejected uploads are dropped.
         uploadTask.addOnFailureListener(new OnFailureListener() {
             @Override
             public void onFailure(Exception e) {
+                if (!UploadSessions.isRecoverable(e)) {
+                    UploadSessions.finish(context, path);
+                }
                 if (uploadListener != null) {
                     uploadListener.onUploadFailure("Upload failed: " + e.getMessage());
                 }
-                Toast.makeText(context, "Profile image upload failed: " + e.getMessage(),
+                Toast.makeText(context, failureToast + e.getMessage(),
                         Toast.LENGTH_SHORT).show();
             }
         });
@@ -0,0 +1,143 @@
+package com.hawassa.unifix.shared.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyed items kept in descending priority order, updated one item at a time.
+ *
+ * Items are held in a sorted array rather than a heap so the whole queue
+ * can be shown in order: upsert() finds the old and new positions by binary
+ * search on (priority, key) and shifts only the entries in between. Every
+ * change is reported through the same callbacks ChildSyncEngine uses, so
+ * a RecyclerView can mirror it with fine-grained notifications.
+ *
+ * Equal priorities are ordered by key, so the order is stable.
+ */
+public class IndexedPriorityQueue<T> {
+
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, T> items = new HashMap<>();
+    private final Map<String, Double> priorities = new HashMap<>();
+    private final ChildSyncEngine.Callback<T> callback;
+
+    public IndexedPriorityQueue(ChildSyncEngine.Callback<T> callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * Insert an item or move it to its new priority. Returns its position.
+     */
+    public int upsert(String key, T item, double priority) {
+        Double oldPriority = priorities.get(key);
+
+        if (oldPriority == null) {
+            int position = insertionPoint(key, priority);
+            keys.add(position, key);
+            items.put(key, item);
+            priorities.put(key, priority);
+            callback.onInserted(position, item);
+            return position;
+        }
+
+        items.put(key, item);
+        int from = find(key, oldPriority);
+        if (oldPriority == priority) {
+            callback.onUpdated(from, item);
+            return from;
+        }
+
+        keys.remove(from);
+        priorities.put(key, priority);
+        int to = insertionPoint(key, priority);
+        keys.add(to, key);
+
+        if (from != to) {
+            callback.onMoved(from, to, item);
+        }
+        callback.onUpdated(to, item);
+        return to;
+    }
+
+    public boolean remove(String key) {
+        Double priority = priorities.get(key);
+        if (priority == null) return false;
+
+        int position = find(key, priority);
+        keys.remove(position);
+        priorities.remove(key);
+        T item = items.remove(key);
+        callback.onRemoved(position, item);
+        return true;
+    }
+
+    public boolean contains(String key) {
+        return priorities.containsKey(key);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public T get(int position) {
+        return items.get(keys.get(position));
+    }
+
+    public T getByKey(String key) {
+        return items.get(key);
+    }
+
+    public String getKey(int position) {
+        return keys.get(position);
+    }
+
+    /**
+     * Most urgent item, or null when empty
+     */
+    public T peek() {
+        return keys.isEmpty() ? null : get(0);
+    }
+
+    public Double getPriority(String key) {
+        return priorities.get(key);
+    }
+
+    /**
+     * Keys in priority order
+     */
+    public List<String> keys() {
+        return new ArrayList<>(keys);
+    }
+
+    // First position whose entry ranks after (priority, key)
+    private int insertionPoint(String key, double priority) {
+        int low = 0;
+        int high = keys.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(keys.get(mid), key, priority) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int find(String key, double priority) {
+        int position = insertionPoint(key, priority);
+        // insertionPoint lands on the entry itself, as keys are unique
+        if (position < keys.size() && keys.get(position).equals(key)) {
+            return position;
+        }
+        return keys.indexOf(key);
+    }
+
+    // Negative if the entry at existingKey comes before (key, priority)
+    private int compare(String existingKey, String key, double priority) {
+        int byPriority = Double.compare(priority, priorities.get(existingKey)); // descending
+        return byPriority != 0 ? byPriority : existingKey.compareTo(key);
+    }
+}
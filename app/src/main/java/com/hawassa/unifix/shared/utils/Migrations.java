@@ -0,0 +1,156 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-off data migrations, run by whichever device gets to them first.
+ *
+ * Each migration has a flag at migrations/{name}. A device claims it with a
+ * transaction (missing -> {claimedAt}), runs the job and sets the flag to
+ * true when it is done, so two devices never run the same migration at
+ * once. A failed run releases its claim for the next device to retry; a
+ * claim older than STALE_CLAIM_MS belongs to a device that died mid-run
+ * and can be taken over.
+ */
+public class Migrations {
+    private static final String TAG = "Migrations";
+
+    public static final String NODE = "migrations";
+
+    private static final long STALE_CLAIM_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final DatabaseReference migrationsRef =
+            FirebaseDatabase.getInstance().getReference(NODE);
+
+    // Known to be finished, or claimed by this process
+    private static final Set<String> finished = new HashSet<>();
+    private static final Set<String> running = new HashSet<>();
+
+    public interface Job {
+        void run(Done done);
+    }
+
+    /**
+     * A job calls exactly one of these when it ends
+     */
+    public interface Done {
+        void finished();
+
+        void failed(String message);
+    }
+
+    public interface FlagListener {
+        void onFlag(boolean finished);
+    }
+
+    /**
+     * Run job unless the migration has finished or another device is
+     * running it. Cheap to call on every start.
+     */
+    public static synchronized void runOnce(String name, Job job) {
+        if (finished.contains(name) || running.contains(name)) return;
+        running.add(name);
+
+        long now = IdGenerator.serverNow();
+        migrationsRef.child(name).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                if (Boolean.TRUE.equals(data.getValue())) return Transaction.abort();
+                Long claimedAt = data.child("claimedAt").getValue(Long.class);
+                if (claimedAt != null && now - claimedAt < STALE_CLAIM_MS) {
+                    return Transaction.abort(); // another device is on it
+                }
+                data.setValue(Collections.singletonMap("claimedAt", now));
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot flag) {
+                if (error != null) {
+                    Log.w(TAG, "Could not claim " + name + ": " + error.getMessage());
+                    release(name);
+                    return;
+                }
+                if (!committed) {
+                    if (flag != null && Boolean.TRUE.equals(flag.getValue())) {
+                        markFinished(name);
+                    } else {
+                        release(name);
+                    }
+                    return;
+                }
+
+                Log.d(TAG, "Running migration " + name);
+                job.run(new Done() {
+                    @Override
+                    public void finished() {
+                        migrationsRef.child(name).setValue(true);
+                        markFinished(name);
+                        Log.d(TAG, "✅ Migration " + name + " finished");
+                    }
+
+                    @Override
+                    public void failed(String message) {
+                        // Work already written stays; the next run redoes the rest
+                        Log.e(TAG, "❌ Migration " + name + " failed: " + message);
+                        migrationsRef.child(name).removeValue();
+                        release(name);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Whether a migration has finished, for readers that fall back to the
+     * old layout until it has
+     */
+    public static void check(String name, FlagListener listener) {
+        synchronized (Migrations.class) {
+            if (finished.contains(name)) {
+                listener.onFlag(true);
+                return;
+            }
+        }
+
+        migrationsRef.child(name).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot flag) {
+                boolean done = Boolean.TRUE.equals(flag.getValue());
+                if (done) markFinished(name);
+                listener.onFlag(done);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.w(TAG, "Could not read flag " + name + ": " + error.getMessage());
+                listener.onFlag(false);
+            }
+        });
+    }
+
+    private static synchronized void markFinished(String name) {
+        running.remove(name);
+        finished.add(name);
+    }
+
+    private static synchronized void release(String name) {
+        running.remove(name);
+    }
+}
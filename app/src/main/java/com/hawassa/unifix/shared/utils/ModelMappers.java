@@ -0,0 +1,350 @@
+package com.hawassa.unifix.shared.utils;
+
+import com.google.firebase.database.DataSnapshot;
+import com.hawassa.unifix.models.Feedback;
+import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.Notification;
+import com.hawassa.unifix.models.StatusChange;
+import com.hawassa.unifix.models.User;
+
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Hand-written mappers for the model classes, used instead of
+ * DataSnapshot.getValue(X.class). Firebase's reflective mapper looks up
+ * setters and converts every property through reflection for every child
+ * on every change; these read the raw value map once and call the setters
+ * directly.
+ *
+ * Low-cardinality strings (status, category, building block, names, types)
+ * are interned while decoding so a list of reports shares one copy of each.
+ *
+ * Decoding mirrors the reflective mapper: objects start from their no-arg
+ * constructor and only properties present in the data are set. toMap()
+ * writes the same properties the reflective serializer would, so stored
+ * data keeps its shape.
+ */
+public class ModelMappers {
+
+    private static final StringInterner interner = new StringInterner();
+
+    // ---------------------------------------------------------------------
+    // MaintenanceReport
+    // ---------------------------------------------------------------------
+
+    public static MaintenanceReport toReport(DataSnapshot snapshot) {
+        MaintenanceReport report = reportFromMap(asMap(snapshot.getValue()));
+        if (report != null && report.getReportId() == null) {
+            report.setReportId(snapshot.getKey());
+        }
+        return report;
+    }
+
+    public static MaintenanceReport reportFromMap(Map<String, Object> map) {
+        if (map == null) return null;
+
+        MaintenanceReport report = new MaintenanceReport();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            switch (entry.getKey()) {
+                case "reportId": report.setReportId(string(value)); break;
+                case "reporterId": report.setReporterId(string(value)); break;
+                case "reporterName": report.setReporterName(interned(value)); break;
+                case "buildingBlock": report.setBuildingBlock(interned(value)); break;
+                case "roomNumber": report.setRoomNumber(interned(value)); break;
+                case "category": report.setCategory(interned(value)); break;
+                case "description": report.setDescription(string(value)); break;
+                case "status": report.setStatus(interned(value)); break;
+                case "timestamp": report.setTimestamp(longValue(value)); break;
+                case "assignedTechnicianId": report.setAssignedTechnicianId(interned(value)); break;
+                case "assignedTechnicianName": report.setAssignedTechnicianName(interned(value)); break;
+                case "completedTimestamp": report.setCompletedTimestamp(boxedLong(value)); break;
+                case "technicianNotes": report.setTechnicianNotes(string(value)); break;
+                case "imageUrl": report.setImageUrl(string(value)); break;
+                case "reportLatitude": report.setReportLatitude(boxedDouble(value)); break;
+                case "reportLongitude": report.setReportLongitude(boxedDouble(value)); break;
+                case "version": report.setVersion(longValue(value)); break;
+                case "locationKey": report.setLocationKey(interned(value)); break;
+                case "duplicateCount": report.setDuplicateCount(longValue(value)); break;
+                case "mergedInto": report.setMergedInto(string(value)); break;
+                case "lastModified": report.setLastModified(longValue(value)); break;
+                case "archivedIn": report.setArchivedIn(string(value)); break;
+                default: break; // unknown properties are ignored
+            }
+        }
+        return report;
+    }
+
+    public static Map<String, Object> toMap(MaintenanceReport report) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("reportId", report.getReportId());
+        map.put("reporterId", report.getReporterId());
+        map.put("reporterName", report.getReporterName());
+        map.put("buildingBlock", report.getBuildingBlock());
+        map.put("roomNumber", report.getRoomNumber());
+        map.put("category", report.getCategory());
+        map.put("description", report.getDescription());
+        map.put("status", report.getStatus());
+        map.put("timestamp", report.getTimestamp());
+        map.put("assignedTechnicianId", report.getAssignedTechnicianId());
+        map.put("assignedTechnicianName", report.getAssignedTechnicianName());
+        map.put("completedTimestamp", report.getCompletedTimestamp());
+        map.put("technicianNotes", report.getTechnicianNotes());
+        map.put("imageUrl", report.getImageUrl());
+        map.put("reportLatitude", report.getReportLatitude());
+        map.put("reportLongitude", report.getReportLongitude());
+        map.put("version", report.getVersion());
+        map.put("locationKey", report.getLocationKey());
+        map.put("duplicateCount", report.getDuplicateCount());
+        map.put("mergedInto", report.getMergedInto());
+        map.put("lastModified", report.getLastModified());
+        map.put("archivedIn", report.getArchivedIn());
+        return map;
+    }
+
+    // ---------------------------------------------------------------------
+    // User
+    // ---------------------------------------------------------------------
+
+    public static User toUser(DataSnapshot snapshot) {
+        return userFromMap(asMap(snapshot.getValue()));
+    }
+
+    public static User userFromMap(Map<String, Object> map) {
+        if (map == null) return null;
+
+        User user = new User();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            switch (entry.getKey()) {
+                case "firebaseUid": user.setFirebaseUid(string(value)); break;
+                case "userId": user.setUserId(string(value)); break;
+                case "name": user.setName(string(value)); break;
+                case "email": user.setEmail(string(value)); break;
+                case "phone": user.setPhone(string(value)); break;
+                case "role": user.setRole(interned(value)); break;
+                case "createdAt": user.setCreatedAt(longValue(value)); break;
+                case "status": user.setStatus(interned(value)); break;
+                default: break; // includes the derived active/student/staff flags
+            }
+        }
+        return user;
+    }
+
+    public static Map<String, Object> toMap(User user) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("firebaseUid", user.getFirebaseUid());
+        map.put("userId", user.getUserId());
+        map.put("name", user.getName());
+        map.put("email", user.getEmail());
+        map.put("phone", user.getPhone());
+        map.put("role", user.getRole());
+        map.put("createdAt", user.getCreatedAt());
+        map.put("status", user.getStatus());
+        // Derived flags the reflective serializer writes from the is*() getters
+        map.put("active", user.isActive());
+        map.put("student", user.isStudent());
+        map.put("staff", user.isStaff());
+        return map;
+    }
+
+    // ---------------------------------------------------------------------
+    // Notification
+    // ---------------------------------------------------------------------
+
+    public static Notification toNotification(DataSnapshot snapshot) {
+        Notification notification = notificationFromMap(asMap(snapshot.getValue()));
+        if (notification != null && notification.getNotificationId() == null) {
+            notification.setNotificationId(snapshot.getKey());
+        }
+        return notification;
+    }
+
+    public static Notification notificationFromMap(Map<String, Object> map) {
+        if (map == null) return null;
+
+        Notification notification = new Notification();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            switch (entry.getKey()) {
+                case "notificationId": notification.setNotificationId(string(value)); break;
+                case "userId": notification.setUserId(string(value)); break;
+                case "title": notification.setTitle(interned(value)); break;
+                case "message": notification.setMessage(string(value)); break;
+                case "type": notification.setType(interned(value)); break;
+                case "reportId": notification.setReportId(string(value)); break;
+                case "senderId": notification.setSenderId(interned(value)); break;
+                case "senderName": notification.setSenderName(interned(value)); break;
+                case "read": notification.setRead(booleanValue(value)); break;
+                case "timestamp": notification.setTimestamp(longValue(value)); break;
+                case "bodyId": notification.setBodyId(string(value)); break;
+                default: break; // unknown properties are ignored
+            }
+        }
+        return notification;
+    }
+
+    public static Map<String, Object> toMap(Notification notification) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("notificationId", notification.getNotificationId());
+        map.put("userId", notification.getUserId());
+        map.put("title", notification.getTitle());
+        map.put("message", notification.getMessage());
+        map.put("type", notification.getType());
+        map.put("reportId", notification.getReportId());
+        map.put("senderId", notification.getSenderId());
+        map.put("senderName", notification.getSenderName());
+        map.put("read", notification.isRead());
+        map.put("timestamp", notification.getTimestamp());
+        map.put("bodyId", notification.getBodyId());
+        return map;
+    }
+
+    // ---------------------------------------------------------------------
+    // Feedback
+    // ---------------------------------------------------------------------
+
+    public static Feedback toFeedback(DataSnapshot snapshot) {
+        Feedback feedback = feedbackFromMap(asMap(snapshot.getValue()));
+        if (feedback != null && feedback.getFeedbackId() == null) {
+            feedback.setFeedbackId(snapshot.getKey());
+        }
+        return feedback;
+    }
+
+    public static Feedback feedbackFromMap(Map<String, Object> map) {
+        if (map == null) return null;
+
+        Feedback feedback = new Feedback();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            switch (entry.getKey()) {
+                case "feedbackId": feedback.setFeedbackId(string(value)); break;
+                case "reportId": feedback.setReportId(string(value)); break;
+                case "userId": feedback.setUserId(string(value)); break;
+                case "userName": feedback.setUserName(interned(value)); break;
+                case "reportTitle": feedback.setReportTitle(interned(value)); break;
+                case "reportStatus": feedback.setReportStatus(interned(value)); break;
+                case "rating": feedback.setRating((float) doubleValue(value)); break;
+                case "comments": feedback.setComments(string(value)); break;
+                case "feedbackType": feedback.setFeedbackType(interned(value)); break;
+                case "timestamp": feedback.setTimestamp(longValue(value)); break;
+                case "acknowledged": feedback.setAcknowledged(booleanValue(value)); break;
+                case "requiresFollowUp": feedback.setRequiresFollowUp(booleanValue(value)); break;
+                default: break; // includes the derived formattedDate/ratingText
+            }
+        }
+        return feedback;
+    }
+
+    public static Map<String, Object> toMap(Feedback feedback) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("feedbackId", feedback.getFeedbackId());
+        map.put("reportId", feedback.getReportId());
+        map.put("userId", feedback.getUserId());
+        map.put("userName", feedback.getUserName());
+        map.put("reportTitle", feedback.getReportTitle());
+        map.put("reportStatus", feedback.getReportStatus());
+        map.put("rating", feedback.getRating());
+        map.put("comments", feedback.getComments());
+        map.put("feedbackType", feedback.getFeedbackType());
+        map.put("timestamp", feedback.getTimestamp());
+        map.put("acknowledged", feedback.isAcknowledged());
+        map.put("requiresFollowUp", feedback.isRequiresFollowUp());
+        // Derived values the reflective serializer writes from the get*() helpers
+        map.put("formattedDate", feedback.getFormattedDate());
+        map.put("ratingText", feedback.getRatingText());
+        return map;
+    }
+
+    // ---------------------------------------------------------------------
+    // StatusChange
+    // ---------------------------------------------------------------------
+
+    public static StatusChange toStatusChange(DataSnapshot snapshot) {
+        StatusChange change = statusChangeFromMap(asMap(snapshot.getValue()));
+        if (change != null) {
+            change.setEventId(snapshot.getKey());
+        }
+        return change;
+    }
+
+    public static StatusChange statusChangeFromMap(Map<String, Object> map) {
+        if (map == null) return null;
+
+        StatusChange change = new StatusChange();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            switch (entry.getKey()) {
+                case "status": change.setStatus(interned(value)); break;
+                case "previousStatus": change.setPreviousStatus(interned(value)); break;
+                case "timestamp": change.setTimestamp(longValue(value)); break;
+                case "changedBy": change.setChangedBy(interned(value)); break;
+                case "changedById": change.setChangedById(interned(value)); break;
+                case "notes": change.setNotes(string(value)); break;
+                default: break;
+            }
+        }
+        return change;
+    }
+
+    // ---------------------------------------------------------------------
+    // Value conversion
+    // ---------------------------------------------------------------------
+
+    /**
+     * Flat JSON object (as written from a toMap() result) back to a value
+     * map; JSON nulls are left out
+     */
+    public static Map<String, Object> fromJson(JSONObject json) {
+        Map<String, Object> map = new HashMap<>();
+        Iterator<String> keys = json.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = json.opt(key);
+            if (value != null && value != JSONObject.NULL) {
+                map.put(key, value);
+            }
+        }
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> asMap(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+
+    private static String string(Object value) {
+        if (value == null) return null;
+        // Numbers (e.g. a numeric room number) are kept as their text
+        return value instanceof String ? (String) value : String.valueOf(value);
+    }
+
+    private static String interned(Object value) {
+        return interner.intern(string(value));
+    }
+
+    private static long longValue(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static Long boxedLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+
+    private static double doubleValue(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0d;
+    }
+
+    private static Double boxedDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+
+    private static boolean booleanValue(Object value) {
+        return value instanceof Boolean && (Boolean) value;
+    }
+}
@@ -8,7 +8,7 @@ import com.google.firebase.database.*;
 
 public class NotificationBadgeManager {
 
-    private DatabaseReference notificationsRef;
+    private DatabaseReference unreadCountRef;
     private String userId;
     private TextView badgeTextView;
     private ValueEventListener notificationListener;
@@ -16,7 +16,9 @@ public class NotificationBadgeManager {
     public NotificationBadgeManager(String userId, TextView badgeTextView) {
         this.userId = userId;
         this.badgeTextView = badgeTextView;
-        this.notificationsRef = FirebaseDatabase.getInstance().getReference("notifications");
+        if (userId != null && !userId.isEmpty()) {
+            this.unreadCountRef = NotificationUtils.getUnreadCountRef(userId);
+        }
     }
 
     public void startListening() {
@@ -27,25 +29,23 @@ public class NotificationBadgeManager {
 
         Log.d("NotificationBadge", "Starting notification listener for user: " + userId);
 
+        // Pull anything still sitting in the old flat node into the inbox,
+        // and count the inbox entries from before the counter (both run once)
+        NotificationUtils.migrateLegacyNotifications(userId);
+        NotificationUtils.seedUnreadCount(userId);
+
         // Remove old listener if exists
         if (notificationListener != null) {
-            notificationsRef.removeEventListener(notificationListener);
+            unreadCountRef.removeEventListener(notificationListener);
         }
 
-        // Listen for unread notifications
-        notificationListener = notificationsRef.orderByChild("userId").equalTo(userId)
+        // Listen to the single unread counter instead of the whole inbox
+        notificationListener = unreadCountRef
                 .addValueEventListener(new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        int unreadCount = 0;
-
-                        for (DataSnapshot notificationSnapshot : snapshot.getChildren()) {
-                            Boolean isRead = notificationSnapshot.child("read").getValue(Boolean.class);
-                            if (isRead == null || !isRead) {
-                                unreadCount++;
-                            }
-                        }
-
+                        Long value = snapshot.getValue(Long.class);
+                        int unreadCount = value != null ? (int) Math.max(0, value) : 0;
                         updateBadge(unreadCount);
                         Log.d("NotificationBadge", "Unread count for " + userId + ": " + unreadCount);
                     }
@@ -60,7 +60,7 @@ public class NotificationBadgeManager {
 
     public void stopListening() {
         if (notificationListener != null) {
-            notificationsRef.removeEventListener(notificationListener);
+            unreadCountRef.removeEventListener(notificationListener);
             notificationListener = null;
             Log.d("NotificationBadge", "Stopped notification listener");
         }
@@ -95,18 +95,12 @@ public class NotificationBadgeManager {
             return;
         }
 
-        DatabaseReference ref = FirebaseDatabase.getInstance().getReference("notifications");
-        ref.orderByChild("userId").equalTo(userId)
+        NotificationUtils.getUnreadCountRef(userId)
                 .addListenerForSingleValueEvent(new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        int unreadCount = 0;
-                        for (DataSnapshot notificationSnapshot : snapshot.getChildren()) {
-                            Boolean isRead = notificationSnapshot.child("read").getValue(Boolean.class);
-                            if (isRead == null || !isRead) {
-                                unreadCount++;
-                            }
-                        }
+                        Long value = snapshot.getValue(Long.class);
+                        int unreadCount = value != null ? (int) Math.max(0, value) : 0;
 
                         if (listener != null) {
                             listener.onCountReceived(unreadCount);
@@ -18,22 +18,43 @@ import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 import androidx.core.content.ContextCompat;
 
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.Notification;
-import com.hawassa.unifix.models.User;
 import com.hawassa.unifix.shared.NotificationsActivity;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class NotificationUtils {
 
-    private static final DatabaseReference notificationsRef =
-            FirebaseDatabase.getInstance().getReference("notifications");
+    // Per-user inboxes: userNotifications/{uid}/{notificationId}
+    private static final DatabaseReference userNotificationsRef =
+            FirebaseDatabase.getInstance().getReference("userNotifications");
+
+    // Per-user unread totals: unreadCounts/{uid}/count, kept in step with the
+    // inboxes, unreadCounts/{uid}/changes, bumped with every change to it,
+    // and unreadCounts/{uid}/seeded once seedUnreadCount() has counted the
+    // entries from before the counter
+    private static final DatabaseReference unreadCountsRef =
+            FirebaseDatabase.getInstance().getReference("unreadCounts");
+
+    // Shared bodies of role broadcasts: notificationBodies/{id}
+    private static final DatabaseReference notificationBodiesRef =
+            FirebaseDatabase.getInstance().getReference("notificationBodies");
 
-    private static final DatabaseReference usersRef =
-            FirebaseDatabase.getInstance().getReference("users");
+    private static final DatabaseReference rootRef =
+            FirebaseDatabase.getInstance().getReference();
+
+    // Old flat layout, only read by the migration
+    private static final DatabaseReference legacyNotificationsRef =
+            FirebaseDatabase.getInstance().getReference("notifications");
 
     // Notification channel constants
     private static final String CHANNEL_ID = "unifix_notifications_channel";
@@ -42,6 +63,54 @@ public class NotificationUtils {
 
     private static final int NOTIFICATION_PERMISSION_CODE = 1001;
 
+    // Users whose legacy notifications were already checked in this process
+    private static final Set<String> migratedUsers = new HashSet<>();
+    // ...and whose unread counter is known to be seeded
+    private static final Set<String> seededUsers = new HashSet<>();
+    // "{uid}/{notificationId}" being marked read or deleted by this process
+    private static final Set<String> inboxWrites = new HashSet<>();
+
+    private static final int SEED_ATTEMPTS = 3;
+
+    // Broadcast bodies never change once written, so cache them for the process
+    private static final int BODY_CACHE_SIZE = 200;
+    private static final Map<String, Map<String, Object>> bodyCache =
+            new LinkedHashMap<String, Map<String, Object>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+                    return size() > BODY_CACHE_SIZE;
+                }
+            };
+
+    /**
+     * Inbox of a single user
+     */
+    public static DatabaseReference getInboxRef(String userId) {
+        return userNotificationsRef.child(userId);
+    }
+
+    /**
+     * Single integer holding the user's unread count
+     */
+    public static DatabaseReference getUnreadCountRef(String userId) {
+        return unreadCountsRef.child(userId).child("count");
+    }
+
+    // Same as getUnreadCountRef(), for multi-path updates
+    private static String unreadCountPath(String userId) {
+        return "unreadCounts/" + userId + "/count";
+    }
+
+    /**
+     * Change a user's unread count in a multi-path update. Every change
+     * also bumps unreadCounts/{uid}/changes, which is how seedUnreadCount()
+     * tells that the count moved while it was reading the inbox.
+     */
+    private static void putUnreadChange(Map<String, Object> updates, String userId, long delta) {
+        updates.put(unreadCountPath(userId), ServerValue.increment(delta));
+        updates.put("unreadCounts/" + userId + "/changes", ServerValue.increment(1));
+    }
+
     /**
      * Send notification to a specific user - WITH PUSH NOTIFICATION
      */
@@ -54,33 +123,22 @@ public class NotificationUtils {
             return;
         }
 
-        String notificationId = notificationsRef.push().getKey();
-        if (notificationId == null) {
-            notificationId = "NOTIF-" + System.currentTimeMillis() + "-" +
-                    (int)(Math.random() * 10000);
-        }
+        // Save notification and bump the unread count in one atomic write
+        Map<String, Object> updates = new HashMap<>();
+        Batch batch = new Batch(updates);
+        final String finalNotificationId = batch.add(userId, title, message, type, reportId,
+                senderId, senderName);
+        batch.finish();
 
-        Notification notification = new Notification();
-        notification.setNotificationId(notificationId);
-        notification.setUserId(userId);
-        notification.setTitle(title);
-        notification.setMessage(message);
-        notification.setType(type);
-        notification.setReportId(reportId);
-        notification.setSenderId(senderId);
-        notification.setSenderName(senderName);
-        notification.setRead(false);
-        notification.setTimestamp(System.currentTimeMillis());
-// Create final variables BEFORE the lambda
+        // Create final variables BEFORE the lambda
         final Context finalContext = context;
         final String finalTitle = title;
         final String finalMessage = message;
         final String finalType = type;
         final String finalReportId = reportId;
         final String finalSenderName = senderName;
-        final String finalNotificationId = notificationId;
-        // Save notification to Firebase database
-        notificationsRef.child(finalNotificationId).setValue(notification)
+
+        rootRef.updateChildren(updates)
                 .addOnSuccessListener(aVoid -> {
                     Log.d("NOTIFICATION_UTILS", "✅ Notification saved to Firebase: " + finalTitle);
 
@@ -101,7 +159,7 @@ public class NotificationUtils {
     /**
      * Send LOCAL PUSH NOTIFICATION (without FCM server)
      */
-    private static void sendLocalPushNotification(Context context, String title, String message,
+    static void sendLocalPushNotification(Context context, String title, String message,
                                                   String type, String reportId, String senderName,
                                                   String notificationId) {
         if (context == null) {
@@ -258,45 +316,252 @@ public class NotificationUtils {
     }
 
     /**
-     * Send notification to all users with a specific role - WITH PUSH
+     * Send notification to all users with a specific role
      */
     public static void sendNotificationToRole(String role, String title, String message,
                                               String type, String reportId,
                                               String senderId, String senderName, Context context) {
+        sendNotificationToRole(role, title, message, type, reportId, senderId, senderName,
+                (FanOutListener) null);
+    }
+
+    /**
+     * Send notification to all active users with a role as one atomic write.
+     * The title/message are stored once under notificationBodies/{id}; each
+     * recipient's inbox only gets a pointer plus its own read flag.
+     * No local push here: the sender isn't one of the recipients.
+     */
+    public static void sendNotificationToRole(String role, String title, String message,
+                                              String type, String reportId,
+                                              String senderId, String senderName,
+                                              FanOutListener listener) {
 
         Log.d("NOTIFICATION_UTILS", "Sending to role: " + role + " - " + title);
 
-        usersRef.orderByChild("role").equalTo(role)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                        int count = 0;
+        RoleIndex.getMembers(role, new RoleIndex.MembersListener() {
+            @Override
+            public void onMembers(List<RoleIndex.Member> members) {
+                List<String> recipients = new ArrayList<>();
 
-                        if (!dataSnapshot.exists()) {
-                            Log.w("NOTIFICATION_UTILS", "No users found with role: " + role);
-                            return;
-                        }
+                for (RoleIndex.Member member : members) {
+                    if (member.isActive()) {
+                        recipients.add(member.uid);
+                    }
+                }
 
-                        for (DataSnapshot userSnapshot : dataSnapshot.getChildren()) {
-                            String userId = userSnapshot.getKey();
-                            User user = userSnapshot.getValue(User.class);
+                if (recipients.isEmpty()) {
+                    Log.w("NOTIFICATION_UTILS", "No users found with role: " + role);
+                    if (listener != null) listener.onComplete(0);
+                    return;
+                }
 
-                            if (user != null && "active".equals(user.getStatus())) {
-                                sendNotification(userId, title, message, type,
-                                        reportId, senderId, senderName, context);
-                                count++;
-                            }
-                        }
+                fanOut(recipients, title, message, type, reportId,
+                        senderId, senderName, listener);
+            }
 
-                        Log.d("NOTIFICATION_UTILS", "📤 Sent to " + count + " " + role + "(s)");
+            @Override
+            public void onError(String error) {
+                Log.e("NOTIFICATION_UTILS", "❌ Failed to get " + role + " users: " + error);
+                if (listener != null) listener.onFailure(error);
+            }
+        });
+    }
+
+    /**
+     * One multi-path write: the shared body, a pointer in every inbox and
+     * every recipient's unread count
+     */
+    public static void fanOut(List<String> recipientIds, String title, String message,
+                              String type, String reportId,
+                              String senderId, String senderName, FanOutListener listener) {
+        Map<String, Object> updates = new HashMap<>();
+        Batch batch = new Batch(updates);
+        batch.addBroadcast(recipientIds, title, message, type, reportId, senderId, senderName);
+        batch.finish();
+
+        final int count = recipientIds.size();
+        rootRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    Log.d("NOTIFICATION_UTILS", "📤 Sent to " + count + " recipient(s): " + title);
+                    if (listener != null) listener.onComplete(count);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("NOTIFICATION_UTILS", "❌ Fan-out failed: " + e.getMessage());
+                    if (listener != null) listener.onFailure(e.getMessage());
+                });
+    }
+
+    /**
+     * Collects notifications into a root-level multi-path update, so they can
+     * be committed together with whatever change caused them. Call finish()
+     * once everything is added; it writes each recipient's unread increment.
+     */
+    public static class Batch {
+        private final Map<String, Object> updates;
+        // Entries per recipient, written as a single increment per user
+        private final Map<String, Long> unread = new HashMap<>();
+
+        public Batch(Map<String, Object> updates) {
+            this.updates = updates;
+        }
+
+        /**
+         * Full notification in one user's inbox. Returns the notification id.
+         */
+        public String add(String userId, String title, String message, String type,
+                          String reportId, String senderId, String senderName) {
+            String notificationId = newId();
+
+            Notification notification = new Notification();
+            notification.setNotificationId(notificationId);
+            notification.setUserId(userId);
+            notification.setTitle(title);
+            notification.setMessage(message);
+            notification.setType(type);
+            notification.setReportId(reportId);
+            notification.setSenderId(senderId);
+            notification.setSenderName(senderName);
+            notification.setRead(false);
+            notification.setTimestamp(System.currentTimeMillis());
+
+            updates.put("userNotifications/" + userId + "/" + notificationId,
+                    ModelMappers.toMap(notification));
+            countUnread(userId);
+            return notificationId;
+        }
+
+        /**
+         * The shared body once under notificationBodies/{id}, plus a pointer
+         * in every recipient's inbox. Returns the notification id.
+         */
+        public String addBroadcast(List<String> recipientIds, String title, String message,
+                                   String type, String reportId,
+                                   String senderId, String senderName) {
+            String notificationId = newId();
+            long timestamp = System.currentTimeMillis();
+
+            Map<String, Object> body = new HashMap<>();
+            body.put("title", title);
+            body.put("message", message);
+            body.put("type", type);
+            body.put("reportId", reportId);
+            body.put("senderId", senderId);
+            body.put("senderName", senderName);
+            body.put("timestamp", timestamp);
+            updates.put("notificationBodies/" + notificationId, body);
+
+            for (String userId : recipientIds) {
+                Map<String, Object> pointer = new HashMap<>();
+                pointer.put("notificationId", notificationId);
+                pointer.put("userId", userId);
+                pointer.put("bodyId", notificationId);
+                pointer.put("type", type);
+                pointer.put("read", false);
+                pointer.put("timestamp", timestamp);
+
+                updates.put("userNotifications/" + userId + "/" + notificationId, pointer);
+                countUnread(userId);
+            }
+            return notificationId;
+        }
+
+        public void finish() {
+            for (Map.Entry<String, Long> entry : unread.entrySet()) {
+                putUnreadChange(updates, entry.getKey(), entry.getValue());
+            }
+            unread.clear();
+        }
+
+        private void countUnread(String userId) {
+            Long current = unread.get(userId);
+            unread.put(userId, (current != null ? current : 0L) + 1);
+        }
+
+        // No prefix, so new ids sort after the older push() keys
+        private static String newId() {
+            return IdGenerator.next("");
+        }
+    }
+
+    /**
+     * Fill in title/message/etc. for inbox pointers, using the body cache
+     * and fetching whatever is missing. The listener runs once every
+     * notification in the list has its body (or the body couldn't be found).
+     */
+    public static void resolveBodies(List<Notification> notifications, BodiesListener listener) {
+        Set<String> missing = new HashSet<>();
+
+        for (Notification notification : notifications) {
+            if (!notification.needsBody()) continue;
+
+            Map<String, Object> body;
+            synchronized (bodyCache) {
+                body = bodyCache.get(notification.getBodyId());
+            }
+            if (body != null) {
+                applyBody(notification, body);
+            } else {
+                missing.add(notification.getBodyId());
+            }
+        }
+
+        if (missing.isEmpty()) {
+            listener.onResolved();
+            return;
+        }
+
+        final int[] pending = {missing.size()};
+        for (String bodyId : missing) {
+            notificationBodiesRef.child(bodyId).addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    Object value = snapshot.getValue();
+                    if (value instanceof Map) {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> body = (Map<String, Object>) value;
+                        synchronized (bodyCache) {
+                            bodyCache.put(bodyId, body);
+                        }
                     }
+                    onBodyDone();
+                }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError databaseError) {
-                        Log.e("NOTIFICATION_UTILS", "❌ Failed to get " + role + " users: " +
-                                databaseError.getMessage());
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.e("NOTIFICATION_UTILS", "Failed to load body " + bodyId + ": " + error.getMessage());
+                    onBodyDone();
+                }
+
+                private void onBodyDone() {
+                    if (--pending[0] > 0) return;
+
+                    for (Notification notification : notifications) {
+                        if (!notification.needsBody()) continue;
+                        Map<String, Object> body;
+                        synchronized (bodyCache) {
+                            body = bodyCache.get(notification.getBodyId());
+                        }
+                        if (body != null) {
+                            applyBody(notification, body);
+                        }
                     }
-                });
+                    listener.onResolved();
+                }
+            });
+        }
+    }
+
+    private static void applyBody(Notification notification, Map<String, Object> body) {
+        notification.setTitle(asString(body.get("title")));
+        notification.setMessage(asString(body.get("message")));
+        notification.setType(asString(body.get("type")));
+        notification.setReportId(asString(body.get("reportId")));
+        notification.setSenderId(asString(body.get("senderId")));
+        notification.setSenderName(asString(body.get("senderName")));
+    }
+
+    private static String asString(Object value) {
+        return value != null ? value.toString() : null;
     }
 
     /**
@@ -369,19 +634,13 @@ public class NotificationUtils {
             return;
         }
 
-        notificationsRef.orderByChild("userId").equalTo(userId)
+        getUnreadCountRef(userId)
                 .addListenerForSingleValueEvent(new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                        int count = 0;
-                        for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                            Boolean isRead = snapshot.child("read").getValue(Boolean.class);
-                            if (isRead == null || !isRead) {
-                                count++;
-                            }
-                        }
+                        Long count = dataSnapshot.getValue(Long.class);
                         if (listener != null) {
-                            listener.onCountReceived(count);
+                            listener.onCountReceived(count != null ? (int) Math.max(0, count) : 0);
                         }
                     }
 
@@ -399,19 +658,10 @@ public class NotificationUtils {
     /**
      * Mark notification as read
      */
-    public static void markAsRead(String notificationId) {
-        if (notificationId == null) return;
-
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("read", true);
+    public static void markAsRead(String userId, String notificationId) {
+        if (userId == null || notificationId == null) return;
 
-        notificationsRef.child(notificationId).updateChildren(updates)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d("NOTIFICATION_UTILS", "✅ Marked as read: " + notificationId);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("NOTIFICATION_UTILS", "❌ Failed to mark as read: " + e.getMessage());
-                });
+        updateEntry(userId, notificationId, false);
     }
 
     /**
@@ -420,19 +670,27 @@ public class NotificationUtils {
     public static void markAllAsRead(String userId) {
         if (userId == null) return;
 
-        notificationsRef.orderByChild("userId").equalTo(userId)
+        // Only the unread entries, not the whole (paged) inbox
+        DatabaseReference inboxRef = getInboxRef(userId);
+        inboxRef.orderByChild("read").equalTo(false)
                 .addListenerForSingleValueEvent(new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
                         Map<String, Object> updates = new HashMap<>();
+                        int unread = 0;
 
                         for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                            String notificationId = snapshot.getKey();
-                            updates.put(notificationId + "/read", true);
+                            Boolean isRead = snapshot.child("read").getValue(Boolean.class);
+                            if (isRead == null || !isRead) {
+                                updates.put("userNotifications/" + userId + "/" + snapshot.getKey() + "/read", true);
+                                unread++;
+                            }
                         }
 
                         if (!updates.isEmpty()) {
-                            notificationsRef.updateChildren(updates)
+                            // Flags and count change together
+                            putUnreadChange(updates, userId, -unread);
+                            rootRef.updateChildren(updates)
                                     .addOnSuccessListener(aVoid -> {
                                         Log.d("NOTIFICATION_UTILS", "✅ Marked all as read for " + userId);
                                     });
@@ -450,15 +708,54 @@ public class NotificationUtils {
     /**
      * Delete a specific notification
      */
-    public static void deleteNotification(String notificationId) {
-        if (notificationId == null) return;
+    public static void deleteNotification(String userId, String notificationId) {
+        if (userId == null || notificationId == null) return;
 
-        notificationsRef.child(notificationId).removeValue()
-                .addOnSuccessListener(aVoid -> {
-                    Log.d("NOTIFICATION_UTILS", "✅ Deleted notification: " + notificationId);
+        updateEntry(userId, notificationId, true);
+    }
+
+    /**
+     * Mark one inbox entry read, or delete it, and take it off the unread
+     * count in the same multi-path write, so the two can't get apart. Only
+     * an entry read as unread is counted down; a second call for the same
+     * entry waits for the first to finish, so a double tap counts once.
+     */
+    private static void updateEntry(String userId, String notificationId, boolean delete) {
+        String key = userId + "/" + notificationId;
+        synchronized (inboxWrites) {
+            if (!inboxWrites.add(key)) return;
+        }
+
+        getInboxRef(userId).child(notificationId).get()
+                .continueWithTask(entry -> {
+                    DataSnapshot snapshot = entry.getResult();
+                    if (!snapshot.exists()) return Tasks.forResult(null);
+
+                    Boolean isRead = snapshot.child("read").getValue(Boolean.class);
+                    boolean unread = isRead == null || !isRead;
+                    if (!unread && !delete) return Tasks.forResult(null);
+
+                    String path = "userNotifications/" + key;
+                    Map<String, Object> updates = new HashMap<>();
+                    if (delete) {
+                        updates.put(path, null);
+                    } else {
+                        updates.put(path + "/read", true);
+                    }
+                    if (unread) putUnreadChange(updates, userId, -1);
+                    return rootRef.updateChildren(updates);
                 })
-                .addOnFailureListener(e -> {
-                    Log.e("NOTIFICATION_UTILS", "❌ Failed to delete: " + e.getMessage());
+                .addOnCompleteListener(task -> {
+                    synchronized (inboxWrites) {
+                        inboxWrites.remove(key);
+                    }
+                    if (!task.isSuccessful()) {
+                        Log.e("NOTIFICATION_UTILS", "❌ Failed to " + (delete ? "delete " : "mark as read ")
+                                + notificationId + ": " + task.getException());
+                    } else {
+                        Log.d("NOTIFICATION_UTILS", "✅ " + (delete ? "Deleted " : "Marked as read ")
+                                + notificationId);
+                    }
                 });
     }
 
@@ -468,23 +765,173 @@ public class NotificationUtils {
     public static void clearAllNotifications(String userId) {
         if (userId == null) return;
 
-        notificationsRef.orderByChild("userId").equalTo(userId)
+        // The whole inbox and its count go in one write
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("userNotifications/" + userId, null);
+        updates.put(unreadCountPath(userId), null);
+        updates.put("unreadCounts/" + userId + "/changes", ServerValue.increment(1));
+
+        rootRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    Log.d("NOTIFICATION_UTILS", "✅ Cleared all notifications for " + userId);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("NOTIFICATION_UTILS", "❌ Failed to clear: " + e.getMessage());
+                });
+    }
+
+    /**
+     * Move a user's notifications from the old flat "notifications" node into
+     * their inbox. Runs at most once per user per process; after the first
+     * successful move the legacy query comes back empty.
+     */
+    public static void migrateLegacyNotifications(String userId) {
+        if (userId == null || userId.isEmpty()) return;
+
+        synchronized (migratedUsers) {
+            if (!migratedUsers.add(userId)) return;
+        }
+
+        legacyNotificationsRef.orderByChild("userId").equalTo(userId)
                 .addListenerForSingleValueEvent(new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                        if (!dataSnapshot.exists()) return;
+
+                        // Copy and delete in one atomic multi-path write
+                        Map<String, Object> updates = new HashMap<>();
+                        int unread = 0;
                         for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                            snapshot.getRef().removeValue();
+                            String notificationId = snapshot.getKey();
+                            if (notificationId == null) continue;
+                            updates.put("userNotifications/" + userId + "/" + notificationId,
+                                    snapshot.getValue());
+                            updates.put("notifications/" + notificationId, null);
+
+                            Boolean isRead = snapshot.child("read").getValue(Boolean.class);
+                            if (isRead == null || !isRead) unread++;
+                        }
+                        if (unread > 0) {
+                            putUnreadChange(updates, userId, unread);
                         }
-                        Log.d("NOTIFICATION_UTILS", "✅ Cleared all notifications for " + userId);
+
+                        FirebaseDatabase.getInstance().getReference().updateChildren(updates)
+                                .addOnSuccessListener(aVoid -> {
+                                    Log.d("NOTIFICATION_UTILS", "✅ Migrated " +
+                                            dataSnapshot.getChildrenCount() + " notifications for " + userId);
+                                })
+                                .addOnFailureListener(e -> {
+                                    Log.e("NOTIFICATION_UTILS", "❌ Migration failed: " + e.getMessage());
+                                    synchronized (migratedUsers) {
+                                        migratedUsers.remove(userId);
+                                    }
+                                });
                     }
 
                     @Override
                     public void onCancelled(@NonNull DatabaseError databaseError) {
-                        Log.e("NOTIFICATION_UTILS", "❌ Failed to clear: " + databaseError.getMessage());
+                        Log.e("NOTIFICATION_UTILS", "❌ Failed to read legacy notifications: " +
+                                databaseError.getMessage());
+                        synchronized (migratedUsers) {
+                            migratedUsers.remove(userId);
+                        }
                     }
                 });
     }
 
+    /**
+     * Seed the unread counter from the full inbox, once per user. Entries
+     * written before the counter existed were never counted, so any value
+     * it already holds is too low.
+     *
+     * The seeding transaction also sets unreadCounts/{uid}/seeded, so it
+     * happens exactly once. It only commits if unreadCounts/{uid}/changes
+     * is what it was before the inbox was read: a notification, read or
+     * delete in between would otherwise be counted by both the inbox and
+     * the counter, so the seed starts over instead.
+     */
+    public static void seedUnreadCount(String userId) {
+        if (userId == null || userId.isEmpty()) return;
+
+        synchronized (seededUsers) {
+            if (!seededUsers.add(userId)) return;
+        }
+        seedUnreadCount(userId, SEED_ATTEMPTS);
+    }
+
+    private static void seedUnreadCount(String userId, int attemptsLeft) {
+        DatabaseReference counterRef = unreadCountsRef.child(userId);
+        counterRef.get().continueWithTask(counter -> {
+            if (Boolean.TRUE.equals(counter.getResult().child("seeded").getValue(Boolean.class))) {
+                return Tasks.forResult(null);
+            }
+            Long changes = counter.getResult().child("changes").getValue(Long.class);
+            long changesBefore = changes != null ? changes : 0;
+
+            return getInboxRef(userId).get().continueWithTask(inbox -> {
+                long unread = 0;
+                for (DataSnapshot snapshot : inbox.getResult().getChildren()) {
+                    Boolean isRead = snapshot.child("read").getValue(Boolean.class);
+                    if (isRead == null || !isRead) unread++;
+                }
+                seedUnreadCount(userId, counterRef, unread, changesBefore, attemptsLeft);
+                return Tasks.forResult(null);
+            });
+        }).addOnFailureListener(e -> {
+            Log.e("NOTIFICATION_UTILS", "Failed to seed unread count: " + e.getMessage());
+            synchronized (seededUsers) {
+                seededUsers.remove(userId);
+            }
+        });
+    }
+
+    private static void seedUnreadCount(String userId, DatabaseReference counterRef,
+                                        long inboxUnread, long changesBefore, int attemptsLeft) {
+        // Set when the abort is because the count moved, not because it is seeded
+        final boolean[] moved = {false};
+
+        counterRef.runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                moved[0] = false;
+                if (Boolean.TRUE.equals(currentData.child("seeded").getValue(Boolean.class))) {
+                    return Transaction.abort();
+                }
+                Long changes = currentData.child("changes").getValue(Long.class);
+                if ((changes != null ? changes : 0) != changesBefore) {
+                    moved[0] = true;
+                    return Transaction.abort();
+                }
+
+                currentData.child("count").setValue(inboxUnread);
+                currentData.child("seeded").setValue(true);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) {
+                    Log.e("NOTIFICATION_UTILS", "Failed to seed unread count: " + error.getMessage());
+                    synchronized (seededUsers) {
+                        seededUsers.remove(userId);
+                    }
+                } else if (committed) {
+                    Log.d("NOTIFICATION_UTILS", "Seeded unread count for " + userId + ": " + inboxUnread);
+                } else if (moved[0]) {
+                    if (attemptsLeft > 1) {
+                        seedUnreadCount(userId, attemptsLeft - 1);
+                    } else {
+                        // Busy inbox; the next badge start tries again
+                        synchronized (seededUsers) {
+                            seededUsers.remove(userId);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
     /**
      * Predefined notification types
      */
@@ -504,4 +951,17 @@ public class NotificationUtils {
     public interface UnreadCountListener {
         void onCountReceived(int count);
     }
+
+    /**
+     * Single result for a whole role fan-out
+     */
+    public interface FanOutListener {
+        void onComplete(int recipientCount);
+
+        default void onFailure(String error) {}
+    }
+
+    public interface BodiesListener {
+        void onResolved();
+    }
 }
\ No newline at end of file
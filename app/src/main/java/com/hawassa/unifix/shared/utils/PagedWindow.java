@@ -0,0 +1,328 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Newest-first paging over an ordered query with a bounded window.
+ *
+ * Each page covers a fixed cursor range [low, high) on (orderByChild value, key)
+ * and is kept live by its own ChildSyncEngine, so edits and deletes show up
+ * in place. The head page has no upper bound and picks up new children.
+ * Only maxPages pages are held at once; pages that scroll out of the window
+ * keep just their cursors so they can be re-attached when scrolling back.
+ */
+public class PagedWindow<T> {
+    private static final String TAG = "PagedWindow";
+
+    private final Query orderedQuery;
+    private final String orderByChild;
+    private final ChildSyncEngine.Decoder<T> decoder;
+    private final int pageSize;
+    private final int maxPages;
+
+    // Newest page first
+    private final List<Page<T>> pages = new ArrayList<>();
+    // Ranges of newer pages dropped from the window, nearest first
+    private final Deque<Range> droppedNewer = new ArrayDeque<>();
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable deliverRunnable = this::deliver;
+
+    private Listener<T> listener;
+    private boolean started = false;
+    private boolean loading = false;
+    private int generation = 0;
+
+    public interface Listener<T> {
+        void onWindowChanged(List<T> items);
+
+        default void onLoadingChanged(boolean loading) {}
+
+        default void onError(String message) {}
+    }
+
+    /**
+     * Position of a child in the query order. value is null when ordering by key.
+     */
+    static class Cursor {
+        final Double value;
+        final String key;
+
+        Cursor(Double value, String key) {
+            this.value = value;
+            this.key = key;
+        }
+    }
+
+    // low == null: reaches the oldest child; high == null: open-ended head
+    static class Range {
+        final Cursor low;
+        final Cursor high;
+
+        Range(Cursor low, Cursor high) {
+            this.low = low;
+            this.high = high;
+        }
+    }
+
+    private static class Page<T> {
+        final Range range;
+        final ChildSyncEngine<T> engine;
+
+        Page(Range range, ChildSyncEngine<T> engine) {
+            this.range = range;
+            this.engine = engine;
+        }
+    }
+
+    /**
+     * @param orderedQuery query already ordered (orderByChild(orderByChild) or orderByKey())
+     * @param orderByChild the child the query is ordered by, or null for key order
+     */
+    public PagedWindow(Query orderedQuery, String orderByChild, ChildSyncEngine.Decoder<T> decoder,
+                       int pageSize, int maxPages) {
+        this.orderedQuery = orderedQuery;
+        this.orderByChild = orderByChild;
+        this.decoder = decoder;
+        this.pageSize = pageSize;
+        this.maxPages = Math.max(2, maxPages);
+    }
+
+    public void start(Listener<T> listener) {
+        stop();
+        this.listener = listener;
+        started = true;
+        loadPage(null, true);
+    }
+
+    public void stop() {
+        generation++;
+        for (Page<T> page : pages) {
+            page.engine.stop();
+        }
+        pages.clear();
+        droppedNewer.clear();
+        handler.removeCallbacks(deliverRunnable);
+        started = false;
+        setLoading(false);
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public boolean hasOlder() {
+        return !pages.isEmpty() && pages.get(pages.size() - 1).range.low != null;
+    }
+
+    public boolean hasNewer() {
+        return !droppedNewer.isEmpty();
+    }
+
+    /**
+     * Fetch the page below the oldest one in the window
+     */
+    public void loadOlder() {
+        if (!started || loading || !hasOlder()) return;
+        loadPage(pages.get(pages.size() - 1).range.low, true);
+    }
+
+    /**
+     * Re-attach the nearest page that was dropped off the top of the window
+     */
+    public void loadNewer() {
+        if (!started || loading || droppedNewer.isEmpty()) return;
+
+        Range range = droppedNewer.pop();
+        attachPage(range, false);
+
+        if (pages.size() > maxPages) {
+            // The oldest page leaves; its lower neighbour is re-fetched by loadOlder
+            Page<T> oldest = pages.remove(pages.size() - 1);
+            oldest.engine.stop();
+        }
+        scheduleDelivery();
+    }
+
+    /**
+     * Items in the window, newest first
+     */
+    public List<T> getItems() {
+        List<T> items = new ArrayList<>();
+        for (Page<T> page : pages) {
+            items.addAll(page.engine.getItems());
+        }
+        return items;
+    }
+
+    private void loadPage(Cursor high, boolean older) {
+        setLoading(true);
+        final int requestGeneration = generation;
+
+        // One bounded read to find where this page starts, then a live listener on
+        // the fixed range. With persistence on, the second listen is answered from
+        // the data the first one cached.
+        Query boundary = high == null ? orderedQuery : endBefore(orderedQuery, high);
+        boundary.limitToLast(pageSize).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (requestGeneration != generation) return;
+
+                Cursor low = null;
+                if (snapshot.getChildrenCount() >= pageSize) {
+                    // Children come oldest first; the first one is this page's lower bound
+                    for (DataSnapshot child : snapshot.getChildren()) {
+                        low = cursorOf(child);
+                        break;
+                    }
+                }
+
+                attachPage(new Range(low, high), older);
+
+                if (pages.size() > maxPages) {
+                    // Drop the newest page, keep its range to come back to it
+                    Page<T> newest = pages.remove(0);
+                    newest.engine.stop();
+                    droppedNewer.push(newest.range);
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                if (requestGeneration != generation) return;
+                Log.e(TAG, "Failed to load page: " + error.getMessage());
+                setLoading(false);
+                if (listener != null) listener.onError(error.getMessage());
+            }
+        });
+    }
+
+    private void attachPage(Range range, boolean older) {
+        Query query = orderedQuery;
+        if (range.low != null) query = startAt(query, range.low);
+        if (range.high != null) query = endBefore(query, range.high);
+
+        ChildSyncEngine<T> engine = new ChildSyncEngine<>(query, decoder, true);
+        Page<T> page = new Page<>(range, engine);
+        if (older) {
+            pages.add(page);
+        } else {
+            pages.add(0, page);
+        }
+
+        setLoading(true);
+        engine.start(new ChildSyncEngine.Callback<T>() {
+            @Override
+            public void onInserted(int position, T item) {
+                scheduleDelivery();
+            }
+
+            @Override
+            public void onUpdated(int position, T item) {
+                scheduleDelivery();
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition, T item) {
+                scheduleDelivery();
+            }
+
+            @Override
+            public void onRemoved(int position, T item) {
+                scheduleDelivery();
+            }
+
+            @Override
+            public void onSynced() {
+                setLoading(false);
+                scheduleDelivery();
+            }
+
+            @Override
+            public void onError(String message) {
+                setLoading(false);
+                if (listener != null) listener.onError(message);
+            }
+        });
+    }
+
+    private Cursor cursorOf(DataSnapshot child) {
+        if (orderByChild == null) {
+            return new Cursor(null, child.getKey());
+        }
+        Object value = child.child(orderByChild).getValue();
+        double number = value instanceof Number ? ((Number) value).doubleValue() : 0;
+        return new Cursor(number, child.getKey());
+    }
+
+    private static Query startAt(Query query, Cursor cursor) {
+        return cursor.value == null ? query.startAt(cursor.key) : query.startAt(cursor.value, cursor.key);
+    }
+
+    private static Query endBefore(Query query, Cursor cursor) {
+        return cursor.value == null ? query.endBefore(cursor.key) : query.endBefore(cursor.value, cursor.key);
+    }
+
+    private void setLoading(boolean loading) {
+        if (this.loading == loading) return;
+        this.loading = loading;
+        if (listener != null) listener.onLoadingChanged(loading);
+    }
+
+    // Coalesce bursts of child events (a page syncing) into one delivery
+    private void scheduleDelivery() {
+        handler.removeCallbacks(deliverRunnable);
+        handler.post(deliverRunnable);
+    }
+
+    private void deliver() {
+        if (started && listener != null) {
+            listener.onWindowChanged(getItems());
+        }
+    }
+
+    /**
+     * Scroll listener that prefetches the next older page as the list nears its
+     * end, and re-attaches dropped newer pages as it nears the top.
+     */
+    public static class Prefetcher extends RecyclerView.OnScrollListener {
+        private final PagedWindow<?> window;
+        private final int threshold;
+
+        public Prefetcher(PagedWindow<?> window, int threshold) {
+            this.window = window;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+            if (!(layoutManager instanceof LinearLayoutManager)) return;
+
+            LinearLayoutManager linear = (LinearLayoutManager) layoutManager;
+            int itemCount = linear.getItemCount();
+
+            if (dy >= 0 && linear.findLastVisibleItemPosition() >= itemCount - threshold) {
+                window.loadOlder();
+            } else if (dy < 0 && linear.findFirstVisibleItemPosition() <= threshold) {
+                window.loadNewer();
+            }
+        }
+    }
+}
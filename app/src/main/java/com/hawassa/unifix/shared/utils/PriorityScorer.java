@@ -0,0 +1,210 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import com.hawassa.unifix.models.Feedback;
+import com.hawassa.unifix.models.MaintenanceReport;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Urgency score for pending reports, highest first.
+ *
+ *   score = category severity
+ *         + DUPLICATE_POINTS per +1 (capped)
+ *         + REPEAT_POINTS per other report in the same room lately (capped)
+ *         + FLAGGED_REPORTER_POINTS if the reporter gave poor feedback before
+ *         + AGE_POINTS_PER_HOUR for every hour the report has waited
+ *
+ * Age grows at the same rate for every report, so it never changes their
+ * order. rank() leaves "now" out, which means a queue ordered by rank()
+ * stays correct over time and only needs updating when a report changes.
+ */
+public class PriorityScorer {
+    private static final String TAG = "PriorityScorer";
+
+    private static final double HOUR_MS = 60 * 60 * 1000;
+
+    static final double AGE_POINTS_PER_HOUR = 1;
+    static final double DUPLICATE_POINTS = 10;
+    static final double MAX_DUPLICATE_POINTS = 50;
+    static final double REPEAT_POINTS = 8;
+    static final double MAX_REPEAT_POINTS = 40;
+    static final double FLAGGED_REPORTER_POINTS = 15;
+
+    // Other reports in the same room this recently count as repeat failures
+    static final long REPEAT_WINDOW_MS = 90L * 24 * 60 * 60 * 1000;
+
+    // Feedback at or below this rating flags the reporter
+    private static final double LOW_RATING = 2;
+
+    private static final Map<String, Double> SEVERITY = new HashMap<>();
+
+    static {
+        SEVERITY.put("electrical", 30.0);
+        SEVERITY.put("plumbing", 25.0);
+        SEVERITY.put("hvac", 20.0);
+        SEVERITY.put("computer", 15.0);
+        SEVERITY.put("carpentry", 10.0);
+        SEVERITY.put("furniture", 8.0);
+        SEVERITY.put("painting", 5.0);
+    }
+    private static final double DEFAULT_SEVERITY = 10;
+
+    // building|room -> report id -> timestamp, plus each report's room
+    private final Map<String, Map<String, Long>> roomHistory = new HashMap<>();
+    private final Map<String, String> reportRooms = new HashMap<>();
+    private final Set<String> flaggedReporters = new HashSet<>();
+
+    /**
+     * Ordering key: the score minus the part that only depends on "now"
+     */
+    public double rank(MaintenanceReport report) {
+        return base(report) - AGE_POINTS_PER_HOUR * report.getTimestamp() / HOUR_MS;
+    }
+
+    /**
+     * Score as of now, for display
+     */
+    public double score(MaintenanceReport report, long now) {
+        return rank(report) + AGE_POINTS_PER_HOUR * now / HOUR_MS;
+    }
+
+    private double base(MaintenanceReport report) {
+        double score = severity(report.getCategory());
+        score += Math.min(MAX_DUPLICATE_POINTS, DUPLICATE_POINTS * report.getDuplicateCount());
+        score += Math.min(MAX_REPEAT_POINTS, REPEAT_POINTS * repeatsBefore(report));
+        if (report.getReporterId() != null && flaggedReporters.contains(report.getReporterId())) {
+            score += FLAGGED_REPORTER_POINTS;
+        }
+        return score;
+    }
+
+    static double severity(String category) {
+        if (category == null) return DEFAULT_SEVERITY;
+        Double severity = SEVERITY.get(category.trim().toLowerCase(Locale.ROOT));
+        return severity != null ? severity : DEFAULT_SEVERITY;
+    }
+
+    // Other reports in the same room within REPEAT_WINDOW_MS before this one
+    private int repeatsBefore(MaintenanceReport report) {
+        Map<String, Long> timestamps = roomHistory.get(roomKey(report));
+        if (timestamps == null) return 0;
+
+        int repeats = 0;
+        long from = report.getTimestamp() - REPEAT_WINDOW_MS;
+        for (long timestamp : timestamps.values()) {
+            if (timestamp >= from && timestamp < report.getTimestamp()) repeats++;
+        }
+        return repeats;
+    }
+
+    private static String roomKey(MaintenanceReport report) {
+        // Any category counts; a room that keeps breaking is the signal
+        return DuplicateDetector.locationKey(report.getBuildingBlock(), report.getRoomNumber(), "");
+    }
+
+    /**
+     * Rebuild the per-room history from every known report
+     */
+    public void setRoomHistory(List<MaintenanceReport> reports) {
+        roomHistory.clear();
+        reportRooms.clear();
+        for (MaintenanceReport report : reports) {
+            updateRoomHistory(report);
+        }
+    }
+
+    /**
+     * Record a new or changed report. Returns the ids of the reports whose
+     * rank may have changed with it: the others in its old and new room.
+     */
+    public Set<String> updateRoomHistory(MaintenanceReport report) {
+        String reportId = report.getReportId();
+        if (reportId == null) return new HashSet<>();
+
+        String key = roomKey(report);
+        String oldKey = reportRooms.get(reportId);
+        Map<String, Long> timestamps = roomHistory.get(key);
+        Long oldTimestamp = timestamps != null ? timestamps.get(reportId) : null;
+        if (key.equals(oldKey) && oldTimestamp != null && oldTimestamp == report.getTimestamp()) {
+            return new HashSet<>(); // same room and time, nothing moved
+        }
+
+        Set<String> affected = removeFromRoomHistory(report);
+        timestamps = roomHistory.get(key); // the old room may have emptied
+        if (timestamps == null) {
+            timestamps = new HashMap<>();
+            roomHistory.put(key, timestamps);
+        }
+        affected.addAll(timestamps.keySet());
+        timestamps.put(reportId, report.getTimestamp());
+        reportRooms.put(reportId, key);
+        return affected;
+    }
+
+    /**
+     * Forget a report. Returns the ids of the reports left in its room.
+     */
+    public Set<String> removeFromRoomHistory(MaintenanceReport report) {
+        Set<String> affected = new HashSet<>();
+        String oldKey = report.getReportId() != null ? reportRooms.remove(report.getReportId()) : null;
+        if (oldKey == null) return affected;
+
+        Map<String, Long> timestamps = roomHistory.get(oldKey);
+        if (timestamps != null) {
+            timestamps.remove(report.getReportId());
+            affected.addAll(timestamps.keySet());
+            if (timestamps.isEmpty()) roomHistory.remove(oldKey);
+        }
+        return affected;
+    }
+
+    public void setFlaggedReporters(Set<String> reporterIds) {
+        flaggedReporters.clear();
+        flaggedReporters.addAll(reporterIds);
+    }
+
+    public interface FlaggedReportersListener {
+        void onFlaggedReporters(Set<String> reporterIds);
+    }
+
+    /**
+     * Reporters who rated earlier work LOW_RATING or below. Only the low
+     * ratings are downloaded, not the whole feedback node.
+     */
+    public static void loadFlaggedReporters(FlaggedReportersListener listener) {
+        FirebaseDatabase.getInstance().getReference("feedback")
+                .orderByChild("rating").endAt(LOW_RATING)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        Set<String> reporterIds = new HashSet<>();
+                        for (DataSnapshot child : snapshot.getChildren()) {
+                            Feedback feedback = ModelMappers.toFeedback(child);
+                            if (feedback != null && feedback.getUserId() != null && feedback.getRating() > 0) {
+                                reporterIds.add(feedback.getUserId());
+                            }
+                        }
+                        listener.onFlaggedReporters(reporterIds);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        // Scoring still works without this signal
+                        Log.w(TAG, "Failed to load feedback: " + error.getMessage());
+                    }
+                });
+    }
+}
@@ -0,0 +1,165 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Cold storage for old completed reports:
+ *   reportsArchive/{yyyy}/{MM}/{reportId}
+ * keyed by the month the report was completed.
+ *
+ * Archiving (see ReportArchiveWorker) moves the whole report out of
+ * "reports" and rewrites its summary with archivedIn set, in one
+ * multi-path write.
+ * The summary, history and stats counters stay where they are, so lists
+ * and analytics don't change; only detail views and the queries here read
+ * the archive, and only when asked.
+ */
+public class ReportArchive {
+    private static final String TAG = "ReportArchive";
+
+    public static final String NODE = "reportsArchive";
+
+    private static final DatabaseReference rootRef = FirebaseDatabase.getInstance().getReference();
+    private static final DatabaseReference archiveRef = rootRef.child(NODE);
+
+    public interface ReportsListener {
+        void onReports(List<MaintenanceReport> reports);
+
+        default void onError(String message) {}
+    }
+
+    /**
+     * "yyyy/MM" of the month a report completed at, in UTC so every device
+     * picks the same bucket
+     */
+    static String monthOf(long completedAt) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy/MM", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(completedAt));
+    }
+
+    /**
+     * Completed reports in the hot node that finished before cutoff,
+     * oldest first
+     */
+    static Query completedBefore(long cutoff, int limit) {
+        // startAt(1) skips reports without a completedTimestamp
+        return rootRef.child("reports").orderByChild("completedTimestamp")
+                .startAt(1).endAt(cutoff).limitToFirst(limit);
+    }
+
+    /**
+     * The next page of completedBefore(), from the report (completedAt, key)
+     * on; that report itself is included if it is still there
+     */
+    static Query completedBefore(long cutoff, int limit, long completedAt, String key) {
+        return rootRef.child("reports").orderByChild("completedTimestamp")
+                .startAt(completedAt, key).endAt(cutoff).limitToFirst(limit);
+    }
+
+    /**
+     * Add the move of one report (as read from "reports") to a multi-path
+     * update. Returns false, adding nothing, if it isn't a completed report.
+     */
+    static boolean putMove(Map<String, Object> updates, DataSnapshot report) {
+        MaintenanceReport parsed = ModelMappers.toReport(report);
+        if (parsed == null || parsed.getCompletedTimestamp() == null
+                || ReportStatus.fromString(parsed.getStatus()) != ReportStatus.COMPLETED) {
+            return false;
+        }
+
+        String reportId = report.getKey();
+        String month = monthOf(parsed.getCompletedTimestamp());
+        Object data = report.getValue();
+        if (data instanceof Map) {
+            Map<String, Object> archived = new HashMap<>(ModelMappers.asMap(data));
+            archived.put("archivedIn", month);
+            data = archived;
+        }
+
+        updates.put(NODE + "/" + month + "/" + reportId, data);
+        updates.put("reports/" + reportId, null);
+        // Not ReportSummaries.putMirror(), which would delete the summary
+        ReportSummaries.putArchived(updates, reportId, data);
+        DeltaSync.putChange(updates, parsed, null);
+        return true;
+    }
+
+    /**
+     * Delete the archived copy along with the report, if there is one
+     */
+    static void putRemoval(Map<String, Object> updates, MaintenanceReport report) {
+        if (report.getArchivedIn() != null) {
+            updates.put(NODE + "/" + report.getArchivedIn() + "/" + report.getReportId(), null);
+        }
+    }
+
+    /**
+     * Load one archived report
+     */
+    public static void load(String month, String reportId, ReportSummaries.ReportListener listener) {
+        archiveRef.child(month).child(reportId)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        MaintenanceReport report = snapshot.exists() ? ModelMappers.toReport(snapshot) : null;
+                        if (report == null) {
+                            listener.onError("Report not found");
+                            return;
+                        }
+                        listener.onReport(report);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Failed to load archived report " + reportId + ": " + error.getMessage());
+                        listener.onError(error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Load every report archived for a month, e.g. for an export.
+     * month is 1-12.
+     */
+    public static void loadMonth(int year, int month, ReportsListener listener) {
+        String bucket = String.format(Locale.US, "%04d/%02d", year, month);
+        archiveRef.child(bucket).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                List<MaintenanceReport> reports = new ArrayList<>();
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    MaintenanceReport report = ModelMappers.toReport(child);
+                    if (report != null) reports.add(report);
+                }
+                listener.onReports(reports);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Failed to load archive " + bucket + ": " + error.getMessage());
+                listener.onError(error.getMessage());
+            }
+        });
+    }
+}
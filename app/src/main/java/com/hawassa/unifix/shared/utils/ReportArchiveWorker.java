@@ -0,0 +1,132 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily job that moves completed reports older than maxAgeDays out of
+ * "reports" into ReportArchive, so the hot node only holds open and
+ * recently finished work.
+ *
+ * Each batch reads up to BATCH_SIZE of the oldest completed reports and
+ * moves them in one multi-path write. Batches page on from the last report
+ * read, so reports that can't be moved don't hold up the ones after them. Moving a report twice writes the
+ * same data, so devices running the job at once don't conflict.
+ *
+ * Nothing is archived until the summary backfill has finished: lists fall
+ * back to "reports" until then, and would lose an archived report.
+ */
+public class ReportArchiveWorker extends Worker {
+    private static final String TAG = "ReportArchiveWorker";
+    private static final String WORK_NAME = "report_archive";
+    private static final String KEY_MAX_AGE_DAYS = "maxAgeDays";
+
+    public static final int DEFAULT_MAX_AGE_DAYS = 90;
+
+    private static final int BATCH_SIZE = 50;
+    // Spreads a large first archive over several runs
+    private static final int MAX_BATCHES_PER_RUN = 20;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    public ReportArchiveWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    public static void schedule(Context context) {
+        schedule(context, DEFAULT_MAX_AGE_DAYS);
+    }
+
+    /**
+     * Run once a day while online and not low on battery. Scheduling again
+     * with another age updates the existing job.
+     */
+    public static void schedule(Context context, int maxAgeDays) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                ReportArchiveWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .setInputData(new Data.Builder().putInt(KEY_MAX_AGE_DAYS, maxAgeDays).build())
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                WORK_NAME, ExistingPeriodicWorkPolicy.UPDATE, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        int maxAgeDays = getInputData().getInt(KEY_MAX_AGE_DAYS, DEFAULT_MAX_AGE_DAYS);
+        long cutoff = IdGenerator.serverNow() - TimeUnit.DAYS.toMillis(maxAgeDays);
+        int moved = 0;
+
+        try {
+            DataSnapshot summariesReady = Tasks.await(
+                    FirebaseDatabase.getInstance().getReference(Migrations.NODE)
+                            .child(ReportSummaries.FLAG_SUMMARIES).get(),
+                    TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (!Boolean.TRUE.equals(summariesReady.getValue())) {
+                Log.d(TAG, "Summaries not backfilled yet, archiving skipped");
+                return Result.success();
+            }
+
+            Long lastCompletedAt = null;
+            String lastKey = null;
+            for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+                Query page = lastKey == null
+                        ? ReportArchive.completedBefore(cutoff, BATCH_SIZE)
+                        : ReportArchive.completedBefore(cutoff, BATCH_SIZE, lastCompletedAt, lastKey);
+                DataSnapshot candidates = Tasks.await(page.get(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+                Map<String, Object> updates = new HashMap<>();
+                int count = 0;
+                int read = 0;
+                for (DataSnapshot report : candidates.getChildren()) {
+                    // The page starts at the previous page's last report
+                    if (report.getKey() == null || report.getKey().equals(lastKey)) continue;
+                    read++;
+                    Long completedAt = report.child("completedTimestamp").getValue(Long.class);
+                    if (completedAt != null) {
+                        lastCompletedAt = completedAt;
+                        lastKey = report.getKey();
+                    }
+                    if (ReportArchive.putMove(updates, report)) count++;
+                }
+                if (read == 0) break;
+
+                if (count > 0) {
+                    Tasks.await(FirebaseDatabase.getInstance().getReference().updateChildren(updates),
+                            TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    moved += count;
+                }
+                if (candidates.getChildrenCount() < BATCH_SIZE) break;
+            }
+
+            if (moved > 0) Log.d(TAG, "✅ Archived " + moved + " completed reports");
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Archiving failed after " + moved + " reports: " + e.getMessage());
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily job that trims the reportChanges feeds DeltaSync replays.
+ *
+ * A cache older than DeltaSync.MAX_CACHE_AGE_MS is reloaded in full, so
+ * feed entries older than that are never read again and only make the
+ * feeds grow with every report write. The feeds are "all" plus one per
+ * user, taken from the role index; feeds of users who have left the index
+ * are not visited. Each feed is trimmed in batches of
+ * BATCH_SIZE, each removed in one multi-path write. Removing an entry
+ * twice is harmless, so devices running the job at once don't conflict.
+ */
+public class ReportChangesPruneWorker extends Worker {
+    private static final String TAG = "ReportChangesPrune";
+    private static final String WORK_NAME = "report_changes_prune";
+
+    private static final int BATCH_SIZE = 200;
+    // Spreads a large first prune of one feed over several runs
+    private static final int MAX_BATCHES_PER_FEED = 10;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    public ReportChangesPruneWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Run once a day while online and not low on battery
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                ReportChangesPruneWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        long now = IdGenerator.serverNow();
+        int pruned = 0;
+
+        try {
+            for (String feed : feeds()) {
+                for (int batch = 0; batch < MAX_BATCHES_PER_FEED; batch++) {
+                    DataSnapshot old = Tasks.await(DeltaSync.prunable(feed, now, BATCH_SIZE).get(),
+                            TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    if (!old.hasChildren()) break;
+
+                    Map<String, Object> updates = new HashMap<>();
+                    for (DataSnapshot entry : old.getChildren()) {
+                        updates.put("reportChanges/" + feed + "/" + entry.getKey(), null);
+                    }
+                    Tasks.await(FirebaseDatabase.getInstance().getReference().updateChildren(updates),
+                            TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    pruned += updates.size();
+                    if (old.getChildrenCount() < BATCH_SIZE) break;
+                }
+            }
+
+            if (pruned > 0) Log.d(TAG, "✅ Pruned " + pruned + " old change feed entries");
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Pruning failed after " + pruned + " entries: " + e.getMessage());
+            return Result.retry();
+        }
+    }
+
+    // "all" and every user's own feed
+    private Set<String> feeds() throws Exception {
+        Set<String> feeds = new LinkedHashSet<>();
+        feeds.add(DeltaSync.FEED_ALL);
+        DataSnapshot roles = Tasks.await(RoleIndex.getRolesRef().get(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        for (DataSnapshot role : roles.getChildren()) {
+            for (DataSnapshot member : role.getChildren()) {
+                feeds.add(member.getKey());
+            }
+        }
+        return feeds;
+    }
+}
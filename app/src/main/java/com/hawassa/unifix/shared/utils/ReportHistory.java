@@ -0,0 +1,190 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import com.hawassa.unifix.models.StatusChange;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Status history, kept apart from the reports in
+ *   reportHistory/{reportId}/{eventId}
+ * so list queries on "reports" don't download it. Event ids come from
+ * IdGenerator, so key order is time order. Only detail screens load it.
+ *
+ * Reports written before the split keep their history under
+ * reports/{id}/statusHistory until migrateLegacy() has moved it; until
+ * then load() reads both.
+ */
+public class ReportHistory {
+    private static final String TAG = "ReportHistory";
+
+    private static final String MIGRATION = "reportHistory";
+    private static final int MIGRATION_CHUNK_SIZE = 50;
+
+    private static final DatabaseReference rootRef = FirebaseDatabase.getInstance().getReference();
+    private static final DatabaseReference historyRef = rootRef.child("reportHistory");
+
+    public interface HistoryListener {
+        // Oldest first
+        void onHistory(List<StatusChange> history);
+
+        default void onError(String message) {}
+    }
+
+    /**
+     * Add an entry to a multi-path update
+     */
+    static void putEntry(Map<String, Object> updates, String reportId, Map<String, Object> entry) {
+        updates.put("reportHistory/" + reportId + "/" + IdGenerator.next(""), entry);
+    }
+
+    static void putRemoval(Map<String, Object> updates, String reportId) {
+        updates.put("reportHistory/" + reportId, null);
+    }
+
+    /**
+     * Load a report's history once. Until the migration has finished,
+     * entries still under reports/{id}/statusHistory are merged in.
+     */
+    public static void load(String reportId, HistoryListener listener) {
+        historyRef.child(reportId).orderByKey()
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        List<StatusChange> history = new ArrayList<>();
+                        for (DataSnapshot child : snapshot.getChildren()) {
+                            StatusChange change = ModelMappers.toStatusChange(child);
+                            if (change != null) history.add(change);
+                        }
+
+                        Migrations.check(MIGRATION, finished -> {
+                            if (finished) {
+                                listener.onHistory(history);
+                            } else {
+                                addLegacy(reportId, history, listener);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Failed to load history for " + reportId + ": " + error.getMessage());
+                        listener.onError(error.getMessage());
+                    }
+                });
+    }
+
+    // A report that changed since the split has entries in both places
+    private static void addLegacy(String reportId, List<StatusChange> history, HistoryListener listener) {
+        rootRef.child("reports").child(reportId).child("statusHistory")
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot legacy) {
+                        if (!legacy.exists()) {
+                            listener.onHistory(history);
+                            return;
+                        }
+
+                        List<StatusChange> merged = new ArrayList<>();
+                        for (DataSnapshot entry : legacy.getChildren()) {
+                            StatusChange change = ModelMappers.toStatusChange(entry);
+                            if (change == null) continue;
+                            if (change.getTimestamp() == 0) change.setTimestamp(parseTime(entry.getKey()));
+                            merged.add(change);
+                        }
+                        merged.addAll(history);
+                        Collections.sort(merged, (a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()));
+                        listener.onHistory(merged);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        // The migrated part is still worth showing
+                        Log.w(TAG, "Failed to load legacy history for " + reportId + ": " + error.getMessage());
+                        listener.onHistory(history);
+                    }
+                });
+    }
+
+    /**
+     * One-off move of statusHistory out of every report, in chunked
+     * multi-path writes that copy each entry and delete the original
+     * together. Runs on an admin device; Migrations makes sure only one
+     * device ever does the work.
+     */
+    public static void migrateLegacy() {
+        Migrations.runOnce(MIGRATION, ReportHistory::moveLegacy);
+    }
+
+    private static void moveLegacy(Migrations.Done done) {
+        rootRef.child("reports").addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                List<Map<String, Object>> chunks = new ArrayList<>();
+                Map<String, Object> updates = new HashMap<>();
+                int reports = 0;
+
+                for (DataSnapshot report : snapshot.getChildren()) {
+                    DataSnapshot legacy = report.child("statusHistory");
+                    if (!legacy.exists()) continue;
+
+                    String reportId = report.getKey();
+                    for (DataSnapshot entry : legacy.getChildren()) {
+                        Long timestamp = entry.child("timestamp").getValue(Long.class);
+                        long time = timestamp != null ? timestamp : parseTime(entry.getKey());
+                        updates.put("reportHistory/" + reportId + "/" + IdGenerator.idAt("", time),
+                                entry.getValue());
+                    }
+                    updates.put("reports/" + reportId + "/statusHistory", null);
+
+                    if (++reports % MIGRATION_CHUNK_SIZE == 0) {
+                        chunks.add(updates);
+                        updates = new HashMap<>();
+                    }
+                }
+                if (!updates.isEmpty()) chunks.add(updates);
+
+                Log.d(TAG, "Moving the history of " + reports + " reports");
+                writeChunks(chunks, 0, done);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                done.failed("Migration read failed: " + error.getMessage());
+            }
+        });
+    }
+
+    private static void writeChunks(List<Map<String, Object>> chunks, int index, Migrations.Done done) {
+        if (index >= chunks.size()) {
+            done.finished();
+            return;
+        }
+
+        rootRef.updateChildren(chunks.get(index))
+                .addOnSuccessListener(aVoid -> writeChunks(chunks, index + 1, done))
+                // Chunks already written are done; the next run picks up the rest
+                .addOnFailureListener(e -> done.failed(e.getMessage()));
+    }
+
+    // Legacy entries were keyed by their timestamp
+    private static long parseTime(String key) {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.hawassa.unifix.models.MaintenanceReport;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Durable queue of reports waiting to be sent.
+ *
+ * Submitting only writes the report to local storage and schedules a
+ * ReportUploadWorker, so it returns straight away and survives the student
+ * leaving the screen, the app being killed or the phone going offline.
+ *
+ * Each entry is two files under filesDir/outbox:
+ *   {reportId}.json  the report, the reporter's name and, once uploaded, the imageUrl
+ *   {reportId}.jpg   a private copy of the attachment, if any
+ * The report id is generated on the device before the entry is written, so
+ * it doubles as the idempotency key: every retry writes the same report.
+ */
+public class ReportOutbox {
+    private static final String TAG = "ReportOutbox";
+    private static final String DIR = "outbox";
+
+    private static final String KEY_REPORT = "report";
+    private static final String KEY_REPORTER_NAME = "reporterName";
+
+    // One thread, so entries are written in the order they were submitted
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface Callback {
+        void onQueued(String reportId);
+
+        void onError(String message);
+    }
+
+    /**
+     * A queued report as read back from disk
+     */
+    public static class Entry {
+        public final MaintenanceReport report;
+        public final String reporterName;
+        public final File image; // null if there is no attachment
+
+        Entry(MaintenanceReport report, String reporterName, File image) {
+            this.report = report;
+            this.reporterName = reporterName;
+            this.image = image;
+        }
+    }
+
+    /**
+     * Save a report for upload and schedule it, copying the attachment off
+     * the main thread. The callback runs on the main thread; the report id
+     * it gets is the student's receipt, and the report itself arrives
+     * whenever the network allows.
+     */
+    public static void enqueueAsync(Context context, MaintenanceReport report, String reporterName,
+                                    Uri imageUri, Callback callback) {
+        Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            try {
+                String reportId = enqueue(appContext, report, reporterName, imageUri);
+                mainHandler.post(() -> callback.onQueued(reportId));
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to queue report: " + e.getMessage());
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Save a report for upload and schedule it, on the calling thread. The
+     * attachment is copied first, so call this off the main thread.
+     */
+    public static String enqueue(Context context, MaintenanceReport report, String reporterName,
+                                 Uri imageUri) throws IOException {
+        String reportId = report.getReportId();
+        File dir = dir(context);
+
+        // Copy the attachment first: the content Uri's permission ends with
+        // the activity, and the json must only appear once the entry is complete
+        if (imageUri != null) {
+            try (InputStream in = context.getContentResolver().openInputStream(imageUri)) {
+                if (in == null) throw new IOException("Cannot read " + imageUri);
+                copy(in, new File(dir, reportId + ".jpg"));
+            }
+        }
+
+        write(context, reportId, report, reporterName);
+        ReportUploadWorker.enqueue(context, reportId);
+        Log.d(TAG, "📥 Queued report " + reportId);
+        return reportId;
+    }
+
+    /**
+     * Ids of reports that have not been sent yet, oldest first
+     */
+    public static List<String> pending(Context context) {
+        List<String> reportIds = new ArrayList<>();
+        File[] files = dir(context).listFiles((d, name) -> name.endsWith(".json"));
+        if (files == null) return reportIds;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            String name = file.getName();
+            reportIds.add(name.substring(0, name.length() - ".json".length()));
+        }
+        return reportIds;
+    }
+
+    /**
+     * Reschedule everything still queued. WorkManager keeps its own queue
+     * across restarts, so this is a safety net and does nothing for
+     * reports that are already scheduled.
+     */
+    public static void resumeAll(Context context) {
+        for (String reportId : pending(context)) {
+            ReportUploadWorker.enqueue(context, reportId);
+        }
+    }
+
+    static Entry read(Context context, String reportId) throws IOException {
+        File file = new File(dir(context), reportId + ".json");
+        if (!file.exists()) return null;
+
+        try {
+            JSONObject json = new JSONObject(readText(file));
+            MaintenanceReport report = ModelMappers.reportFromMap(
+                    ModelMappers.fromJson(json.getJSONObject(KEY_REPORT)));
+            File image = new File(dir(context), reportId + ".jpg");
+            return new Entry(report, json.optString(KEY_REPORTER_NAME, null),
+                    image.exists() ? image : null);
+        } catch (JSONException e) {
+            throw new IOException("Corrupt outbox entry " + reportId, e);
+        }
+    }
+
+    /**
+     * Rewrite an entry after a partial upload, e.g. to remember its imageUrl
+     */
+    static void update(Context context, Entry entry) throws IOException {
+        write(context, entry.report.getReportId(), entry.report, entry.reporterName);
+    }
+
+    static void remove(Context context, String reportId) {
+        File dir = dir(context);
+        new File(dir, reportId + ".json").delete();
+        new File(dir, reportId + ".jpg").delete();
+    }
+
+    // ---------------------------------------------------------------------
+    // Files
+    // ---------------------------------------------------------------------
+
+    private static File dir(Context context) {
+        File dir = new File(context.getFilesDir(), DIR);
+        if (!dir.exists()) dir.mkdirs();
+        return dir;
+    }
+
+    // Write to a temp file and rename, so a crash never leaves half an entry
+    private static void write(Context context, String reportId, MaintenanceReport report,
+                              String reporterName) throws IOException {
+        JSONObject json = new JSONObject();
+        try {
+            json.put(KEY_REPORT, new JSONObject(ModelMappers.toMap(report)));
+            json.put(KEY_REPORTER_NAME, reporterName);
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        File dir = dir(context);
+        File temp = new File(dir, reportId + ".json.tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        if (!temp.renameTo(new File(dir, reportId + ".json"))) {
+            temp.delete();
+            throw new IOException("Failed to save outbox entry " + reportId);
+        }
+    }
+
+    private static void copy(InputStream in, File target) throws IOException {
+        try (OutputStream out = new FileOutputStream(target)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static String readText(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        try (InputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read == -1) break;
+                offset += read;
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,270 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.hawassa.unifix.models.MaintenanceReport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Process-wide cache of the report summaries (see ReportSummaries).
+ * One live listener feeds every admin screen, so switching screens doesn't
+ * re-download and re-parse the whole node. The cache is kept in sync with
+ * child events, so a single report change only decodes that report.
+ * It is backed by DeltaSync, so a cold start only downloads the reports
+ * that changed since the app last ran.
+ */
+public class ReportRepository {
+    private static final String TAG = "ReportRepository";
+
+    // Keep the listener alive briefly after the last screen leaves so that
+    // back/forward navigation between admin screens stays instant
+    private static final long DETACH_DELAY_MS = 30000;
+
+    private static ReportRepository instance;
+
+    private final DeltaSync syncEngine;
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final List<ChangesListener> changesListeners = new ArrayList<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable detachRunnable = this::detach;
+    private final Runnable deliverRunnable = this::deliverAll;
+
+    private boolean loaded = false;
+
+    public interface ReportFilter {
+        boolean matches(MaintenanceReport report);
+    }
+
+    public interface ReportsListener {
+        void onReportsChanged(List<MaintenanceReport> reports);
+
+        default void onError(String message) {}
+    }
+
+    /**
+     * Report-by-report changes, for screens that keep derived state and
+     * only want to touch what changed
+     */
+    public interface ChangesListener {
+        // Every cached report, once the cache is loaded (again)
+        void onReportsLoaded(List<MaintenanceReport> reports);
+
+        // Added or changed
+        void onReportChanged(MaintenanceReport report);
+
+        // The report as it was last delivered
+        void onReportRemoved(MaintenanceReport report);
+
+        default void onError(String message) {}
+    }
+
+    private static class Subscription {
+        final ReportFilter filter;
+        final boolean newestFirst;
+        final ReportsListener listener;
+
+        Subscription(ReportFilter filter, boolean newestFirst, ReportsListener listener) {
+            this.filter = filter;
+            this.newestFirst = newestFirst;
+            this.listener = listener;
+        }
+    }
+
+    private ReportRepository() {
+        // Oldest first by timestamp; subscribers can ask for newest first
+        syncEngine = DeltaSync.forAllReports(false);
+    }
+
+    public static synchronized ReportRepository getInstance() {
+        if (instance == null) {
+            instance = new ReportRepository();
+        }
+        return instance;
+    }
+
+    /**
+     * Subscribe to every report, oldest first
+     */
+    public void subscribe(ReportsListener listener) {
+        subscribe(null, false, listener);
+    }
+
+    /**
+     * Subscribe to a filtered view of the cache. If the cache is already loaded
+     * the listener is called straight away with the current data.
+     */
+    public void subscribe(ReportFilter filter, boolean newestFirst, ReportsListener listener) {
+        if (listener == null) return;
+
+        unsubscribe(listener);
+        Subscription subscription = new Subscription(filter, newestFirst, listener);
+        subscriptions.add(subscription);
+
+        handler.removeCallbacks(detachRunnable);
+        attach();
+
+        if (loaded) {
+            deliver(subscription);
+        }
+    }
+
+    public void unsubscribe(ReportsListener listener) {
+        for (int i = subscriptions.size() - 1; i >= 0; i--) {
+            if (subscriptions.get(i).listener == listener) {
+                subscriptions.remove(i);
+            }
+        }
+        scheduleDetach();
+    }
+
+    /**
+     * Subscribe to single-report changes. The listener gets every report
+     * once the cache is loaded (straight away if it already is), then one
+     * call per report that changes, with no full-list deliveries.
+     */
+    public void subscribeChanges(ChangesListener listener) {
+        if (listener == null) return;
+
+        changesListeners.remove(listener);
+        changesListeners.add(listener);
+
+        handler.removeCallbacks(detachRunnable);
+        attach();
+
+        if (loaded) {
+            listener.onReportsLoaded(getReports(null, false));
+        }
+    }
+
+    public void unsubscribeChanges(ChangesListener listener) {
+        changesListeners.remove(listener);
+        scheduleDetach();
+    }
+
+    private void scheduleDetach() {
+        if (subscriptions.isEmpty() && changesListeners.isEmpty()) {
+            handler.removeCallbacks(detachRunnable);
+            handler.postDelayed(detachRunnable, DETACH_DELAY_MS);
+        }
+    }
+
+    /**
+     * Current cached reports matching the filter (null filter = all)
+     */
+    public List<MaintenanceReport> getReports(ReportFilter filter, boolean newestFirst) {
+        List<MaintenanceReport> result = new ArrayList<>();
+        for (int i = 0; i < syncEngine.size(); i++) {
+            MaintenanceReport report = syncEngine.get(i);
+            if (filter == null || filter.matches(report)) {
+                result.add(report);
+            }
+        }
+        if (newestFirst) {
+            Collections.reverse(result);
+        }
+        return result;
+    }
+
+    public MaintenanceReport getReport(String reportId) {
+        return reportId != null ? syncEngine.getByKey(reportId) : null;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    private void attach() {
+        if (syncEngine.isStarted()) return;
+
+        Log.d(TAG, "Attaching shared reports listener");
+        syncEngine.start(new ChildSyncEngine.Callback<MaintenanceReport>() {
+            @Override
+            public void onInserted(int position, MaintenanceReport item) {
+                notifyChanged(item);
+                scheduleDelivery();
+            }
+
+            @Override
+            public void onUpdated(int position, MaintenanceReport item) {
+                notifyChanged(item);
+                scheduleDelivery();
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition, MaintenanceReport item) {
+                scheduleDelivery();
+            }
+
+            @Override
+            public void onRemoved(int position, MaintenanceReport item) {
+                if (loaded) {
+                    for (ChangesListener listener : new ArrayList<>(changesListeners)) {
+                        listener.onReportRemoved(item);
+                    }
+                }
+                scheduleDelivery();
+            }
+
+            @Override
+            public void onSynced() {
+                loaded = true;
+                Log.d(TAG, "Cache synced: " + syncEngine.size() + " reports");
+                List<MaintenanceReport> reports = getReports(null, false);
+                for (ChangesListener listener : new ArrayList<>(changesListeners)) {
+                    listener.onReportsLoaded(reports);
+                }
+                scheduleDelivery();
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Reports listener cancelled: " + message);
+                for (Subscription subscription : new ArrayList<>(subscriptions)) {
+                    subscription.listener.onError(message);
+                }
+                for (ChangesListener listener : new ArrayList<>(changesListeners)) {
+                    listener.onError(message);
+                }
+            }
+        });
+    }
+
+    private void detach() {
+        if (!syncEngine.isStarted() || !subscriptions.isEmpty() || !changesListeners.isEmpty()) return;
+
+        Log.d(TAG, "Detaching shared reports listener");
+        syncEngine.stop();
+        loaded = false;
+    }
+
+    // Until the cache has loaded, onReportsLoaded covers everything
+    private void notifyChanged(MaintenanceReport report) {
+        if (!loaded) return;
+        for (ChangesListener listener : new ArrayList<>(changesListeners)) {
+            listener.onReportChanged(report);
+        }
+    }
+
+    // Coalesce bursts of child events (e.g. the initial sync) into one delivery
+    private void scheduleDelivery() {
+        if (!loaded) return;
+        handler.removeCallbacks(deliverRunnable);
+        handler.post(deliverRunnable);
+    }
+
+    private void deliverAll() {
+        for (Subscription subscription : new ArrayList<>(subscriptions)) {
+            deliver(subscription);
+        }
+    }
+
+    private void deliver(Subscription subscription) {
+        subscription.listener.onReportsChanged(
+                getReports(subscription.filter, subscription.newestFirst));
+    }
+}
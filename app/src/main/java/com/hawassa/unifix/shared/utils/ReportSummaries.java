@@ -0,0 +1,428 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+import com.hawassa.unifix.models.MaintenanceReport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The list-screen projection of each report, kept at
+ *   reportSummaries/{reportId}
+ * with only what the lists and dashboards show: ids, category, location,
+ * status, times, assignee and a short description preview. Technician
+ * notes, image urls, coordinates and the full description stay in
+ * "reports" (or ReportArchive, once archived) and are only read by detail
+ * views (see loadFull()).
+ *
+ * Every report write goes through putMirror(), which copies the summary
+ * fields of a multi-path update across, so both nodes change in the same
+ * atomic write. A summary maps to a MaintenanceReport like the full report
+ * does, just with the heavy fields left empty.
+ *
+ * Summaries also carry composite keys, since a query can only order by
+ * one child:
+ *   reporterId_status               "{reporterId}_{status}"
+ *   assignedTechnicianId_timestamp  "{technicianId}_{timestamp}"
+ *   status_timestamp                "{status}_{timestamp}"
+ * Timestamps are zero-padded so the keys sort by time within a prefix;
+ * the by...() queries below build the ranges.
+ *
+ * Reports from before summaries existed only get theirs from backfill().
+ * Until it has finished, readers go through whenReady() and read
+ * "reports" instead (see Source).
+ */
+public class ReportSummaries {
+    private static final String TAG = "ReportSummaries";
+
+    public static final String NODE = "reportSummaries";
+
+    static final int DESCRIPTION_PREVIEW_CHARS = 100;
+    private static final int MIGRATION_CHUNK_SIZE = 50;
+
+    public static final String KEY_REPORTER_STATUS = "reporterId_status";
+    public static final String KEY_TECHNICIAN_TIME = "assignedTechnicianId_timestamp";
+    public static final String KEY_STATUS_TIME = "status_timestamp";
+
+    static final String FLAG_SUMMARIES = "reportSummaries";
+    private static final String FLAG_KEYS = "summaryKeys";
+
+    private static final Set<String> FIELDS = new HashSet<>(Arrays.asList(
+            "reportId", "reporterId", "reporterName", "buildingBlock", "roomNumber", "category",
+            "description", "status", "timestamp", "assignedTechnicianId", "assignedTechnicianName",
+            "completedTimestamp", "version", "duplicateCount", "mergedInto", "lastModified", "archivedIn"));
+
+    private static final DatabaseReference rootRef = FirebaseDatabase.getInstance().getReference();
+    private static final DatabaseReference summariesRef = rootRef.child(NODE);
+
+    public interface ReportListener {
+        void onReport(MaintenanceReport report);
+
+        default void onError(String message) {}
+    }
+
+    public interface SourceListener {
+        void onSource(Source source);
+    }
+
+    /**
+     * Where list screens read from: the summaries once they are complete,
+     * the full reports until then. Field names are the same in both, so
+     * plain orderByChild() queries work on either ref(); the by...()
+     * queries fall back to a plain query that may return more than asked
+     * for, which matches() trims.
+     */
+    public static class Source {
+        public final boolean summaries;
+
+        Source(boolean summaries) {
+            this.summaries = summaries;
+        }
+
+        public DatabaseReference ref() {
+            return summaries ? summariesRef : rootRef.child("reports");
+        }
+
+        /**
+         * byReporterAndStatus(); without summaries, all of the reporter's reports
+         */
+        public Query byReporterAndStatus(String reporterId, String status) {
+            return summaries ? ReportSummaries.byReporterAndStatus(reporterId, status)
+                    : ref().orderByChild("reporterId").equalTo(reporterId);
+        }
+
+        /**
+         * byTechnicianByTime(); without summaries all of the technician's
+         * reports in key order, which isn't time order across id formats.
+         * Don't limit the fallback; sort it by timestamp on the client.
+         */
+        public Query byTechnicianByTime(String technicianId) {
+            return summaries ? ReportSummaries.byTechnicianByTime(technicianId)
+                    : ref().orderByChild("assignedTechnicianId").equalTo(technicianId);
+        }
+
+        /**
+         * byStatusByTime(); without summaries in key order, so read it
+         * through ChildSyncEngine.forReports(), which sorts by timestamp
+         */
+        public Query byStatusByTime(String status) {
+            return summaries ? ReportSummaries.byStatusByTime(status)
+                    : ref().orderByChild("status").equalTo(status);
+        }
+
+        /**
+         * Whether a report from a fallback query has the status asked for
+         */
+        public static boolean matches(MaintenanceReport report, String status) {
+            return report != null && status.equals(report.getStatus());
+        }
+    }
+
+    public static DatabaseReference getRef() {
+        return summariesRef;
+    }
+
+    /**
+     * The source to read lists from. Only the admin dashboard runs the
+     * backfill, so other devices read "reports" until it has.
+     */
+    public static void whenReady(SourceListener listener) {
+        Migrations.check(FLAG_SUMMARIES, summaries -> {
+            if (!summaries) {
+                listener.onSource(new Source(false));
+                return;
+            }
+            Migrations.check(FLAG_KEYS, keys -> listener.onSource(new Source(keys)));
+        });
+    }
+
+    /**
+     * A reporter's reports with one status
+     */
+    public static Query byReporterAndStatus(String reporterId, String status) {
+        return summariesRef.orderByChild(KEY_REPORTER_STATUS).equalTo(reporterId + "_" + status);
+    }
+
+    /**
+     * A technician's tasks, oldest first; add limitToLast(n) for the newest n
+     */
+    public static Query byTechnicianByTime(String technicianId) {
+        return prefixRange(KEY_TECHNICIAN_TIME, technicianId);
+    }
+
+    /**
+     * Reports with one status, oldest first
+     */
+    public static Query byStatusByTime(String status) {
+        return prefixRange(KEY_STATUS_TIME, status);
+    }
+
+    private static Query prefixRange(String key, String prefix) {
+        return summariesRef.orderByChild(key).startAt(prefix + "_").endAt(prefix + "_\uf8ff");
+    }
+
+    /**
+     * Add the summary side of every report path in a multi-path update:
+     *   reports/{id}          whole report (or null) -> its projection (or null)
+     *   reports/{id}/{field}  summary field          -> same field
+     * Call it last, just before updateChildren.
+     */
+    static void putMirror(Map<String, Object> updates) {
+        Map<String, Object> mirrored = new HashMap<>();
+        for (Map.Entry<String, Object> update : updates.entrySet()) {
+            String path = update.getKey();
+            if (!path.startsWith("reports/")) continue;
+
+            String[] parts = path.split("/");
+            if (parts.length == 2) {
+                mirrored.put(NODE + "/" + parts[1], project(update.getValue()));
+            } else if (parts.length == 3 && FIELDS.contains(parts[2])) {
+                mirrored.put(NODE + "/" + parts[1] + "/" + parts[2],
+                        summaryValue(parts[2], update.getValue()));
+            }
+        }
+        updates.putAll(mirrored);
+    }
+
+    /**
+     * Replace a report's summary with the projection of its archived copy,
+     * which carries archivedIn. Written whole rather than just archivedIn,
+     * so a report whose summary is missing or stale still lists correctly
+     * once the full report has left "reports".
+     */
+    static void putArchived(Map<String, Object> updates, String reportId, Object archived) {
+        updates.put(NODE + "/" + reportId, project(archived));
+    }
+
+    /**
+     * Rewrite every summary field from a report snapshot, for writes that
+     * went to the report outside a multi-path update (the claim transaction)
+     */
+    static void putSummary(Map<String, Object> updates, DataSnapshot report) {
+        String reportId = report.getKey();
+        for (DataSnapshot field : report.getChildren()) {
+            if (FIELDS.contains(field.getKey())) {
+                updates.put(NODE + "/" + reportId + "/" + field.getKey(),
+                        summaryValue(field.getKey(), field.getValue()));
+            }
+        }
+        putKeys(updates, NODE + "/" + reportId + "/", keysOf(ModelMappers.asMap(report.getValue())));
+    }
+
+    /**
+     * Recompute the composite keys for a field-level write that changes
+     * status or assignee. putMirror() can't, as it only sees the fields
+     * being written.
+     */
+    static void putKeys(Map<String, Object> updates, MaintenanceReport report,
+                        String status, String technicianId) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("reporterId", report.getReporterId());
+        fields.put("assignedTechnicianId", technicianId);
+        fields.put("status", status);
+        fields.put("timestamp", report.getTimestamp());
+        putKeys(updates, NODE + "/" + report.getReportId() + "/", keysOf(fields));
+    }
+
+    private static void putKeys(Map<String, Object> target, String pathPrefix, Map<String, Object> keys) {
+        for (Map.Entry<String, Object> key : keys.entrySet()) {
+            target.put(pathPrefix + key.getKey(), key.getValue());
+        }
+    }
+
+    // The composite keys of a report or summary; a key is null when a part is missing
+    private static Map<String, Object> keysOf(Map<String, Object> fields) {
+        Map<String, Object> keys = new HashMap<>();
+        if (fields == null) return keys;
+
+        Object reporterId = fields.get("reporterId");
+        Object technicianId = fields.get("assignedTechnicianId");
+        Object status = fields.get("status");
+        Object timestamp = fields.get("timestamp");
+        String time = timestamp instanceof Number
+                ? String.format(Locale.US, "%013d", ((Number) timestamp).longValue()) : null;
+
+        keys.put(KEY_REPORTER_STATUS, join(reporterId, status));
+        keys.put(KEY_TECHNICIAN_TIME, join(technicianId, time));
+        keys.put(KEY_STATUS_TIME, join(status, time));
+        return keys;
+    }
+
+    private static String join(Object first, Object second) {
+        if (first == null || second == null || String.valueOf(first).isEmpty()) return null;
+        return first + "_" + second;
+    }
+
+    /**
+     * Load the whole report for a detail view, from the archive if it has
+     * been moved there
+     */
+    public static void loadFull(String reportId, ReportListener listener) {
+        rootRef.child("reports").child(reportId)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        MaintenanceReport report = snapshot.exists() ? ModelMappers.toReport(snapshot) : null;
+                        if (report == null) {
+                            loadArchived(reportId, listener);
+                            return;
+                        }
+                        listener.onReport(report);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Failed to load report " + reportId + ": " + error.getMessage());
+                        listener.onError(error.getMessage());
+                    }
+                });
+    }
+
+    private static void loadArchived(String reportId, ReportListener listener) {
+        summariesRef.child(reportId).child("archivedIn").get()
+                .addOnSuccessListener(snapshot -> {
+                    String month = snapshot.getValue(String.class);
+                    if (month == null) {
+                        listener.onError("Report not found");
+                        return;
+                    }
+                    ReportArchive.load(month, reportId, listener);
+                })
+                .addOnFailureListener(e -> listener.onError(e.getMessage()));
+    }
+
+    // Summary of a whole report value; null stays null
+    @SuppressWarnings("unchecked")
+    private static Object project(Object report) {
+        if (!(report instanceof Map)) return null;
+
+        Map<String, Object> summary = new HashMap<>();
+        for (Map.Entry<String, Object> field : ((Map<String, Object>) report).entrySet()) {
+            if (FIELDS.contains(field.getKey()) && field.getValue() != null) {
+                summary.put(field.getKey(), summaryValue(field.getKey(), field.getValue()));
+            }
+        }
+        for (Map.Entry<String, Object> key : keysOf((Map<String, Object>) report).entrySet()) {
+            if (key.getValue() != null) summary.put(key.getKey(), key.getValue());
+        }
+        return summary;
+    }
+
+    private static Object summaryValue(String field, Object value) {
+        if ("description".equals(field) && value instanceof String) {
+            return preview((String) value);
+        }
+        return value;
+    }
+
+    static String preview(String description) {
+        if (description.length() <= DESCRIPTION_PREVIEW_CHARS) return description;
+        return description.substring(0, DESCRIPTION_PREVIEW_CHARS - 1).trim() + "…";
+    }
+
+    /**
+     * One-off migrations, run once through Migrations.
+     *
+     * reportSummaries builds summaries, keys included, for reports that
+     * have none. Each chunk also stamps the change feeds, so devices that
+     * already synced an empty list pick the reports up. summaryKeys adds
+     * missing composite keys to summaries built before them. Both write
+     * single fields of summaries that were missing them, never whole
+     * summaries, so they can't undo a write made while they run. Both
+     * read whole nodes, so only the admin dashboard runs them.
+     */
+    public static void backfill() {
+        Migrations.runOnce(FLAG_SUMMARIES, ReportSummaries::buildMissing);
+        Migrations.runOnce(FLAG_KEYS, ReportSummaries::addMissingKeys);
+    }
+
+    private static void buildMissing(Migrations.Done done) {
+        summariesRef.get().addOnSuccessListener(summaries ->
+                rootRef.child("reports").get().addOnSuccessListener(reports -> {
+                    List<Map<String, Object>> chunks = new ArrayList<>();
+                    Map<String, Object> updates = new HashMap<>();
+                    int built = 0;
+
+                    for (DataSnapshot child : reports.getChildren()) {
+                        if (child.getKey() == null || summaries.hasChild(child.getKey())) continue;
+                        MaintenanceReport report = ModelMappers.toReport(child);
+                        if (report == null) continue;
+
+                        Object summary = project(child.getValue());
+                        if (!(summary instanceof Map)) continue;
+                        putKeys(updates, NODE + "/" + child.getKey() + "/", asObjectMap(summary));
+                        DeltaSync.putChange(updates, report, null);
+
+                        if (++built % MIGRATION_CHUNK_SIZE == 0) {
+                            chunks.add(updates);
+                            updates = new HashMap<>();
+                        }
+                    }
+                    if (!updates.isEmpty()) chunks.add(updates);
+
+                    Log.d(TAG, "Building summaries for " + built + " reports");
+                    writeChunks(chunks, 0, done);
+                }).addOnFailureListener(e -> done.failed(e.getMessage()))
+        ).addOnFailureListener(e -> done.failed(e.getMessage()));
+    }
+
+    private static void addMissingKeys(Migrations.Done done) {
+        summariesRef.get().addOnSuccessListener(summaries -> {
+            List<Map<String, Object>> chunks = new ArrayList<>();
+            Map<String, Object> updates = new HashMap<>();
+            int patched = 0;
+
+            for (DataSnapshot child : summaries.getChildren()) {
+                Map<String, Object> missing = new HashMap<>();
+                for (Map.Entry<String, Object> key : keysOf(ModelMappers.asMap(child.getValue())).entrySet()) {
+                    if (key.getValue() != null && !child.hasChild(key.getKey())) {
+                        missing.put(key.getKey(), key.getValue());
+                    }
+                }
+                if (missing.isEmpty()) continue;
+                putKeys(updates, NODE + "/" + child.getKey() + "/", missing);
+
+                if (++patched % MIGRATION_CHUNK_SIZE == 0) {
+                    chunks.add(updates);
+                    updates = new HashMap<>();
+                }
+            }
+            if (!updates.isEmpty()) chunks.add(updates);
+
+            Log.d(TAG, "Adding query keys to " + patched + " summaries");
+            writeChunks(chunks, 0, done);
+        }).addOnFailureListener(e -> done.failed(e.getMessage()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObjectMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    private static void writeChunks(List<Map<String, Object>> chunks, int index, Migrations.Done done) {
+        if (index >= chunks.size()) {
+            done.finished();
+            return;
+        }
+
+        rootRef.updateChildren(chunks.get(index))
+                .addOnSuccessListener(aVoid -> writeChunks(chunks, index + 1, done))
+                // Chunks already written are done; the next run skips them
+                .addOnFailureListener(e -> done.failed(e.getMessage()));
+    }
+}
@@ -0,0 +1,828 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
+import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report status changes as one atomic multi-path write.
+ *
+ * A transition carries everything the change touches: the report fields
+ * and their summary, a history entry, the stats counters, the SLA timer,
+ * the change feeds and the notifications it sends.
+ * Either all of it is committed or none of it is. Moves that
+ * ReportStatus.nextStatuses() doesn't allow are rejected before anything
+ * is written.
+ *
+ * Every change bumps reports/{id}/version. claim() uses that for a
+ * compare-and-set: the report is only taken if its status and version are
+ * still the ones the caller saw, so two admins assigning the same report
+ * at once can't both win. Claiming a create() only writes the report if
+ * it doesn't exist yet, so a retried submission can't send it twice.
+ *
+ * Everything else a claim touches follows in a second write. So that it
+ * can't be lost, the claim also leaves a note of it on the report,
+ *   reports/{id}/followUps/v{version}  from, to, technicians, actor, notes, at
+ *   reports/{id}/followUpAt            oldest pending "at", for the query
+ * which the follow-up write removes. A note left for FOLLOW_UP_STALE_MS is
+ * taken over by resumeFollowUps() (admin dashboard) or resumeClaim()
+ * (ReportUploadWorker), which rebuild the follow-up from it.
+ */
+public class ReportTransitions {
+    private static final String TAG = "ReportTransitions";
+
+    private static final DatabaseReference rootRef =
+            FirebaseDatabase.getInstance().getReference();
+
+    static final String FOLLOW_UPS = "followUps";
+    static final String FOLLOW_UP_AT = "followUpAt";
+    // A follow-up still pending this long after its claim was lost on the way
+    private static final long FOLLOW_UP_STALE_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final int FOLLOW_UP_BATCH = 50;
+
+    public interface CommitListener {
+        void onCommitted();
+
+        default void onFailure(String message) {}
+
+        /**
+         * claim() lost: the report moved on since it was read. current is
+         * the report as it is now.
+         */
+        default void onConflict(MaintenanceReport current) {
+            onFailure("This report was changed by someone else");
+        }
+    }
+
+    private static class Message {
+        final String recipient; // user id, or role for broadcasts
+        final String title;
+        final String message;
+        final String type;
+
+        Message(String recipient, String title, String message, String type) {
+            this.recipient = recipient;
+            this.title = title;
+            this.message = message;
+            this.type = type;
+        }
+    }
+
+    public static class Transition {
+        private final MaintenanceReport report;
+        private final boolean creating;
+        private final ReportStatus from;
+        private final ReportStatus to;
+        private final String actorId;
+        private final String actorName;
+
+        private final Map<String, Object> fields = new LinkedHashMap<>();
+        private final List<Message> userMessages = new ArrayList<>();
+        private final List<Message> roleMessages = new ArrayList<>();
+        private String notes;
+
+        private Transition(MaintenanceReport report, boolean creating, ReportStatus to,
+                           String actorId, String actorName) {
+            this.report = report;
+            this.creating = creating;
+            this.from = creating ? null : ReportStatus.fromString(report.getStatus());
+            this.to = to;
+            this.actorId = actorId;
+            this.actorName = actorName;
+        }
+
+        /**
+         * Another report field to write with the status, e.g. technicianNotes
+         */
+        public Transition set(String field, Object value) {
+            fields.put(field, value);
+            return this;
+        }
+
+        /**
+         * Notes stored on the history entry
+         */
+        public Transition notes(String notes) {
+            this.notes = notes;
+            return this;
+        }
+
+        public Transition notifyUser(String userId, String title, String message, String type) {
+            if (userId != null && !userId.isEmpty()) {
+                userMessages.add(new Message(userId, title, message, type));
+            }
+            return this;
+        }
+
+        /**
+         * Broadcast to every active member of a role (see RoleIndex)
+         */
+        public Transition notifyRole(String role, String title, String message, String type) {
+            roleMessages.add(new Message(role, title, message, type));
+            return this;
+        }
+
+        public MaintenanceReport getReport() {
+            return report;
+        }
+
+        public ReportStatus getFrom() {
+            return from;
+        }
+
+        public ReportStatus getTo() {
+            return to;
+        }
+
+        public boolean isLegal() {
+            if (report == null || report.getReportId() == null || to == null) return false;
+            return creating ? to == ReportStatus.SUBMITTED : from != null && from.canTransitionTo(to);
+        }
+    }
+
+    /**
+     * Move an existing report to a new status
+     */
+    public static Transition change(MaintenanceReport report, ReportStatus to,
+                                    String actorId, String actorName) {
+        return new Transition(report, false, to, actorId, actorName);
+    }
+
+    /**
+     * Write a new report as Submitted
+     */
+    public static Transition create(MaintenanceReport report, String actorId, String actorName) {
+        return new Transition(report, true, ReportStatus.SUBMITTED, actorId, actorName);
+    }
+
+    /**
+     * Validate, resolve any role recipients, then write everything in one
+     * updateChildren. context is only used for the local push when the
+     * actor is one of the recipients; it may be null.
+     */
+    public static void commit(Transition transition, Context context, CommitListener listener) {
+        if (!transition.isLegal()) {
+            String message = "Cannot change status from " +
+                    (transition.report != null ? transition.report.getStatus() : "null") +
+                    " to " + transition.to;
+            Log.w(TAG, message);
+            listener.onFailure(message);
+            return;
+        }
+
+        resolveRoles(transition, 0, new HashMap<>(),
+                membersByRole -> write(transition, membersByRole, context, listener), listener);
+    }
+
+    /**
+     * Like commit(), but the status change itself runs as a transaction on
+     * the report that only applies if its status and version still match
+     * the report the transition was built from (for create(), only if the
+     * report doesn't exist yet). If they don't, the listener gets
+     * onConflict() with the current report and nothing is written.
+     *
+     * The listener hears onCommitted() as soon as the claim commits.
+     * Counters and notifications go out in a second write after that, so
+     * losers never notify anyone; if it fails, resumeFollowUps() sends it
+     * later from the note the claim left.
+     */
+    public static void claim(Transition transition, Context context, CommitListener listener) {
+        if (!transition.isLegal()) {
+            String message = "Cannot claim report with status " +
+                    (transition.report != null ? transition.report.getStatus() : "null");
+            Log.w(TAG, message);
+            listener.onFailure(message);
+            return;
+        }
+
+        resolveRoles(transition, 0, new HashMap<>(),
+                membersByRole -> runClaim(transition, membersByRole, context, listener), listener);
+    }
+
+    /**
+     * Send what follows a claim() that committed but whose follow-up write
+     * never landed, e.g. because the app died in between, notifications
+     * included. Committed if the follow-up has been sent meanwhile; a
+     * failure if it is pending but too recent to take over yet.
+     */
+    public static void resumeClaim(Transition transition, Context context, CommitListener listener) {
+        String key = followUpKey(transition);
+        takeFollowUps(transition.report.getReportId(), key, new FollowUpsListener() {
+            @Override
+            public void onTaken(DataSnapshot report, List<String> taken) {
+                if (report == null) {
+                    listener.onCommitted(); // deleted, nothing left to follow
+                } else if (taken.contains(key)) {
+                    resolveRoles(transition, 0, new HashMap<>(),
+                            membersByRole -> sendFollowUp(transition, report, membersByRole,
+                                    System.currentTimeMillis(), context, listener),
+                            listener);
+                } else if (report.child(FOLLOW_UPS).hasChild(key)) {
+                    listener.onFailure("The follow-up is still being sent");
+                } else {
+                    listener.onCommitted();
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                listener.onFailure(message);
+            }
+        });
+    }
+
+    /**
+     * Send the follow-ups of claims whose own never landed, for the oldest
+     * FOLLOW_UP_BATCH reports with one. Run from the admin dashboard.
+     * Summary, history, SLA timer, change feeds and counters are rebuilt
+     * from the note; notifications were only known to the device that
+     * claimed, so they are not sent.
+     */
+    public static void resumeFollowUps() {
+        long staleBefore = IdGenerator.serverNow() - FOLLOW_UP_STALE_MS;
+        rootRef.child("reports").orderByChild(FOLLOW_UP_AT).startAt(1).endAt(staleBefore)
+                .limitToFirst(FOLLOW_UP_BATCH).get()
+                .addOnSuccessListener(snapshot -> {
+                    for (DataSnapshot pending : snapshot.getChildren()) {
+                        takeFollowUps(pending.getKey(), null, (report, taken) -> {
+                            for (String key : taken) {
+                                Transition transition = fromFollowUp(report, key);
+                                if (transition == null) continue;
+                                Log.d(TAG, "Resending follow-up " + key + " of " + report.getKey());
+                                sendFollowUp(transition, report, new HashMap<>(),
+                                        followUpTime(report, key), null, FOLLOW_UP_LOG);
+                            }
+                        });
+                    }
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to look for pending follow-ups: " + e.getMessage()));
+    }
+
+    private interface FollowUpsListener {
+        // report is null if it is gone; taken are the notes now ours to send
+        void onTaken(DataSnapshot report, List<String> taken);
+
+        default void onError(String message) {
+            Log.e(TAG, "Failed to take follow-ups: " + message);
+        }
+    }
+
+    /**
+     * Take over the report's stale follow-up notes (only the one under
+     * onlyKey, if given) by restarting their clock, so no one else sends
+     * them for another FOLLOW_UP_STALE_MS. Also resets followUpAt to the
+     * oldest note left, or clears it.
+     */
+    private static void takeFollowUps(String reportId, String onlyKey, FollowUpsListener listener) {
+        List<String> taken = new ArrayList<>();
+
+        rootRef.child("reports").child(reportId).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                taken.clear();
+                // Nothing cached locally yet; the server retries with the real value
+                if (data.getValue() == null) return Transaction.success(data);
+
+                long now = IdGenerator.serverNow();
+                long oldest = Long.MAX_VALUE;
+                for (MutableData note : data.child(FOLLOW_UPS).getChildren()) {
+                    Object at = note.child("at").getValue();
+                    long noted = at instanceof Number ? ((Number) at).longValue() : 0L;
+                    if (noted <= now - FOLLOW_UP_STALE_MS
+                            && (onlyKey == null || onlyKey.equals(note.getKey()))) {
+                        note.child("at").setValue(now);
+                        taken.add(note.getKey());
+                        noted = now;
+                    }
+                    oldest = Math.min(oldest, noted);
+                }
+                data.child(FOLLOW_UP_AT).setValue(oldest == Long.MAX_VALUE ? null : oldest);
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) {
+                    listener.onError(error.getMessage());
+                } else if (!committed || snapshot == null || !snapshot.exists()) {
+                    listener.onTaken(null, new ArrayList<>());
+                } else {
+                    listener.onTaken(snapshot, taken);
+                }
+            }
+        }, false);
+    }
+
+    // The transition a follow-up note stands for, with the report as it
+    // was before it
+    private static Transition fromFollowUp(DataSnapshot report, String key) {
+        DataSnapshot note = report.child(FOLLOW_UPS).child(key);
+        MaintenanceReport before = ModelMappers.toReport(report);
+        ReportStatus to = ReportStatus.fromString(note.child("to").getValue(String.class));
+        if (before == null || to == null) return null;
+
+        String from = note.child("from").getValue(String.class);
+        String previousTechnicianId = note.child("previousTechnicianId").getValue(String.class);
+        String technicianId = note.child("technicianId").getValue(String.class);
+        long version;
+        try {
+            version = Long.parseLong(key.substring(1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        boolean creating = from == null;
+        before.setStatus(from);
+        before.setAssignedTechnicianId(previousTechnicianId);
+        before.setVersion(creating ? version : version - 1);
+
+        Transition transition = new Transition(before, creating, to,
+                note.child("actorId").getValue(String.class),
+                note.child("actorName").getValue(String.class))
+                .notes(note.child("notes").getValue(String.class));
+        if (!creating && technicianId != null && !technicianId.equals(previousTechnicianId)) {
+            transition.set("assignedTechnicianId", technicianId)
+                    .set("assignedTechnicianName", note.child("technicianName").getValue(String.class));
+        }
+        return transition;
+    }
+
+    // When the claim was made, so history and SLA timer keep its time
+    private static long followUpTime(DataSnapshot report, String key) {
+        Long at = report.child(FOLLOW_UPS).child(key).child("claimedAt").getValue(Long.class);
+        return at != null ? at : System.currentTimeMillis();
+    }
+
+    // Follow-ups no one is waiting for; a failure is left for resumeFollowUps()
+    private static final CommitListener FOLLOW_UP_LOG = new CommitListener() {
+        @Override
+        public void onCommitted() {}
+
+        @Override
+        public void onFailure(String message) {
+            Log.w(TAG, "Follow-up failed, left for resumeFollowUps(): " + message);
+        }
+    };
+
+    private interface RolesListener {
+        void onResolved(Map<String, List<String>> membersByRole);
+    }
+
+    // Role broadcasts need their member lists before the write can be built
+    private static void resolveRoles(Transition transition, int index,
+                                     Map<String, List<String>> membersByRole, RolesListener then,
+                                     CommitListener listener) {
+        if (index >= transition.roleMessages.size()) {
+            then.onResolved(membersByRole);
+            return;
+        }
+
+        String role = transition.roleMessages.get(index).recipient;
+        if (membersByRole.containsKey(role)) {
+            resolveRoles(transition, index + 1, membersByRole, then, listener);
+            return;
+        }
+
+        RoleIndex.getMembers(role, new RoleIndex.MembersListener() {
+            @Override
+            public void onMembers(List<RoleIndex.Member> members) {
+                List<String> active = new ArrayList<>();
+                for (RoleIndex.Member member : members) {
+                    if (member.isActive()) active.add(member.uid);
+                }
+                membersByRole.put(role, active);
+                resolveRoles(transition, index + 1, membersByRole, then, listener);
+            }
+
+            @Override
+            public void onError(String message) {
+                listener.onFailure("Failed to load " + role + " users: " + message);
+            }
+        });
+    }
+
+    private static void write(Transition transition, Map<String, List<String>> membersByRole,
+                              Context context, CommitListener listener) {
+        MaintenanceReport report = transition.report;
+        String reportId = report.getReportId();
+        String reportPath = "reports/" + reportId;
+        long now = System.currentTimeMillis();
+
+        Map<String, Object> updates = new HashMap<>();
+
+        if (transition.creating) {
+            Map<String, Object> data = newReport(transition);
+            data.put("lastModified", ServerValue.TIMESTAMP);
+            updates.put(reportPath, data);
+            ReportHistory.putEntry(updates, reportId, historyEntry(transition, now));
+            SlaTimers.putTimer(updates, reportId, report.getCategory(), transition.to, now);
+            DeltaSync.putChange(updates, report, null);
+        } else {
+            putReportChange(transition, updates, now);
+        }
+
+        Map<String, Message> selfNotifications = putSideEffects(transition, membersByRole, updates);
+        send(transition, updates, selfNotifications, context, listener);
+    }
+
+    private static void runClaim(Transition transition, Map<String, List<String>> membersByRole,
+                                 Context context, CommitListener listener) {
+        String reportId = transition.report.getReportId();
+
+        compareAndSet(transition, new CasListener() {
+            @Override
+            public void onApplied(DataSnapshot report) {
+                // The claim is what the caller waits for; the note it left
+                // covers the follow-up if this write fails
+                listener.onCommitted();
+                sendFollowUp(transition, report, membersByRole, System.currentTimeMillis(),
+                        context, FOLLOW_UP_LOG);
+            }
+
+            @Override
+            public void onConflict(DataSnapshot current) {
+                if (current == null || !current.exists()) {
+                    listener.onFailure("Report no longer exists");
+                    return;
+                }
+                Log.d(TAG, "Claim conflict on " + reportId);
+                listener.onConflict(ModelMappers.toReport(current));
+            }
+
+            @Override
+            public void onError(String message) {
+                listener.onFailure(message);
+            }
+        });
+    }
+
+    // The claim is ours; summary, history, counters, SLA timer, change feed
+    // and notifications follow it
+    private static void sendFollowUp(Transition transition, DataSnapshot report,
+                                     Map<String, List<String>> membersByRole, long now,
+                                     Context context, CommitListener listener) {
+        Map<String, Object> updates = new HashMap<>();
+        putClaimFollowUp(transition, report, updates, now);
+        Map<String, Message> selfNotifications = putSideEffects(transition, membersByRole, updates);
+        send(transition, updates, selfNotifications, context, listener);
+    }
+
+    interface CasListener {
+        // report is the report as committed
+        void onApplied(DataSnapshot report);
+
+        // current is null if the report is gone
+        void onConflict(DataSnapshot current);
+
+        void onError(String message);
+    }
+
+    /**
+     * The compare-and-set behind claim(): write the transition's status and
+     * fields in a transaction on the report, only if its status and version
+     * are still the ones the transition was built from. For create() the
+     * report is written only if it doesn't exist. Nothing else is written
+     * but the follow-up note; see putClaimFollowUp(). Also used by
+     * BulkOperations and DuplicateDetector, one report at a time.
+     */
+    static void compareAndSet(Transition transition, CasListener listener) {
+        String reportId = transition.report.getReportId();
+        long expectedVersion = transition.report.getVersion();
+
+        rootRef.child("reports").child(reportId).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                if (transition.creating) {
+                    // Nothing locally may just mean not cached; the server
+                    // rejects this and retries if the report is there
+                    if (data.getValue() != null) return Transaction.abort();
+                    long at = IdGenerator.serverNow();
+                    Map<String, Object> report = newReport(transition);
+                    report.put("lastModified", at);
+                    Map<String, Object> notes = new HashMap<>();
+                    notes.put(followUpKey(transition),
+                            followUpNote(transition, null, report.get("assignedTechnicianId"), at));
+                    report.put(FOLLOW_UPS, notes);
+                    report.put(FOLLOW_UP_AT, at);
+                    data.setValue(report);
+                    return Transaction.success(data);
+                }
+
+                // Nothing cached locally yet; the server retries with the real value
+                if (data.getValue() == null) return Transaction.success(data);
+
+                Object status = data.child("status").getValue();
+                Object version = data.child("version").getValue();
+                long currentVersion = version instanceof Number ? ((Number) version).longValue() : 0L;
+                if (ReportStatus.fromString(status instanceof String ? (String) status : null) != transition.from
+                        || currentVersion != expectedVersion) {
+                    return Transaction.abort();
+                }
+
+                long now = System.currentTimeMillis();
+                Object previousTechnicianId = data.child("assignedTechnicianId").getValue();
+                data.child("status").setValue(transition.to.getLabel());
+                for (Map.Entry<String, Object> field : transition.fields.entrySet()) {
+                    data.child(field.getKey()).setValue(field.getValue());
+                }
+                if (transition.to == ReportStatus.COMPLETED && !transition.fields.containsKey("completedTimestamp")) {
+                    data.child("completedTimestamp").setValue(now);
+                }
+                data.child("version").setValue(currentVersion + 1);
+
+                long at = IdGenerator.serverNow();
+                data.child(FOLLOW_UPS).child(followUpKey(transition)).setValue(followUpNote(transition,
+                        previousTechnicianId, data.child("assignedTechnicianId").getValue(), at));
+                if (data.child(FOLLOW_UP_AT).getValue() == null) {
+                    data.child(FOLLOW_UP_AT).setValue(at);
+                }
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) {
+                    Log.e(TAG, "❌ Claim failed for " + reportId + ": " + error.getMessage());
+                    listener.onError(error.getMessage());
+                } else if (!committed || snapshot == null || !snapshot.exists()) {
+                    listener.onConflict(snapshot);
+                } else {
+                    listener.onApplied(snapshot);
+                }
+            }
+        }, false);
+    }
+
+    /**
+     * Outcome of compareAndSetAll()
+     */
+    static class CasResults {
+        final Map<Transition, DataSnapshot> applied = new LinkedHashMap<>();
+        final List<Transition> conflicts = new ArrayList<>();
+        final List<Transition> errors = new ArrayList<>();
+        String lastError;
+    }
+
+    interface CasResultsListener {
+        void onDone(CasResults results);
+    }
+
+    /**
+     * compareAndSet() every transition at once; the listener runs when the
+     * last one has answered
+     */
+    static void compareAndSetAll(List<Transition> transitions, CasResultsListener listener) {
+        CasResults results = new CasResults();
+        if (transitions.isEmpty()) {
+            listener.onDone(results);
+            return;
+        }
+
+        int[] pending = {transitions.size()};
+        for (Transition transition : transitions) {
+            compareAndSet(transition, new CasListener() {
+                @Override
+                public void onApplied(DataSnapshot report) {
+                    results.applied.put(transition, report);
+                    answered();
+                }
+
+                @Override
+                public void onConflict(DataSnapshot current) {
+                    results.conflicts.add(transition);
+                    answered();
+                }
+
+                @Override
+                public void onError(String message) {
+                    results.errors.add(transition);
+                    results.lastError = message;
+                    answered();
+                }
+
+                private void answered() {
+                    if (--pending[0] == 0) listener.onDone(results);
+                }
+            });
+        }
+    }
+
+    /**
+     * What follows a won compareAndSet(): summary, history entry, SLA timer
+     * and change feeds, and removing the follow-up note. Counters and
+     * notifications are left to the caller (see addCounters()).
+     */
+    static void putClaimFollowUp(Transition transition, DataSnapshot report,
+                                 Map<String, Object> updates, long now) {
+        updates.put("reports/" + transition.report.getReportId() + "/" + FOLLOW_UPS + "/"
+                + followUpKey(transition), null);
+        ReportSummaries.putSummary(updates, report);
+        ReportHistory.putEntry(updates, transition.report.getReportId(), historyEntry(transition, now));
+        putTimer(transition, updates, now);
+        putModified(transition, updates);
+    }
+
+    /**
+     * The report side of an existing report's transition: status, fields,
+     * history entry, version bump and summary query keys. This is a blind
+     * write; prefer compareAndSet() wherever others may change the report.
+     */
+    static void putReportChange(Transition transition, Map<String, Object> updates, long now) {
+        String reportPath = "reports/" + transition.report.getReportId();
+
+        updates.put(reportPath + "/status", transition.to.getLabel());
+        for (Map.Entry<String, Object> field : transition.fields.entrySet()) {
+            updates.put(reportPath + "/" + field.getKey(), field.getValue());
+        }
+        if (transition.to == ReportStatus.COMPLETED && !transition.fields.containsKey("completedTimestamp")) {
+            updates.put(reportPath + "/completedTimestamp", now);
+        }
+        ReportHistory.putEntry(updates, transition.report.getReportId(), historyEntry(transition, now));
+        updates.put(reportPath + "/version", ServerValue.increment(1));
+        ReportSummaries.putKeys(updates, transition.report, transition.to.getLabel(),
+                transition.fields.containsKey("assignedTechnicianId")
+                        ? (String) transition.fields.get("assignedTechnicianId")
+                        : transition.report.getAssignedTechnicianId());
+        putTimer(transition, updates, now);
+        putModified(transition, updates);
+    }
+
+    // lastModified and the change feeds, including a newly assigned technician's
+    private static void putModified(Transition transition, Map<String, Object> updates) {
+        MaintenanceReport report = transition.report;
+        updates.put("reports/" + report.getReportId() + "/lastModified", ServerValue.TIMESTAMP);
+        DeltaSync.putChange(updates, report, (String) transition.fields.get("assignedTechnicianId"));
+    }
+
+    // A new status starts a new SLA timer; staying in one keeps it running
+    private static void putTimer(Transition transition, Map<String, Object> updates, long now) {
+        if (transition.from != transition.to) {
+            SlaTimers.putTimer(updates, transition.report.getReportId(),
+                    transition.report.getCategory(), transition.to, now);
+        }
+    }
+
+    /**
+     * Counter changes of a transition, added to a tally
+     */
+    static void addCounters(Transition transition, StatsCounters.Tally tally) {
+        MaintenanceReport report = transition.report;
+        String oldTechnicianId = report.getAssignedTechnicianId();
+        String newTechnicianId = transition.fields.containsKey("assignedTechnicianId")
+                ? (String) transition.fields.get("assignedTechnicianId") : oldTechnicianId;
+        tally.add(report.getReporterId(), oldTechnicianId, newTechnicianId,
+                transition.creating ? null : report.getStatus(), transition.to.getLabel());
+    }
+
+    // The version the claim gives the report, which names its note
+    private static String followUpKey(Transition transition) {
+        long version = transition.report.getVersion();
+        return "v" + (transition.creating ? version : version + 1);
+    }
+
+    private static Map<String, Object> followUpNote(Transition transition, Object previousTechnicianId,
+                                                    Object technicianId, long at) {
+        Map<String, Object> note = new HashMap<>();
+        if (transition.from != null) note.put("from", transition.from.getLabel());
+        note.put("to", transition.to.getLabel());
+        note.put("previousTechnicianId", previousTechnicianId);
+        note.put("technicianId", technicianId);
+        note.put("technicianName", transition.fields.get("assignedTechnicianName"));
+        note.put("actorId", transition.actorId);
+        note.put("actorName", transition.actorName);
+        note.put("notes", transition.notes);
+        note.put("at", at);
+        note.put("claimedAt", at);
+        return note;
+    }
+
+    private static Map<String, Object> newReport(Transition transition) {
+        Map<String, Object> data = ModelMappers.toMap(transition.report);
+        data.put("status", transition.to.getLabel());
+        data.putAll(transition.fields);
+        return data;
+    }
+
+    private static Map<String, Object> historyEntry(Transition transition, long now) {
+        Map<String, Object> history = new HashMap<>();
+        history.put("status", transition.to.getLabel());
+        history.put("timestamp", now);
+        history.put("changedBy", transition.actorName);
+        history.put("changedById", transition.actorId);
+        history.put("notes", transition.notes);
+        if (transition.from != null) {
+            history.put("previousStatus", transition.from.getLabel());
+        }
+        return history;
+    }
+
+    // Counters and notifications for the transition; returns the notifications
+    // addressed to the actor, keyed by notification id
+    private static Map<String, Message> putSideEffects(Transition transition,
+                                                       Map<String, List<String>> membersByRole,
+                                                       Map<String, Object> updates) {
+        MaintenanceReport report = transition.report;
+        String reportId = report.getReportId();
+
+        StatsCounters.Tally tally = new StatsCounters.Tally();
+        addCounters(transition, tally);
+        tally.putInto(updates);
+
+        NotificationUtils.Batch batch = new NotificationUtils.Batch(updates);
+        Map<String, Message> selfNotifications = new HashMap<>();
+
+        for (Message message : transition.userMessages) {
+            String notificationId = batch.add(message.recipient, message.title, message.message,
+                    message.type, reportId, transition.actorId, transition.actorName);
+            if (message.recipient.equals(transition.actorId)) {
+                selfNotifications.put(notificationId, message);
+            }
+        }
+        for (Message message : transition.roleMessages) {
+            List<String> recipients = membersByRole.get(message.recipient);
+            if (recipients == null || recipients.isEmpty()) {
+                Log.w(TAG, "No active " + message.recipient + " users to notify");
+                continue;
+            }
+            batch.addBroadcast(recipients, message.title, message.message, message.type,
+                    reportId, transition.actorId, transition.actorName);
+        }
+        batch.finish();
+        return selfNotifications;
+    }
+
+    private static void send(Transition transition, Map<String, Object> updates,
+                             Map<String, Message> selfNotifications,
+                             Context context, CommitListener listener) {
+        String reportId = transition.report.getReportId();
+
+        ReportSummaries.putMirror(updates);
+        rootRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "✅ " + reportId + ": " + transition.from + " -> " + transition.to);
+
+                    // Only this device's own user gets a local push
+                    if (context != null) {
+                        for (Map.Entry<String, Message> entry : selfNotifications.entrySet()) {
+                            Message message = entry.getValue();
+                            NotificationUtils.sendLocalPushNotification(context, message.title,
+                                    message.message, message.type, reportId,
+                                    transition.actorName, entry.getKey());
+                        }
+                    }
+                    listener.onCommitted();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "❌ Transition failed for " + reportId + ": " + e.getMessage());
+                    listener.onFailure(e.getMessage());
+                });
+    }
+
+    /**
+     * Delete a report, archived copy included, and take it out of the
+     * counters in the same write
+     */
+    public static void delete(MaintenanceReport report, CommitListener listener) {
+        if (report == null || report.getReportId() == null) {
+            listener.onFailure("No report to delete");
+            return;
+        }
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("reports/" + report.getReportId(), null);
+        SlaTimers.clearTimer(updates, report.getReportId());
+        ReportHistory.putRemoval(updates, report.getReportId());
+        ReportArchive.putRemoval(updates, report);
+        DeltaSync.putChange(updates, report, null);
+        StatsCounters.putChange(updates, report.getReporterId(),
+                report.getAssignedTechnicianId(), null, report.getStatus(), null);
+        ReportSummaries.putMirror(updates);
+
+        rootRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> listener.onCommitted())
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "❌ Delete failed for " + report.getReportId() + ": " + e.getMessage());
+                    listener.onFailure(e.getMessage());
+                });
+    }
+}
@@ -0,0 +1,258 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+import com.hawassa.unifix.models.MaintenanceReport;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sends one ReportOutbox entry: uploads the attachment, compressed with
+ * ImageCompressor.REPORT, then creates the report with a transaction on
+ * reports/{reportId} (see ReportTransitions.claim()). Its summary, history,
+ * counters and notifications follow in one update once that commits.
+ *
+ * Every step can be repeated safely. The image goes to a path derived from
+ * the report id, so a retry overwrites it instead of leaving a second copy,
+ * and UploadSessions resumes it from the last confirmed byte if the app
+ * died mid-upload. Its url is saved back to the entry so it is only
+ * uploaded once. The transaction only creates a report that doesn't exist
+ * yet, so a retry never writes it twice. A report that exists may still
+ * have its follow-up note (see ReportTransitions): then the follow-up is
+ * sent on its own through ReportTransitions.resumeClaim(), which takes
+ * the note over first, so counters and notifications are never sent twice.
+ * Failures retry with exponential backoff until the entry is sent.
+ */
+public class ReportUploadWorker extends Worker {
+    private static final String TAG = "ReportUploadWorker";
+    private static final String KEY_REPORT_ID = "reportId";
+
+    private static final long BACKOFF_SECONDS = 30;
+    private static final long TIMEOUT_SECONDS = 60;
+    // No upload progress for this long counts as a dropped connection
+    private static final long STALL_SECONDS = 60;
+
+    public ReportUploadWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * One unique job per report; enqueueing a report that is already
+     * waiting does nothing
+     */
+    static void enqueue(Context context, String reportId) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ReportUploadWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .setInputData(new Data.Builder().putString(KEY_REPORT_ID, reportId).build())
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(
+                "report_upload_" + reportId, ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        String reportId = getInputData().getString(KEY_REPORT_ID);
+        if (reportId == null) return Result.failure();
+
+        ReportOutbox.Entry entry;
+        try {
+            entry = ReportOutbox.read(context, reportId);
+        } catch (Exception e) {
+            // Retrying can't fix a file we can't parse
+            Log.e(TAG, "❌ Dropping unreadable report " + reportId + ": " + e.getMessage());
+            UploadSessions.finish(context, imagePath(reportId));
+            ReportOutbox.remove(context, reportId);
+            return Result.failure();
+        }
+        if (entry == null) return Result.success(); // already sent
+
+        try {
+            DataSnapshot existing = Tasks.await(FirebaseDatabase.getInstance()
+                    .getReference("reports").child(reportId).get(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (existing.exists()) {
+                UploadSessions.finish(context, imagePath(reportId));
+            } else if (entry.image != null && entry.report.getImageUrl() == null) {
+                entry.report.setImageUrl(uploadImage(reportId, entry));
+                ReportOutbox.update(context, entry);
+            }
+
+            String error = submit(context, entry, existing.exists());
+            if (error != null) {
+                Log.w(TAG, "Report " + reportId + " failed (attempt " +
+                        (getRunAttemptCount() + 1) + "): " + error);
+                return Result.retry();
+            }
+
+            ReportOutbox.remove(context, reportId);
+            Log.d(TAG, "✅ Sent report " + reportId);
+            return Result.success();
+        } catch (Exception e) {
+            Log.w(TAG, "Report " + reportId + " failed (attempt " +
+                    (getRunAttemptCount() + 1) + "): " + e.getMessage());
+            return Result.retry();
+        }
+    }
+
+    private static String imagePath(String reportId) {
+        return "report_images/report_" + reportId + ImageCompressor.REPORT.extension();
+    }
+
+    private String uploadImage(String reportId, ReportOutbox.Entry entry) throws Exception {
+        Context context = getApplicationContext();
+        ImageCompressor.Options options = ImageCompressor.REPORT;
+        String path = imagePath(reportId);
+
+        // Compressed once and kept until it lands, so a resumed session
+        // always continues with the same bytes
+        File compressed = UploadSessions.file(context, path);
+        if (!compressed.exists()) {
+            File temp = new File(compressed.getPath() + ".tmp");
+            ImageCompressor.compress(context, Uri.fromFile(entry.image), options, temp);
+            if (!temp.renameTo(compressed)) {
+                temp.delete();
+                throw new IOException("Failed to keep compressed image for " + reportId);
+            }
+            UploadSessions.clearSession(context, path);
+        }
+
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(options.mimeType())
+                .build();
+        UploadTask upload = UploadSessions.start(context, path, compressed, metadata);
+        awaitUpload(upload, reportId);
+        UploadSessions.finish(context, path);
+
+        StorageReference imageRef = FirebaseStorage.getInstance().getReference().child(path);
+        Uri downloadUri = Tasks.await(imageRef.getDownloadUrl(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Log.d(TAG, "Image uploaded: " + downloadUri);
+        return downloadUri.toString();
+    }
+
+    // A large photo on a weak connection may take minutes, so only give up
+    // once no bytes have moved for STALL_SECONDS. Pausing keeps the session
+    // open for the retry to resume.
+    private static void awaitUpload(UploadTask upload, String reportId) throws Exception {
+        long started = System.currentTimeMillis();
+        AtomicLong lastProgress = new AtomicLong(started);
+        AtomicLong lastBytes = new AtomicLong(-1);
+        upload.addOnProgressListener(snapshot -> {
+            if (snapshot.getBytesTransferred() != lastBytes.getAndSet(snapshot.getBytesTransferred())) {
+                lastProgress.set(System.currentTimeMillis());
+            }
+        });
+
+        while (true) {
+            try {
+                UploadTask.TaskSnapshot done = Tasks.await(upload, STALL_SECONDS, TimeUnit.SECONDS);
+                long seconds = Math.max(1, (System.currentTimeMillis() - started) / 1000);
+                Log.d(TAG, "Image for " + reportId + ": " + done.getTotalByteCount() / 1024 +
+                        " KB, this attempt took " + seconds + "s");
+                return;
+            } catch (TimeoutException e) {
+                if (System.currentTimeMillis() - lastProgress.get() >= TimeUnit.SECONDS.toMillis(STALL_SECONDS)) {
+                    upload.pause();
+                    throw new TimeoutException("Image upload stalled at " + Math.max(0, lastBytes.get()) + " bytes");
+                }
+            }
+        }
+    }
+
+    // Create the report, then its history, counters and notifications; or
+    // only those, if still pending, when an earlier attempt created it.
+    // Returns null on success, otherwise the error.
+    private String submit(Context context, ReportOutbox.Entry entry, boolean created)
+            throws InterruptedException {
+        MaintenanceReport report = entry.report;
+        String reporterName = entry.reporterName != null ? entry.reporterName : "A Student";
+
+        ReportTransitions.Transition transition =
+                ReportTransitions.create(report, report.getReporterId(), reporterName);
+        addSubmissionNotifications(transition, report, reporterName);
+
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<String> error = new AtomicReference<>("Timed out");
+        ReportTransitions.CommitListener listener = new ReportTransitions.CommitListener() {
+            @Override
+            public void onCommitted() {
+                error.set(null);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(String message) {
+                error.set(message);
+                done.countDown();
+            }
+
+            @Override
+            public void onConflict(MaintenanceReport current) {
+                // Created meanwhile; the retry finds it and sends the rest if needed
+                onFailure("Report already exists");
+            }
+        };
+        if (created) {
+            ReportTransitions.resumeClaim(transition, context, listener);
+        } else {
+            ReportTransitions.claim(transition, context, listener);
+        }
+
+        done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return error.get();
+    }
+
+    private static void addSubmissionNotifications(ReportTransitions.Transition transition,
+                                                   MaintenanceReport report, String reporterName) {
+        boolean located = report.getReportLatitude() != null && report.getReportLongitude() != null;
+
+        String title = "📋 New " + report.getCategory() + " Report";
+        String message = reporterName + " reported an issue in " +
+                report.getBuildingBlock() + ", Room " + report.getRoomNumber();
+
+        // Add location info to notification if available
+        if (located) {
+            message += "\n📍 Location coordinates available for navigation";
+        }
+        // Send to all admin users
+        transition.notifyRole("admin", title, message, NotificationUtils.Types.NEW_REPORT);
+
+        // Also send confirmation to student
+        transition.notifyUser(
+                report.getReporterId(),
+                "✅ Report Submitted",
+                "Your " + report.getCategory() + " report has been submitted successfully." +
+                        (located ? "\n📍 Your location was captured for technician navigation." : ""),
+                NotificationUtils.Types.REPORT_CONFIRMATION);
+    }
+}
@@ -0,0 +1,187 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import com.hawassa.unifix.models.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact role membership index: roles/{role}/{uid} -> {name, userId, status}.
+ * Role lookups (notification fan-out, technician pickers) read this small
+ * node instead of querying "users" and decoding full User objects.
+ *
+ * Writers keep it in step by adding the index paths to the same multi-path
+ * update that changes the user.
+ */
+public class RoleIndex {
+    private static final String TAG = "RoleIndex";
+
+    private static final String MIGRATION = "roleIndex";
+
+    private static final DatabaseReference rolesRef =
+            FirebaseDatabase.getInstance().getReference("roles");
+
+    public static class Member {
+        public final String uid;
+        public final String name;
+        public final String userId;
+        public final String status;
+
+        Member(String uid, String name, String userId, String status) {
+            this.uid = uid;
+            this.name = name;
+            this.userId = userId;
+            this.status = status;
+        }
+
+        public boolean isActive() {
+            return "active".equalsIgnoreCase(status);
+        }
+
+        static Member fromSnapshot(DataSnapshot snapshot) {
+            return new Member(snapshot.getKey(),
+                    snapshot.child("name").getValue(String.class),
+                    snapshot.child("userId").getValue(String.class),
+                    snapshot.child("status").getValue(String.class));
+        }
+    }
+
+    public interface MembersListener {
+        void onMembers(List<Member> members);
+
+        default void onError(String message) {}
+    }
+
+    /**
+     * Every role, roles/{role}/{uid}
+     */
+    public static DatabaseReference getRolesRef() {
+        return rolesRef;
+    }
+
+    public static DatabaseReference getRoleRef(String role) {
+        return rolesRef.child(role);
+    }
+
+    /**
+     * Index entry for a user
+     */
+    public static Map<String, Object> entryFor(User user) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("name", user.getName());
+        entry.put("userId", user.getUserId());
+        entry.put("status", user.getStatus());
+        return entry;
+    }
+
+    /**
+     * Add users/{uid} and its index entry to a root-level multi-path update
+     */
+    public static void putUser(Map<String, Object> updates, String firebaseUid, User user) {
+        updates.put("users/" + firebaseUid, ModelMappers.toMap(user));
+        if (user.getRole() != null) {
+            updates.put("roles/" + user.getRole() + "/" + firebaseUid, entryFor(user));
+        }
+    }
+
+    /**
+     * Add a status change for users/{uid} and its index entry to a root-level update
+     */
+    public static void putStatus(Map<String, Object> updates, String firebaseUid,
+                                 String role, String status) {
+        updates.put("users/" + firebaseUid + "/status", status);
+        if (role != null) {
+            updates.put("roles/" + role + "/" + firebaseUid + "/status", status);
+        }
+    }
+
+    /**
+     * Add a name change for users/{uid} and its index entry to a root-level update
+     */
+    public static void putName(Map<String, Object> updates, String firebaseUid,
+                               String role, String name) {
+        updates.put("users/" + firebaseUid + "/name", name);
+        if (role != null) {
+            updates.put("roles/" + role + "/" + firebaseUid + "/name", name);
+        }
+    }
+
+    /**
+     * One-off read of a role's members
+     */
+    public static void getMembers(String role, MembersListener listener) {
+        getRoleRef(role).addListenerForSingleValueEvent(membersListener(role, listener));
+    }
+
+    /**
+     * Live members of a role. Remove the returned listener from getRoleRef(role).
+     */
+    public static ValueEventListener listen(String role, MembersListener listener) {
+        return getRoleRef(role).addValueEventListener(membersListener(role, listener));
+    }
+
+    private static ValueEventListener membersListener(String role, MembersListener listener) {
+        return new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                List<Member> members = new ArrayList<>();
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    members.add(Member.fromSnapshot(child));
+                }
+                listener.onMembers(members);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Failed to read role " + role + ": " + error.getMessage());
+                listener.onError(error.getMessage());
+            }
+        };
+    }
+
+    /**
+     * One-off index of the accounts created before the index existed.
+     * The admin dashboard calls it on start, since notification fan-out
+     * and the technician pickers find nobody until it has run. It reads
+     * every user, so student and technician devices leave it alone;
+     * Migrations makes sure only one device does the work.
+     *
+     * Each user gets its own path in one multi-path update, so accounts
+     * registered while "users" was being read keep their entries.
+     */
+    public static void backfill() {
+        Migrations.runOnce(MIGRATION, done ->
+                FirebaseDatabase.getInstance().getReference("users").get()
+                        .addOnSuccessListener(usersSnapshot -> {
+                            Map<String, Object> updates = new HashMap<>();
+                            for (DataSnapshot ds : usersSnapshot.getChildren()) {
+                                User user = ModelMappers.toUser(ds);
+                                if (user == null || user.getRole() == null || ds.getKey() == null) continue;
+                                updates.put("roles/" + user.getRole() + "/" + ds.getKey(), entryFor(user));
+                            }
+                            if (updates.isEmpty()) {
+                                done.finished();
+                                return;
+                            }
+
+                            FirebaseDatabase.getInstance().getReference().updateChildren(updates)
+                                    .addOnSuccessListener(aVoid -> {
+                                        Log.d(TAG, "✅ Indexed " + updates.size() + " users");
+                                        done.finished();
+                                    })
+                                    .addOnFailureListener(e -> done.failed(e.getMessage()));
+                        })
+                        .addOnFailureListener(e -> done.failed(e.getMessage())));
+    }
+}
@@ -0,0 +1,171 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Periodic job that escalates reports past their SLA deadline to admins.
+ *
+ * Each run reads only the breached timers (see SlaTimers.breached), up to
+ * BATCH_SIZE of them. A timer is taken with a transaction that pushes its
+ * deadline back, so when several admin devices run the job at once each
+ * breach is escalated by exactly one of them.
+ */
+public class SlaEscalationWorker extends Worker {
+    private static final String TAG = "SlaEscalationWorker";
+    private static final String WORK_NAME = "sla_escalation";
+
+    private static final int BATCH_SIZE = 50;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    // Past this many breaches in one run admins get a single summary
+    private static final int MAX_SEPARATE_ALERTS = 3;
+
+    public SlaEscalationWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Run every 15 minutes (WorkManager's minimum) while online
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                SlaEscalationWorker.class, 15, TimeUnit.MINUTES)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        long now = System.currentTimeMillis();
+        try {
+            DataSnapshot breached = Tasks.await(SlaTimers.breached(now, BATCH_SIZE).get(),
+                    TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (!breached.hasChildren()) return Result.success();
+
+            List<DataSnapshot> taken = new ArrayList<>();
+            for (DataSnapshot timer : breached.getChildren()) {
+                if (take(timer.getKey(), now)) {
+                    taken.add(timer);
+                }
+            }
+            if (taken.isEmpty()) return Result.success();
+
+            List<String> admins = activeAdmins();
+            if (admins.isEmpty()) {
+                Log.w(TAG, "No active admins to escalate " + taken.size() + " breaches to");
+                return Result.success();
+            }
+
+            Tasks.await(FirebaseDatabase.getInstance().getReference()
+                    .updateChildren(alerts(taken, admins, now)), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Log.d(TAG, "Escalated " + taken.size() + " SLA breaches");
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "SLA check failed: " + e.getMessage());
+            return Result.retry();
+        }
+    }
+
+    // Push the deadline back if it is still breached; false if another device got it
+    private boolean take(String reportId, long now) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicBoolean committed = new AtomicBoolean(false);
+
+        SlaTimers.getDeadlinesRef().child(reportId).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                // Nothing cached locally yet; the server retries with the real value
+                if (data.getValue() == null) return Transaction.success(data);
+
+                Object deadline = data.child("deadline").getValue();
+                if (!(deadline instanceof Number) || ((Number) deadline).longValue() > now) {
+                    return Transaction.abort(); // cleared or already pushed back
+                }
+                Object escalations = data.child("escalations").getValue();
+                long count = escalations instanceof Number ? ((Number) escalations).longValue() : 0;
+                data.child("deadline").setValue(now + SlaTimers.RE_ESCALATE_MS);
+                data.child("escalations").setValue(count + 1);
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean wasCommitted, DataSnapshot snapshot) {
+                // Committing null means the timer was already gone
+                committed.set(error == null && wasCommitted && snapshot != null && snapshot.exists());
+                done.countDown();
+            }
+        }, false);
+
+        done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return committed.get();
+    }
+
+    private List<String> activeAdmins() throws Exception {
+        DataSnapshot snapshot = Tasks.await(RoleIndex.getRoleRef("admin").get(),
+                TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        List<String> admins = new ArrayList<>();
+        for (DataSnapshot child : snapshot.getChildren()) {
+            RoleIndex.Member member = RoleIndex.Member.fromSnapshot(child);
+            if (member.isActive()) admins.add(member.uid);
+        }
+        return admins;
+    }
+
+    private Map<String, Object> alerts(List<DataSnapshot> taken, List<String> admins, long now) {
+        Map<String, Object> updates = new HashMap<>();
+        NotificationUtils.Batch batch = new NotificationUtils.Batch(updates);
+
+        if (taken.size() > MAX_SEPARATE_ALERTS) {
+            batch.addBroadcast(admins, "⏰ SLA Breaches",
+                    taken.size() + " reports are past their deadline and need attention",
+                    NotificationUtils.Types.ADMIN_ALERT, null, "system", "UniFix");
+        } else {
+            for (DataSnapshot timer : taken) {
+                String status = timer.child("status").getValue(String.class);
+                String category = timer.child("category").getValue(String.class);
+                Long deadline = timer.child("deadline").getValue(Long.class);
+                long hoursLate = deadline != null ? (now - deadline) / (60 * 60 * 1000L) : 0;
+
+                batch.addBroadcast(admins, "⏰ SLA Breach",
+                        "A " + (category != null ? category : "maintenance") + " report has been " +
+                                status + " past its deadline" +
+                                (hoursLate > 0 ? " (" + hoursLate + "h late)" : ""),
+                        NotificationUtils.Types.ADMIN_ALERT, timer.getKey(), "system", "UniFix");
+            }
+        }
+        batch.finish();
+        return updates;
+    }
+}
@@ -0,0 +1,157 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-report SLA deadlines.
+ *
+ * Every open report has one timer at slaDeadlines/{reportId}:
+ *   {deadline, status, category, escalations}
+ * Transitions replace it in the same multi-path write that changes the
+ * status, and final statuses remove it.
+ *
+ * The node is ordered by deadline, so it works as a deadline heap kept by
+ * the database: breached() only returns timers whose deadline has passed,
+ * however many reports are open. SlaEscalationWorker polls it.
+ */
+public class SlaTimers {
+    private static final String TAG = "SlaTimers";
+    private static final String MIGRATION = "slaDeadlines";
+
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+
+    // After an escalation the timer is pushed back by this much, so a report
+    // that stays stuck is escalated again once a day rather than every tick
+    static final long RE_ESCALATE_MS = 24 * HOUR_MS;
+
+    private static final DatabaseReference deadlinesRef =
+            FirebaseDatabase.getInstance().getReference("slaDeadlines");
+
+    public static DatabaseReference getDeadlinesRef() {
+        return deadlinesRef;
+    }
+
+    /**
+     * How long a report may stay in a status, or -1 if it has no deadline.
+     * Electrical and plumbing faults get the tightest limits.
+     */
+    public static long budgetFor(ReportStatus status, String category) {
+        if (status == null || status.isFinal()) return -1;
+
+        boolean urgent = isUrgent(category);
+        switch (status) {
+            case SUBMITTED:
+                return (urgent ? 4 : 24) * HOUR_MS;    // time to assign
+            case ASSIGNED:
+            case ACKNOWLEDGED:
+                return (urgent ? 12 : 48) * HOUR_MS;   // time to start
+            case IN_PROGRESS:
+                return (urgent ? 48 : 120) * HOUR_MS;  // time to finish
+            case ON_HOLD:
+                return 72 * HOUR_MS;
+            default:
+                return -1;
+        }
+    }
+
+    private static boolean isUrgent(String category) {
+        if (category == null) return false;
+        String normalized = category.trim().toLowerCase(Locale.ROOT);
+        return normalized.equals("electrical") || normalized.equals("plumbing");
+    }
+
+    /**
+     * Start (or clear) the timer for a report entering status at since
+     */
+    public static void putTimer(Map<String, Object> updates, String reportId, String category,
+                                ReportStatus status, long since) {
+        long budget = budgetFor(status, category);
+        if (budget < 0) {
+            updates.put("slaDeadlines/" + reportId, null);
+            return;
+        }
+
+        Map<String, Object> timer = new HashMap<>();
+        timer.put("deadline", since + budget);
+        timer.put("status", status.getLabel());
+        timer.put("category", category);
+        timer.put("escalations", 0);
+        updates.put("slaDeadlines/" + reportId, timer);
+    }
+
+    public static void clearTimer(Map<String, Object> updates, String reportId) {
+        updates.put("slaDeadlines/" + reportId, null);
+    }
+
+    /**
+     * Timers past their deadline, earliest first
+     */
+    public static Query breached(long now, int limit) {
+        return deadlinesRef.orderByChild("deadline").endAt(now).limitToFirst(limit);
+    }
+
+    /**
+     * One-off timers for the reports that were already open before
+     * slaDeadlines existed, so they are escalated too. Run from the admin
+     * dashboard; Migrations makes sure only one device ever does the work.
+     *
+     * Only reports without a timer get one, so timers written by
+     * transitions are never replaced. The clock starts at the report's last
+     * write (its submission time while still Submitted), the closest thing
+     * to when it entered its status.
+     */
+    public static void backfill() {
+        Migrations.runOnce(MIGRATION, SlaTimers::seed);
+    }
+
+    private static void seed(Migrations.Done done) {
+        Task<DataSnapshot> timers = deadlinesRef.get();
+        Task<DataSnapshot> reports = FirebaseManager.getInstance().getReportsRef().get();
+        Tasks.whenAll(Arrays.asList(timers, reports)).addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                done.failed(String.valueOf(task.getException()));
+                return;
+            }
+
+            Map<String, Object> updates = new HashMap<>();
+            for (DataSnapshot ds : reports.getResult().getChildren()) {
+                if (timers.getResult().hasChild(ds.getKey())) continue;
+                MaintenanceReport report = ModelMappers.toReport(ds);
+                if (report == null) continue;
+
+                ReportStatus status = ReportStatus.fromString(report.getStatus());
+                if (budgetFor(status, report.getCategory()) < 0) continue;
+
+                long since = status != ReportStatus.SUBMITTED && report.getLastModified() > 0
+                        ? report.getLastModified() : report.getTimestamp();
+                putTimer(updates, ds.getKey(), report.getCategory(), status, since);
+            }
+            if (updates.isEmpty()) {
+                done.finished();
+                return;
+            }
+
+            int started = updates.size();
+            FirebaseDatabase.getInstance().getReference().updateChildren(updates)
+                    .addOnSuccessListener(aVoid -> {
+                        Log.d(TAG, "✅ Started " + started + " SLA timers for open reports");
+                        done.finished();
+                    })
+                    .addOnFailureListener(e -> done.failed(e.getMessage()));
+        });
+    }
+}
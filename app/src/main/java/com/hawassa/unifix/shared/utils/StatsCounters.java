@@ -0,0 +1,384 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.ValueEventListener;
+import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Aggregate report counters so dashboards can read a handful of integers
+ * instead of downloading every report.
+ *
+ * Layout:
+ *   stats/global/shards/{n}/{bucket}
+ *   stats/byReporter/{uid}/shards/{n}/{bucket}
+ *   stats/byTechnician/{uid}/shards/{n}/{bucket}
+ *   stats/{scope}/base/{bucket}     reports from before the counters
+ *
+ * A bucket is "total" or a status key ("submitted", "in_progress", ...).
+ * Writers add a server-side increment on a random shard, readers sum all
+ * shards plus the one-off base from backfill(). putChange() lets a report write carry its counter updates in the
+ * same multi-path update.
+ */
+public class StatsCounters {
+    private static final String TAG = "StatsCounters";
+
+    public static final String TOTAL = "total";
+
+    // Every report write touches the global counters, so spread those the most
+    private static final int GLOBAL_SHARDS = 8;
+    private static final int USER_SHARDS = 2;
+
+    private static final String MIGRATION = "stats";
+
+    private static final DatabaseReference statsRef =
+            FirebaseDatabase.getInstance().getReference("stats");
+
+    public static DatabaseReference globalRef() {
+        return statsRef.child("global");
+    }
+
+    public static DatabaseReference reporterRef(String reporterId) {
+        return statsRef.child("byReporter").child(reporterId);
+    }
+
+    public static DatabaseReference technicianRef(String technicianId) {
+        return statsRef.child("byTechnician").child(technicianId);
+    }
+
+    /**
+     * Bucket key for a status, e.g. "In Progress" -> "in_progress"
+     */
+    public static String bucketFor(String status) {
+        ReportStatus known = ReportStatus.fromString(status);
+        if (known != null) return known.getKey();
+        if (status == null || status.trim().isEmpty()) return "unknown";
+        return status.trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+    }
+
+    /**
+     * Record a report change. A null oldStatus means the report was created,
+     * a null newStatus means it was deleted.
+     */
+    public static void recordChange(String reporterId,
+                                    String oldTechnicianId, String newTechnicianId,
+                                    String oldStatus, String newStatus) {
+        Map<String, Object> updates = new HashMap<>();
+        putChange(updates, reporterId, oldTechnicianId, newTechnicianId, oldStatus, newStatus);
+        if (updates.isEmpty()) return;
+
+        FirebaseDatabase.getInstance().getReference().updateChildren(updates)
+                .addOnFailureListener(e -> Log.e(TAG, "Counter update failed: " + e.getMessage()));
+    }
+
+    /**
+     * Add the counter increments for a report change to a root-level
+     * multi-path update, so they commit together with the report write.
+     */
+    public static void putChange(Map<String, Object> updates, String reporterId,
+                                 String oldTechnicianId, String newTechnicianId,
+                                 String oldStatus, String newStatus) {
+        Tally tally = new Tally();
+        tally.add(reporterId, oldTechnicianId, newTechnicianId, oldStatus, newStatus);
+        tally.putInto(updates);
+    }
+
+    /**
+     * Sums the counter changes of several reports. A multi-path update can
+     * only hold one increment per path, so bulk writes add every report here
+     * and put the totals into the update once.
+     */
+    public static class Tally {
+        // scope path -> bucket -> delta
+        private final Map<String, Map<String, Long>> scopes = new LinkedHashMap<>();
+
+        public void add(String reporterId, String oldTechnicianId, String newTechnicianId,
+                        String oldStatus, String newStatus) {
+            Map<String, Long> deltas = deltas(oldStatus, newStatus);
+
+            addScope("stats/global", deltas);
+
+            if (reporterId != null && !reporterId.isEmpty()) {
+                addScope("stats/byReporter/" + reporterId, deltas);
+            }
+
+            boolean sameTechnician = oldTechnicianId != null && oldTechnicianId.equals(newTechnicianId);
+            if (sameTechnician) {
+                addScope("stats/byTechnician/" + oldTechnicianId, deltas);
+            } else {
+                // Reassignment: the task leaves one technician and joins another
+                if (oldTechnicianId != null && !oldTechnicianId.isEmpty() && oldStatus != null) {
+                    addScope("stats/byTechnician/" + oldTechnicianId, deltas(oldStatus, null));
+                }
+                if (newTechnicianId != null && !newTechnicianId.isEmpty() && newStatus != null) {
+                    addScope("stats/byTechnician/" + newTechnicianId, deltas(null, newStatus));
+                }
+            }
+        }
+
+        private void addScope(String scopePath, Map<String, Long> deltas) {
+            if (deltas.isEmpty()) return;
+
+            Map<String, Long> buckets = scopes.get(scopePath);
+            if (buckets == null) {
+                buckets = new HashMap<>();
+                scopes.put(scopePath, buckets);
+            }
+            for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+                Long current = buckets.get(entry.getKey());
+                buckets.put(entry.getKey(), (current != null ? current : 0L) + entry.getValue());
+            }
+        }
+
+        public void putInto(Map<String, Object> updates) {
+            for (Map.Entry<String, Map<String, Long>> scope : scopes.entrySet()) {
+                Map<String, Long> buckets = scope.getValue();
+                buckets.values().removeAll(Collections.singleton(0L));
+                int shards = scope.getKey().equals("stats/global") ? GLOBAL_SHARDS : USER_SHARDS;
+                increment(updates, scope.getKey(), shards, buckets);
+            }
+        }
+    }
+
+    private static Map<String, Long> deltas(String oldStatus, String newStatus) {
+        Map<String, Long> deltas = new HashMap<>();
+        long total = 0;
+        if (oldStatus != null) {
+            deltas.put(bucketFor(oldStatus), -1L);
+            total--;
+        }
+        if (newStatus != null) {
+            String bucket = bucketFor(newStatus);
+            Long current = deltas.get(bucket);
+            deltas.put(bucket, (current != null ? current : 0L) + 1);
+            total++;
+        }
+        if (total != 0) {
+            deltas.put(TOTAL, total);
+        }
+        deltas.values().remove(0L);
+        return deltas;
+    }
+
+    // Server-side increments on one random shard of the scope
+    private static void increment(Map<String, Object> updates, String scopePath,
+                                  int shardCount, Map<String, Long> deltas) {
+        if (deltas.isEmpty()) return;
+
+        int shard = ThreadLocalRandom.current().nextInt(shardCount);
+        String shardPath = scopePath + "/shards/" + shard + "/";
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            updates.put(shardPath + entry.getKey(), ServerValue.increment(entry.getValue()));
+        }
+    }
+
+    /**
+     * Summed counters for one scope
+     */
+    public static class Counts {
+        private final Map<String, Long> buckets = new HashMap<>();
+
+        public long get(String status) {
+            Long value = buckets.get(bucketFor(status));
+            return value != null ? Math.max(0, value) : 0;
+        }
+
+        public long get(ReportStatus status) {
+            Long value = buckets.get(status.getKey());
+            return value != null ? Math.max(0, value) : 0;
+        }
+
+        /**
+         * Assigned and being worked on (see ReportStatus.isActive)
+         */
+        public long getActive() {
+            long active = 0;
+            for (ReportStatus status : ReportStatus.values()) {
+                if (status.isActive()) active += get(status);
+            }
+            return active;
+        }
+
+        public long getTotal() {
+            Long value = buckets.get(TOTAL);
+            return value != null ? Math.max(0, value) : 0;
+        }
+
+        // Unclamped, for the backfill
+        long raw(String bucket) {
+            Long value = buckets.get(bucket);
+            return value != null ? value : 0;
+        }
+
+        static Counts fromSnapshot(DataSnapshot scopeSnapshot) {
+            Counts counts = fromShards(scopeSnapshot);
+            counts.addBuckets(scopeSnapshot.child("base"));
+            return counts;
+        }
+
+        // Increments only, without the backfilled base
+        static Counts fromShards(DataSnapshot scopeSnapshot) {
+            Counts counts = new Counts();
+            for (DataSnapshot shard : scopeSnapshot.child("shards").getChildren()) {
+                counts.addBuckets(shard);
+            }
+            return counts;
+        }
+
+        private void addBuckets(DataSnapshot parent) {
+            for (DataSnapshot bucket : parent.getChildren()) {
+                Long value = bucket.getValue(Long.class);
+                if (value == null || bucket.getKey() == null) continue;
+                Long current = buckets.get(bucket.getKey());
+                buckets.put(bucket.getKey(), (current != null ? current : 0L) + value);
+            }
+        }
+    }
+
+    public interface CountsListener {
+        // seeded is false until backfill() has counted the existing reports
+        void onCounts(Counts counts, boolean seeded);
+
+        default void onError(String message) {}
+    }
+
+    /**
+     * Listen to a scope (globalRef(), reporterRef(uid), technicianRef(uid)).
+     * Returns the Firebase listener so the caller can remove it from the same ref.
+     */
+    public static ValueEventListener listen(DatabaseReference scopeRef, CountsListener listener) {
+        return scopeRef.addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                listener.onCounts(Counts.fromSnapshot(snapshot), snapshot.hasChild("seeded"));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Failed to read counters: " + error.getMessage());
+                listener.onError(error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * One-off count of the reports that existed before the counters did,
+     * archived ones included. Only the admin dashboard runs it, since it
+     * downloads every report; Migrations makes sure only one device ever
+     * does the work. Until then counters report seeded = false.
+     *
+     * The counts go into stats/{scope}/base, which increments never touch,
+     * so nothing is wiped and writes made meanwhile keep counting. base is
+     * what the reports add up to minus what the shards already held, read
+     * just before the reports; a report written between those two reads is
+     * counted twice, which is the best a client can do without a lock.
+     */
+    public static void backfill() {
+        Migrations.runOnce(MIGRATION, StatsCounters::seed);
+    }
+
+    private static void seed(Migrations.Done done) {
+        statsRef.get().addOnSuccessListener(stats -> {
+            Task<DataSnapshot> reports = FirebaseManager.getInstance().getReportsRef().get();
+            Task<DataSnapshot> archive = FirebaseDatabase.getInstance()
+                    .getReference(ReportArchive.NODE).get();
+            Tasks.whenAll(Arrays.asList(reports, archive)).addOnCompleteListener(task -> {
+                if (!task.isSuccessful()) {
+                    done.failed(String.valueOf(task.getException()));
+                    return;
+                }
+
+                Map<String, Map<String, Long>> scopes = new HashMap<>();
+                long counted = countInto(scopes, reports.getResult().getChildren());
+                for (DataSnapshot year : archive.getResult().getChildren()) {
+                    for (DataSnapshot month : year.getChildren()) {
+                        counted += countInto(scopes, month.getChildren());
+                    }
+                }
+
+                // Scopes with increments but no reports left still need a base
+                Set<String> scopePaths = new HashSet<>(scopes.keySet());
+                scopePaths.add("global");
+                for (String group : new String[]{"byReporter", "byTechnician"}) {
+                    for (DataSnapshot scope : stats.child(group).getChildren()) {
+                        scopePaths.add(group + "/" + scope.getKey());
+                    }
+                }
+
+                Map<String, Object> updates = new HashMap<>();
+                for (String scopePath : scopePaths) {
+                    Counts already = Counts.fromShards(stats.child(scopePath));
+                    Map<String, Long> actual = scopes.containsKey(scopePath)
+                            ? scopes.get(scopePath) : Collections.emptyMap();
+                    Set<String> buckets = new HashSet<>(actual.keySet());
+                    buckets.addAll(already.buckets.keySet());
+                    for (String bucket : buckets) {
+                        Long count = actual.get(bucket);
+                        updates.put("stats/" + scopePath + "/base/" + bucket,
+                                (count != null ? count : 0L) - already.raw(bucket));
+                    }
+                }
+                updates.put("stats/global/seeded", true);
+
+                long total = counted;
+                FirebaseDatabase.getInstance().getReference().updateChildren(updates)
+                        .addOnSuccessListener(aVoid -> {
+                            Log.d(TAG, "✅ Counters seeded from " + total + " reports");
+                            done.finished();
+                        })
+                        .addOnFailureListener(e -> done.failed(e.getMessage()));
+            });
+        }).addOnFailureListener(e -> done.failed(e.getMessage()));
+    }
+
+    private static long countInto(Map<String, Map<String, Long>> scopes, Iterable<DataSnapshot> reports) {
+        long counted = 0;
+        for (DataSnapshot ds : reports) {
+            MaintenanceReport report = ModelMappers.toReport(ds);
+            if (report == null) continue;
+
+            Map<String, Long> deltas = deltas(null, report.getStatus());
+            addAll(scopes, "global", deltas);
+            if (report.getReporterId() != null) {
+                addAll(scopes, "byReporter/" + report.getReporterId(), deltas);
+            }
+            if (report.getAssignedTechnicianId() != null) {
+                addAll(scopes, "byTechnician/" + report.getAssignedTechnicianId(), deltas);
+            }
+            counted++;
+        }
+        return counted;
+    }
+
+    private static void addAll(Map<String, Map<String, Long>> scopes, String scope, Map<String, Long> deltas) {
+        Map<String, Long> buckets = scopes.get(scope);
+        if (buckets == null) {
+            buckets = new HashMap<>();
+            scopes.put(scope, buckets);
+        }
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            Long current = buckets.get(entry.getKey());
+            buckets.put(entry.getKey(), (current != null ? current : 0L) + entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.hawassa.unifix.shared.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonicalises strings that repeat across many decoded objects (statuses,
+ * categories, building blocks, technician names) so thousands of reports
+ * share one instance of each value instead of one copy per report.
+ *
+ * Bounded: once full, new values are returned as-is rather than cached.
+ */
+public class StringInterner {
+    private static final int MAX_ENTRIES = 4096;
+
+    private final ConcurrentHashMap<String, String> pool = new ConcurrentHashMap<>();
+
+    public String intern(String value) {
+        if (value == null) return null;
+
+        String existing = pool.get(value);
+        if (existing != null) return existing;
+
+        if (pool.size() >= MAX_ENTRIES) return value;
+
+        existing = pool.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    public int size() {
+        return pool.size();
+    }
+}
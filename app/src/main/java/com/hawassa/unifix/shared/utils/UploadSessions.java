@@ -0,0 +1,124 @@
+package com.hawassa.unifix.shared.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.util.Log;
+
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps Storage uploads resumable across process death.
+ *
+ * Every upload sends a file kept under filesDir/uploads, never a cache or
+ * content Uri, so the same bytes are still there after a restart. As soon
+ * as Storage hands out the upload session, its Uri is saved against the
+ * storage path; starting the same path again resumes the session from the
+ * last byte the server confirmed instead of sending the whole file again.
+ * Storage sends a session in chunks it sizes itself, growing them while
+ * the connection keeps up and shrinking them after a failed chunk.
+ *
+ * finish() forgets an upload once it has landed.
+ */
+public class UploadSessions {
+    private static final String TAG = "UploadSessions";
+    private static final String PREFS = "upload_sessions";
+    private static final String DIR = "uploads";
+
+    /**
+     * Where the bytes for a storage path are kept until it is uploaded
+     */
+    public static File file(Context context, String path) {
+        File dir = new File(context.getFilesDir(), DIR);
+        if (!dir.exists()) dir.mkdirs();
+        return new File(dir, path.replace('/', '_'));
+    }
+
+    /**
+     * Upload file to the storage path, resuming an earlier session for the
+     * same path if one was saved
+     */
+    public static UploadTask start(Context context, String path, File file, StorageMetadata metadata) {
+        StorageReference ref = FirebaseStorage.getInstance().getReference().child(path);
+        SharedPreferences prefs = prefs(context);
+        String saved = prefs.getString(path, "");
+        boolean resuming = !saved.isEmpty();
+        if (!prefs.contains(path)) prefs.edit().putString(path, "").apply();
+
+        UploadTask task = resuming
+                ? ref.putFile(Uri.fromFile(file), metadata, Uri.parse(saved))
+                : ref.putFile(Uri.fromFile(file), metadata);
+        if (resuming) Log.d(TAG, "Resuming upload of " + path);
+
+        AtomicBoolean progressed = new AtomicBoolean(false);
+        task.addOnProgressListener(snapshot -> {
+            progressed.set(true);
+            Uri session = snapshot.getUploadSessionUri();
+            if (session != null && !session.toString().equals(prefs.getString(path, ""))) {
+                prefs.edit().putString(path, session.toString()).apply();
+            }
+        });
+        task.addOnFailureListener(e -> {
+            // A resume that fails before any progress most likely hit an
+            // expired session (they last about a week), so start over next time
+            if ((resuming && !progressed.get()) || !isRecoverable(e)) {
+                clearSession(context, path);
+            }
+        });
+        return task;
+    }
+
+    /**
+     * Storage paths under prefix that still have bytes waiting to go up
+     */
+    public static List<String> pending(Context context, String prefix) {
+        List<String> paths = new ArrayList<>();
+        for (String path : prefs(context).getAll().keySet()) {
+            if (!path.startsWith(prefix)) continue;
+            if (file(context, path).exists()) {
+                paths.add(path);
+            } else {
+                prefs(context).edit().remove(path).apply();
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Forget an upload and delete its file, after it landed or when it is
+     * no longer wanted
+     */
+    public static void finish(Context context, String path) {
+        prefs(context).edit().remove(path).apply();
+        file(context, path).delete();
+    }
+
+    /**
+     * Keep the file but start the next attempt with a fresh session, e.g.
+     * because the bytes changed
+     */
+    public static void clearSession(Context context, String path) {
+        SharedPreferences prefs = prefs(context);
+        if (prefs.contains(path)) prefs.edit().putString(path, "").apply();
+    }
+
+    /**
+     * Network trouble is worth retrying; a rejected upload is not
+     */
+    public static boolean isRecoverable(Exception e) {
+        return !(e instanceof StorageException) || ((StorageException) e).getIsRecoverableException();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
@@ -8,18 +8,26 @@ import android.widget.*;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.Feedback;
 import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.shared.utils.IdGenerator;
+import com.hawassa.unifix.shared.utils.ModelMappers;
 import com.hawassa.unifix.shared.utils.NotificationUtils;
+import com.hawassa.unifix.shared.utils.ReportSummaries;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class FeedbackActivity extends AppCompatActivity {
 
+    // Reports feedback can be given on
+    private static final String[] FEEDBACK_STATUSES = {"Assigned", "In Progress", "Completed"};
+
     // UI Components
     private AutoCompleteTextView actvReports;
     private TextView tvReportInfo, tvRatingText;
@@ -37,7 +45,7 @@ public class FeedbackActivity extends AppCompatActivity {
     private MaintenanceReport selectedReport = null;
 
     // Firebase
-    private DatabaseReference reportsRef, feedbackRef, usersRef;
+    private DatabaseReference feedbackRef, usersRef;
     private List<MaintenanceReport> userReports = new ArrayList<>();
     private List<String> reportTitles = new ArrayList<>();
 
@@ -58,7 +66,6 @@ public class FeedbackActivity extends AppCompatActivity {
         }
 
         // Initialize Firebase
-        reportsRef = FirebaseDatabase.getInstance().getReference("reports");
         feedbackRef = FirebaseDatabase.getInstance().getReference("feedback");
         usersRef = FirebaseDatabase.getInstance().getReference("users");
 
@@ -120,57 +127,73 @@ public class FeedbackActivity extends AppCompatActivity {
     }
 
     private void loadUserReports() {
-        if (reportsRef == null || firebaseUid == null) return;
+        if (firebaseUid == null) return;
 
         showLoading(true);
 
-        // Load user's reports for feedback
-        reportsRef.orderByChild("reporterId").equalTo(firebaseUid)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        userReports.clear();
-                        reportTitles.clear();
-
-                        for (DataSnapshot ds : snapshot.getChildren()) {
-                            MaintenanceReport report = ds.getValue(MaintenanceReport.class);
-                            if (report != null) {
-                                // Only show reports that are completed or in progress
-                                String status = report.getStatus();
-                                if ("Completed".equals(status) ||
-                                        "In Progress".equals(status) ||
-                                        "Assigned".equals(status)) {
-                                    userReports.add(report);
-
-                                    // Create display title
-                                    String title = report.getCategory() + " - " +
-                                            report.getBuildingBlock() + ", Room " +
-                                            report.getRoomNumber() +
-                                            " (" + report.getStatus() + ")";
-                                    reportTitles.add(title);
-                                }
-                            }
-                        }
+        // Full reports stand in until the summaries have been backfilled
+        ReportSummaries.whenReady(this::loadUserReports);
+    }
 
-                        if (userReports.isEmpty()) {
-                            showNoReportsDialog();
-                        } else {
-                            setupReportDropdown();
-                        }
+    private void loadUserReports(ReportSummaries.Source source) {
+        if (isFinishing() || isDestroyed()) return;
+
+        // One exact query per status, so only the reports that can be picked are
+        // downloaded; without summaries one query returns all of them, filtered below
+        List<Task<DataSnapshot>> queries = new ArrayList<>();
+        if (source.summaries) {
+            for (String status : FEEDBACK_STATUSES) {
+                queries.add(source.byReporterAndStatus(firebaseUid, status).get());
+            }
+        } else {
+            queries.add(source.byReporterAndStatus(firebaseUid, FEEDBACK_STATUSES[0]).get());
+        }
 
-                        showLoading(false);
+        Tasks.whenAll(queries)
+                .addOnSuccessListener(aVoid -> {
+                    userReports.clear();
+                    reportTitles.clear();
+
+                    for (Task<DataSnapshot> query : queries) {
+                        for (DataSnapshot ds : query.getResult().getChildren()) {
+                            MaintenanceReport report = ModelMappers.toReport(ds);
+                            if (canGiveFeedback(report)) userReports.add(report);
+                        }
+                    }
+                    Collections.sort(userReports, (a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()));
+
+                    for (MaintenanceReport report : userReports) {
+                        // Create display title
+                        String title = report.getCategory() + " - " +
+                                report.getBuildingBlock() + ", Room " +
+                                report.getRoomNumber() +
+                                " (" + report.getStatus() + ")";
+                        reportTitles.add(title);
                     }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Toast.makeText(FeedbackActivity.this,
-                                "Failed to load reports: " + error.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                        showLoading(false);
+                    if (userReports.isEmpty()) {
+                        showNoReportsDialog();
+                    } else {
+                        setupReportDropdown();
                     }
+
+                    showLoading(false);
+                })
+                .addOnFailureListener(e -> {
+                    Toast.makeText(FeedbackActivity.this,
+                            "Failed to load reports: " + e.getMessage(),
+                            Toast.LENGTH_SHORT).show();
+                    showLoading(false);
                 });
     }
 
+    private static boolean canGiveFeedback(MaintenanceReport report) {
+        for (String status : FEEDBACK_STATUSES) {
+            if (ReportSummaries.Source.matches(report, status)) return true;
+        }
+        return false;
+    }
+
     private void loadUserName() {
         if (firebaseUid == null) return;
 
@@ -298,8 +321,7 @@ public class FeedbackActivity extends AppCompatActivity {
         showLoading(true);
 
         // Generate feedback ID
-        String feedbackId = "FDB-" + System.currentTimeMillis() + "-" +
-                new Random().nextInt(1000);
+        String feedbackId = IdGenerator.next("FDB-");
 
         // Create feedback object
         Feedback feedback = new Feedback();
@@ -322,7 +344,7 @@ public class FeedbackActivity extends AppCompatActivity {
         }
 
         // Save to Firebase
-        feedbackRef.child(feedbackId).setValue(feedback)
+        feedbackRef.child(feedbackId).setValue(ModelMappers.toMap(feedback))
                 .addOnCompleteListener(task -> {
                     showLoading(false);
 
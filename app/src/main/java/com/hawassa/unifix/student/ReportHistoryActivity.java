@@ -7,6 +7,7 @@ import android.util.Log;
 import android.view.View;
 import android.widget.TextView;
 import android.widget.Toast;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -18,6 +19,10 @@ import com.google.android.material.textfield.TextInputEditText;
 import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
+import com.hawassa.unifix.shared.utils.ChildSyncEngine;
+import com.hawassa.unifix.shared.utils.DeltaSync;
+import com.hawassa.unifix.shared.utils.ReportSummaries;
 import com.hawassa.unifix.student.adapters.ReportAdapter;
 import java.util.ArrayList;
 import java.util.List;
@@ -27,7 +32,8 @@ public class ReportHistoryActivity extends AppCompatActivity {
     private ReportAdapter adapter;
     private List<MaintenanceReport> reportList = new ArrayList<>();
     private List<MaintenanceReport> filteredList = new ArrayList<>();
-    private DatabaseReference reportsRef;
+    private DatabaseReference summariesRef;
+    private DeltaSync syncEngine;
     private String userId;
 
     // UI Components
@@ -86,10 +92,11 @@ public class ReportHistoryActivity extends AppCompatActivity {
             }
 
             adapter = new ReportAdapter(filteredList);
+            adapter.setOnReportClickListener(this::showReportDetails);
             recyclerView.setLayoutManager(new LinearLayoutManager(this));
             recyclerView.setAdapter(adapter);
 
-            reportsRef = FirebaseDatabase.getInstance().getReference("reports");
+            summariesRef = ReportSummaries.getRef();
 
             // Initialize other views
             swipeRefreshLayout = findViewById(R.id.swipeRefreshLayout);
@@ -172,42 +179,87 @@ public class ReportHistoryActivity extends AppCompatActivity {
     }
 
     private void loadUserReports() {
-        if (reportsRef == null || userId == null) return;
-
-        reportsRef.orderByChild("reporterId").equalTo(userId)
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(DataSnapshot dataSnapshot) {
-                        try {
-                            reportList.clear();
-                            for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                                MaintenanceReport report = snapshot.getValue(MaintenanceReport.class);
-                                if (report != null) {
-                                    reportList.add(report);
-                                }
-                            }
-
-                            // Sort by timestamp (newest first)
-                            reportList.sort((r1, r2) -> Long.compare(r2.getTimestamp(), r1.getTimestamp()));
-
-                            // Apply current filters
-                            applyFilters();
-
-                            Log.d("ReportHistory", "Loaded " + reportList.size() + " reports");
-
-                        } catch (Exception e) {
-                            Log.e("ReportHistory", "Error processing reports: " + e.getMessage(), e);
-                        }
-                    }
+        if (summariesRef == null || userId == null) return;
 
-                    @Override
-                    public void onCancelled(DatabaseError databaseError) {
-                        Log.e("ReportHistory", "Database error: " + databaseError.getMessage());
-                        Toast.makeText(ReportHistoryActivity.this,
-                                "Failed to load reports: " + databaseError.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                    }
-                });
+        if (syncEngine != null) {
+            syncEngine.stop();
+        }
+        reportList.clear();
+        // The engine replays from position 0, so the shown list must start empty too
+        filteredList.clear();
+        adapter.notifyDataSetChanged();
+
+        // Cached reports show at once; only the ones changed since are downloaded
+        syncEngine = DeltaSync.forReporter(userId);
+        syncEngine.start(new ChildSyncEngine.Callback<MaintenanceReport>() {
+            @Override
+            public void onInserted(int position, MaintenanceReport report) {
+                reportList.add(position, report);
+                if (hasActiveFilters()) {
+                    applyFilters();
+                } else {
+                    filteredList.add(position, report);
+                    adapter.notifyItemInserted(position);
+                    updateEmptyState();
+                }
+            }
+
+            @Override
+            public void onUpdated(int position, MaintenanceReport report) {
+                reportList.set(position, report);
+                if (hasActiveFilters()) {
+                    applyFilters();
+                } else {
+                    filteredList.set(position, report);
+                    adapter.notifyItemChanged(position);
+                }
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition, MaintenanceReport report) {
+                reportList.remove(fromPosition);
+                reportList.add(toPosition, report);
+                if (hasActiveFilters()) {
+                    applyFilters();
+                } else {
+                    filteredList.remove(fromPosition);
+                    filteredList.add(toPosition, report);
+                    adapter.notifyItemMoved(fromPosition, toPosition);
+                }
+            }
+
+            @Override
+            public void onRemoved(int position, MaintenanceReport report) {
+                reportList.remove(position);
+                if (hasActiveFilters()) {
+                    applyFilters();
+                } else {
+                    filteredList.remove(position);
+                    adapter.notifyItemRemoved(position);
+                    updateEmptyState();
+                }
+            }
+
+            @Override
+            public void onSynced() {
+                Log.d("ReportHistory", "Loaded " + reportList.size() + " reports");
+                applyFilters();
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e("ReportHistory", "Database error: " + message);
+                Toast.makeText(ReportHistoryActivity.this,
+                        "Failed to load reports: " + message,
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    // With no status/search filter the adapter list mirrors reportList,
+    // so engine events can be applied to it directly
+    private boolean hasActiveFilters() {
+        return !"ALL".equals(currentStatusFilter) || !currentSearchQuery.isEmpty();
     }
 
     private void applyFilters() {
@@ -219,22 +271,20 @@ public class ReportHistoryActivity extends AppCompatActivity {
         for (MaintenanceReport report : reportList) {
             // 1. Apply status filter FIRST
             boolean statusMatches = false;
-            String reportStatus = report.getStatus() != null ? report.getStatus().toLowerCase() : "";
+            ReportStatus reportStatus = ReportStatus.fromString(report.getStatus());
 
             switch (currentStatusFilter) {
                 case "ALL":
                     statusMatches = true;
                     break;
                 case "PENDING":
-                    statusMatches = "submitted".equals(reportStatus);
+                    statusMatches = reportStatus != null && reportStatus.isPending();
                     break;
                 case "IN_PROGRESS":
-                    statusMatches = "assigned".equals(reportStatus) ||
-                            "in progress".equals(reportStatus) ||
-                            "in_progress".equals(reportStatus);
+                    statusMatches = reportStatus != null && reportStatus.isActive();
                     break;
                 case "COMPLETED":
-                    statusMatches = "completed".equals(reportStatus);
+                    statusMatches = reportStatus == ReportStatus.COMPLETED;
                     break;
             }
 
@@ -262,12 +312,6 @@ public class ReportHistoryActivity extends AppCompatActivity {
                     }
                 }
 
-                // Check description
-                if (!searchMatches && report.getDescription() != null &&
-                        report.getDescription().toLowerCase().contains(searchLower)) {
-                    searchMatches = true;
-                }
-
                 // Check report ID
                 if (!searchMatches && report.getReportId() != null &&
                         report.getReportId().toLowerCase().contains(searchLower)) {
@@ -289,6 +333,35 @@ public class ReportHistoryActivity extends AppCompatActivity {
         updateEmptyState();
     }
 
+    private void showReportDetails(MaintenanceReport report) {
+        // List items are summaries; fetch the whole report for the dialog
+        ReportSummaries.loadFull(report.getReportId(), new ReportSummaries.ReportListener() {
+            @Override
+            public void onReport(MaintenanceReport fullReport) {
+                if (isFinishing() || isDestroyed()) return;
+                new AlertDialog.Builder(ReportHistoryActivity.this)
+                        .setTitle(fullReport.getCategory())
+                        .setMessage(
+                                "Location: " + fullReport.getBuildingBlock() + ", Room " + fullReport.getRoomNumber() + "\n" +
+                                        "Status: " + fullReport.getStatus() + "\n\n" +
+                                        "Description:\n" + fullReport.getDescription() + "\n\n" +
+                                        (fullReport.getAssignedTechnicianName() != null ?
+                                                "Assigned to: " + fullReport.getAssignedTechnicianName() + "\n" : "") +
+                                        (fullReport.getTechnicianNotes() != null ?
+                                                "Technician Notes: " + fullReport.getTechnicianNotes() : "")
+                        )
+                        .setPositiveButton("OK", null)
+                        .show();
+            }
+
+            @Override
+            public void onError(String message) {
+                Toast.makeText(ReportHistoryActivity.this,
+                        "Failed to load report: " + message, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     private void updateEmptyState() {
         runOnUiThread(() -> {
             TextView tvEmpty = findViewById(R.id.tvEmpty);
@@ -321,6 +394,14 @@ public class ReportHistoryActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (syncEngine != null) {
+            syncEngine.stop();
+        }
+    }
+
     @Override
     public boolean onSupportNavigateUp() {
         onBackPressed();
@@ -26,11 +26,16 @@ import com.google.firebase.database.ValueEventListener;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.auth.LoginActivity;
 import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
 import com.hawassa.unifix.models.User;
 import com.hawassa.unifix.shared.NotificationsActivity;
 import com.hawassa.unifix.shared.ProfileActivity;
 import com.hawassa.unifix.shared.SettingsActivity;
+import com.hawassa.unifix.shared.utils.ChildSyncEngine;
+import com.hawassa.unifix.shared.utils.DeltaSync;
+import com.hawassa.unifix.shared.utils.ModelMappers;
 import com.hawassa.unifix.shared.utils.NotificationBadgeManager;
+import com.hawassa.unifix.shared.utils.StatsCounters;
 import com.hawassa.unifix.student.adapters.RecentActivityAdapter;
 
 import java.util.ArrayList;
@@ -51,14 +56,15 @@ public class StudentDashboardActivity extends AppCompatActivity {
 
     // Firebase
     private FirebaseAuth mAuth;
-    private DatabaseReference reportsRef, usersRef;
+    private DatabaseReference usersRef;
     private ValueEventListener statsListener;
-    private ValueEventListener recentActivityListener;
+    private DeltaSync recentActivitySync;
 
     // User data
     private String firebaseUid, customUserId, userName, userRole;
 
     // Recent Activity
+    private static final int RECENT_ACTIVITY_COUNT = 5;
     private RecyclerView rvRecentActivity;
     private RecentActivityAdapter recentActivityAdapter;
     private List<MaintenanceReport> recentReportList = new ArrayList<>();
@@ -97,7 +103,6 @@ public class StudentDashboardActivity extends AppCompatActivity {
         }
 
         mAuth = FirebaseAuth.getInstance();
-        reportsRef = FirebaseDatabase.getInstance().getReference("reports");
         usersRef = FirebaseDatabase.getInstance().getReference("users");
 
         initializeViews();
@@ -155,7 +160,7 @@ public class StudentDashboardActivity extends AppCompatActivity {
                 @Override
                 public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
                     if (dataSnapshot.exists()) {
-                        User user = dataSnapshot.getValue(User.class);
+                        User user = ModelMappers.toUser(dataSnapshot);
                         if (user != null && user.getName() != null) {
                             userName = user.getName();
                             tvWelcome.setText("Welcome Back,");
@@ -236,34 +241,18 @@ public class StudentDashboardActivity extends AppCompatActivity {
 
         // Remove old listener if exists
         if (statsListener != null) {
-            reportsRef.removeEventListener(statsListener);
+            StatsCounters.reporterRef(firebaseUid).removeEventListener(statsListener);
         }
 
-        // Query reports for this specific student
-        statsListener = reportsRef.orderByChild("reporterId").equalTo(firebaseUid)
-                .addValueEventListener(new ValueEventListener() {
+        // Per-student counters instead of downloading every report this student filed
+        statsListener = StatsCounters.listen(StatsCounters.reporterRef(firebaseUid),
+                new StatsCounters.CountsListener() {
                     @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        int total = 0, pending = 0, inProgress = 0, completed = 0;
-
-                        for (DataSnapshot ds : snapshot.getChildren()) {
-                            MaintenanceReport report = ds.getValue(MaintenanceReport.class);
-                            if (report == null) continue;
-
-                            total++;
-                            switch (report.getStatus()) {
-                                case "Submitted":
-                                    pending++;
-                                    break;
-                                case "Assigned":
-                                case "In Progress":
-                                    inProgress++;
-                                    break;
-                                case "Completed":
-                                    completed++;
-                                    break;
-                            }
-                        }
+                    public void onCounts(StatsCounters.Counts counts, boolean seeded) {
+                        long total = counts.getTotal();
+                        long pending = counts.get(ReportStatus.SUBMITTED);
+                        long inProgress = counts.getActive();
+                        long completed = counts.get(ReportStatus.COMPLETED);
 
                         tvTotalReports.setText(String.valueOf(total));
                         tvPendingReports.setText(String.valueOf(pending));
@@ -275,11 +264,11 @@ public class StudentDashboardActivity extends AppCompatActivity {
                     }
 
                     @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
+                    public void onError(String message) {
                         Toast.makeText(StudentDashboardActivity.this,
-                                "Failed to load report stats: " + error.getMessage(),
+                                "Failed to load report stats: " + message,
                                 Toast.LENGTH_SHORT).show();
-                        Log.e("STUDENT_STATS", "Error: " + error.getMessage());
+                        Log.e("STUDENT_STATS", "Error: " + message);
                     }
                 });
     }
@@ -319,44 +308,62 @@ public class StudentDashboardActivity extends AppCompatActivity {
     private void loadRecentActivity() {
         if (firebaseUid == null) return;
 
-        // Remove old listener if exists
-        if (recentActivityListener != null) {
-            reportsRef.removeEventListener(recentActivityListener);
-        }
+        // Live sync already running, nothing to reload
+        if (recentActivitySync != null && recentActivitySync.isStarted()) return;
 
-        // Query reports for this student, limit to 5 most recent
-        recentActivityListener = reportsRef.orderByChild("reporterId").equalTo(firebaseUid)
-                .limitToLast(5)
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        recentReportList.clear();
-                        for (DataSnapshot ds : snapshot.getChildren()) {
-                            MaintenanceReport report = ds.getValue(MaintenanceReport.class);
-                            if (report != null) {
-                                // Add to beginning for newest first
-                                recentReportList.add(0, report);
-                            }
-                        }
-                        recentActivityAdapter.notifyDataSetChanged();
-                    }
+        recentReportList.clear();
+        recentActivityAdapter.notifyDataSetChanged();
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e("RECENT_ACTIVITY", "Error loading recent activity: " + error.getMessage());
-                    }
-                });
+        // The student's reports newest first by timestamp, from the same local
+        // cache as the report history; only the first few are shown. Keys
+        // can't pick the newest: new ids sort before the older ones.
+        recentActivitySync = DeltaSync.forReporter(firebaseUid);
+        recentActivitySync.start(new ChildSyncEngine.Callback<MaintenanceReport>() {
+            @Override
+            public void onInserted(int position, MaintenanceReport report) {
+                showRecentActivity(position);
+            }
+
+            @Override
+            public void onUpdated(int position, MaintenanceReport report) {
+                showRecentActivity(position);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition, MaintenanceReport report) {
+                showRecentActivity(Math.min(fromPosition, toPosition));
+            }
+
+            @Override
+            public void onRemoved(int position, MaintenanceReport report) {
+                showRecentActivity(position);
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e("RECENT_ACTIVITY", "Error loading recent activity: " + message);
+            }
+        });
+    }
+
+    // Changes below the shown reports leave the list alone
+    private void showRecentActivity(int changedPosition) {
+        if (changedPosition >= RECENT_ACTIVITY_COUNT || recentActivitySync == null) return;
+        recentReportList.clear();
+        List<MaintenanceReport> reports = recentActivitySync.getItems();
+        recentReportList.addAll(reports.subList(0, Math.min(RECENT_ACTIVITY_COUNT, reports.size())));
+        recentActivityAdapter.notifyDataSetChanged();
     }
 
     private void removeFirebaseListeners() {
         if (statsListener != null) {
-            reportsRef.removeEventListener(statsListener);
+            StatsCounters.reporterRef(firebaseUid).removeEventListener(statsListener);
             statsListener = null;
         }
 
-        if (recentActivityListener != null) {
-            reportsRef.removeEventListener(recentActivityListener);
-            recentActivityListener = null;
+        if (recentActivitySync != null) {
+            recentActivitySync.stop();
+            recentActivitySync = null;
         }
     }
 
@@ -6,6 +6,8 @@ import android.content.pm.PackageManager;
 import android.location.Location;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.TextUtils;
 import android.util.Log;
 import android.view.View;
@@ -20,19 +22,16 @@ import androidx.core.content.ContextCompat;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.Priority;
-import com.google.android.gms.tasks.OnCompleteListener;
-import com.google.android.gms.tasks.OnFailureListener;
-import com.google.android.gms.tasks.OnSuccessListener;
-import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.*;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
-import com.google.firebase.storage.UploadTask;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.MaintenanceReport;
-import com.hawassa.unifix.shared.utils.NotificationUtils;
+import com.hawassa.unifix.models.ReportStatus;
+import com.hawassa.unifix.shared.utils.DuplicateDetector;
+import com.hawassa.unifix.shared.utils.IdGenerator;
+import com.hawassa.unifix.shared.utils.ReportOutbox;
+import com.hawassa.unifix.shared.utils.ReportTransitions;
 
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -64,10 +63,10 @@ public class SubmitReportActivity extends AppCompatActivity {
 
     // Firebase
     private DatabaseReference reportsRef, usersRef;
-    private StorageReference storageRef;
 
     // Constants
     private static final int PICK_IMAGE_REQUEST = 1;
+    private static final long DUPLICATE_CHECK_TIMEOUT_MS = 3000;
     private static final String[] CATEGORIES = {
             "Electrical", "Plumbing", "HVAC", "Carpentry",
             "Painting", "Furniture", "Computer", "Other"
@@ -92,7 +91,6 @@ public class SubmitReportActivity extends AppCompatActivity {
         // Initialize Firebase
         reportsRef = FirebaseDatabase.getInstance().getReference("reports");
         usersRef = FirebaseDatabase.getInstance().getReference("users");
-        storageRef = FirebaseStorage.getInstance().getReference("report_images");
 
         // NEW: Initialize Location Client
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
@@ -315,7 +313,7 @@ public class SubmitReportActivity extends AppCompatActivity {
 
             builder.setPositiveButton("Submit Anyway", (dialog, which) -> {
                 // Proceed without location
-                proceedWithReportSubmission(buildingBlock, roomNumber, description);
+                checkForDuplicates(buildingBlock, roomNumber, description);
             });
 
             builder.setNegativeButton("Cancel", (dialog, which) -> {
@@ -331,11 +329,98 @@ public class SubmitReportActivity extends AppCompatActivity {
             return;
         }
 
-        // Show loading
+        // Proceed with submission (with location)
+        checkForDuplicates(buildingBlock, roomNumber, description);
+    }
+
+    // Offer to +1 an open report for the same issue instead of filing a new one
+    private void checkForDuplicates(String buildingBlock, String roomNumber, String description) {
         showLoading(true);
 
-        // Proceed with submission (with location)
-        proceedWithReportSubmission(buildingBlock, roomNumber, description);
+        // Offline the query may never answer; don't let it hold the report up
+        Handler handler = new Handler(Looper.getMainLooper());
+        boolean[] decided = {false};
+        Runnable timeout = () -> {
+            if (decided[0]) return;
+            decided[0] = true;
+            Log.w("REPORT", "Duplicate check timed out, submitting anyway");
+            proceedWithReportSubmission(buildingBlock, roomNumber, description);
+        };
+        handler.postDelayed(timeout, DUPLICATE_CHECK_TIMEOUT_MS);
+
+        DuplicateDetector.findMatches(buildingBlock, roomNumber, selectedCategory, description,
+                new DuplicateDetector.MatchListener() {
+                    @Override
+                    public void onMatches(List<DuplicateDetector.Match> matches) {
+                        if (decided[0]) return;
+                        decided[0] = true;
+                        handler.removeCallbacks(timeout);
+
+                        if (matches.isEmpty()) {
+                            proceedWithReportSubmission(buildingBlock, roomNumber, description);
+                        } else {
+                            showLoading(false);
+                            showDuplicateDialog(matches.get(0).report,
+                                    buildingBlock, roomNumber, description);
+                        }
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        if (decided[0]) return;
+                        decided[0] = true;
+                        handler.removeCallbacks(timeout);
+
+                        // Never block a report on the duplicate check
+                        proceedWithReportSubmission(buildingBlock, roomNumber, description);
+                    }
+                });
+    }
+
+    private void showDuplicateDialog(MaintenanceReport existing, String buildingBlock,
+                                     String roomNumber, String description) {
+        SimpleDateFormat sdf = new SimpleDateFormat("dd MMM, HH:mm", Locale.getDefault());
+        long others = existing.getDuplicateCount();
+
+        String message = "A similar " + existing.getCategory() + " issue in " +
+                existing.getBuildingBlock() + ", Room " + existing.getRoomNumber() +
+                " is already open (" + existing.getStatus() + ", reported " +
+                sdf.format(new Date(existing.getTimestamp())) + "):\n\n\"" +
+                existing.getDescription() + "\"" +
+                (others > 0 ? "\n\n" + others + " other students also reported it." : "") +
+                "\n\nIs this the same problem?";
+
+        new AlertDialog.Builder(this)
+                .setTitle("Already Reported?")
+                .setMessage(message)
+                .setPositiveButton("Same Issue (+1)", (dialog, which) -> supportExistingReport(existing))
+                .setNegativeButton("Submit New Report", (dialog, which) -> {
+                    showLoading(true);
+                    proceedWithReportSubmission(buildingBlock, roomNumber, description);
+                })
+                .setNeutralButton("Cancel", null)
+                .show();
+    }
+
+    private void supportExistingReport(MaintenanceReport existing) {
+        showLoading(true);
+        DuplicateDetector.plusOne(existing, firebaseUid, new ReportTransitions.CommitListener() {
+            @Override
+            public void onCommitted() {
+                showLoading(false);
+                Toast.makeText(SubmitReportActivity.this,
+                        "👍 Your +1 was added to the existing report",
+                        Toast.LENGTH_LONG).show();
+                resetForm();
+            }
+
+            @Override
+            public void onFailure(String message) {
+                showLoading(false);
+                Toast.makeText(SubmitReportActivity.this,
+                        "❌ Failed to add to report: " + message, Toast.LENGTH_LONG).show();
+            }
+        });
     }
 
     private void proceedWithReportSubmission(String buildingBlock, String roomNumber, String description) {
@@ -351,7 +436,7 @@ public class SubmitReportActivity extends AppCompatActivity {
                 roomNumber,
                 selectedCategory,
                 description,
-                "Submitted", // Initial status
+                ReportStatus.SUBMITTED.getLabel(), // Initial status
                 System.currentTimeMillis(),
                 null, // assignedTechnicianId
                 null, // assignedTechnicianName
@@ -361,129 +446,37 @@ public class SubmitReportActivity extends AppCompatActivity {
                 currentLatitude,  // <-- ADD LOCATION
                 currentLongitude   // <-- ADD LOCATION
         );
+        report.setLocationKey(DuplicateDetector.locationKey(buildingBlock, roomNumber, selectedCategory));
 
-        // If image is attached, upload it first
-        if (imageUri != null) {
-            uploadImageAndSaveReport(report, reportId);
-        } else {
-            saveReportToDatabase(report, reportId, null);
-        }
-    }
-
-    private void uploadImageAndSaveReport(MaintenanceReport report, String reportId) {
-        String imageName = "report_" + reportId + "_" + System.currentTimeMillis() + ".jpg";
-        StorageReference imageRef = storageRef.child(imageName);
-
-        imageRef.putFile(imageUri)
-                .addOnSuccessListener(new OnSuccessListener<UploadTask.TaskSnapshot>() {
-                    @Override
-                    public void onSuccess(UploadTask.TaskSnapshot taskSnapshot) {
-                        // Get download URL
-                        imageRef.getDownloadUrl().addOnSuccessListener(new OnSuccessListener<Uri>() {
-                            @Override
-                            public void onSuccess(Uri downloadUri) {
-                                String imageUrl = downloadUri.toString();
-                                Log.d("REPORT", "Image uploaded: " + imageUrl);
-                                saveReportToDatabase(report, reportId, imageUrl);
-                            }
-                        }).addOnFailureListener(new OnFailureListener() {
-                            @Override
-                            public void onFailure(@NonNull Exception e) {
-                                Log.e("REPORT", "Failed to get download URL: " + e.getMessage());
-                                saveReportToDatabase(report, reportId, null);
-                            }
-                        });
-                    }
-                })
-                .addOnFailureListener(new OnFailureListener() {
+        // Queue it locally; ReportUploadWorker sends it when the network allows
+        ReportOutbox.enqueueAsync(this, report, userName != null ? userName : "A Student", imageUri,
+                new ReportOutbox.Callback() {
                     @Override
-                    public void onFailure(@NonNull Exception e) {
-                        Log.e("REPORT", "Image upload failed: " + e.getMessage());
-                        Toast.makeText(SubmitReportActivity.this,
-                                "Image upload failed, saving report without image",
-                                Toast.LENGTH_SHORT).show();
-                        saveReportToDatabase(report, reportId, null);
+                    public void onQueued(String queuedId) {
+                        if (isFinishing() || isDestroyed()) return;
+                        showLoading(false);
+                        Log.d("REPORT", "✅ Report queued: " + queuedId);
+                        showSuccessDialog(queuedId);
                     }
-                });
-    }
-
-    private void saveReportToDatabase(MaintenanceReport report, String reportId, String imageUrl) {
-        if (imageUrl != null) {
-            report.setImageUrl(imageUrl);
-        }
 
-        reportsRef.child(reportId).setValue(report)
-                .addOnCompleteListener(new OnCompleteListener<Void>() {
                     @Override
-                    public void onComplete(@NonNull Task<Void> task) {
+                    public void onError(String message) {
+                        if (isFinishing() || isDestroyed()) return;
                         showLoading(false);
-
-                        if (task.isSuccessful()) {
-                            Log.d("REPORT", "✅ Report saved successfully: " + reportId);
-
-                            // Log location data for debugging
-                            if (currentLatitude != null && currentLongitude != null) {
-                                Log.d("REPORT", "Location saved: " + currentLatitude + ", " + currentLongitude);
-                            }
-
-                            // ✅ UPDATED: Send notifications using NotificationUtils
-                            sendAdminNotification(report);
-
-                            // Show success message
-                            showSuccessDialog(reportId);
-                        } else {
-                            Toast.makeText(SubmitReportActivity.this,
-                                    "❌ Failed to submit report: " + task.getException().getMessage(),
-                                    Toast.LENGTH_LONG).show();
-                            Log.e("REPORT", "Save failed: " + task.getException().getMessage());
-                        }
+                        Toast.makeText(SubmitReportActivity.this, "❌ Failed to save report: " + message,
+                                Toast.LENGTH_LONG).show();
                     }
                 });
     }
 
-    // ✅ UPDATED: Using NotificationUtils
-    private void sendAdminNotification(MaintenanceReport report) {
-        String reporterName = userName != null ? userName : "A Student";
-        String title = "📋 New " + report.getCategory() + " Report";
-        String message = reporterName + " reported an issue in " +
-                report.getBuildingBlock() + ", Room " + report.getRoomNumber();
-
-        // Add location info to notification if available
-        if (currentLatitude != null && currentLongitude != null) {
-            message += "\n📍 Location coordinates available for navigation";
-        }
-        // Send to all admin users
-        NotificationUtils.sendNotificationToRole(
-                "admin",
-                title,
-                message,
-                "new_report",
-                report.getReportId(),
-                firebaseUid,
-                reporterName,
-                SubmitReportActivity.this
-        );
-
-        // Also send confirmation to student
-        NotificationUtils.sendNotification(
-                firebaseUid,
-                "✅ Report Submitted",
-                "Your " + report.getCategory() + " report has been submitted successfully." +
-                        (currentLatitude != null ? "\n📍 Your location was captured for technician navigation." : ""),
-                "report_confirmation",
-                report.getReportId(),
-                "system",
-                "System",
-                SubmitReportActivity.this
-        );
-    }
-
     private void showSuccessDialog(String reportId) {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("✅ Report Submitted Successfully!");
 
         String message = "Your report has been submitted.\n\nReport ID: " + reportId +
-                "\n\nAdministrators have been notified and will assign a technician soon.";
+                "\n\nIt is saved on your phone and will be sent automatically, even if " +
+                "you're offline or leave this screen. Administrators will be notified " +
+                "as soon as it arrives.";
 
         if (currentLatitude != null && currentLongitude != null) {
             message += "\n\n📍 Your location was captured for navigation.";
@@ -521,10 +514,7 @@ public class SubmitReportActivity extends AppCompatActivity {
     }
 
     private String generateReportId() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMddHHmmss", Locale.getDefault());
-        String timestamp = sdf.format(new Date());
-        String random = String.valueOf(new Random().nextInt(9000) + 1000);
-        return "REP-" + timestamp + "-" + random;
+        return IdGenerator.next("REP-");
     }
 
     private void showLoading(boolean isLoading) {
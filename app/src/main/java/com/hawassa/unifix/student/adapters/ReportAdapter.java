@@ -8,6 +8,7 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.shared.utils.IdGenerator;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
@@ -16,11 +17,20 @@ import java.util.Locale;
 public class ReportAdapter extends RecyclerView.Adapter<ReportAdapter.ViewHolder> {
     private List<MaintenanceReport> reportList;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM yyyy HH:mm", Locale.getDefault());
+    private OnReportClickListener reportClickListener;
+
+    public interface OnReportClickListener {
+        void onReportClick(MaintenanceReport report);
+    }
 
     public ReportAdapter(List<MaintenanceReport> reportList) {
         this.reportList = reportList;
     }
 
+    public void setOnReportClickListener(OnReportClickListener listener) {
+        this.reportClickListener = listener;
+    }
+
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -33,9 +43,10 @@ public class ReportAdapter extends RecyclerView.Adapter<ReportAdapter.ViewHolder
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         MaintenanceReport report = reportList.get(position);
 
-        holder.tvReportId.setText("Report #" + report.getReportId().substring(0, 8));
+        holder.tvReportId.setText("Report #" + IdGenerator.shortForm(report.getReportId()));
         holder.tvCategory.setText(report.getCategory());
         holder.tvLocation.setText(report.getBuildingBlock() + " - Room " + report.getRoomNumber());
+        // Summaries carry a preview; the full text is loaded on tap
         holder.tvDescription.setText(report.getDescription());
         holder.tvStatus.setText(report.getStatus());
         holder.tvTimestamp.setText(dateFormat.format(new Date(report.getTimestamp())));
@@ -43,6 +54,12 @@ public class ReportAdapter extends RecyclerView.Adapter<ReportAdapter.ViewHolder
         // Set status background color
         int statusColor = getStatusColor(report.getStatus(), holder.itemView);
         holder.tvStatus.setBackgroundColor(statusColor);
+
+        holder.itemView.setOnClickListener(v -> {
+            if (reportClickListener != null) {
+                reportClickListener.onReportClick(report);
+            }
+        });
     }
 
     private int getStatusColor(String status, View contextView) {
@@ -9,6 +9,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -20,6 +21,12 @@ import com.google.android.material.chip.ChipGroup;
 import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
+import com.hawassa.unifix.shared.utils.ChildSyncEngine;
+import com.hawassa.unifix.shared.utils.DeltaSync;
+import com.hawassa.unifix.shared.utils.NotificationUtils;
+import com.hawassa.unifix.shared.utils.ReportSummaries;
+import com.hawassa.unifix.shared.utils.ReportTransitions;
 import com.hawassa.unifix.technician.adapters.TaskAdapter;
 
 import java.util.ArrayList;
@@ -33,15 +40,17 @@ public class AssignedTasksActivity extends AppCompatActivity {
     private TextView tvNoTasks;
     private SwipeRefreshLayout swipeRefreshLayout;
     private ChipGroup chipGroupStatus;
-    private Chip chipAll, chipAssigned, chipInProgress, chipCompleted;
+    private Chip chipAll, chipAssigned, chipInProgress, chipCompleted, chipOpen;
 
-    private DatabaseReference reportsRef;
     private List<MaintenanceReport> allTaskList = new ArrayList<>();
     private List<MaintenanceReport> filteredTaskList = new ArrayList<>();
     private TaskAdapter adapter;
     private String technicianId, technicianName, customUserId;
-    private ValueEventListener tasksListener;
+    private ChildSyncEngine<MaintenanceReport> syncEngine; // open tasks
+    private DeltaSync taskSync;                            // own tasks
     private String selectedStatus = "All";
+    private boolean showingOpenTasks = false; // unassigned reports any technician can claim
+    private int loadGeneration; // bumped per load, so a late source lookup is dropped
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -63,7 +72,6 @@ public class AssignedTasksActivity extends AppCompatActivity {
         }
 
         initializeViews();
-        setupFirebase();
         loadAssignedTasks();
         setupRefreshListener();
         setupChipListeners();
@@ -91,17 +99,26 @@ public class AssignedTasksActivity extends AppCompatActivity {
         chipAssigned = findViewById(R.id.chipAssigned);
         chipInProgress = findViewById(R.id.chipInProgress);
         chipCompleted = findViewById(R.id.chipCompleted);
+        chipOpen = findViewById(R.id.chipOpen);
 
         // Setup RecyclerView
         adapter = new TaskAdapter(filteredTaskList, new TaskAdapter.OnTaskClickListener() {
             @Override
             public void onTaskClick(MaintenanceReport task) {
-                viewTaskDetails(task);
+                if (showingOpenTasks) {
+                    confirmClaim(task);
+                } else {
+                    viewTaskDetails(task);
+                }
             }
 
             @Override
             public void onUpdateStatusClick(MaintenanceReport task) {
-                updateTaskStatus(task);
+                if (showingOpenTasks) {
+                    confirmClaim(task);
+                } else {
+                    updateTaskStatus(task);
+                }
             }
         });
 
@@ -119,14 +136,23 @@ public class AssignedTasksActivity extends AppCompatActivity {
                 Chip chip = findViewById(checkedIds.get(0));
                 selectedStatus = chip.getText().toString();
             }
-            filterTasksByStatus();
+
+            // Open tasks come from a different query
+            boolean open = selectedStatus.equals("Open");
+            if (open != showingOpenTasks) {
+                showingOpenTasks = open;
+                adapter.setClaimMode(open);
+                loadAssignedTasks();
+            } else {
+                filterTasksByStatus();
+            }
         });
     }
 
     private void filterTasksByStatus() {
         filteredTaskList.clear();
 
-        if (selectedStatus.equals("All")) {
+        if (isShowingAll()) {
             filteredTaskList.addAll(allTaskList);
         } else {
             for (MaintenanceReport task : allTaskList) {
@@ -139,60 +165,125 @@ public class AssignedTasksActivity extends AppCompatActivity {
         updateUI();
     }
 
-    private void setupFirebase() {
-        reportsRef = FirebaseDatabase.getInstance().getReference("reports");
-    }
-
     private void loadAssignedTasks() {
         showLoading(true);
 
-        // Remove old listener if exists
-        if (tasksListener != null) {
-            reportsRef.removeEventListener(tasksListener);
-        }
+        // Restart the engine (also used by pull to refresh)
+        stopSync();
+        int generation = ++loadGeneration;
+        allTaskList.clear();
+        // The engine replays from position 0, so the shown list must start empty too
+        filteredTaskList.clear();
+        adapter.notifyDataSetChanged();
 
-        // Query for tasks assigned to this technician
-        tasksListener = reportsRef.orderByChild("assignedTechnicianId").equalTo(technicianId)
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                        allTaskList.clear();
-
-                        if (!dataSnapshot.exists()) {
-                            Log.d(TAG, "No tasks found for technician: " + technicianId);
-                            runOnUiThread(() -> {
-                                updateUI();
-                                swipeRefreshLayout.setRefreshing(false);
-                                showLoading(false);
-                            });
-                            return;
-                        }
-
-                        for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                            MaintenanceReport report = snapshot.getValue(MaintenanceReport.class);
-                            if (report != null) {
-                                allTaskList.add(report);
-                            }
-                        }
-
-                        runOnUiThread(() -> {
-                            filterTasksByStatus();
-                            swipeRefreshLayout.setRefreshing(false);
-                            showLoading(false);
-                        });
+        ChildSyncEngine.Callback<MaintenanceReport> callback = new ChildSyncEngine.Callback<MaintenanceReport>() {
+            @Override
+            public void onInserted(int position, MaintenanceReport task) {
+                allTaskList.add(position, task);
+                if (isShowingAll()) {
+                    filteredTaskList.add(position, task);
+                    adapter.notifyItemInserted(position);
+                    if (filteredTaskList.size() == 1) {
+                        updateUI();
                     }
+                } else {
+                    filterTasksByStatus();
+                }
+            }
+
+            @Override
+            public void onUpdated(int position, MaintenanceReport task) {
+                allTaskList.set(position, task);
+                if (isShowingAll()) {
+                    filteredTaskList.set(position, task);
+                    adapter.notifyItemChanged(position);
+                } else {
+                    // Status changes move tasks in and out of the filtered view
+                    filterTasksByStatus();
+                }
+            }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError databaseError) {
-                        Log.e(TAG, "Firebase error: " + databaseError.getMessage());
-                        runOnUiThread(() -> {
-                            showLoading(false);
-                            swipeRefreshLayout.setRefreshing(false);
-                            Toast.makeText(AssignedTasksActivity.this,
-                                    "Failed to load tasks", Toast.LENGTH_SHORT).show();
-                        });
+            @Override
+            public void onMoved(int fromPosition, int toPosition, MaintenanceReport task) {
+                allTaskList.remove(fromPosition);
+                allTaskList.add(toPosition, task);
+                if (isShowingAll()) {
+                    filteredTaskList.remove(fromPosition);
+                    filteredTaskList.add(toPosition, task);
+                    adapter.notifyItemMoved(fromPosition, toPosition);
+                } else {
+                    filterTasksByStatus();
+                }
+            }
+
+            @Override
+            public void onRemoved(int position, MaintenanceReport task) {
+                allTaskList.remove(position);
+                if (isShowingAll()) {
+                    filteredTaskList.remove(position);
+                    adapter.notifyItemRemoved(position);
+                    if (filteredTaskList.isEmpty()) {
+                        updateUI();
                     }
-                });
+                } else {
+                    filterTasksByStatus();
+                }
+            }
+
+            @Override
+            public void onSynced() {
+                if (allTaskList.isEmpty()) {
+                    Log.d(TAG, "No tasks found for technician: " + technicianId);
+                }
+                filterTasksByStatus();
+                swipeRefreshLayout.setRefreshing(false);
+                showLoading(false);
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Firebase error: " + message);
+                showLoading(false);
+                swipeRefreshLayout.setRefreshing(false);
+                Toast.makeText(AssignedTasksActivity.this,
+                        "Failed to load tasks", Toast.LENGTH_SHORT).show();
+            }
+        };
+
+        if (showingOpenTasks) {
+            // Unassigned reports, live; full reports stand in until the
+            // summaries have been backfilled
+            ReportSummaries.whenReady(source -> {
+                if (generation != loadGeneration || isFinishing() || isDestroyed()) return;
+                Query query = source.byStatusByTime(ReportStatus.SUBMITTED.getLabel());
+                syncEngine = ChildSyncEngine.forReports(query);
+                syncEngine.start(callback);
+            });
+        } else {
+            // Own tasks from the local cache, plus whatever changed since
+            taskSync = DeltaSync.forTechnician(technicianId);
+            taskSync.start(callback);
+        }
+    }
+
+    private boolean isSyncing() {
+        return (syncEngine != null && syncEngine.isStarted())
+                || (taskSync != null && taskSync.isStarted());
+    }
+
+    private void stopSync() {
+        if (syncEngine != null) {
+            syncEngine.stop();
+            syncEngine = null;
+        }
+        if (taskSync != null) {
+            taskSync.stop();
+            taskSync = null;
+        }
+    }
+
+    private boolean isShowingAll() {
+        return selectedStatus.equals("All") || showingOpenTasks;
     }
 
     private void updateUI() {
@@ -247,17 +338,74 @@ public class AssignedTasksActivity extends AppCompatActivity {
         }
     }
 
+    private void confirmClaim(MaintenanceReport task) {
+        new AlertDialog.Builder(this)
+                .setTitle("Claim Task")
+                .setMessage("Take on this " + task.getCategory() + " issue in " +
+                        task.getBuildingBlock() + ", Room " + task.getRoomNumber() + "?")
+                .setPositiveButton("Claim", (dialog, which) -> claimTask(task))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void claimTask(MaintenanceReport task) {
+        String name = technicianName != null ? technicianName : "Technician";
+
+        ReportTransitions.Transition transition =
+                ReportTransitions.change(task, ReportStatus.ASSIGNED, technicianId, name)
+                        .set("assignedTechnicianId", technicianId)
+                        .set("assignedTechnicianName", name)
+                        .notes("Claimed by technician");
+
+        transition.notifyUser(
+                task.getReporterId(),
+                "👨‍🔧 Technician Assigned",
+                "Your " + task.getCategory() + " report has been taken by " + name,
+                NotificationUtils.Types.STATUS_UPDATE);
+        transition.notifyRole(
+                "admin",
+                "✅ Task Claimed",
+                name + " claimed " + task.getCategory() + " in " + task.getBuildingBlock(),
+                NotificationUtils.Types.ADMIN_ALERT);
+
+        // Fails fast if an admin or another technician got there first
+        ReportTransitions.claim(transition, this, new ReportTransitions.CommitListener() {
+            @Override
+            public void onCommitted() {
+                Toast.makeText(AssignedTasksActivity.this,
+                        "✅ Task claimed", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onFailure(String message) {
+                Log.e(TAG, "Claim failed: " + message);
+                Toast.makeText(AssignedTasksActivity.this,
+                        "❌ Claim failed: " + message, Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onConflict(MaintenanceReport current) {
+                String assignee = current != null ? current.getAssignedTechnicianName() : null;
+                Toast.makeText(AssignedTasksActivity.this,
+                        assignee != null ? "⚠️ Already taken by " + assignee
+                                : "⚠️ This task is no longer open",
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
-        loadAssignedTasks();
+        // The engine stays live while the activity exists; only restart it if needed
+        if (!isSyncing()) {
+            loadAssignedTasks();
+        }
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (tasksListener != null) {
-            reportsRef.removeEventListener(tasksListener);
-        }
+        stopSync();
     }
 }
\ No newline at end of file
@@ -23,18 +23,24 @@ import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.auth.LoginActivity;
 import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
 import com.hawassa.unifix.shared.NotificationsActivity;
 import com.hawassa.unifix.shared.ProfileActivity;
 import com.hawassa.unifix.shared.SettingsActivity;
+import com.hawassa.unifix.shared.utils.ModelMappers;
 import com.hawassa.unifix.shared.utils.NotificationBadgeManager;
+import com.hawassa.unifix.shared.utils.ReportSummaries;
+import com.hawassa.unifix.shared.utils.StatsCounters;
 import com.hawassa.unifix.technician.adapters.RecentTasksAdapter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class TechnicianDashboardActivity extends AppCompatActivity {
     private TextView tvAssignedTasks, tvCompletedTasks, tvInProgressTasks, tvWelcome;
-    private DatabaseReference reportsRef, usersRef;
+    private DatabaseReference usersRef;
+    private ValueEventListener statsListener;
     private String firebaseUid, customUserId, userRole, userName;
 
     // Add notification badge manager like Admin/Student dashboards
@@ -53,6 +59,8 @@ public class TechnicianDashboardActivity extends AppCompatActivity {
     private static final String EXTRA_USER_ROLE = "userRole";
     private static final String EXTRA_USER_NAME = "userName";
 
+    private static final int RECENT_TASKS_COUNT = 5;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -108,7 +116,6 @@ public class TechnicianDashboardActivity extends AppCompatActivity {
             rvRecentTasks.setAdapter(recentTasksAdapter);
         }
 
-        reportsRef = FirebaseDatabase.getInstance().getReference("reports");
         usersRef = FirebaseDatabase.getInstance().getReference("users");
 
         // Setup click listeners - use firebaseUid for technicianId
@@ -214,26 +221,21 @@ public class TechnicianDashboardActivity extends AppCompatActivity {
     }
 
     private void loadTechnicianStats() {
-        // Use firebaseUid to filter reports
-        reportsRef.orderByChild("assignedTechnicianId").equalTo(firebaseUid)
-                .addValueEventListener(new ValueEventListener() {
+        // Counters keyed by firebaseUid, same id the reports are assigned with
+        if (statsListener != null) {
+            StatsCounters.technicianRef(firebaseUid).removeEventListener(statsListener);
+        }
+
+
+        statsListener = StatsCounters.listen(StatsCounters.technicianRef(firebaseUid),
+                new StatsCounters.CountsListener() {
                     @Override
-                    public void onDataChange(DataSnapshot dataSnapshot) {
-                        int assigned = 0;
-                        int completed = 0;
-                        int inProgress = 0;
-
-                        for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                            MaintenanceReport report = snapshot.getValue(MaintenanceReport.class);
-                            if (report != null) {
-                                assigned++;
-                                if ("Completed".equals(report.getStatus())) {
-                                    completed++;
-                                } else if ("In Progress".equals(report.getStatus())) {
-                                    inProgress++;
-                                }
-                            }
-                        }
+                    public void onCounts(StatsCounters.Counts counts, boolean seeded) {
+                        long assigned = counts.getTotal();
+                        long completed = counts.get(ReportStatus.COMPLETED);
+                        // Started but not finished
+                        long inProgress = counts.get(ReportStatus.ACKNOWLEDGED)
+                                + counts.get(ReportStatus.IN_PROGRESS) + counts.get(ReportStatus.ON_HOLD);
 
                         tvAssignedTasks.setText(String.valueOf(assigned));
                         tvCompletedTasks.setText(String.valueOf(completed));
@@ -244,8 +246,8 @@ public class TechnicianDashboardActivity extends AppCompatActivity {
                     }
 
                     @Override
-                    public void onCancelled(DatabaseError databaseError) {
-                        Log.e("TECH_STATS", "Error loading stats: " + databaseError.getMessage());
+                    public void onError(String message) {
+                        Log.e("TECH_STATS", "Error loading stats: " + message);
                         Toast.makeText(TechnicianDashboardActivity.this,
                                 "Failed to load statistics", Toast.LENGTH_SHORT).show();
                     }
@@ -253,42 +255,59 @@ public class TechnicianDashboardActivity extends AppCompatActivity {
     }
 
     private void loadRecentTasks() {
-        reportsRef.orderByChild("assignedTechnicianId").equalTo(firebaseUid)
-                .limitToLast(5)
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        recentTasksList.clear();
-
-                        boolean hasTasks = false;
-                        for (DataSnapshot ds : snapshot.getChildren()) {
-                            MaintenanceReport report = ds.getValue(MaintenanceReport.class);
-                            if (report != null) {
-                                recentTasksList.add(0, report); // newest first
-                                hasTasks = true;
-                            }
-                        }
-
-                        if (recentTasksAdapter != null) {
-                            recentTasksAdapter.notifyDataSetChanged();
-                        }
-
-                        // Show/hide empty state message
-                        TextView tvNoTasks = findViewById(R.id.tvNoTasks);
-                        if (tvNoTasks != null) {
-                            if (hasTasks) {
-                                tvNoTasks.setVisibility(View.GONE);
-                            } else {
-                                tvNoTasks.setVisibility(View.VISIBLE);
-                            }
-                        }
-                    }
+        // Full reports stand in until the summaries have been backfilled
+        ReportSummaries.whenReady(this::loadRecentTasks);
+    }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e("RECENT_TASKS", "Error: " + error.getMessage());
+    private void loadRecentTasks(ReportSummaries.Source source) {
+        if (isFinishing() || isDestroyed()) return;
+
+        // Newest five by assignedTechnicianId_timestamp. The fallback query is
+        // in key order, which isn't time order, so it reads all the
+        // technician's reports and keeps the newest five below.
+        Query query = source.byTechnicianByTime(firebaseUid);
+        if (source.summaries) query = query.limitToLast(RECENT_TASKS_COUNT);
+        query.addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                recentTasksList.clear();
+
+                boolean hasTasks = false;
+                for (DataSnapshot ds : snapshot.getChildren()) {
+                    MaintenanceReport report = ModelMappers.toReport(ds);
+                    if (report != null) {
+                        recentTasksList.add(0, report); // newest first
+                        hasTasks = true;
                     }
-                });
+                }
+                if (!source.summaries) {
+                    Collections.sort(recentTasksList,
+                            (a, b) -> Long.compare(b.getTimestamp(), a.getTimestamp()));
+                    if (recentTasksList.size() > RECENT_TASKS_COUNT) {
+                        recentTasksList.subList(RECENT_TASKS_COUNT, recentTasksList.size()).clear();
+                    }
+                }
+
+                if (recentTasksAdapter != null) {
+                    recentTasksAdapter.notifyDataSetChanged();
+                }
+
+                // Show/hide empty state message
+                TextView tvNoTasks = findViewById(R.id.tvNoTasks);
+                if (tvNoTasks != null) {
+                    if (hasTasks) {
+                        tvNoTasks.setVisibility(View.GONE);
+                    } else {
+                        tvNoTasks.setVisibility(View.VISIBLE);
+                    }
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e("RECENT_TASKS", "Error: " + error.getMessage());
+            }
+        });
     }
 
     @Override
@@ -362,5 +381,8 @@ public class TechnicianDashboardActivity extends AppCompatActivity {
         if (notificationBadgeManager != null) {
             notificationBadgeManager.stopListening();
         }
+        if (statsListener != null) {
+            StatsCounters.technicianRef(firebaseUid).removeEventListener(statsListener);
+        }
     }
 }
\ No newline at end of file
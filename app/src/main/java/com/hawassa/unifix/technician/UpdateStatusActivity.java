@@ -9,10 +9,19 @@ import android.widget.*;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.google.firebase.database.*;
 import com.hawassa.unifix.R;
 import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.ReportStatus;
+import com.hawassa.unifix.models.StatusChange;
+import com.hawassa.unifix.shared.adapters.StatusHistoryAdapter;
+import com.hawassa.unifix.shared.utils.IdGenerator;
 import com.hawassa.unifix.shared.utils.NotificationUtils;
+import com.hawassa.unifix.shared.utils.ReportHistory;
+import com.hawassa.unifix.shared.utils.ReportSummaries;
+import com.hawassa.unifix.shared.utils.ReportTransitions;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
@@ -21,7 +30,8 @@ public class UpdateStatusActivity extends AppCompatActivity {
     private RadioGroup rgStatus;
     private EditText etNotes, etEstimatedCompletion, etRequiredTools;
     private Button btnUpdateStatus, btnCancel, btnNavigate;  // Added btnNavigate
-    private DatabaseReference reportsRef;
+    private RecyclerView rvStatusHistory;
+    private StatusHistoryAdapter historyAdapter;
     private String reportId, technicianId, technicianName, customUserId;
     private MaintenanceReport currentReport;
 
@@ -67,16 +77,20 @@ public class UpdateStatusActivity extends AppCompatActivity {
         }
 
         initializeViews();
-        reportsRef = FirebaseDatabase.getInstance().getReference("reports");
-
         loadReportDetails();
         setupClickListeners();
     }
 
     private void loadFirstAssignedReport() {
-        reportsRef = FirebaseDatabase.getInstance().getReference("reports");
+        // Full reports stand in until the summaries have been backfilled
+        ReportSummaries.whenReady(this::loadFirstAssignedReport);
+    }
+
+    private void loadFirstAssignedReport(ReportSummaries.Source source) {
+        if (isFinishing() || isDestroyed()) return;
 
-        reportsRef.orderByChild("assignedTechnicianId").equalTo(technicianId)
+        // Only the key is needed here; the details are loaded in full below
+        source.ref().orderByChild("assignedTechnicianId").equalTo(technicianId)
                 .limitToFirst(1) // Get first assigned report
                 .addListenerForSingleValueEvent(new ValueEventListener() {
                     @Override
@@ -88,7 +102,6 @@ public class UpdateStatusActivity extends AppCompatActivity {
 
                                 // Now initialize with this report
                                 initializeViews();
-                                reportsRef = FirebaseDatabase.getInstance().getReference("reports");
                                 loadReportDetails();
                                 setupClickListeners();
                                 return;
@@ -126,6 +139,11 @@ public class UpdateStatusActivity extends AppCompatActivity {
         btnCancel = findViewById(R.id.btnCancel);
         btnNavigate = findViewById(R.id.btnNavigate);  // Initialize navigation button
 
+        rvStatusHistory = findViewById(R.id.rvStatusHistory);
+        historyAdapter = new StatusHistoryAdapter();
+        rvStatusHistory.setLayoutManager(new LinearLayoutManager(this));
+        rvStatusHistory.setAdapter(historyAdapter);
+
         // Initialize radio buttons
         rbAcknowledged = findViewById(R.id.rbAcknowledged);
         rbInProgress = findViewById(R.id.rbInProgress);
@@ -148,38 +166,48 @@ public class UpdateStatusActivity extends AppCompatActivity {
             return;
         }
 
-        reportsRef.child(reportId).addListenerForSingleValueEvent(new ValueEventListener() {
+        // Old completed tasks may have been archived; loadFull finds them there
+        ReportSummaries.loadFull(reportId, new ReportSummaries.ReportListener() {
             @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
-                if (dataSnapshot.exists()) {
-                    currentReport = dataSnapshot.getValue(MaintenanceReport.class);
-                    if (currentReport != null) {
-                        // Verify this report is assigned to the current technician
-                        if (!technicianId.equals(currentReport.getAssignedTechnicianId())) {
-                            Toast.makeText(UpdateStatusActivity.this,
-                                    "This task is not assigned to you", Toast.LENGTH_LONG).show();
-                            finish();
-                            return;
-                        }
-
-                        displayReportDetails(currentReport);
-                        preSelectStatus(currentReport.getStatus());
+            public void onReport(MaintenanceReport report) {
+                currentReport = report;
 
-                        // Setup navigation button if location exists
-                        setupNavigationButton();
-                    }
-                } else {
+                // Verify this report is assigned to the current technician
+                if (!technicianId.equals(currentReport.getAssignedTechnicianId())) {
                     Toast.makeText(UpdateStatusActivity.this,
-                            "Report not found", Toast.LENGTH_SHORT).show();
+                            "This task is not assigned to you", Toast.LENGTH_LONG).show();
                     finish();
+                    return;
                 }
+
+                displayReportDetails(currentReport);
+                preSelectStatus(currentReport.getStatus());
+                loadStatusHistory();
+
+                // Setup navigation button if location exists
+                setupNavigationButton();
             }
 
             @Override
-            public void onCancelled(DatabaseError databaseError) {
+            public void onError(String message) {
                 Toast.makeText(UpdateStatusActivity.this,
-                        "Failed to load report: " + databaseError.getMessage(),
-                        Toast.LENGTH_SHORT).show();
+                        "Failed to load report: " + message, Toast.LENGTH_SHORT).show();
+                finish();
+            }
+        });
+    }
+
+    // History lives outside the report and is only read here
+    private void loadStatusHistory() {
+        ReportHistory.load(reportId, new ReportHistory.HistoryListener() {
+            @Override
+            public void onHistory(List<StatusChange> history) {
+                historyAdapter.setHistory(history);
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e("UPDATE_STATUS", "Failed to load history: " + message);
             }
         });
     }
@@ -298,48 +326,61 @@ public class UpdateStatusActivity extends AppCompatActivity {
     }
 
     private void preSelectStatus(String currentStatus) {
-        switch (currentStatus) {
-            case "Acknowledged":
+        ReportStatus status = ReportStatus.fromString(currentStatus);
+        if (status == null) {
+            Log.d("STATUS", "Unknown status: " + currentStatus);
+            return;
+        }
+
+        switch (status) {
+            case ACKNOWLEDGED:
                 rbAcknowledged.setChecked(true);
                 break;
-            case "In Progress":
+            case IN_PROGRESS:
                 rbInProgress.setChecked(true);
                 etEstimatedCompletion.setEnabled(true);
                 etRequiredTools.setEnabled(true);
                 break;
-            case "On Hold":
+            case ON_HOLD:
                 rbOnHold.setChecked(true);
                 etEstimatedCompletion.setEnabled(true);
                 etRequiredTools.setEnabled(true);
                 break;
-            case "Completed":
+            case COMPLETED:
                 rbCompleted.setChecked(true);
                 break;
-            case "Assigned":
-            case "Submitted":
-                // No radio button selected for initial statuses
-                break;
             default:
-                Log.d("STATUS", "Unknown status: " + currentStatus);
+                // No radio button selected for initial statuses
                 break;
         }
+
+        // Only offer the statuses this report can move to
+        rbAcknowledged.setEnabled(status.canTransitionTo(ReportStatus.ACKNOWLEDGED));
+        rbInProgress.setEnabled(status.canTransitionTo(ReportStatus.IN_PROGRESS));
+        rbOnHold.setEnabled(status.canTransitionTo(ReportStatus.ON_HOLD));
+        rbCompleted.setEnabled(status.canTransitionTo(ReportStatus.COMPLETED));
     }
 
-    private int getStatusColor(String status) {
+    private int getStatusColor(String statusValue) {
+        ReportStatus status = ReportStatus.fromString(statusValue);
+        if (status == null) {
+            return getResources().getColor(R.color.text_primary);
+        }
+
         switch (status) {
-            case "Submitted":
+            case SUBMITTED:
                 return getResources().getColor(R.color.status_submitted);
-            case "Acknowledged":
+            case ACKNOWLEDGED:
                 return getResources().getColor(R.color.primary_blue);
-            case "Assigned":
+            case ASSIGNED:
                 return getResources().getColor(R.color.status_assigned);
-            case "In Progress":
+            case IN_PROGRESS:
                 return getResources().getColor(R.color.status_in_progress);
-            case "On Hold":
+            case ON_HOLD:
                 return getResources().getColor(R.color.orange);
-            case "Completed":
+            case COMPLETED:
                 return getResources().getColor(R.color.status_completed);
-            case "Cancelled":
+            case CANCELLED:
                 return getResources().getColor(R.color.red);
             default:
                 return getResources().getColor(R.color.text_primary);
@@ -364,7 +405,7 @@ public class UpdateStatusActivity extends AppCompatActivity {
     }
 
     private void updateReportStatus() {
-        String newStatus = getSelectedStatus();
+        ReportStatus newStatus = getSelectedStatus();
         String notes = etNotes.getText().toString().trim();
         String estimatedCompletion = etEstimatedCompletion.getText().toString().trim();
         String requiredTools = etRequiredTools.getText().toString().trim();
@@ -375,113 +416,86 @@ public class UpdateStatusActivity extends AppCompatActivity {
         }
 
         // If status is In Progress or On Hold, estimated completion is required
-        if (("In Progress".equals(newStatus) || "On Hold".equals(newStatus)) && estimatedCompletion.isEmpty()) {
+        if ((newStatus == ReportStatus.IN_PROGRESS || newStatus == ReportStatus.ON_HOLD) && estimatedCompletion.isEmpty()) {
             Toast.makeText(this, "Please provide estimated completion date", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("status", newStatus);
-        updates.put("technicianNotes", notes);
+        ReportTransitions.Transition transition =
+                ReportTransitions.change(currentReport, newStatus, technicianId, technicianName)
+                        .set("technicianNotes", notes)
+                        .notes(notes);
 
         // Ensure technician info is set
         if (currentReport.getAssignedTechnicianId() == null || currentReport.getAssignedTechnicianId().isEmpty()) {
-            updates.put("assignedTechnicianId", technicianId);
+            transition.set("assignedTechnicianId", technicianId);
         }
 
         if (currentReport.getAssignedTechnicianName() == null || currentReport.getAssignedTechnicianName().isEmpty()) {
-            updates.put("assignedTechnicianName", technicianName);
+            transition.set("assignedTechnicianName", technicianName);
         }
 
-        // Add to status history
-        Map<String, Object> statusUpdate = new HashMap<>();
-        statusUpdate.put("status", newStatus);
-        statusUpdate.put("timestamp", System.currentTimeMillis());
-        statusUpdate.put("changedBy", technicianName);
-        statusUpdate.put("notes", notes);
-
-        updates.put("statusHistory/" + System.currentTimeMillis(), statusUpdate);
-
-        // Update timestamp based on status
-        if ("Completed".equals(newStatus)) {
-            updates.put("completedTimestamp", System.currentTimeMillis());
-        }
+        addStatusUpdateNotifications(transition, newStatus);
 
-        reportsRef.child(reportId).updateChildren(updates)
-                .addOnSuccessListener(aVoid -> {
-                    // Send notification to reporter
-                    sendStatusUpdateNotification(newStatus);
+        // Report fields, history, counters and notifications in one write
+        btnUpdateStatus.setEnabled(false);
+        ReportTransitions.commit(transition, this, new ReportTransitions.CommitListener() {
+            @Override
+            public void onCommitted() {
+                Toast.makeText(UpdateStatusActivity.this,
+                        "Status updated successfully!", Toast.LENGTH_SHORT).show();
+                finish();
+            }
 
-                    Toast.makeText(this, "Status updated successfully!", Toast.LENGTH_SHORT).show();
-                    finish();
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("UPDATE_STATUS", "Failed to update: " + e.getMessage());
-                    Toast.makeText(this,
-                            "Failed to update status: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                });
+            @Override
+            public void onFailure(String message) {
+                Log.e("UPDATE_STATUS", "Failed to update: " + message);
+                btnUpdateStatus.setEnabled(true);
+                Toast.makeText(UpdateStatusActivity.this,
+                        "Failed to update status: " + message, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
-    private String getSelectedStatus() {
+    private ReportStatus getSelectedStatus() {
         int selectedId = rgStatus.getCheckedRadioButtonId();
 
         if (selectedId == R.id.rbAcknowledged) {
-            return "Acknowledged";
+            return ReportStatus.ACKNOWLEDGED;
         } else if (selectedId == R.id.rbInProgress) {
-            return "In Progress";
+            return ReportStatus.IN_PROGRESS;
         } else if (selectedId == R.id.rbOnHold) {
-            return "On Hold";
+            return ReportStatus.ON_HOLD;
         } else if (selectedId == R.id.rbCompleted) {
-            return "Completed";
+            return ReportStatus.COMPLETED;
         }
 
         return null;
     }
 
-    private void sendStatusUpdateNotification(String newStatus) {
-        if (currentReport != null) {
-            // Send notification to reporter
-            String message = "Your maintenance report for " + currentReport.getCategory() +
-                    " has been updated to: " + newStatus;
-
-            // Using NotificationUtils - make sure senderId and senderName are correct
-            NotificationUtils.sendNotification(
-                    currentReport.getReporterId(),
-                    "Status Updated: " + currentReport.getCategory(),
-                    message,
-                    NotificationUtils.Types.STATUS_UPDATE,
-                    reportId,
-                    technicianId,
-                    technicianName,
-                    UpdateStatusActivity.this
-            );
-
-            // Also notify admin
-            NotificationUtils.sendNotificationToRole(
-                    "admin",
-                    "Report Status Updated",
-                    technicianName + " updated Report #" +
-                            (reportId.length() > 8 ? reportId.substring(0, 8) : reportId) +
-                            " to: " + newStatus,
-                    NotificationUtils.Types.STATUS_UPDATE,
-                    reportId,
-                    technicianId,
-                    technicianName,
-                    UpdateStatusActivity.this
-            );
-
-            // Also notify the technician (optional)
-            NotificationUtils.sendNotification(
-                    technicianId,
-                    "Status Update Confirmation",
-                    "You updated report #" + (reportId.length() > 8 ? reportId.substring(0, 8) : reportId) +
-                            " to: " + newStatus,
-                    NotificationUtils.Types.STATUS_UPDATE,
-                    reportId,
-                    "system",
-                    "System",
-                    UpdateStatusActivity.this
-            );
-        }
+    private void addStatusUpdateNotifications(ReportTransitions.Transition transition, ReportStatus newStatus) {
+        String shortId = IdGenerator.shortForm(reportId);
+
+        // Notify the reporter
+        transition.notifyUser(
+                currentReport.getReporterId(),
+                "Status Updated: " + currentReport.getCategory(),
+                "Your maintenance report for " + currentReport.getCategory() +
+                        " has been updated to: " + newStatus,
+                NotificationUtils.Types.STATUS_UPDATE);
+
+        // Also notify admin
+        transition.notifyRole(
+                "admin",
+                "Report Status Updated",
+                technicianName + " updated Report #" + shortId + " to: " + newStatus,
+                NotificationUtils.Types.STATUS_UPDATE);
+
+        // Also notify the technician (optional)
+        transition.notifyUser(
+                technicianId,
+                "Status Update Confirmation",
+                "You updated report #" + shortId + " to: " + newStatus,
+                NotificationUtils.Types.STATUS_UPDATE);
     }
 }
\ No newline at end of file
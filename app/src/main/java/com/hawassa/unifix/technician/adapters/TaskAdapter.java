@@ -21,6 +21,7 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.ViewHolder> {
 
     private List<MaintenanceReport> taskList;
     private OnTaskClickListener listener;
+    private boolean claimMode;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM yyyy", Locale.getDefault());
 
     public interface OnTaskClickListener {
@@ -33,6 +34,16 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.ViewHolder> {
         this.listener = listener;
     }
 
+    /**
+     * Open (unassigned) tasks show a claim button instead of update status
+     */
+    public void setClaimMode(boolean claimMode) {
+        if (this.claimMode != claimMode) {
+            this.claimMode = claimMode;
+            notifyDataSetChanged();
+        }
+    }
+
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -56,6 +67,8 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.ViewHolder> {
             holder.tvDate.setText(dateFormat.format(new Date(task.getTimestamp())));
         }
 
+        holder.btnUpdateStatus.setText(claimMode ? "Claim Task" : "Update Status");
+
         // Set click listeners
         holder.itemView.setOnClickListener(v -> {
             if (listener != null) {
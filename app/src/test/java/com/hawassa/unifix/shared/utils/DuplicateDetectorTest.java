@@ -0,0 +1,70 @@
+package com.hawassa.unifix.shared.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Location keys and MinHash similarity behind DuplicateDetector.findMatches
+ */
+public class DuplicateDetectorTest {
+
+    @Test
+    public void locationKey_normalizesCaseAndSpacing() {
+        assertEquals("block 3|12|electrical",
+                DuplicateDetector.locationKey("Block 3 ", " 12", "Electrical"));
+        assertEquals(DuplicateDetector.locationKey("Block 3", "12", "Electrical"),
+                DuplicateDetector.locationKey("  block   3", "12\t", "ELECTRICAL"));
+    }
+
+    @Test
+    public void locationKey_keepsPartsApart() {
+        assertNotEquals(DuplicateDetector.locationKey("Block 3", "12", "Electrical"),
+                DuplicateDetector.locationKey("Block 3", "12", "Plumbing"));
+        assertNotEquals(DuplicateDetector.locationKey("Block 31", "2", ""),
+                DuplicateDetector.locationKey("Block 3", "12", ""));
+        assertEquals("||", DuplicateDetector.locationKey(null, null, null));
+    }
+
+    @Test
+    public void similarity_isOneForTheSameText() {
+        int[] a = DuplicateDetector.signature("The ceiling light keeps flickering");
+        int[] b = DuplicateDetector.signature("The ceiling light keeps flickering");
+        assertEquals(1.0, DuplicateDetector.similarity(a, b), 0);
+    }
+
+    @Test
+    public void similarity_ignoresCaseAndPunctuation() {
+        int[] a = DuplicateDetector.signature("Water leaking under the sink!!");
+        int[] b = DuplicateDetector.signature("water, leaking under the SINK");
+        assertEquals(1.0, DuplicateDetector.similarity(a, b), 0);
+    }
+
+    @Test
+    public void similarity_separatesRelatedFromUnrelated() {
+        int[] original = DuplicateDetector.signature("The projector in the lecture hall does not turn on");
+        int[] reworded = DuplicateDetector.signature("Projector in lecture hall won't turn on");
+        int[] unrelated = DuplicateDetector.signature("Broken chair leg near the window");
+
+        double related = DuplicateDetector.similarity(original, reworded);
+        double other = DuplicateDetector.similarity(original, unrelated);
+
+        assertTrue("related " + related, related >= DuplicateDetector.SIMILARITY_THRESHOLD);
+        assertTrue("unrelated " + other, other < DuplicateDetector.SIMILARITY_THRESHOLD);
+        assertTrue(related > other);
+    }
+
+    @Test
+    public void similarity_isZeroWhenBothAreEmpty() {
+        int[] empty = DuplicateDetector.signature("");
+        assertEquals(0.0, DuplicateDetector.similarity(empty, DuplicateDetector.signature(null)), 0);
+        assertEquals(0.0, DuplicateDetector.similarity(empty,
+                DuplicateDetector.signature("Socket sparks")), 0);
+    }
+
+    @Test
+    public void similarity_handlesTextShorterThanAShingle() {
+        int[] a = DuplicateDetector.signature("ac");
+        assertEquals(1.0, DuplicateDetector.similarity(a, DuplicateDetector.signature("AC")), 0);
+    }
+}
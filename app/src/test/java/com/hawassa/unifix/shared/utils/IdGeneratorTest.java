@@ -0,0 +1,141 @@
+package com.hawassa.unifix.shared.utils;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Ordering and decoding of IdGenerator ids.
+ *
+ * The generator's (time, seq) state is shared by the whole process and
+ * only moves forward, so tests that pin the time pick one ahead of
+ * anything handed out before them.
+ */
+public class IdGeneratorTest {
+    private static final String PREFIX = "REP-";
+    private static final int SEQ_PER_MS = 1 << 15;
+
+    @Test
+    public void next_isStrictlyIncreasingWithinABurst() {
+        Set<String> seen = new HashSet<>();
+        String previous = IdGenerator.next(PREFIX);
+        seen.add(previous);
+
+        for (int i = 0; i < 10000; i++) {
+            String id = IdGenerator.next(PREFIX);
+            assertTrue(previous + " !< " + id, previous.compareTo(id) < 0);
+            assertTrue(seen.add(id));
+            assertEquals(PREFIX.length() + IdGenerator.ID_LENGTH, id.length());
+            previous = id;
+        }
+    }
+
+    @Test
+    public void keys_sortByTime() {
+        // Includes carries from one base32 digit into the next
+        long[] times = {0, 1, 31, 32, 1023, 1024, 1_700_000_000_000L, 1_700_000_000_001L, (1L << 48) - 1};
+        for (int i = 1; i < times.length; i++) {
+            assertTrue(IdGenerator.idAt(PREFIX, times[i - 1]).compareTo(IdGenerator.idAt(PREFIX, times[i])) < 0);
+            assertTrue(IdGenerator.keyAt(PREFIX, times[i - 1]).compareTo(IdGenerator.keyAt(PREFIX, times[i])) < 0);
+        }
+    }
+
+    @Test
+    public void next_sortsAfterKeyAtItsTime() {
+        long time = aheadOfGenerator();
+        String id = IdGenerator.next(PREFIX, time);
+
+        assertTrue(IdGenerator.keyAt(PREFIX, time).compareTo(id) <= 0);
+        assertTrue(IdGenerator.idAt(PREFIX, time).compareTo(id) <= 0);
+        assertTrue(id.compareTo(IdGenerator.keyAt(PREFIX, time + 1)) < 0);
+    }
+
+    @Test
+    public void sequenceOverflow_carriesIntoNextMillisecond() {
+        long time = aheadOfGenerator();
+        String previous = null;
+        for (int i = 0; i < SEQ_PER_MS; i++) {
+            String id = IdGenerator.next(PREFIX, time);
+            assertEquals(time, IdGenerator.timestampOf(id));
+            if (previous != null) assertTrue(previous.compareTo(id) < 0);
+            previous = id;
+        }
+
+        // The sequence is full, so the same millisecond moves on to the next one
+        String carried = IdGenerator.next(PREFIX, time);
+        assertEquals(time + 1, IdGenerator.timestampOf(carried));
+        assertTrue(previous.compareTo(carried) < 0);
+
+        // ...and a clock that is still behind keeps counting from there
+        String next = IdGenerator.next(PREFIX, time);
+        assertEquals(time + 1, IdGenerator.timestampOf(next));
+        assertTrue(carried.compareTo(next) < 0);
+    }
+
+    @Test
+    public void next_neverGoesBackWithTheClock() {
+        long time = aheadOfGenerator();
+        String later = IdGenerator.next(PREFIX, time);
+        String earlier = IdGenerator.next(PREFIX, time - 60_000);
+
+        assertTrue(later.compareTo(earlier) < 0);
+        assertEquals(time, IdGenerator.timestampOf(earlier));
+    }
+
+    @Test
+    public void timestampOf_readsTheTimeBack() {
+        long before = IdGenerator.serverNow();
+        String id = IdGenerator.next(PREFIX);
+        assertTrue(IdGenerator.timestampOf(id) >= before);
+
+        long time = 1_700_000_123_456L;
+        assertEquals(time, IdGenerator.timestampOf(IdGenerator.idAt(PREFIX, time)));
+        assertEquals(time, IdGenerator.timestampOf(IdGenerator.idAt("", time)));
+        assertEquals(time, IdGenerator.timestampOf(IdGenerator.idAt("FDB-", time)));
+    }
+
+    @Test
+    public void timestampOf_isMinusOneForOlderIds() {
+        assertEquals(-1, IdGenerator.timestampOf(null));
+        assertEquals(-1, IdGenerator.timestampOf("REP-20240101-1234"));
+        assertEquals(-1, IdGenerator.timestampOf("FDB-1700000000000123"));
+        // Right length, but I, L, O and U are not in the alphabet
+        assertEquals(-1, IdGenerator.timestampOf("REP-ILOUILOUILOUILOUILOUI"));
+    }
+
+    @Test
+    public void idAt_hasZeroSequenceAndNode() {
+        String id = IdGenerator.idAt(PREFIX, 1_700_000_000_000L);
+
+        assertEquals(PREFIX.length() + IdGenerator.ID_LENGTH, id.length());
+        assertTrue(id.startsWith(IdGenerator.keyAt(PREFIX, 1_700_000_000_000L)));
+        assertTrue(id.endsWith("00000000000"));
+    }
+
+    @Test
+    public void shortForm_usesTimeTailAndSequence() {
+        long time = aheadOfGenerator();
+        String first = IdGenerator.next(PREFIX, time);
+        String second = IdGenerator.next(PREFIX, time);
+
+        String shortFirst = IdGenerator.shortForm(first);
+        assertEquals(8, shortFirst.length());
+        assertEquals(first.substring(PREFIX.length() + 5, PREFIX.length() + 13), shortFirst);
+        assertNotEquals(shortFirst, IdGenerator.shortForm(second));
+    }
+
+    @Test
+    public void shortForm_keepsOlderIdsReadable() {
+        assertEquals("", IdGenerator.shortForm(null));
+        assertEquals("abc", IdGenerator.shortForm("abc"));
+        assertEquals("REP-2024", IdGenerator.shortForm("REP-20240101-1234"));
+    }
+
+    // A time later than any id made so far, so next(prefix, time) uses it as is
+    private static long aheadOfGenerator() {
+        return IdGenerator.timestampOf(IdGenerator.next(PREFIX)) + 60_000;
+    }
+}
@@ -0,0 +1,154 @@
+package com.hawassa.unifix.shared.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks IndexedPriorityQueue's order and the callbacks it sends, by
+ * replaying them onto a plain list the way a RecyclerView adapter would.
+ */
+public class IndexedPriorityQueueTest {
+    private final List<String> events = new ArrayList<>();
+    private final List<String> mirror = new ArrayList<>();
+    private IndexedPriorityQueue<String> queue;
+
+    @Before
+    public void setUp() {
+        queue = new IndexedPriorityQueue<>(new ChildSyncEngine.Callback<String>() {
+            @Override
+            public void onInserted(int position, String item) {
+                events.add("insert " + item + "@" + position);
+                mirror.add(position, item);
+            }
+
+            @Override
+            public void onUpdated(int position, String item) {
+                events.add("update " + item + "@" + position);
+                mirror.set(position, item);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition, String item) {
+                events.add("move " + item + "@" + fromPosition + "->" + toPosition);
+                mirror.add(toPosition, mirror.remove(fromPosition));
+            }
+
+            @Override
+            public void onRemoved(int position, String item) {
+                events.add("remove " + item + "@" + position);
+                mirror.remove(position);
+            }
+        });
+    }
+
+    @Test
+    public void upsert_insertsInDescendingPriority() {
+        assertEquals(0, queue.upsert("a", "A", 1));
+        assertEquals(0, queue.upsert("b", "B", 3));
+        assertEquals(1, queue.upsert("c", "C", 2));
+
+        assertEquals(Arrays.asList("b", "c", "a"), queue.keys());
+        assertEquals(Arrays.asList("B", "C", "A"), mirror);
+        assertEquals("B", queue.peek());
+        assertEquals(Arrays.asList("insert A@0", "insert B@0", "insert C@1"), events);
+    }
+
+    @Test
+    public void upsert_samePriorityOnlyUpdates() {
+        queue.upsert("a", "A", 1);
+        queue.upsert("b", "B", 2);
+        events.clear();
+
+        assertEquals(1, queue.upsert("a", "A2", 1));
+
+        assertEquals(Arrays.asList("update A2@1"), events);
+        assertEquals(Arrays.asList("B", "A2"), mirror);
+        assertEquals("A2", queue.getByKey("a"));
+    }
+
+    @Test
+    public void upsert_newPriorityMovesThenUpdates() {
+        queue.upsert("a", "A", 1);
+        queue.upsert("b", "B", 2);
+        queue.upsert("c", "C", 3);
+        events.clear();
+
+        assertEquals(0, queue.upsert("a", "A2", 5));
+
+        assertEquals(Arrays.asList("move A2@2->0", "update A2@0"), events);
+        assertEquals(Arrays.asList("a", "c", "b"), queue.keys());
+        assertEquals(Arrays.asList("A2", "C", "B"), mirror);
+        assertEquals(5, queue.getPriority("a"), 0);
+    }
+
+    @Test
+    public void upsert_newPriorityInSamePlaceDoesNotMove() {
+        queue.upsert("a", "A", 1);
+        queue.upsert("b", "B", 5);
+        events.clear();
+
+        assertEquals(1, queue.upsert("a", "A", 2));
+
+        assertEquals(Arrays.asList("update A@1"), events);
+        assertEquals(Arrays.asList("b", "a"), queue.keys());
+    }
+
+    @Test
+    public void remove_dropsOnlyThatItem() {
+        queue.upsert("a", "A", 1);
+        queue.upsert("b", "B", 2);
+        queue.upsert("c", "C", 3);
+        events.clear();
+
+        assertTrue(queue.remove("b"));
+        assertFalse(queue.remove("b"));
+
+        assertEquals(Arrays.asList("remove B@1"), events);
+        assertEquals(Arrays.asList("c", "a"), queue.keys());
+        assertEquals(Arrays.asList("C", "A"), mirror);
+        assertFalse(queue.contains("b"));
+        assertNull(queue.getPriority("b"));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void ties_areOrderedByKey() {
+        queue.upsert("c", "C", 1);
+        queue.upsert("a", "A", 1);
+        queue.upsert("b", "B", 1);
+
+        assertEquals(Arrays.asList("a", "b", "c"), queue.keys());
+
+        // Moving into a tie lands by key, and leaving one keeps the rest in order
+        queue.upsert("z", "Z", 2);
+        queue.upsert("z", "Z", 1);
+        queue.upsert("a", "A", 0);
+
+        assertEquals(Arrays.asList("b", "c", "z", "a"), queue.keys());
+        assertEquals(Arrays.asList("B", "C", "Z", "A"), mirror);
+    }
+
+    @Test
+    public void manyChanges_keepMirrorInSync() {
+        String[] keys = {"r1", "r2", "r3", "r4", "r5", "r6"};
+        double[][] rounds = {{3, 1, 4, 1, 5, 9}, {2, 6, 5, 3, 5, 8}, {9, 7, 9, 3, 2, 3}};
+        for (double[] priorities : rounds) {
+            for (int i = 0; i < keys.length; i++) {
+                queue.upsert(keys[i], keys[i], priorities[i]);
+            }
+            assertEquals(queue.keys(), mirror);
+            for (int i = 1; i < queue.size(); i++) {
+                double before = queue.getPriority(queue.getKey(i - 1));
+                double after = queue.getPriority(queue.getKey(i));
+                assertTrue(before > after || (before == after
+                        && queue.getKey(i - 1).compareTo(queue.getKey(i)) < 0));
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.hawassa.unifix.shared.utils;
+
+import com.google.firebase.database.core.utilities.encoding.CustomClassMapper;
+import com.hawassa.unifix.models.Feedback;
+import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.Notification;
+import com.hawassa.unifix.models.User;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * Prints decode throughput and bytes allocated per object for ModelMappers
+ * and Firebase's reflective CustomClassMapper, on ModelMappersTest's
+ * fixtures. Timings are printed, not asserted, so it is left out of the
+ * normal test run; ModelMappersTest checks the two decode the same.
+ *
+ * Run it by removing @Ignore locally, then:
+ *   ./gradlew :app:testDebugUnitTest --tests '*ModelMappersBenchmark*' -i
+ */
+@Ignore("Benchmark, run by hand; see the class comment")
+public class ModelMappersBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Test
+    public void benchmark_reflectiveVsMappers() {
+        compare("MaintenanceReport", ModelMappersTest.reportMaps(),
+                raw -> CustomClassMapper.convertToCustomClass(raw, MaintenanceReport.class),
+                ModelMappers::reportFromMap);
+        compare("User", ModelMappersTest.userMaps(),
+                raw -> CustomClassMapper.convertToCustomClass(raw, User.class),
+                ModelMappers::userFromMap);
+        compare("Notification", ModelMappersTest.notificationMaps(),
+                raw -> CustomClassMapper.convertToCustomClass(raw, Notification.class),
+                ModelMappers::notificationFromMap);
+        compare("Feedback", ModelMappersTest.feedbackMaps(),
+                raw -> CustomClassMapper.convertToCustomClass(raw, Feedback.class),
+                ModelMappers::feedbackFromMap);
+    }
+
+    private void compare(String name, List<Map<String, Object>> maps,
+                         Function<Map<String, Object>, Object> reflective,
+                         Function<Map<String, Object>, Object> mapper) {
+        Result reflectiveResult = measure(maps, reflective);
+        Result mapperResult = measure(maps, mapper);
+
+        System.out.printf("%-18s reflective: %8.0f obj/ms %6d B/obj | mapper: %8.0f obj/ms %6d B/obj%n",
+                name, reflectiveResult.perMs, reflectiveResult.bytesPerObject,
+                mapperResult.perMs, mapperResult.bytesPerObject);
+    }
+
+    private static class Result {
+        final double perMs;
+        final long bytesPerObject;
+
+        Result(double perMs, long bytesPerObject) {
+            this.perMs = perMs;
+            this.bytesPerObject = bytesPerObject;
+        }
+    }
+
+    private Result measure(List<Map<String, Object>> maps, Function<Map<String, Object>, Object> decode) {
+        Object sink = null;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            for (Map<String, Object> raw : maps) sink = decode.apply(raw);
+        }
+
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            for (Map<String, Object> raw : maps) sink = decode.apply(raw);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytesAfter = allocatedBytes();
+
+        assertNotNull(sink);
+        long objects = (long) maps.size() * MEASURED_ROUNDS;
+        long bytesPerObject = bytesBefore >= 0 && bytesAfter >= 0 ? (bytesAfter - bytesBefore) / objects : -1;
+        return new Result(objects / (elapsed / 1_000_000.0), bytesPerObject);
+    }
+
+    // -1 when the JVM can't report per-thread allocation
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,201 @@
+package com.hawassa.unifix.shared.utils;
+
+import com.google.firebase.database.core.utilities.encoding.CustomClassMapper;
+import com.hawassa.unifix.models.Feedback;
+import com.hawassa.unifix.models.MaintenanceReport;
+import com.hawassa.unifix.models.Notification;
+import com.hawassa.unifix.models.User;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that ModelMappers decodes the same values as Firebase's reflective
+ * CustomClassMapper (what DataSnapshot.getValue(X.class) uses) on the same
+ * raw value maps. The fixtures are shared with ModelMappersBenchmark.
+ */
+public class ModelMappersTest {
+    private static final int SAMPLES = 2000;
+
+    private static final String[] STATUSES = {"Submitted", "Assigned", "In Progress", "Completed"};
+    private static final String[] CATEGORIES = {"Electrical", "Plumbing", "Furniture", "Network"};
+    private static final String[] BLOCKS = {"Block 1", "Block 2", "Block 3"};
+    private static final String[] TECHNICIANS = {"Abebe Kebede", "Sara Tadesse", "Dawit Alemu"};
+
+    @Test
+    public void reportMapper_matchesReflectiveMapper() {
+        for (Map<String, Object> raw : reportMaps()) {
+            MaintenanceReport expected = CustomClassMapper.convertToCustomClass(raw, MaintenanceReport.class);
+            MaintenanceReport actual = ModelMappers.reportFromMap(raw);
+
+            assertEquals(expected.getReportId(), actual.getReportId());
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertEquals(expected.getCategory(), actual.getCategory());
+            assertEquals(expected.getBuildingBlock(), actual.getBuildingBlock());
+            assertEquals(expected.getTimestamp(), actual.getTimestamp());
+            assertEquals(expected.getAssignedTechnicianName(), actual.getAssignedTechnicianName());
+            assertEquals(expected.getCompletedTimestamp(), actual.getCompletedTimestamp());
+            assertEquals(expected.getReportLatitude(), actual.getReportLatitude());
+        }
+    }
+
+    @Test
+    public void userMapper_matchesReflectiveMapper() {
+        for (Map<String, Object> raw : userMaps()) {
+            User expected = CustomClassMapper.convertToCustomClass(raw, User.class);
+            User actual = ModelMappers.userFromMap(raw);
+
+            assertEquals(expected.getFirebaseUid(), actual.getFirebaseUid());
+            assertEquals(expected.getUserId(), actual.getUserId());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getRole(), actual.getRole());
+            assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+            assertEquals(expected.getStatus(), actual.getStatus());
+        }
+    }
+
+    @Test
+    public void notificationMapper_matchesReflectiveMapper() {
+        for (Map<String, Object> raw : notificationMaps()) {
+            Notification expected = CustomClassMapper.convertToCustomClass(raw, Notification.class);
+            Notification actual = ModelMappers.notificationFromMap(raw);
+
+            assertEquals(expected.getNotificationId(), actual.getNotificationId());
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getType(), actual.getType());
+            assertEquals(expected.getReportId(), actual.getReportId());
+            assertEquals(expected.isRead(), actual.isRead());
+            assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        }
+    }
+
+    @Test
+    public void feedbackMapper_matchesReflectiveMapper() {
+        for (Map<String, Object> raw : feedbackMaps()) {
+            Feedback expected = CustomClassMapper.convertToCustomClass(raw, Feedback.class);
+            Feedback actual = ModelMappers.feedbackFromMap(raw);
+
+            assertEquals(expected.getFeedbackId(), actual.getFeedbackId());
+            assertEquals(expected.getReportId(), actual.getReportId());
+            assertEquals(expected.getRating(), actual.getRating(), 0);
+            assertEquals(expected.getFeedbackType(), actual.getFeedbackType());
+            assertEquals(expected.getTimestamp(), actual.getTimestamp());
+            assertEquals(expected.isRequiresFollowUp(), actual.isRequiresFollowUp());
+        }
+    }
+
+    @Test
+    public void reportMapper_internsRepeatedStrings() {
+        List<Map<String, Object>> maps = reportMaps();
+        MaintenanceReport first = ModelMappers.reportFromMap(maps.get(0));
+        MaintenanceReport again = ModelMappers.reportFromMap(maps.get(STATUSES.length * CATEGORIES.length));
+
+        assertSame(first.getStatus(), again.getStatus());
+        assertSame(first.getCategory(), again.getCategory());
+    }
+
+    @Test
+    public void toMap_roundTrips() {
+        for (Map<String, Object> raw : reportMaps()) {
+            MaintenanceReport report = ModelMappers.reportFromMap(raw);
+            MaintenanceReport copy = ModelMappers.reportFromMap(ModelMappers.toMap(report));
+            assertEquals(report.getReportId(), copy.getReportId());
+            assertEquals(report.getStatus(), copy.getStatus());
+            assertEquals(report.getTimestamp(), copy.getTimestamp());
+        }
+    }
+
+    // Fixtures only use properties the models have setters for, as the
+    // reflective mapper logs a warning (through android.util.Log) otherwise
+
+    static List<Map<String, Object>> reportMaps() {
+        List<Map<String, Object>> maps = new ArrayList<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            Map<String, Object> raw = new HashMap<>();
+            raw.put("reportId", "report" + i);
+            raw.put("reporterId", "student" + (i % 50));
+            raw.put("reporterName", "Student " + (i % 50));
+            // new String() so interning has real duplicates to fold
+            raw.put("buildingBlock", new String(BLOCKS[i % BLOCKS.length]));
+            raw.put("roomNumber", String.valueOf(100 + i % 30));
+            raw.put("category", new String(CATEGORIES[i % CATEGORIES.length]));
+            raw.put("description", "Description of issue " + i);
+            raw.put("status", new String(STATUSES[(i / CATEGORIES.length) % STATUSES.length]));
+            raw.put("timestamp", 1_700_000_000_000L + i * 1000L);
+            if (i % 2 == 0) {
+                raw.put("assignedTechnicianId", "tech" + (i % TECHNICIANS.length));
+                raw.put("assignedTechnicianName", new String(TECHNICIANS[i % TECHNICIANS.length]));
+            }
+            if (i % 4 == 0) {
+                raw.put("completedTimestamp", 1_700_000_500_000L + i);
+            }
+            raw.put("reportLatitude", 7.05 + i * 1e-5);
+            raw.put("reportLongitude", 38.47 + i * 1e-5);
+            maps.add(raw);
+        }
+        return maps;
+    }
+
+    static List<Map<String, Object>> userMaps() {
+        List<Map<String, Object>> maps = new ArrayList<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            Map<String, Object> raw = new HashMap<>();
+            raw.put("firebaseUid", "uid" + i);
+            raw.put("userId", "HU" + i);
+            raw.put("name", "User " + i);
+            raw.put("email", "user" + i + "@hu.edu.et");
+            raw.put("phone", "09" + (10000000 + i));
+            raw.put("role", i % 10 == 0 ? "technician" : "student");
+            raw.put("createdAt", 1_690_000_000_000L + i);
+            raw.put("status", "active");
+            maps.add(raw);
+        }
+        return maps;
+    }
+
+    static List<Map<String, Object>> notificationMaps() {
+        List<Map<String, Object>> maps = new ArrayList<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            Map<String, Object> raw = new HashMap<>();
+            raw.put("notificationId", "notif" + i);
+            raw.put("userId", "admin");
+            raw.put("title", "New Report Submitted");
+            raw.put("message", "A new report was submitted: " + i);
+            raw.put("type", "new_report");
+            raw.put("reportId", "report" + i);
+            raw.put("senderId", "student" + (i % 50));
+            raw.put("senderName", "Student " + (i % 50));
+            raw.put("read", i % 3 == 0);
+            raw.put("timestamp", 1_700_000_000_000L + i);
+            maps.add(raw);
+        }
+        return maps;
+    }
+
+    static List<Map<String, Object>> feedbackMaps() {
+        List<Map<String, Object>> maps = new ArrayList<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            Map<String, Object> raw = new HashMap<>();
+            raw.put("feedbackId", "feedback" + i);
+            raw.put("reportId", "report" + i);
+            raw.put("userId", "student" + (i % 50));
+            raw.put("userName", "Student " + (i % 50));
+            raw.put("reportTitle", CATEGORIES[i % CATEGORIES.length]);
+            raw.put("reportStatus", "Completed");
+            raw.put("rating", (double) (i % 5 + 1));
+            raw.put("comments", "Comment " + i);
+            raw.put("feedbackType", "acknowledgement");
+            raw.put("timestamp", 1_700_000_000_000L + i);
+            raw.put("acknowledged", false);
+            raw.put("requiresFollowUp", i % 7 == 0);
+            maps.add(raw);
+        }
+        return maps;
+    }
+}